@@ -348,40 +348,42 @@ public static int hash(long[] payload) {
    @Override
    public int hash(int hashcode) {
       // Obtained by inlining MurmurHash3_x64_32(byte[], 9001) and removing all the unused code
-      // (since we know the input is always 4 bytes and we only need 4 bytes of output)
+      // (since we know the input is always 4 bytes and we only need 4 bytes of output).
+      // The state is kept in locals so that hashing the boxed primitive keys doesn't allocate
       byte b0 = (byte) hashcode;
       byte b1 = (byte) (hashcode >>> 8);
       byte b2 = (byte) (hashcode >>> 16);
       byte b3 = (byte) (hashcode >>> 24);
-      State state = new State();
 
-      state.h1 = 0x9368e53c2f6af274L ^ 9001;
-      state.h2 = 0x586dcd208f7cd3fdL ^ 9001;
+      long h1 = 0x9368e53c2f6af274L ^ 9001;
+      long h2 = 0x586dcd208f7cd3fdL ^ 9001;
 
-      state.c1 = 0x87c37b91114253d5L;
-      state.c2 = 0x4cf5ad432745937fL;
+      long k1 = ((long) b3 << 24) ^ ((long) b2 << 16) ^ ((long) b1 << 8) ^ b0;
 
-      state.k1 = 0;
-      state.k2 = 0;
+      // bmix, k2 is always 0
+      k1 *= 0x87c37b91114253d5L;
+      k1 = (k1 << 23) | (k1 >>> 64 - 23);
+      k1 *= 0x4cf5ad432745937fL;
+      h1 ^= k1;
+      h1 += h2;
 
-      state.k1 ^= (long) b3 << 24;
-      state.k1 ^= (long) b2 << 16;
-      state.k1 ^= (long) b1 << 8;
-      state.k1 ^= b0;
-      bmix(state);
+      h2 = (h2 << 41) | (h2 >>> 64 - 41);
+      h2 += h1;
 
-      state.h2 ^= 4;
+      h1 = h1 * 3 + 0x52dce729;
+      h2 = h2 * 3 + 0x38495ab5;
 
-      state.h1 += state.h2;
-      state.h2 += state.h1;
+      h2 ^= 4;
 
-      state.h1 = fmix(state.h1);
-      state.h2 = fmix(state.h2);
+      h1 += h2;
+      h2 += h1;
 
-      state.h1 += state.h2;
-      state.h2 += state.h1;
+      h1 = fmix(h1);
+      h2 = fmix(h2);
+
+      h1 += h2;
 
-      return (int) (state.h1 >>> 32);
+      return (int) (h1 >>> 32);
    }
 
    @Override
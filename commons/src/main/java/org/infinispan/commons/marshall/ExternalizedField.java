@@ -0,0 +1,27 @@
+package org.infinispan.commons.marshall;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field marshalled by the externalizer generated for a class annotated with {@link GenerateExternalizer}.
+ * <p>
+ * The field must not be private, final or static. Primitive fields are written directly, the other fields are written
+ * with {@link java.io.ObjectOutput#writeObject(Object)}.
+ *
+ * @since 9.0
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+@Documented
+public @interface ExternalizedField {
+
+   /**
+    * The number identifying the field in the stream. It must be positive, unique in the class, and stable across
+    * versions of the class.
+    */
+   int value();
+}
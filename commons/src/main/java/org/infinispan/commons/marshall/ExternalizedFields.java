@@ -0,0 +1,150 @@
+package org.infinispan.commons.marshall;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+
+import org.infinispan.commons.io.UnsignedNumeric;
+
+/**
+ * Reads and writes the field tags of the externalizers generated for the classes annotated with
+ * {@link GenerateExternalizer}.
+ * <p>
+ * Each field is preceded by a tag holding the field number and its wire type, which tells how to skip the field when
+ * the reader doesn't know it or when its type changed. The last field is followed by the {@link #END} tag.
+ * <p>
+ * The value of an object field is preceded by its length as an int, so that a reader skips it without unmarshalling
+ * it, e.g. when it can't load the class of the value. The value is written and read in place when the marshaller's
+ * streams support it, see {@link PositionalObjectOutput} and {@link PositionalObjectInput}, and otherwise it is
+ * marshalled on its own.
+ *
+ * @since 9.0
+ */
+public final class ExternalizedFields {
+
+   public static final int END = 0;
+
+   // Each primitive type has a wire type of its own, so a field whose type changed is skipped instead of being read
+   // as the new type
+   public static final int WIRE_TYPE_BOOLEAN = 1;
+   public static final int WIRE_TYPE_BYTE = 2;
+   public static final int WIRE_TYPE_SHORT = 3;
+   public static final int WIRE_TYPE_CHAR = 4;
+   public static final int WIRE_TYPE_INT = 5;
+   public static final int WIRE_TYPE_FLOAT = 6;
+   public static final int WIRE_TYPE_LONG = 7;
+   public static final int WIRE_TYPE_DOUBLE = 8;
+   /**
+    * Wire type of the fields written with {@link #writeObjectField(ObjectOutput, Marshaller, Object)}.
+    */
+   public static final int WIRE_TYPE_OBJECT = 9;
+
+   private static final int WIRE_TYPE_BITS = 4;
+   private static final int WIRE_TYPE_MASK = (1 << WIRE_TYPE_BITS) - 1;
+
+   /**
+    * The largest field number that fits in a tag.
+    */
+   public static final int MAX_FIELD_NUMBER = Integer.MAX_VALUE >> WIRE_TYPE_BITS;
+
+   private ExternalizedFields() {
+   }
+
+   public static int tag(int number, int wireType) {
+      return number << WIRE_TYPE_BITS | wireType;
+   }
+
+   public static void writeTag(ObjectOutput out, int tag) throws IOException {
+      UnsignedNumeric.writeUnsignedInt(out, tag);
+   }
+
+   public static void writeEnd(ObjectOutput out) throws IOException {
+      UnsignedNumeric.writeUnsignedInt(out, END);
+   }
+
+   public static int readTag(ObjectInput in) throws IOException {
+      return UnsignedNumeric.readUnsignedInt(in);
+   }
+
+   public static void writeObjectField(ObjectOutput out, Marshaller marshaller, Object value) throws IOException {
+      if (out instanceof PositionalObjectOutput) {
+         PositionalObjectOutput positionalOut = (PositionalObjectOutput) out;
+         // Reserve the length, it is known once the value was written
+         int lengthPosition = positionalOut.position();
+         positionalOut.writeInt(0);
+         positionalOut.writeObject(value);
+         positionalOut.writeInt(lengthPosition, positionalOut.position() - lengthPosition - 4);
+         return;
+      }
+      byte[] bytes;
+      try {
+         bytes = marshaller.objectToByteBuffer(value);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException();
+      }
+      out.writeInt(bytes.length);
+      out.write(bytes);
+   }
+
+   public static Object readObjectField(ObjectInput in, Marshaller marshaller) throws IOException, ClassNotFoundException {
+      int length = in.readInt();
+      if (in instanceof PositionalObjectInput) {
+         PositionalObjectInput positionalIn = (PositionalObjectInput) in;
+         int end = positionalIn.position() + length;
+         Object value = positionalIn.readObject();
+         if (positionalIn.position() != end) {
+            throw new StreamCorruptedException("Object field of " + length + " bytes read as " +
+                  (positionalIn.position() - end + length) + " bytes");
+         }
+         return value;
+      }
+      byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      return marshaller.objectFromByteBuffer(bytes);
+   }
+
+   /**
+    * Skips the value of a field unknown to the reader, e.g. a field added in a later version of the class, or a field
+    * whose type changed.
+    */
+   public static void skip(ObjectInput in, int tag) throws IOException {
+      switch (tag & WIRE_TYPE_MASK) {
+         case WIRE_TYPE_BOOLEAN:
+         case WIRE_TYPE_BYTE:
+            in.readByte();
+            break;
+         case WIRE_TYPE_SHORT:
+         case WIRE_TYPE_CHAR:
+            in.readShort();
+            break;
+         case WIRE_TYPE_INT:
+         case WIRE_TYPE_FLOAT:
+            in.readInt();
+            break;
+         case WIRE_TYPE_LONG:
+         case WIRE_TYPE_DOUBLE:
+            in.readLong();
+            break;
+         case WIRE_TYPE_OBJECT:
+            skipFully(in, in.readInt());
+            break;
+         default:
+            throw new IOException("Unknown wire type in field tag " + tag);
+      }
+   }
+
+   private static void skipFully(ObjectInput in, int length) throws IOException {
+      while (length > 0) {
+         int skipped = in.skipBytes(length);
+         if (skipped <= 0) {
+            // Throws EOFException at the end of the stream
+            in.readByte();
+            skipped = 1;
+         }
+         length -= skipped;
+      }
+   }
+}
@@ -0,0 +1,42 @@
+package org.infinispan.commons.marshall;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Requests the generation of an {@link AdvancedExternalizer} for the annotated class at compile time, by the
+ * annotation processor in the {@code infinispan-processor} artifact.
+ * <p>
+ * The generated externalizer is named after the class with an {@code _Externalizer} suffix, lives in the same package
+ * and marshalls the fields annotated with {@link ExternalizedField}, without any reflection. It is registered as a
+ * {@code META-INF/services/org.infinispan.commons.marshall.AdvancedExternalizer} service, so the cache manager finds
+ * it without any configuration.
+ * <p>
+ * The annotated class must not be private and must have a non-private constructor without parameters.
+ * <p>
+ * Each field is written with its number and its wire type, so that nodes running different versions of the class can
+ * still talk to each other: the fields a reader doesn't know about are skipped, and the fields that are not in the
+ * stream keep the values assigned by the constructor. To keep this working, the number of a removed field must be
+ * added to {@link #reserved()} and never reused.
+ *
+ * @since 9.0
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Documented
+public @interface GenerateExternalizer {
+
+   /**
+    * The identifier of the generated externalizer, see {@link AdvancedExternalizer#getId()}. It must be stable across
+    * versions of the class.
+    */
+   int id();
+
+   /**
+    * The numbers of the fields that were removed, which must not be used again.
+    */
+   int[] reserved() default {};
+}
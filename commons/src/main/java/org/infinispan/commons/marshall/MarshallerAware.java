@@ -0,0 +1,13 @@
+package org.infinispan.commons.marshall;
+
+/**
+ * Implemented by the externalizers that marshall some values on their own, like the ones generated for the classes
+ * annotated with {@link GenerateExternalizer}. The marshaller that registers such an externalizer passes itself to it
+ * before using it.
+ *
+ * @since 9.0
+ */
+public interface MarshallerAware {
+
+   void setMarshaller(Marshaller marshaller);
+}
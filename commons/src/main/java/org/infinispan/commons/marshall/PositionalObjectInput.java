@@ -0,0 +1,23 @@
+package org.infinispan.commons.marshall;
+
+import java.io.ObjectInput;
+
+/**
+ * An {@link ObjectInput} reading from a buffer, whose {@link #readObject()} reads the bytes written by
+ * {@link Marshaller#objectToByteBuffer(Object)} of its marshaller. A value preceded by its length can be read in place,
+ * instead of being copied in a buffer of its own first.
+ *
+ * @since 9.0
+ */
+public interface PositionalObjectInput extends ObjectInput {
+
+   /**
+    * @return the position of the next byte read
+    */
+   int position();
+
+   /**
+    * Moves the position of the next byte read.
+    */
+   void position(int position);
+}
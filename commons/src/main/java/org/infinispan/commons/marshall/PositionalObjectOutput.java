@@ -0,0 +1,24 @@
+package org.infinispan.commons.marshall;
+
+import java.io.ObjectOutput;
+
+/**
+ * An {@link ObjectOutput} writing to a buffer, whose {@link #writeObject(Object)} writes the same bytes as
+ * {@link Marshaller#objectToByteBuffer(Object)} of its marshaller. A value can be written in place and preceded by its
+ * length, by reserving the length and writing it once the value was written, instead of marshalling the value on its
+ * own first.
+ *
+ * @since 9.0
+ */
+public interface PositionalObjectOutput extends ObjectOutput {
+
+   /**
+    * @return the position of the next byte written
+    */
+   int position();
+
+   /**
+    * Replaces the four bytes written at the given position with an int, without moving the current position.
+    */
+   void writeInt(int position, int v);
+}
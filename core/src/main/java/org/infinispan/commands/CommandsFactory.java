@@ -38,6 +38,8 @@
 import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.GetKeysInGroupCommand;
+import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.RemoveExpiredBatchCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
@@ -289,6 +291,26 @@ public interface CommandsFactory {
     */
    SingleRpcCommand buildSingleRpcCommand(ReplicableCommand call);
 
+   /**
+    * Builds a MultipleRpcCommand "envelope" bundling several commands sent to the same node
+    * @param commands the buffer holding the commands to include in the envelope, marshalled by the cache marshaller
+    *                 and each preceded by its length
+    * @param length the length of the commands in the buffer
+    * @param count the number of commands
+    * @return a MultipleRpcCommand
+    */
+   MultipleRpcCommand buildMultipleRpcCommand(byte[] commands, int length, int count);
+
+   /**
+    * Builds a RemoveExpiredBatchCommand, which removes several expired entries on their primary owner
+    * @param keys the keys of the expired entries
+    * @param values the values of the entries when they were expired
+    * @param lifespans the lifespans that expired
+    * @return a RemoveExpiredBatchCommand
+    */
+   RemoveExpiredBatchCommand buildRemoveExpiredBatchCommand(List<Object> keys, List<Object> values,
+                                                            List<Long> lifespans);
+
    /**
     * Builds a ClusteredGetCommand, which is a remote lookup command
     * @param key key to look up
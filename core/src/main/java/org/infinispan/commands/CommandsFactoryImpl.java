@@ -40,6 +40,8 @@
 import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.GetKeysInGroupCommand;
+import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.RemoveExpiredBatchCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
@@ -88,6 +90,7 @@
 import org.infinispan.context.impl.FlagBitSets;
 import org.infinispan.distribution.DistributionManager;
 import org.infinispan.distribution.group.impl.GroupManager;
+import org.infinispan.expiration.impl.ClusterExpirationManager;
 import org.infinispan.factories.KnownComponentNames;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
@@ -341,6 +344,17 @@ public SingleRpcCommand buildSingleRpcCommand(ReplicableCommand call) {
       return new SingleRpcCommand(cacheName, call);
    }
 
+   @Override
+   public MultipleRpcCommand buildMultipleRpcCommand(byte[] commands, int length, int count) {
+      return new MultipleRpcCommand(cacheName, commands, length, count);
+   }
+
+   @Override
+   public RemoveExpiredBatchCommand buildRemoveExpiredBatchCommand(List<Object> keys, List<Object> values,
+                                                                   List<Long> lifespans) {
+      return new RemoveExpiredBatchCommand(cacheName, keys, values, lifespans);
+   }
+
    @Override
    public ClusteredGetCommand buildClusteredGetCommand(Object key, long flagsBitSet) {
       return new ClusteredGetCommand(key, cacheName, flagsBitSet);
@@ -494,6 +508,9 @@ public void initializeReplicableCommand(ReplicableCommand c, boolean isRemote) {
             RemoveExpiredCommand removeExpiredCommand = (RemoveExpiredCommand) c;
             removeExpiredCommand.init(notifier);
             break;
+         case RemoveExpiredBatchCommand.COMMAND_ID:
+            ((RemoveExpiredBatchCommand) c).init((ClusterExpirationManager) cache.getAdvancedCache().getExpirationManager());
+            break;
          case BackupAckCommand.COMMAND_ID:
             BackupAckCommand command = (BackupAckCommand) c;
             command.setCommandAckCollector(commandAckCollector);
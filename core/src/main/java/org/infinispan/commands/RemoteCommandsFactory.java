@@ -23,6 +23,8 @@
 import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.GetKeysInGroupCommand;
+import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.RemoveExpiredBatchCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
@@ -316,6 +318,12 @@ public CacheRpcCommand fromStream(byte id, byte type, ByteString cacheName) {
             case BackupPutMapRpcCommand.COMMAND_ID:
                command = new BackupPutMapRpcCommand(cacheName);
                break;
+            case MultipleRpcCommand.COMMAND_ID:
+               command = new MultipleRpcCommand(cacheName);
+               break;
+            case RemoveExpiredBatchCommand.COMMAND_ID:
+               command = new RemoveExpiredBatchCommand(cacheName);
+               break;
             default:
                throw new CacheException("Unknown command id " + id + "!");
          }
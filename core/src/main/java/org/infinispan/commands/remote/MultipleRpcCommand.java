@@ -0,0 +1,107 @@
+package org.infinispan.commands.remote;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.function.Consumer;
+
+import org.infinispan.commons.io.UnsignedNumeric;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.util.ByteString;
+
+/**
+ * Bundles several one-way {@link CacheRpcCommand}s sent to the same node in a single message.
+ * <p>
+ * The bundled commands are marshalled by the sender when they are queued, because the caller may modify a command
+ * after sending it, and they are appended to a single buffer, each preceded by its length as an unsigned int. The
+ * command is never invoked: the receiver unmarshalls the bundled commands and handles them one by one, as if they
+ * were received in separate messages.
+ *
+ * @since 9.0
+ */
+public class MultipleRpcCommand extends BaseRpcCommand {
+   public static final byte COMMAND_ID = 67;
+
+   private byte[] commands;
+   private int length;
+   private int count;
+
+   private MultipleRpcCommand() {
+      super(null); // For command id uniqueness test
+   }
+
+   public MultipleRpcCommand(ByteString cacheName) {
+      super(cacheName);
+   }
+
+   public MultipleRpcCommand(ByteString cacheName, byte[] commands, int length, int count) {
+      super(cacheName);
+      this.commands = commands;
+      this.length = length;
+      this.count = count;
+   }
+
+   /**
+    * @return the number of bundled commands
+    */
+   public int getCount() {
+      return count;
+   }
+
+   /**
+    * Unmarshalls the bundled commands in order. A command that can't be unmarshalled is passed to the error handler
+    * and skipped, the commands after it are still unmarshalled.
+    */
+   public void forEachCommand(StreamingMarshaller marshaller, Consumer<CacheRpcCommand> action,
+                              Consumer<Exception> errorHandler) {
+      int offset = 0;
+      for (int i = 0; i < count; i++) {
+         int commandLength = UnsignedNumeric.readUnsignedInt(commands, offset);
+         offset += UnsignedNumeric.sizeUnsignedInt(commandLength);
+         CacheRpcCommand command;
+         try {
+            command = (CacheRpcCommand) marshaller.objectFromByteBuffer(commands, offset, commandLength);
+         } catch (Exception e) {
+            errorHandler.accept(e);
+            command = null;
+         }
+         offset += commandLength;
+         if (command != null) {
+            action.accept(command);
+         }
+      }
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return false;
+   }
+
+   @Override
+   public void writeTo(ObjectOutput output) throws IOException {
+      UnsignedNumeric.writeUnsignedInt(output, count);
+      UnsignedNumeric.writeUnsignedInt(output, length);
+      output.write(commands, 0, length);
+   }
+
+   @Override
+   public void readFrom(ObjectInput input) throws IOException, ClassNotFoundException {
+      count = UnsignedNumeric.readUnsignedInt(input);
+      length = UnsignedNumeric.readUnsignedInt(input);
+      commands = new byte[length];
+      input.readFully(commands);
+   }
+
+   @Override
+   public String toString() {
+      return "MultipleRpcCommand{" +
+            "cacheName='" + cacheName + '\'' +
+            ", commands=" + count +
+            '}';
+   }
+}
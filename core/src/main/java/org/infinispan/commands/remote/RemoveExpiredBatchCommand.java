@@ -0,0 +1,104 @@
+package org.infinispan.commands.remote;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.infinispan.commons.marshall.MarshallUtil;
+import org.infinispan.expiration.impl.ClusterExpirationManager;
+import org.infinispan.util.ByteString;
+import org.infinispan.util.concurrent.CompletableFutures;
+
+/**
+ * Removes several entries whose lifespan expired, sent by the expiration reaper to the primary owner of the keys.
+ * The receiver removes each entry as if it had expired locally, so a single message replaces one
+ * {@link org.infinispan.commands.write.RemoveExpiredCommand} per key.  This is not a
+ * {@link org.infinispan.commands.VisitableCommand} and hence not passed up the interceptor chain.
+ *
+ * @since 9.0
+ */
+public class RemoveExpiredBatchCommand extends BaseRpcCommand {
+   public static final byte COMMAND_ID = 68;
+
+   private List<Object> keys;
+   private List<Object> values;
+   private List<Long> lifespans;
+
+   private ClusterExpirationManager<Object, Object> expirationManager;
+
+   private RemoveExpiredBatchCommand() {
+      super(null); // For command id uniqueness test
+   }
+
+   public RemoveExpiredBatchCommand(ByteString cacheName) {
+      super(cacheName);
+   }
+
+   public RemoveExpiredBatchCommand(ByteString cacheName, List<Object> keys, List<Object> values,
+                                    List<Long> lifespans) {
+      super(cacheName);
+      this.keys = keys;
+      this.values = values;
+      this.lifespans = lifespans;
+   }
+
+   public void init(ClusterExpirationManager<Object, Object> expirationManager) {
+      this.expirationManager = expirationManager;
+   }
+
+   @Override
+   public CompletableFuture<Object> invokeAsync() throws Throwable {
+      expirationManager.removeExpired(keys, values, lifespans);
+      return CompletableFutures.completedNull();
+   }
+
+   public List<Object> getKeys() {
+      return keys;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return false;
+   }
+
+   @Override
+   public boolean canBlock() {
+      // Every removal is a write that may wait for locks and for the backup owners
+      return true;
+   }
+
+   @Override
+   public void writeTo(ObjectOutput output) throws IOException {
+      MarshallUtil.marshallCollection(keys, output);
+      MarshallUtil.marshallCollection(values, output);
+      for (Long lifespan : lifespans) {
+         output.writeLong(lifespan);
+      }
+   }
+
+   @Override
+   public void readFrom(ObjectInput input) throws IOException, ClassNotFoundException {
+      keys = MarshallUtil.unmarshallCollection(input, ArrayList::new);
+      values = MarshallUtil.unmarshallCollection(input, ArrayList::new);
+      lifespans = new ArrayList<>(keys.size());
+      for (int i = 0; i < keys.size(); i++) {
+         lifespans.add(input.readLong());
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "RemoveExpiredBatchCommand{" +
+            "cacheName='" + cacheName + '\'' +
+            ", keys=" + keys +
+            '}';
+   }
+}
@@ -0,0 +1,17 @@
+package org.infinispan.configuration.cache;
+
+/**
+ * Enumeration defining the allocators that can be used to obtain native memory when the storage type is
+ * {@link StorageType#OFF_HEAP}
+ * @since 9.0
+ */
+public enum AllocatorType {
+   /**
+    * Every entry is allocated and freed directly
+    */
+   UNPOOLED,
+   /**
+    * Entries are allocated from size class pools carved out of large arenas
+    */
+   POOLED
+}
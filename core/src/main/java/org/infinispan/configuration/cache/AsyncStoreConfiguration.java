@@ -15,14 +15,19 @@ public class AsyncStoreConfiguration {
    public static final AttributeDefinition<Boolean> ENABLED = AttributeDefinition.builder("enabled", false).immutable().build();
    public static final AttributeDefinition<Integer> MODIFICATION_QUEUE_SIZE  = AttributeDefinition.builder("modificationQueueSize", 1024).immutable().build();
    public static final AttributeDefinition<Integer> THREAD_POOL_SIZE = AttributeDefinition.builder("threadPoolSize", 1).immutable().build();
+   public static final AttributeDefinition<Long> FLUSH_INTERVAL = AttributeDefinition.builder("flushInterval", 0L).immutable().build();
+   public static final AttributeDefinition<Integer> FLUSH_THRESHOLD = AttributeDefinition.builder("flushThreshold", 0).immutable().build();
 
    static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(AsyncStoreConfiguration.class, ENABLED, MODIFICATION_QUEUE_SIZE, THREAD_POOL_SIZE);
+      return new AttributeSet(AsyncStoreConfiguration.class, ENABLED, MODIFICATION_QUEUE_SIZE, THREAD_POOL_SIZE,
+            FLUSH_INTERVAL, FLUSH_THRESHOLD);
    }
 
    private final Attribute<Boolean> enabled;
    private final Attribute<Integer> modificationQueueSize;
    private final Attribute<Integer> threadPoolSize;
+   private final Attribute<Long> flushInterval;
+   private final Attribute<Integer> flushThreshold;
 
    private final AttributeSet attributes;
 
@@ -31,6 +36,8 @@ static AttributeSet attributeDefinitionSet() {
       enabled = attributes.attribute(ENABLED);
       modificationQueueSize = attributes.attribute(MODIFICATION_QUEUE_SIZE);
       threadPoolSize = attributes.attribute(THREAD_POOL_SIZE);
+      flushInterval = attributes.attribute(FLUSH_INTERVAL);
+      flushThreshold = attributes.attribute(FLUSH_THRESHOLD);
    }
 
    /**
@@ -89,6 +96,22 @@ public int threadPoolSize() {
       return threadPoolSize.get();
    }
 
+   /**
+    * Maximum time in milliseconds that modifications are buffered before they are flushed to the store. If 0,
+    * modifications are flushed as soon as they are available.
+    */
+   public long flushInterval() {
+      return flushInterval.get();
+   }
+
+   /**
+    * Number of buffered modifications that triggers a flush before the {@link #flushInterval()} elapses. If 0, only
+    * a full modification queue triggers an early flush.
+    */
+   public int flushThreshold() {
+      return flushThreshold.get();
+   }
+
    public AttributeSet attributes() {
       return attributes;
    }
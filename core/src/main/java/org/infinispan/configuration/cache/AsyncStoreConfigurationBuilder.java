@@ -1,11 +1,14 @@
 package org.infinispan.configuration.cache;
 
 import static org.infinispan.configuration.cache.AsyncStoreConfiguration.ENABLED;
+import static org.infinispan.configuration.cache.AsyncStoreConfiguration.FLUSH_INTERVAL;
+import static org.infinispan.configuration.cache.AsyncStoreConfiguration.FLUSH_THRESHOLD;
 import static org.infinispan.configuration.cache.AsyncStoreConfiguration.MODIFICATION_QUEUE_SIZE;
 import static org.infinispan.configuration.cache.AsyncStoreConfiguration.THREAD_POOL_SIZE;
 
 import java.util.concurrent.TimeUnit;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.configuration.attributes.AttributeSet;
 import org.infinispan.configuration.global.GlobalConfiguration;
@@ -94,9 +97,39 @@ public AsyncStoreConfigurationBuilder<S> threadPoolSize(int i) {
       return this;
    }
 
+   /**
+    * Maximum time in milliseconds that modifications are buffered before they are flushed to the store. Buffering
+    * allows repeated writes to the same key to be coalesced and the modifications to be written in larger batches.
+    * Defaults to 0, which flushes the modifications as soon as they are available.
+    */
+   public AsyncStoreConfigurationBuilder<S> flushInterval(long l) {
+      attributes.attribute(FLUSH_INTERVAL).set(l);
+      return this;
+   }
+
+   /**
+    * Maximum time that modifications are buffered before they are flushed to the store.
+    */
+   public AsyncStoreConfigurationBuilder<S> flushInterval(long l, TimeUnit unit) {
+      return flushInterval(unit.toMillis(l));
+   }
+
+   /**
+    * Number of buffered modifications that triggers a flush before the {@link #flushInterval(long)} elapses.
+    * Defaults to 0, in which case only a full modification queue triggers an early flush.
+    */
+   public AsyncStoreConfigurationBuilder<S> flushThreshold(int i) {
+      attributes.attribute(FLUSH_THRESHOLD).set(i);
+      return this;
+   }
+
    @Override
    public
    void validate() {
+      if (attributes.attribute(FLUSH_INTERVAL).get() < 0)
+         throw new CacheConfigurationException("The write-behind flush interval cannot be negative");
+      if (attributes.attribute(FLUSH_THRESHOLD).get() < 0)
+         throw new CacheConfigurationException("The write-behind flush threshold cannot be negative");
    }
 
    @Override
@@ -17,12 +17,18 @@ public class ClusteringConfiguration {
    public static final AttributeDefinition<CacheMode> CACHE_MODE = AttributeDefinition.builder("cacheMode",  CacheMode.LOCAL).immutable().build();
    public static final AttributeDefinition<Long> REMOTE_TIMEOUT =
          AttributeDefinition.builder("remoteTimeout", TimeUnit.SECONDS.toMillis(15)).build();
+   public static final AttributeDefinition<Integer> RPC_BUNDLING_SIZE =
+         AttributeDefinition.builder("rpcBundlingSize", 0).immutable().build();
+   public static final AttributeDefinition<Long> RPC_BUNDLING_DELAY =
+         AttributeDefinition.builder("rpcBundlingDelay", 100L).immutable().build();
 
    static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(ClusteringConfiguration.class, CACHE_MODE, REMOTE_TIMEOUT);
+      return new AttributeSet(ClusteringConfiguration.class, CACHE_MODE, REMOTE_TIMEOUT, RPC_BUNDLING_SIZE, RPC_BUNDLING_DELAY);
    }
 
    private final Attribute<CacheMode> cacheMode;
+   private final Attribute<Integer> rpcBundlingSize;
+   private final Attribute<Long> rpcBundlingDelay;
    private final HashConfiguration hashConfiguration;
    private final L1Configuration l1Configuration;
    private final StateTransferConfiguration stateTransferConfiguration;
@@ -35,6 +41,8 @@ static AttributeSet attributeDefinitionSet() {
          PartitionHandlingConfiguration partitionHandlingStrategy) {
       this.attributes = attributes.checkProtection();
       this.cacheMode = attributes.attribute(CACHE_MODE);
+      this.rpcBundlingSize = attributes.attribute(RPC_BUNDLING_SIZE);
+      this.rpcBundlingDelay = attributes.attribute(RPC_BUNDLING_DELAY);
       this.hashConfiguration = hashConfiguration;
       this.l1Configuration = l1Configuration;
       this.stateTransferConfiguration = stateTransferConfiguration;
@@ -65,6 +73,22 @@ public void remoteTimeout(long timeoutMillis) {
       syncConfiguration.replTimeout(timeoutMillis);
    }
 
+   /**
+    * The maximum number of one-way commands sent to the same node that are bundled in a single message.
+    * 0 disables the bundling.
+    */
+   public int rpcBundlingSize() {
+      return rpcBundlingSize.get();
+   }
+
+   /**
+    * The maximum time, in microseconds, a one-way command waits for other commands sent to the same node before
+    * its bundle is sent.
+    */
+   public long rpcBundlingDelay() {
+      return rpcBundlingDelay.get();
+   }
+
    /**
     * Configures cluster's behaviour in the presence of partitions or node failures.
     */
@@ -1,10 +1,13 @@
 package org.infinispan.configuration.cache;
 
 import static org.infinispan.configuration.cache.ClusteringConfiguration.CACHE_MODE;
+import static org.infinispan.configuration.cache.ClusteringConfiguration.RPC_BUNDLING_DELAY;
+import static org.infinispan.configuration.cache.ClusteringConfiguration.RPC_BUNDLING_SIZE;
 
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.configuration.attributes.AttributeSet;
 import org.infinispan.configuration.global.GlobalConfiguration;
@@ -67,6 +70,32 @@ public ClusteringConfigurationBuilder remoteTimeout(long l, TimeUnit unit) {
       return remoteTimeout(unit.toMillis(l));
    }
 
+   /**
+    * Bundles up to {@code size} one-way commands sent concurrently to the same node in a single message, e.g. the
+    * backup writes and the acknowledgements of the non-transactional distributed caches. Defaults to 0, which disables
+    * the bundling.
+    */
+   public ClusteringConfigurationBuilder rpcBundlingSize(int size) {
+      attributes.attribute(RPC_BUNDLING_SIZE).set(size);
+      return this;
+   }
+
+   /**
+    * The maximum time, in microseconds, a bundled command waits for other commands sent to the same node before its
+    * bundle is sent. Defaults to 100 microseconds.
+    */
+   public ClusteringConfigurationBuilder rpcBundlingDelay(long micros) {
+      attributes.attribute(RPC_BUNDLING_DELAY).set(micros);
+      return this;
+   }
+
+   /**
+    * The maximum time a bundled command waits for other commands sent to the same node before its bundle is sent.
+    */
+   public ClusteringConfigurationBuilder rpcBundlingDelay(long delay, TimeUnit unit) {
+      return rpcBundlingDelay(unit.toMicros(delay));
+   }
+
 
    /**
     * Configure hash sub element
@@ -109,6 +138,9 @@ public PartitionHandlingConfigurationBuilder partitionHandling() {
    @Override
    public
    void validate() {
+      if (attributes.attribute(RPC_BUNDLING_SIZE).get() < 0 || attributes.attribute(RPC_BUNDLING_DELAY).get() < 0) {
+         throw new CacheConfigurationException("The RPC bundling size and delay cannot be negative");
+      }
       for (Builder<?> validatable : Arrays.asList(hashConfigurationBuilder, l1ConfigurationBuilder,
                           syncConfigurationBuilder, stateTransferConfigurationBuilder, partitionHandlingConfigurationBuilder)) {
          validatable.validate();
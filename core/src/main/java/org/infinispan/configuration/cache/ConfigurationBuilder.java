@@ -221,7 +221,7 @@ public void validate() {
       for (Builder<?> validatable:
             asList(clustering, customInterceptors, dataContainer, deadlockDetection, eviction, expiration, indexing,
                    invocationBatching, jmxStatistics, persistence, locking, storeAsBinary, transaction,
-                   versioning, unsafe, sites, compatibility)) {
+                   versioning, unsafe, sites, compatibility, memory)) {
          try {
             validatable.validate();
          } catch (RuntimeException e) {
@@ -257,7 +257,7 @@ public void validate(GlobalConfiguration globalConfig) {
       for (ConfigurationChildBuilder validatable:
             asList(clustering, customInterceptors, dataContainer, deadlockDetection, eviction, expiration, indexing,
                    invocationBatching, jmxStatistics, persistence, locking, storeAsBinary, transaction,
-                   versioning, unsafe, sites, compatibility, security)) {
+                   versioning, unsafe, sites, compatibility, security, memory)) {
          try {
             validatable.validate(globalConfig);
          } catch (RuntimeException e) {
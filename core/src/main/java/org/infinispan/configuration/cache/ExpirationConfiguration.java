@@ -14,15 +14,17 @@ public class ExpirationConfiguration {
    public static final AttributeDefinition<Long> MAX_IDLE = AttributeDefinition.builder("maxIdle", -1l).build();
    public static final AttributeDefinition<Boolean> REAPER_ENABLED = AttributeDefinition.builder("reaperEnabled", true).immutable().autoPersist(false).build();
    public static final AttributeDefinition<Long> WAKEUP_INTERVAL = AttributeDefinition.builder("wakeUpInterval", TimeUnit.MINUTES.toMillis(1)).xmlName("interval").build();
+   public static final AttributeDefinition<Boolean> EXPIRY_INDEX = AttributeDefinition.builder("expiryIndex", true).immutable().xmlName("expiry-index").build();
 
    static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(ExpirationConfiguration.class, LIFESPAN, MAX_IDLE, REAPER_ENABLED, WAKEUP_INTERVAL);
+      return new AttributeSet(ExpirationConfiguration.class, LIFESPAN, MAX_IDLE, REAPER_ENABLED, WAKEUP_INTERVAL, EXPIRY_INDEX);
    }
 
    private final Attribute<Long> lifespan;
    private final Attribute<Long> maxIdle;
    private final Attribute<Boolean> reaperEnabled;
    private final Attribute<Long> wakeUpInterval;
+   private final Attribute<Boolean> expiryIndex;
    private final AttributeSet attributes;
 
    ExpirationConfiguration(AttributeSet attributes) {
@@ -31,6 +33,7 @@ static AttributeSet attributeDefinitionSet() {
       maxIdle = attributes.attribute(MAX_IDLE);
       reaperEnabled = attributes.attribute(REAPER_ENABLED);
       wakeUpInterval = attributes.attribute(WAKEUP_INTERVAL);
+      expiryIndex = attributes.attribute(EXPIRY_INDEX);
    }
 
    /**
@@ -71,6 +74,15 @@ public long wakeUpInterval() {
       return wakeUpInterval.get();
    }
 
+   /**
+    * Whether the keys of the entries that can expire are indexed by expiration time, so that the reaper only visits
+    * the entries that are due instead of iterating over the whole container.  Unless it was set explicitly, the index
+    * is not used with off-heap storage, as it keeps a heap copy of every key.
+    */
+   public boolean expiryIndex() {
+      return expiryIndex.get();
+   }
+
    @Override
    public String toString() {
       return "ExpirationConfiguration [attributes=" + attributes + "]";
@@ -1,5 +1,6 @@
 package org.infinispan.configuration.cache;
 
+import static org.infinispan.configuration.cache.ExpirationConfiguration.EXPIRY_INDEX;
 import static org.infinispan.configuration.cache.ExpirationConfiguration.LIFESPAN;
 import static org.infinispan.configuration.cache.ExpirationConfiguration.MAX_IDLE;
 import static org.infinispan.configuration.cache.ExpirationConfiguration.REAPER_ENABLED;
@@ -123,6 +124,19 @@ public ExpirationConfigurationBuilder wakeUpInterval(long l, TimeUnit unit) {
       return wakeUpInterval(unit.toMillis(l));
    }
 
+   /**
+    * Index the keys of the entries that can expire by expiration time, so that each reaper run only visits the
+    * entries that are due instead of iterating over the whole container. Useful for large caches where few entries
+    * expire in each wake up interval. The index keeps a reference to the key and a bucket number for every entry
+    * that can expire, i.e. roughly 100 bytes of heap per entry. With off-heap storage it also keeps a heap copy of
+    * every key, so unless it is enabled explicitly the index is not used with off-heap storage. Only used when the
+    * reaper is enabled. Defaults to true.
+    */
+   public ExpirationConfigurationBuilder expiryIndex(boolean enabled) {
+      attributes.attribute(EXPIRY_INDEX).set(enabled);
+      return this;
+   }
+
    @Override
    public void validate() {
    }
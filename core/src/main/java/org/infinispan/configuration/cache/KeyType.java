@@ -0,0 +1,21 @@
+package org.infinispan.configuration.cache;
+
+/**
+ * Enumeration defining the type of the keys stored in the data container when the storage type is
+ * {@link StorageType#OBJECT}
+ * @since 9.0
+ */
+public enum KeyType {
+   /**
+    * Keys can be of any type
+    */
+   OBJECT,
+   /**
+    * All keys are {@link Integer}s, which are stored unboxed
+    */
+   INT,
+   /**
+    * All keys are {@link Long}s, which are stored unboxed
+    */
+   LONG
+}
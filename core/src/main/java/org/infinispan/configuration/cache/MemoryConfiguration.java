@@ -1,10 +1,15 @@
 package org.infinispan.configuration.cache;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.infinispan.commons.configuration.AbstractTypedPropertiesConfiguration;
 import org.infinispan.commons.configuration.attributes.Attribute;
 import org.infinispan.commons.configuration.attributes.AttributeDefinition;
+import org.infinispan.commons.configuration.attributes.AttributeInitializer;
 import org.infinispan.commons.configuration.attributes.AttributeSet;
 import org.infinispan.commons.configuration.attributes.IdentityAttributeCopier;
+import org.infinispan.commons.util.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionType;
 
 /**
@@ -18,16 +23,31 @@ public class MemoryConfiguration {
          .builder("storage", StorageType.OBJECT).copier(IdentityAttributeCopier.INSTANCE).immutable().build();
    public static final AttributeDefinition<Long> SIZE  = AttributeDefinition.builder("size", -1l).build();
    public static final AttributeDefinition<EvictionType> EVICTION_TYPE  = AttributeDefinition.builder("type", EvictionType.COUNT).build();
+   public static final AttributeDefinition<Boolean> SEGMENTED = AttributeDefinition.builder("segmented", false).immutable().build();
+   public static final AttributeDefinition<AllocatorType> ALLOCATOR = AttributeDefinition.builder("allocator", AllocatorType.UNPOOLED).immutable().build();
+   public static final AttributeDefinition<Long> HEAP_TIER_SIZE = AttributeDefinition.builder("heap-tier-size", -1l).immutable().build();
+   public static final AttributeDefinition<KeyType> KEY_TYPE = AttributeDefinition.builder("key-type", KeyType.OBJECT).immutable().build();
+   public static final AttributeDefinition<Map<Class<?>, EntrySizeCalculator<?, ?>>> SIZE_CALCULATORS = AttributeDefinition.builder("sizeCalculators", null, (Class<Map<Class<?>, EntrySizeCalculator<?, ?>>>)(Class<?>)Map.class).initializer(new AttributeInitializer<Map<Class<?>, EntrySizeCalculator<?, ?>>>() {
+      @Override
+      public Map<Class<?>, EntrySizeCalculator<?, ?>> initialize() {
+         return new LinkedHashMap<>();
+      }
+   }).immutable().build();
 
    static public AttributeSet attributeDefinitionSet() {
       return new AttributeSet(MemoryConfiguration.class, AbstractTypedPropertiesConfiguration.attributeSet(),
-            STORAGE_TYPE, SIZE, EVICTION_TYPE, ADDRESS_COUNT);
+            STORAGE_TYPE, SIZE, EVICTION_TYPE, ADDRESS_COUNT, SEGMENTED, ALLOCATOR, SIZE_CALCULATORS, HEAP_TIER_SIZE, KEY_TYPE);
    }
 
    private final Attribute<Long> size;
    private final Attribute<EvictionType> evictionType;
    private final Attribute<StorageType> storageType;
    private final Attribute<Integer> addressCount;
+   private final Attribute<Boolean> segmented;
+   private final Attribute<AllocatorType> allocator;
+   private final Attribute<Map<Class<?>, EntrySizeCalculator<?, ?>>> sizeCalculators;
+   private final Attribute<Long> heapTierSize;
+   private final Attribute<KeyType> keyType;
    private final AttributeSet attributes;
 
    MemoryConfiguration(AttributeSet attributes) {
@@ -36,6 +56,11 @@ static public AttributeSet attributeDefinitionSet() {
       size = attributes.attribute(SIZE);
       evictionType = attributes.attribute(EVICTION_TYPE);
       addressCount = attributes.attribute(ADDRESS_COUNT);
+      segmented = attributes.attribute(SEGMENTED);
+      allocator = attributes.attribute(ALLOCATOR);
+      sizeCalculators = attributes.attribute(SIZE_CALCULATORS);
+      heapTierSize = attributes.attribute(HEAP_TIER_SIZE);
+      keyType = attributes.attribute(KEY_TYPE);
    }
 
    /**
@@ -74,6 +99,46 @@ public int addressCount() {
       return addressCount.get();
    }
 
+   /**
+    * Whether the data container keeps a separate map per segment
+    * @return
+    */
+   public boolean segmented() {
+      return segmented.get();
+   }
+
+   /**
+    * The allocator used to obtain native memory when storing entries off-heap
+    * @return
+    */
+   public AllocatorType allocator() {
+      return allocator.get();
+   }
+
+   /**
+    * The size calculators used for MEMORY based eviction of entries stored as objects, by the type of the value
+    * @return
+    */
+   public Map<Class<?>, EntrySizeCalculator<?, ?>> sizeCalculators() {
+      return sizeCalculators.get();
+   }
+
+   /**
+    * How many entries stored off-heap also keep a copy on the heap, -1 if disabled
+    * @return
+    */
+   public long heapTierSize() {
+      return heapTierSize.get();
+   }
+
+   /**
+    * The type of the keys when they are stored as objects, {@link KeyType#OBJECT} if any type is allowed
+    * @return
+    */
+   public KeyType keyType() {
+      return keyType.get();
+   }
+
    public AttributeSet attributes() {
       return attributes;
    }
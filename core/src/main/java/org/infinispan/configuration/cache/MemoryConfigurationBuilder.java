@@ -1,15 +1,25 @@
 package org.infinispan.configuration.cache;
 
 import static org.infinispan.configuration.cache.MemoryConfiguration.ADDRESS_COUNT;
+import static org.infinispan.configuration.cache.MemoryConfiguration.ALLOCATOR;
 import static org.infinispan.configuration.cache.MemoryConfiguration.EVICTION_TYPE;
+import static org.infinispan.configuration.cache.MemoryConfiguration.HEAP_TIER_SIZE;
+import static org.infinispan.configuration.cache.MemoryConfiguration.KEY_TYPE;
+import static org.infinispan.configuration.cache.MemoryConfiguration.SEGMENTED;
 import static org.infinispan.configuration.cache.MemoryConfiguration.SIZE;
+import static org.infinispan.configuration.cache.MemoryConfiguration.SIZE_CALCULATORS;
 import static org.infinispan.configuration.cache.MemoryConfiguration.STORAGE_TYPE;
 
+import java.util.Map;
+
 import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.configuration.attributes.AttributeSet;
+import org.infinispan.commons.util.EntrySizeCalculator;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.eviction.EvictionType;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
 
 /**
  * Controls the data container for the cache.
@@ -17,6 +27,7 @@
  * @author William Burns
  */
 public class MemoryConfigurationBuilder extends AbstractConfigurationChildBuilder implements Builder<MemoryConfiguration> {
+   private static final Log log = LogFactory.getLog(MemoryConfigurationBuilder.class);
 
    private AttributeSet attributes;
 
@@ -77,17 +88,104 @@ public MemoryConfigurationBuilder addressCount(int addressCount) {
       return this;
    }
 
+   /**
+    * Whether the data container should keep the entries of each segment in a separate map.  This allows state
+    * transfer, the removal of segments no longer owned and segment filtered streams to only visit the entries of
+    * the segments they are interested in instead of the whole container.  Only applies to distributed and replicated
+    * caches and cannot be used together with eviction.
+    * @param segmented
+    * @return this
+    */
+   public MemoryConfigurationBuilder segmented(boolean segmented) {
+      attributes.attribute(SEGMENTED).set(segmented);
+      return this;
+   }
+
+   /**
+    * Sets the allocator used to obtain native memory when the storage type is {@link StorageType#OFF_HEAP}, which can
+    * either be
+    * <ul>
+    * <li>UNPOOLED - memory is allocated and freed for every entry that is written or removed</li>
+    * <li>POOLED - memory is allocated from size class pools that are reused as entries are removed</li>
+    * </ul>
+    * @param allocator
+    * @return this
+    */
+   public MemoryConfigurationBuilder allocator(AllocatorType allocator) {
+      attributes.attribute(ALLOCATOR).set(allocator);
+      return this;
+   }
+
+   /**
+    * Defines how many of the entries stored when the storage type is {@link StorageType#OFF_HEAP} may also keep a copy
+    * on the heap.  Entries are copied to the heap when they are read repeatedly, and are then returned without having
+    * to be copied out of native memory.  Off-heap memory still holds all of the entries, so the copies are simply
+    * dropped when there are too many of them.  A non positive value disables the on-heap copies.
+    * @param heapTierSize
+    * @return this
+    */
+   public MemoryConfigurationBuilder heapTierSize(long heapTierSize) {
+      attributes.attribute(HEAP_TIER_SIZE).set(heapTierSize);
+      return this;
+   }
+
+   /**
+    * Sets the type of all of the keys of the cache when the storage type is {@link StorageType#OBJECT}.  If the keys
+    * are all {@link Integer}s or all {@link Long}s they can be stored unboxed, which uses less memory per entry and
+    * avoids allocating when looking them up.  Storing any other type of key then fails.  Primitive key types can't be
+    * used with eviction or L1.
+    * @param keyType
+    * @return this
+    */
+   public MemoryConfigurationBuilder keyType(KeyType keyType) {
+      attributes.attribute(KEY_TYPE).set(keyType);
+      return this;
+   }
+
+   /**
+    * Registers the calculator used to determine the size of entries whose value is of the given type when using
+    * MEMORY based eviction with the {@link StorageType#OBJECT} storage type.  The calculator is also used for values
+    * whose type extends or implements the given type, unless a calculator is registered for a more specific type.
+    * Entries without a registered calculator are sized by walking all of the objects reachable from the key and the
+    * value.
+    * @param valueType the type of the values sized by the calculator
+    * @param calculator the calculator that returns how much memory the key and the value use
+    * @return this
+    */
+   public <V> MemoryConfigurationBuilder sizeCalculator(Class<V> valueType, EntrySizeCalculator<?, ? super V> calculator) {
+      Map<Class<?>, EntrySizeCalculator<?, ?>> calculators = attributes.attribute(SIZE_CALCULATORS).get();
+      calculators.put(valueType, calculator);
+      attributes.attribute(SIZE_CALCULATORS).set(calculators);
+      return this;
+   }
+
    @Override
    public void validate() {
       StorageType type = attributes.attribute(STORAGE_TYPE).get();
+      // The memory configuration used not to be validated, so configurations that were accepted only get a warning
       if (type != StorageType.OBJECT && getBuilder().compatibility().isEnabled()) {
-         throw new CacheConfigurationException("Compatibility mode requires OBJECT storage type but was: " + type);
+         log.compatibilityRequiresObjectStorage(type);
+      }
+      if (attributes.attribute(ALLOCATOR).get() != AllocatorType.UNPOOLED && type != StorageType.OFF_HEAP) {
+         throw new CacheConfigurationException("A native memory allocator can only be selected with OFF_HEAP storage type but was: " + type);
+      }
+      if (attributes.attribute(HEAP_TIER_SIZE).get() > 0 && type != StorageType.OFF_HEAP) {
+         throw new CacheConfigurationException("An on-heap tier can only be used with OFF_HEAP storage type but was: " + type);
       }
       long size = attributes.attribute(SIZE).get();
-      if (size > 0) {
-         EvictionType evictionType = attributes.attribute(EVICTION_TYPE).get();
-         if (evictionType == EvictionType.MEMORY && type != StorageType.BINARY) {
-            throw new CacheConfigurationException("MEMORY based eviction requires binary but was : " + type);
+      if (size > 0 && attributes.attribute(SEGMENTED).get()) {
+         throw new CacheConfigurationException("A segmented data container cannot be used with eviction");
+      }
+      KeyType keyType = attributes.attribute(KEY_TYPE).get();
+      if (keyType != KeyType.OBJECT) {
+         if (type != StorageType.OBJECT) {
+            throw new CacheConfigurationException("Key type " + keyType + " requires OBJECT storage type but was: " + type);
+         }
+         if (size > 0) {
+            throw new CacheConfigurationException("Key type " + keyType + " cannot be used with eviction");
+         }
+         if (getBuilder().clustering().l1().create().enabled()) {
+            throw new CacheConfigurationException("Key type " + keyType + " cannot be used with L1");
          }
       }
    }
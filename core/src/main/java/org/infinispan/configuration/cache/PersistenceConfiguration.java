@@ -12,17 +12,36 @@
  */
 public class PersistenceConfiguration {
    public static final AttributeDefinition<Boolean> PASSIVATION = AttributeDefinition.builder("passivation", false).immutable().build();
+   public static final AttributeDefinition<Integer> PARALLELISM = AttributeDefinition.builder("parallelism", 4).immutable().build();
+   public static final AttributeDefinition<Integer> BLOOM_FILTER_ENTRIES = AttributeDefinition.builder("bloomFilterEntries", 0).immutable().build();
+   public static final AttributeDefinition<Double> BLOOM_FILTER_FALSE_POSITIVE_RATE = AttributeDefinition.builder("bloomFilterFalsePositiveRate", 0.01d).immutable().build();
+   public static final AttributeDefinition<Integer> NEGATIVE_CACHE_SIZE = AttributeDefinition.builder("negativeCacheSize", 0).immutable().build();
+   public static final AttributeDefinition<Boolean> TIERED = AttributeDefinition.builder("tiered", false).immutable().build();
+   public static final AttributeDefinition<Integer> LOCAL_TIER_MAX_ENTRIES = AttributeDefinition.builder("localTierMaxEntries", 0).immutable().build();
    static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(PersistenceConfiguration.class, PASSIVATION);
+      return new AttributeSet(PersistenceConfiguration.class, PASSIVATION, PARALLELISM, BLOOM_FILTER_ENTRIES,
+            BLOOM_FILTER_FALSE_POSITIVE_RATE, NEGATIVE_CACHE_SIZE, TIERED, LOCAL_TIER_MAX_ENTRIES);
    }
 
    private final Attribute<Boolean> passivation;
+   private final Attribute<Integer> parallelism;
+   private final Attribute<Integer> bloomFilterEntries;
+   private final Attribute<Double> bloomFilterFalsePositiveRate;
+   private final Attribute<Integer> negativeCacheSize;
+   private final Attribute<Boolean> tiered;
+   private final Attribute<Integer> localTierMaxEntries;
    private final AttributeSet attributes;
    private final List<StoreConfiguration> stores;
 
    PersistenceConfiguration(AttributeSet attributes, List<StoreConfiguration> stores) {
       this.attributes = attributes.checkProtection();
       passivation = attributes.attribute(PASSIVATION);
+      parallelism = attributes.attribute(PARALLELISM);
+      bloomFilterEntries = attributes.attribute(BLOOM_FILTER_ENTRIES);
+      bloomFilterFalsePositiveRate = attributes.attribute(BLOOM_FILTER_FALSE_POSITIVE_RATE);
+      negativeCacheSize = attributes.attribute(NEGATIVE_CACHE_SIZE);
+      tiered = attributes.attribute(TIERED);
+      localTierMaxEntries = attributes.attribute(LOCAL_TIER_MAX_ENTRIES);
       this.stores = stores;
    }
 
@@ -39,6 +58,60 @@ public boolean passivation() {
       return passivation.get();
    }
 
+   /**
+    * The maximum number of threads used to preload the cache, to purge expired entries from the stores and to read
+    * entries from the stores during state transfer.
+    */
+   public int parallelism() {
+      return parallelism.get();
+   }
+
+   /**
+    * The expected number of keys in the stores, used to size the bloom filter that skips the lookups of keys which
+    * are not in any store. 0 means the filter is disabled.
+    */
+   public int bloomFilterEntries() {
+      return bloomFilterEntries.get();
+   }
+
+   /**
+    * The expected rate of lookups of missing keys that the bloom filter lets through to the stores.
+    */
+   public double bloomFilterFalsePositiveRate() {
+      return bloomFilterFalsePositiveRate.get();
+   }
+
+   /**
+    * The maximum number of keys recently found missing in all the stores that are remembered. 0 means the negative
+    * cache is disabled.
+    */
+   public int negativeCacheSize() {
+      return negativeCacheSize.get();
+   }
+
+   /**
+    * Whether lookups of missing keys are filtered before reaching the stores.
+    */
+   public boolean filteringMissingKeys() {
+      return bloomFilterEntries() > 0 || negativeCacheSize() > 0;
+   }
+
+   /**
+    * If true, the local stores are a cache of the shared stores. Entries read from the shared stores are copied to
+    * the local stores, and the local stores are always read first.
+    */
+   public boolean tiered() {
+      return tiered.get();
+   }
+
+   /**
+    * The maximum number of entries kept in the local stores of a tiered configuration. 0 means the local stores are
+    * not bounded.
+    */
+   public int localTierMaxEntries() {
+      return localTierMaxEntries.get();
+   }
+
    public List<StoreConfiguration> stores() {
       return stores;
    }
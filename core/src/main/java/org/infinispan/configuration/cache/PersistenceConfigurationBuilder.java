@@ -1,6 +1,12 @@
 package org.infinispan.configuration.cache;
 
+import static org.infinispan.configuration.cache.PersistenceConfiguration.BLOOM_FILTER_ENTRIES;
+import static org.infinispan.configuration.cache.PersistenceConfiguration.BLOOM_FILTER_FALSE_POSITIVE_RATE;
+import static org.infinispan.configuration.cache.PersistenceConfiguration.LOCAL_TIER_MAX_ENTRIES;
+import static org.infinispan.configuration.cache.PersistenceConfiguration.NEGATIVE_CACHE_SIZE;
+import static org.infinispan.configuration.cache.PersistenceConfiguration.PARALLELISM;
 import static org.infinispan.configuration.cache.PersistenceConfiguration.PASSIVATION;
+import static org.infinispan.configuration.cache.PersistenceConfiguration.TIERED;
 
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
@@ -48,6 +54,64 @@ boolean passivation() {
       return attributes.attribute(PASSIVATION).get();
    }
 
+   /**
+    * Sets the maximum number of threads used to preload the cache, to purge expired entries from the stores and to
+    * read entries from the stores during state transfer. The threads are taken from the persistence executor.
+    */
+   public PersistenceConfigurationBuilder parallelism(int parallelism) {
+      attributes.attribute(PARALLELISM).set(parallelism);
+      return this;
+   }
+
+   /**
+    * Enables a bloom filter in front of the stores, sized for the given number of keys. Lookups of keys that the
+    * filter knows are not in any store return immediately. The filter is rebuilt by iterating over the keys of all the
+    * stores when the cache starts. Defaults to 0, which disables the filter.
+    */
+   public PersistenceConfigurationBuilder bloomFilterEntries(int bloomFilterEntries) {
+      attributes.attribute(BLOOM_FILTER_ENTRIES).set(bloomFilterEntries);
+      return this;
+   }
+
+   /**
+    * Sets the expected rate of lookups of missing keys that the bloom filter lets through to the stores, once the
+    * stores contain {@link #bloomFilterEntries(int)} keys. Defaults to 0.01.
+    */
+   public PersistenceConfigurationBuilder bloomFilterFalsePositiveRate(double bloomFilterFalsePositiveRate) {
+      attributes.attribute(BLOOM_FILTER_FALSE_POSITIVE_RATE).set(bloomFilterFalsePositiveRate);
+      return this;
+   }
+
+   /**
+    * Sets the maximum number of keys recently found missing in all the stores that are remembered, so that looking
+    * them up again does not access the stores. Defaults to 0, which disables the negative cache.
+    */
+   public PersistenceConfigurationBuilder negativeCacheSize(int negativeCacheSize) {
+      attributes.attribute(NEGATIVE_CACHE_SIZE).set(negativeCacheSize);
+      return this;
+   }
+
+   /**
+    * Makes the local stores a cache of the shared stores. The local stores are read before the shared stores, and
+    * entries read from the shared stores are copied to the local stores. Writes go to all the stores: enable
+    * {@link StoreConfigurationBuilder#async() async} on the shared stores to write them back in batches instead of
+    * writing them through. Requires at least one local and one shared store, and can't be used with passivation.
+    */
+   public PersistenceConfigurationBuilder tiered(boolean tiered) {
+      attributes.attribute(TIERED).set(tiered);
+      return this;
+   }
+
+   /**
+    * Sets the maximum number of entries kept in the local stores of a tiered configuration. The least recently used
+    * entries are deleted from the local stores, and are read again from the shared stores. The entries already in the
+    * local stores are counted when the cache starts. Defaults to 0, which means the local stores are not bounded.
+    */
+   public PersistenceConfigurationBuilder localTierMaxEntries(int localTierMaxEntries) {
+      attributes.attribute(LOCAL_TIER_MAX_ENTRIES).set(localTierMaxEntries);
+      return this;
+   }
+
    /**
     * Adds a cache loader which uses the specified builder class to build its configuration
     */
@@ -91,6 +155,15 @@ public SingleFileStoreConfigurationBuilder addSingleFileStore() {
       return builder;
    }
 
+   /**
+    * Adds a segmented file cache store, which keeps the entries of each segment in a separate file
+    */
+   public SegmentedFileStoreConfigurationBuilder addSegmentedFileStore() {
+      SegmentedFileStoreConfigurationBuilder builder = new SegmentedFileStoreConfigurationBuilder(this);
+      this.stores.add(builder);
+      return builder;
+   }
+
    /**
     * Removes any configured stores from this builder.
     */
@@ -120,6 +193,10 @@ public void validate() {
       }
       if (numFetchPersistentState > 1)
          throw log.onlyOneFetchPersistentStoreAllowed();
+      if (attributes.attribute(PARALLELISM).get() < 1)
+         throw new CacheConfigurationException("Persistence parallelism must be greater than 0");
+      validateMissingKeyFilter(isLocalCache);
+      validateTiers();
 
       // If we have a store we have to guarantee the reaper expiration thread is enabled
       if (!stores.isEmpty()) {
@@ -138,6 +215,57 @@ public void validate() {
       }
    }
 
+   private void validateMissingKeyFilter(boolean isLocalCache) {
+      int bloomFilterEntries = attributes.attribute(BLOOM_FILTER_ENTRIES).get();
+      double falsePositiveRate = attributes.attribute(BLOOM_FILTER_FALSE_POSITIVE_RATE).get();
+      int negativeCacheSize = attributes.attribute(NEGATIVE_CACHE_SIZE).get();
+      if (bloomFilterEntries < 0)
+         throw new CacheConfigurationException("The number of bloom filter entries must not be negative");
+      if (falsePositiveRate <= 0 || falsePositiveRate >= 1)
+         throw new CacheConfigurationException("The bloom filter false positive rate must be between 0 and 1");
+      if (negativeCacheSize < 0)
+         throw new CacheConfigurationException("The negative cache size must not be negative");
+      if (bloomFilterEntries == 0 && negativeCacheSize == 0)
+         return;
+      // The filters only see the writes of this node
+      for (StoreConfigurationBuilder<?, ?> b : stores) {
+         StoreConfiguration storeConfiguration = b.create();
+         if (storeConfiguration instanceof ClusterLoaderConfiguration || (storeConfiguration.shared() && !isLocalCache))
+            throw new CacheConfigurationException("The bloom filter and the negative cache cannot be used with " +
+                  storeConfiguration.getClass().getSimpleName() + " as it is modified by other nodes");
+      }
+   }
+
+   private void validateTiers() {
+      int localTierMaxEntries = attributes.attribute(LOCAL_TIER_MAX_ENTRIES).get();
+      if (localTierMaxEntries < 0)
+         throw new CacheConfigurationException("The maximum number of entries of the local tier must not be negative");
+      if (!attributes.attribute(TIERED).get()) {
+         if (localTierMaxEntries > 0)
+            throw new CacheConfigurationException("The maximum number of entries of the local tier requires a tiered configuration");
+         return;
+      }
+      if (passivation())
+         throw new CacheConfigurationException("A tiered configuration cannot use passivation");
+      boolean hasLocal = false;
+      boolean hasShared = false;
+      for (StoreConfigurationBuilder<?, ?> b : stores) {
+         StoreConfiguration storeConfiguration = b.create();
+         if (storeConfiguration instanceof ClusterLoaderConfiguration)
+            throw new CacheConfigurationException("A tiered configuration cannot use the cluster loader");
+         if (storeConfiguration.shared()) {
+            hasShared = true;
+         } else {
+            hasLocal = true;
+            // A bounded local tier only has some of the entries
+            if (localTierMaxEntries > 0 && storeConfiguration.fetchPersistentState())
+               throw new CacheConfigurationException("The stores of a bounded local tier cannot fetch persistent state");
+         }
+      }
+      if (!hasLocal || !hasShared)
+         throw new CacheConfigurationException("A tiered configuration requires at least one local and one shared store");
+   }
+
    @Override
    public void validate(GlobalConfiguration globalConfig) {
       for (StoreConfigurationBuilder<?, ?> b : stores) {
@@ -0,0 +1,58 @@
+package org.infinispan.configuration.cache;
+
+import org.infinispan.commons.configuration.BuiltBy;
+import org.infinispan.commons.configuration.ConfigurationFor;
+import org.infinispan.commons.configuration.attributes.Attribute;
+import org.infinispan.commons.configuration.attributes.AttributeDefinition;
+import org.infinispan.commons.configuration.attributes.AttributeSet;
+import org.infinispan.persistence.file.SegmentedFileStore;
+
+/**
+ * Defines the configuration for the segmented file cache store.
+ *
+ * @since 9.0
+ */
+@BuiltBy(SegmentedFileStoreConfigurationBuilder.class)
+@ConfigurationFor(SegmentedFileStore.class)
+public class SegmentedFileStoreConfiguration extends AbstractStoreConfiguration {
+   public static final AttributeDefinition<String> LOCATION = AttributeDefinition.builder("location", "Infinispan-SegmentedFileStore").immutable().xmlName("path").build();
+   public static final AttributeDefinition<Integer> SEGMENTS_PER_FILE = AttributeDefinition.builder("segmentsPerFile", 16).immutable().build();
+   public static final AttributeDefinition<Float> COMPACTION_THRESHOLD = AttributeDefinition.builder("compactionThreshold", 0.5f).immutable().build();
+   public static AttributeSet attributeDefinitionSet() {
+      return new AttributeSet(SegmentedFileStoreConfiguration.class, AbstractStoreConfiguration.attributeDefinitionSet(), LOCATION, SEGMENTS_PER_FILE, COMPACTION_THRESHOLD);
+   }
+
+   private final Attribute<String> location;
+   private final Attribute<Integer> segmentsPerFile;
+   private final Attribute<Float> compactionThreshold;
+
+   public SegmentedFileStoreConfiguration(AttributeSet attributes, AsyncStoreConfiguration async,
+                                          SingletonStoreConfiguration singletonStore) {
+      super(attributes, async, singletonStore);
+      location = attributes.attribute(LOCATION);
+      segmentsPerFile = attributes.attribute(SEGMENTS_PER_FILE);
+      compactionThreshold = attributes.attribute(COMPACTION_THRESHOLD);
+   }
+
+   public String location() {
+      return location.get();
+   }
+
+   public int segmentsPerFile() {
+      return segmentsPerFile.get();
+   }
+
+   public float compactionThreshold() {
+      return compactionThreshold.get();
+   }
+
+   @Override
+   public AttributeSet attributes() {
+      return attributes;
+   }
+
+   @Override
+   public String toString() {
+      return "SegmentedFileStoreConfiguration [attributes=" + attributes + "]";
+   }
+}
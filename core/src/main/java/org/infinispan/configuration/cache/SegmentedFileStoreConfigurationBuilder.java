@@ -0,0 +1,84 @@
+package org.infinispan.configuration.cache;
+
+import static org.infinispan.configuration.cache.SegmentedFileStoreConfiguration.COMPACTION_THRESHOLD;
+import static org.infinispan.configuration.cache.SegmentedFileStoreConfiguration.LOCATION;
+import static org.infinispan.configuration.cache.SegmentedFileStoreConfiguration.SEGMENTS_PER_FILE;
+
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.commons.configuration.Builder;
+import org.infinispan.commons.configuration.attributes.AttributeSet;
+
+/**
+ * Segmented file cache store configuration builder.
+ *
+ * @since 9.0
+ */
+public class SegmentedFileStoreConfigurationBuilder
+      extends AbstractStoreConfigurationBuilder<SegmentedFileStoreConfiguration, SegmentedFileStoreConfigurationBuilder> {
+
+   public SegmentedFileStoreConfigurationBuilder(PersistenceConfigurationBuilder builder) {
+      this(builder, SegmentedFileStoreConfiguration.attributeDefinitionSet());
+   }
+
+   public SegmentedFileStoreConfigurationBuilder(PersistenceConfigurationBuilder builder, AttributeSet attributeSet) {
+      super(builder, attributeSet);
+   }
+
+   @Override
+   public SegmentedFileStoreConfigurationBuilder self() {
+      return this;
+   }
+
+   /**
+    * Sets a location on disk where the store can write. The store keeps its files in a sub-directory named after
+    * the cache.
+    */
+   public SegmentedFileStoreConfigurationBuilder location(String location) {
+      attributes.attribute(LOCATION).set(location);
+      return this;
+   }
+
+   /**
+    * The number of consecutive segments that share a data file. Defaults to 16, i.e. 16 open files with the default
+    * number of segments. The store drops the file of a group of segments at once when the node no longer owns any of
+    * them, so fewer segments per file make leaving segments cheaper at the cost of more open files.
+    * <p>
+    * The number of segments and the number of segments per file must not change between restarts.
+    */
+   public SegmentedFileStoreConfigurationBuilder segmentsPerFile(int segmentsPerFile) {
+      attributes.attribute(SEGMENTS_PER_FILE).set(segmentsPerFile);
+      return this;
+   }
+
+   /**
+    * Entries are always appended to the data files, and the space used by the replaced or removed entries is only
+    * reclaimed by compacting the file. A file is compacted when the ratio of unused space to its total size exceeds
+    * this threshold. Defaults to 0.5.
+    */
+   public SegmentedFileStoreConfigurationBuilder compactionThreshold(float compactionThreshold) {
+      attributes.attribute(COMPACTION_THRESHOLD).set(compactionThreshold);
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      super.validate();
+      if (attributes.attribute(SEGMENTS_PER_FILE).get() < 1)
+         throw new CacheConfigurationException("The number of segments per file must be greater than 0");
+      float compactionThreshold = attributes.attribute(COMPACTION_THRESHOLD).get();
+      if (compactionThreshold <= 0 || compactionThreshold >= 1)
+         throw new CacheConfigurationException("The compaction threshold must be between 0 and 1");
+   }
+
+   @Override
+   public SegmentedFileStoreConfiguration create() {
+      return new SegmentedFileStoreConfiguration(attributes.protect(), async.create(), singletonStore.create());
+   }
+
+   @Override
+   public Builder<?> read(SegmentedFileStoreConfiguration template) {
+      super.read(template);
+      return this;
+   }
+
+}
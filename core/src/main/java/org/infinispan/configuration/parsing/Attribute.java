@@ -18,6 +18,7 @@ public enum Attribute {
     ADDRESS_COUNT("address-count"),
     AFTER("after"),
     ALIASES("aliases"),
+    ALLOCATOR("allocator"),
     ALLOW_DUPLICATE_DOMAINS("duplicate-domains"),
     ASYNC_EXECUTOR("async-executor"),
     @Deprecated
@@ -28,6 +29,8 @@ public enum Attribute {
     AWAIT_INITIAL_TRANSFER("await-initial-transfer"),
     BACKUP_FAILURE_POLICY("failure-policy"),
     BEFORE("before"),
+    BLOOM_FILTER_ENTRIES("bloom-filter-entries"),
+    BLOOM_FILTER_FALSE_POSITIVE_RATE("bloom-filter-false-positive-rate"),
     CAPACITY_FACTOR("capacity"),
     CHUNK_SIZE("chunk-size"),
     CLASS("class"),
@@ -45,11 +48,15 @@ public enum Attribute {
     @Deprecated
     EVICTION_EXECUTOR("eviction-executor"),
     EXPIRATION_EXECUTOR("expiration-executor"),
+    EXPIRY_INDEX("expiry-index"),
     FAILURE_POLICY_CLASS("failure-policy-class"),
     FETCH_STATE("fetch-state"),
+    FLUSH_INTERVAL("flush-interval"),
     @Deprecated
     FLUSH_LOCK_TIMEOUT("flush-lock-timeout"),
+    FLUSH_THRESHOLD("flush-threshold"),
     GROUP_NAME("group-name"),
+    HEAP_TIER_SIZE("heap-tier-size"),
     ID("id"),
     INDEX("index"),
     INITIAL_CLUSTER_SIZE("initial-cluster-size"),
@@ -62,9 +69,11 @@ public enum Attribute {
     KEEP_ALIVE_TIME("keepalive-time"),
     KEY_EQUIVALENCE("key-equivalence"),
     KEY_PARTITIONER("key-partitioner"),
+    KEY_TYPE("key-type"),
     L1_LIFESPAN("l1-lifespan"),
     LIFESPAN("lifespan"),
     LISTENER_EXECUTOR("listener-executor"),
+    LOCAL_TIER_MAX_ENTRIES("local-tier-max-entries"),
     LOCATION("location"),
     LOCK_TIMEOUT("lock-timeout"),
     LOCKING("locking"),
@@ -82,9 +91,11 @@ public enum Attribute {
     MODULE("module"),
     NAME("name"),
     NAMES("names"),
+    NEGATIVE_CACHE_SIZE("negative-cache-size"),
     NOTIFICATIONS("notifications"),
     ON_REHASH("onRehash"),
     OWNERS("owners"),
+    PARALLELISM("parallelism"),
     PATH("path"),
     PASSIVATION("passivation"),
     PERMISSIONS("permissions"),
@@ -110,6 +121,9 @@ public enum Attribute {
     @Deprecated
     REPLICATION_QUEUE_EXECUTOR("replication-queue-executor"),
     ROLES("roles"),
+    RPC_BUNDLING_DELAY("rpc-bundling-delay"),
+    RPC_BUNDLING_SIZE("rpc-bundling-size"),
+    SEGMENTED("segmented"),
     SEGMENTS("segments"),
     SHARED("shared"),
     SHUTDOWN_HOOK("shutdown-hook"),
@@ -138,6 +152,7 @@ public enum Attribute {
     THREAD_NAME_PATTERN("thread-name-pattern"),
     THREAD_POLICY("thread-policy"),
     THREAD_POOL_SIZE("thread-pool-size"),
+    TIERED("tiered"),
     TIMEOUT("timeout"),
     TOTAL_ORDER_EXECUTOR("total-order-executor"),
     TRANSACTION_MANAGER_LOOKUP_CLASS("transaction-manager-lookup"),
@@ -31,6 +31,7 @@
 import org.infinispan.commons.marshall.AdvancedExternalizer;
 import org.infinispan.commons.util.Util;
 import org.infinispan.configuration.cache.AbstractStoreConfigurationBuilder;
+import org.infinispan.configuration.cache.AllocatorType;
 import org.infinispan.configuration.cache.AsyncStoreConfigurationBuilder;
 import org.infinispan.configuration.cache.AuthorizationConfigurationBuilder;
 import org.infinispan.configuration.cache.BackupConfiguration;
@@ -44,6 +45,7 @@
 import org.infinispan.configuration.cache.Index;
 import org.infinispan.configuration.cache.InterceptorConfiguration;
 import org.infinispan.configuration.cache.InterceptorConfigurationBuilder;
+import org.infinispan.configuration.cache.KeyType;
 import org.infinispan.configuration.cache.MemoryConfigurationBuilder;
 import org.infinispan.configuration.cache.PartitionHandlingConfigurationBuilder;
 import org.infinispan.configuration.cache.SecurityConfigurationBuilder;
@@ -1590,6 +1592,15 @@ private void parseOffHeapMemoryAttributes(final XMLExtendedStreamReader reader,
             case ADDRESS_COUNT:
                memoryBuilder.addressCount(Integer.parseInt(value));
                break;
+            case ALLOCATOR:
+               memoryBuilder.allocator(AllocatorType.valueOf(value));
+               break;
+            case HEAP_TIER_SIZE:
+               memoryBuilder.heapTierSize(Long.parseLong(value));
+               break;
+            case SEGMENTED:
+               memoryBuilder.segmented(Boolean.parseBoolean(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1607,6 +1618,12 @@ private void parseObjectMemoryAttributes(final XMLExtendedStreamReader reader, f
             case SIZE:
                memoryBuilder.size(Long.parseLong(value));
                break;
+            case SEGMENTED:
+               memoryBuilder.segmented(Boolean.parseBoolean(value));
+               break;
+            case KEY_TYPE:
+               memoryBuilder.keyType(KeyType.valueOf(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1627,6 +1644,9 @@ private void parseBinaryMemoryAttributes(final XMLExtendedStreamReader reader, f
             case EVICTION:
                memoryBuilder.evictionType(EvictionType.valueOf(value));
                break;
+            case SEGMENTED:
+               memoryBuilder.segmented(Boolean.parseBoolean(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1889,6 +1909,10 @@ private void parseExpiration(XMLExtendedStreamReader reader, ConfigurationBuilde
                builder.expiration().wakeUpInterval(Long.parseLong(value));
                break;
             }
+            case EXPIRY_INDEX: {
+               builder.expiration().expiryIndex(Boolean.parseBoolean(value));
+               break;
+            }
             default: {
                throw ParseUtils.unexpectedAttribute(reader, i);
             }
@@ -1958,6 +1982,14 @@ private void parseClusteredCacheAttribute(XMLExtendedStreamReader reader,
             builder.clustering().remoteTimeout(Long.parseLong(value));
             break;
          }
+         case RPC_BUNDLING_DELAY: {
+            builder.clustering().rpcBundlingDelay(Long.parseLong(value));
+            break;
+         }
+         case RPC_BUNDLING_SIZE: {
+            builder.clustering().rpcBundlingSize(Integer.parseInt(value));
+            break;
+         }
          default: {
             this.parseCacheAttribute(reader, index, attribute, value, builder);
          }
@@ -2170,6 +2202,24 @@ private void parsePersistence(final XMLExtendedStreamReader reader, final Config
             case PASSIVATION:
                builder.persistence().passivation(Boolean.parseBoolean(value));
                break;
+            case PARALLELISM:
+               builder.persistence().parallelism(Integer.parseInt(value));
+               break;
+            case BLOOM_FILTER_ENTRIES:
+               builder.persistence().bloomFilterEntries(Integer.parseInt(value));
+               break;
+            case BLOOM_FILTER_FALSE_POSITIVE_RATE:
+               builder.persistence().bloomFilterFalsePositiveRate(Double.parseDouble(value));
+               break;
+            case NEGATIVE_CACHE_SIZE:
+               builder.persistence().negativeCacheSize(Integer.parseInt(value));
+               break;
+            case TIERED:
+               builder.persistence().tiered(Boolean.parseBoolean(value));
+               break;
+            case LOCAL_TIER_MAX_ENTRIES:
+               builder.persistence().localTierMaxEntries(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -2340,6 +2390,14 @@ public static void parseStoreWriteBehind(XMLExtendedStreamReader reader, AsyncSt
                storeBuilder.threadPoolSize(Integer.parseInt(value));
                break;
             }
+            case FLUSH_INTERVAL: {
+               storeBuilder.flushInterval(Long.parseLong(value));
+               break;
+            }
+            case FLUSH_THRESHOLD: {
+               storeBuilder.flushThreshold(Integer.parseInt(value));
+               break;
+            }
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
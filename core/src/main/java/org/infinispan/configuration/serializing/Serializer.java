@@ -396,6 +396,8 @@ private void writeCommonClusteredCacheAttributes(XMLExtendedStreamWriter writer,
 
       AttributeSet syncAttributes = clustering.sync().attributes();
       syncAttributes.write(writer, ClusteringConfiguration.REMOTE_TIMEOUT, Attribute.REMOTE_TIMEOUT);
+      clustering.attributes().write(writer, ClusteringConfiguration.RPC_BUNDLING_DELAY, Attribute.RPC_BUNDLING_DELAY);
+      clustering.attributes().write(writer, ClusteringConfiguration.RPC_BUNDLING_SIZE, Attribute.RPC_BUNDLING_SIZE);
    }
 
    private void writeCommonCacheAttributesElements(XMLExtendedStreamWriter writer, String name, Configuration configuration) throws XMLStreamException {
@@ -484,6 +486,12 @@ private void writePersistence(XMLExtendedStreamWriter writer, Configuration conf
       if (attributes.isModified() || persistence.stores().size() > 0) {
          writer.writeStartElement(Element.PERSISTENCE);
          attributes.write(writer, PersistenceConfiguration.PASSIVATION, Attribute.PASSIVATION);
+         attributes.write(writer, PersistenceConfiguration.PARALLELISM, Attribute.PARALLELISM);
+         attributes.write(writer, PersistenceConfiguration.BLOOM_FILTER_ENTRIES, Attribute.BLOOM_FILTER_ENTRIES);
+         attributes.write(writer, PersistenceConfiguration.BLOOM_FILTER_FALSE_POSITIVE_RATE, Attribute.BLOOM_FILTER_FALSE_POSITIVE_RATE);
+         attributes.write(writer, PersistenceConfiguration.NEGATIVE_CACHE_SIZE, Attribute.NEGATIVE_CACHE_SIZE);
+         attributes.write(writer, PersistenceConfiguration.TIERED, Attribute.TIERED);
+         attributes.write(writer, PersistenceConfiguration.LOCAL_TIER_MAX_ENTRIES, Attribute.LOCAL_TIER_MAX_ENTRIES);
          for (StoreConfiguration store : persistence.stores()) {
             writeStore(writer, store);
          }
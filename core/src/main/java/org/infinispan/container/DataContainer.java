@@ -224,4 +224,16 @@ default void resize(long newSize) {
    default long capacity() {
       throw new UnsupportedOperationException();
    }
+
+   /**
+    * Returns how much of the capacity of the underlying container is in use, which is the number of entries for
+    * {@link org.infinispan.eviction.EvictionType#COUNT} and their approximate size in memory for
+    * {@link org.infinispan.eviction.EvictionType#MEMORY}. This is only supported if the container is bounded. An
+    * {@link UnsupportedOperationException} is thrown otherwise.
+    *
+    * @return
+    */
+   default long evictionSize() {
+      throw new UnsupportedOperationException();
+   }
 }
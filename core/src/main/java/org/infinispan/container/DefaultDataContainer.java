@@ -26,7 +26,7 @@
 import org.infinispan.container.entries.CacheEntrySizeCalculator;
 import org.infinispan.container.entries.ImmortalCacheEntry;
 import org.infinispan.container.entries.InternalCacheEntry;
-import org.infinispan.container.entries.PrimitiveEntrySizeCalculator;
+import org.infinispan.container.entries.ObjectGraphSizeCalculator;
 import org.infinispan.eviction.ActivationManager;
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.eviction.EvictionType;
@@ -97,8 +97,8 @@ protected DefaultDataContainer(int concurrencyLevel, long thresholdSize, Evictio
       switch (thresholdPolicy) {
          case MEMORY:
             CacheEntrySizeCalculator<K, V> calc = new CacheEntrySizeCalculator<>(new WrappedByteArraySizeCalculator<>(
-                  new PrimitiveEntrySizeCalculator()));
-            caffeine.weigher((k, v) -> (int) calc.calculateSize(k, v)).maximumWeight(thresholdSize);
+                  new ObjectGraphSizeCalculator()));
+            caffeine.weigher((k, v) -> weigh(calc, k, v)).maximumWeight(thresholdSize);
             break;
          case COUNT:
             caffeine.maximumSize(thresholdSize);
@@ -110,6 +110,11 @@ protected DefaultDataContainer(int concurrencyLevel, long thresholdSize, Evictio
       entries = evictionCache.asMap();
    }
 
+   private static <K, V> int weigh(EntrySizeCalculator<K, InternalCacheEntry<K, V>> calc, K key,
+                                   InternalCacheEntry<K, V> entry) {
+      return (int) Math.min(calc.calculateSize(key, entry), Integer.MAX_VALUE);
+   }
+
    private Caffeine<K, InternalCacheEntry<K, V>> applyListener(Caffeine<K, InternalCacheEntry<K, V>> caffeine, DefaultEvictionListener listener) {
       return caffeine.executor(new WithinThreadExecutor()).removalListener((k, v, c) -> {
          switch (c) {
@@ -133,6 +138,9 @@ public void write(K key, InternalCacheEntry<K, V> value) {
          public void delete(K key, InternalCacheEntry<K, V> value, RemovalCause cause) {
             if (cause == RemovalCause.SIZE) {
                listener.onEntryChosenForEviction(new ImmortalCacheEntry(key, value));
+               if (value.canExpire()) {
+                  expirationManager.unregisterExpiration(key);
+               }
             }
          }
       });
@@ -151,7 +159,7 @@ protected DefaultDataContainer(int concurrencyLevel, long thresholdSize,
       EntrySizeCalculator<K, InternalCacheEntry<K, V>> calc = new CacheEntrySizeCalculator<>(sizeCalculator);
 
       evictionCache = applyListener(Caffeine.newBuilder()
-            .weigher((K k, InternalCacheEntry<K, V> v) -> (int) calc.calculateSize(k, v))
+            .weigher((K k, InternalCacheEntry<K, V> v) -> weigh(calc, k, v))
             .maximumWeight(thresholdSize), evictionListener)
             .build();
 
@@ -236,10 +244,22 @@ public void put(K k, V v, Metadata metadata) {
 
       entries.compute(copy.getKey(), (key, entry) -> {
          activator.onUpdate(key, entry == null);
+         updateExpiration(key, entry, copy);
          return copy;
       });
    }
 
+   /**
+    * Keeps the expiration index up to date, must be invoked while holding the lock of the key.
+    */
+   private void updateExpiration(K key, InternalCacheEntry<K, V> oldEntry, InternalCacheEntry<K, V> newEntry) {
+      if (newEntry != null && newEntry.canExpire()) {
+         expirationManager.registerExpiration(key, newEntry.getExpiryTime());
+      } else if (oldEntry != null && oldEntry.canExpire()) {
+         expirationManager.unregisterExpiration(key);
+      }
+   }
+
    @Override
    public boolean containsKey(Object k) {
       InternalCacheEntry<K, V> ice = peek(k);
@@ -255,6 +275,7 @@ public InternalCacheEntry<K, V> remove(Object k) {
       final InternalCacheEntry<K,V>[] reference = new InternalCacheEntry[1];
       entries.compute((K) k, (key, entry) -> {
          activator.onRemove(key, entry == null);
+         updateExpiration(key, entry, null);
          reference[0] = entry;
          return null;
       });
@@ -287,6 +308,13 @@ public void resize(long newSize) {
       evict.setMaximum(newSize);
    }
 
+   @Override
+   public long evictionSize() {
+      Policy.Eviction<K, InternalCacheEntry<K, V>> evict = eviction();
+      // The weighted size is only present when sizing by memory
+      return evict.weightedSize().orElseGet(evictionCache::estimatedSize);
+   }
+
    @Override
    public int size() {
       int size = 0;
@@ -328,6 +356,7 @@ public Set<InternalCacheEntry<K, V>> entrySet() {
    public void evict(K key) {
       entries.computeIfPresent(key, (o, entry) -> {
          passivator.passivate(entry);
+         updateExpiration(o, entry, null);
          return null;
       });
    }
@@ -340,9 +369,11 @@ public InternalCacheEntry<K, V> compute(K key, ComputeAction<K, V> action) {
             return oldEntry;
          } else if (newEntry == null) {
             activator.onRemove(k, false);
+            updateExpiration(k, oldEntry, null);
             return null;
          }
          activator.onUpdate(k, oldEntry == null);
+         updateExpiration(k, oldEntry, newEntry);
          if (trace)
             log.tracef("Store %s in container", newEntry);
          return newEntry;
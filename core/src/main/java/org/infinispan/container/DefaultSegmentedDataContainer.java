@@ -0,0 +1,377 @@
+package org.infinispan.container;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.offheap.OffHeapDataContainer;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.filter.KeyFilter;
+import org.infinispan.filter.KeyValueFilter;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * {@link SegmentedDataContainer} that keeps a separate, unbounded data container per segment. The per segment
+ * containers are created by the supplied factory when this container starts, and are cleared when their segment is
+ * removed.
+ * <p>
+ * Bounded containers are not supported as eviction would be applied per segment instead of to the container as a
+ * whole.
+ *
+ * @since 9.0
+ */
+@ThreadSafe
+public class DefaultSegmentedDataContainer<K, V> implements SegmentedDataContainer<K, V> {
+
+   private static final Log log = LogFactory.getLog(DefaultSegmentedDataContainer.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final AtomicReferenceArray<DataContainer<K, V>> containers;
+   private final Supplier<? extends DataContainer<K, V>> containerSupplier;
+   private KeyPartitioner keyPartitioner;
+   private ComponentRegistry componentRegistry;
+
+   public DefaultSegmentedDataContainer(int numSegments, Supplier<? extends DataContainer<K, V>> containerSupplier) {
+      if (numSegments <= 0) {
+         throw new IllegalArgumentException("numSegments must be greater than 0");
+      }
+      this.containers = new AtomicReferenceArray<>(numSegments);
+      this.containerSupplier = containerSupplier;
+   }
+
+   @Inject
+   public void inject(KeyPartitioner keyPartitioner, ComponentRegistry componentRegistry) {
+      this.keyPartitioner = keyPartitioner;
+      this.componentRegistry = componentRegistry;
+   }
+
+   /**
+    * Creates the containers for all the segments. This must happen while the component registry is wiring this
+    * component, as wiring the segment containers at runtime could deadlock with a cache that is still starting.
+    */
+   @Start
+   public void start() {
+      for (int i = 0; i < containers.length(); ++i) {
+         DataContainer<K, V> container = containerSupplier.get();
+         componentRegistry.wireDependencies(container);
+         containers.set(i, container);
+      }
+   }
+
+   /**
+    * Releases any native memory held by the segment containers.
+    */
+   @Stop(priority = Integer.MAX_VALUE - 1)
+   public void stop() {
+      for (int i = 0; i < containers.length(); ++i) {
+         DataContainer<K, V> container = containers.getAndSet(i, null);
+         if (container instanceof OffHeapDataContainer) {
+            ((OffHeapDataContainer) container).deallocate();
+         } else if (container != null) {
+            container.clear();
+         }
+      }
+   }
+
+   private DataContainer<K, V> containerForKey(Object key) {
+      return containers.get(keyPartitioner.getSegment(key));
+   }
+
+   @Override
+   public void removeSegments(Set<Integer> segments) {
+      for (int segment : segments) {
+         DataContainer<K, V> container = containers.get(segment);
+         if (container != null) {
+            container.clear();
+            if (trace) {
+               log.tracef("Removed entries for segment %d", segment);
+            }
+         }
+      }
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> get(Object k) {
+      DataContainer<K, V> container = containerForKey(k);
+      return container == null ? null : container.get(k);
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> peek(Object k) {
+      DataContainer<K, V> container = containerForKey(k);
+      return container == null ? null : container.peek(k);
+   }
+
+   @Override
+   public void put(K k, V v, Metadata metadata) {
+      DataContainer<K, V> container = containerForKey(k);
+      if (container != null) {
+         container.put(k, v, metadata);
+      }
+   }
+
+   @Override
+   public boolean containsKey(Object k) {
+      DataContainer<K, V> container = containerForKey(k);
+      return container != null && container.containsKey(k);
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> remove(Object k) {
+      DataContainer<K, V> container = containerForKey(k);
+      return container == null ? null : container.remove(k);
+   }
+
+   @Override
+   public int size() {
+      long size = 0;
+      for (int i = 0; i < containers.length(); ++i) {
+         DataContainer<K, V> container = containers.get(i);
+         if (container != null) {
+            size += container.size();
+         }
+      }
+      return (int) Math.min(size, Integer.MAX_VALUE);
+   }
+
+   @Override
+   public int sizeIncludingExpired() {
+      long size = 0;
+      for (int i = 0; i < containers.length(); ++i) {
+         DataContainer<K, V> container = containers.get(i);
+         if (container != null) {
+            size += container.sizeIncludingExpired();
+         }
+      }
+      return (int) Math.min(size, Integer.MAX_VALUE);
+   }
+
+   @Override
+   public void clear() {
+      log.tracef("Clearing data container");
+      for (int i = 0; i < containers.length(); ++i) {
+         DataContainer<K, V> container = containers.get(i);
+         if (container != null) {
+            container.clear();
+         }
+      }
+   }
+
+   @Override
+   public Set<K> keySet() {
+      return new KeySet();
+   }
+
+   @Override
+   public Collection<V> values() {
+      return new Values();
+   }
+
+   @Override
+   public Set<InternalCacheEntry<K, V>> entrySet() {
+      return new EntrySet();
+   }
+
+   @Override
+   public void evict(K key) {
+      DataContainer<K, V> container = containerForKey(key);
+      if (container != null) {
+         container.evict(key);
+      }
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> compute(K key, ComputeAction<K, V> action) {
+      DataContainer<K, V> container = containerForKey(key);
+      return container == null ? null : container.compute(key, action);
+   }
+
+   @Override
+   public void executeTask(KeyFilter<? super K> filter, BiConsumer<? super K, InternalCacheEntry<K, V>> action)
+         throws InterruptedException {
+      if (filter == null)
+         throw new IllegalArgumentException("No filter specified");
+      if (action == null)
+         throw new IllegalArgumentException("No action specified");
+
+      for (int i = 0; i < containers.length(); ++i) {
+         DataContainer<K, V> container = containers.get(i);
+         if (container != null) {
+            container.executeTask(filter, action);
+         }
+      }
+   }
+
+   @Override
+   public void executeTask(KeyValueFilter<? super K, ? super V> filter,
+         BiConsumer<? super K, InternalCacheEntry<K, V>> action) throws InterruptedException {
+      if (filter == null)
+         throw new IllegalArgumentException("No filter specified");
+      if (action == null)
+         throw new IllegalArgumentException("No action specified");
+
+      for (int i = 0; i < containers.length(); ++i) {
+         DataContainer<K, V> container = containers.get(i);
+         if (container != null) {
+            container.executeTask(filter, action);
+         }
+      }
+   }
+
+   private Iterator<Integer> allSegments() {
+      return IntStream.range(0, containers.length()).iterator();
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iterator() {
+      return new SegmentIterator<>(allSegments(), DataContainer::iterator);
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iteratorIncludingExpired() {
+      return new SegmentIterator<>(allSegments(), DataContainer::iteratorIncludingExpired);
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iterator(Set<Integer> segments) {
+      return new SegmentIterator<>(segments.iterator(), DataContainer::iterator);
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iteratorIncludingExpired(Set<Integer> segments) {
+      return new SegmentIterator<>(segments.iterator(), DataContainer::iteratorIncludingExpired);
+   }
+
+   /**
+    * Iterator that lazily chains the iterators of the containers for the given segments, skipping segments that are
+    * not present.
+    */
+   private class SegmentIterator<T> implements Iterator<T> {
+      private final Iterator<Integer> segments;
+      private final Function<DataContainer<K, V>, Iterator<T>> iteratorFunction;
+
+      private Iterator<T> current = Collections.emptyIterator();
+
+      SegmentIterator(Iterator<Integer> segments, Function<DataContainer<K, V>, Iterator<T>> iteratorFunction) {
+         this.segments = segments;
+         this.iteratorFunction = iteratorFunction;
+      }
+
+      @Override
+      public boolean hasNext() {
+         while (!current.hasNext()) {
+            if (!segments.hasNext()) {
+               return false;
+            }
+            DataContainer<K, V> container = containers.get(segments.next());
+            if (container != null) {
+               current = iteratorFunction.apply(container);
+            }
+         }
+         return true;
+      }
+
+      @Override
+      public T next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         return current.next();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class EntrySet extends AbstractSet<InternalCacheEntry<K, V>> {
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry)) {
+            return false;
+         }
+         DataContainer<K, V> container = containerForKey(((Map.Entry) o).getKey());
+         return container != null && container.entrySet().contains(o);
+      }
+
+      @Override
+      public Iterator<InternalCacheEntry<K, V>> iterator() {
+         return new SegmentIterator<>(allSegments(), c -> c.entrySet().iterator());
+      }
+
+      @Override
+      public int size() {
+         return sizeIncludingExpired();
+      }
+
+      @Override
+      public Spliterator<InternalCacheEntry<K, V>> spliterator() {
+         return Spliterators.spliterator(this, Spliterator.DISTINCT | Spliterator.CONCURRENT);
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class KeySet extends AbstractSet<K> {
+      @Override
+      public boolean contains(Object o) {
+         return peek(o) != null;
+      }
+
+      @Override
+      public Iterator<K> iterator() {
+         return new SegmentIterator<>(allSegments(), c -> c.keySet().iterator());
+      }
+
+      @Override
+      public int size() {
+         return sizeIncludingExpired();
+      }
+
+      @Override
+      public Spliterator<K> spliterator() {
+         return Spliterators.spliterator(this, Spliterator.DISTINCT | Spliterator.CONCURRENT);
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Collection
+    */
+   private class Values extends AbstractCollection<V> {
+      @Override
+      public Iterator<V> iterator() {
+         return new SegmentIterator<>(allSegments(), c -> c.values().iterator());
+      }
+
+      @Override
+      public int size() {
+         return sizeIncludingExpired();
+      }
+
+      @Override
+      public Spliterator<V> spliterator() {
+         return Spliterators.spliterator(this, Spliterator.CONCURRENT);
+      }
+   }
+}
@@ -1,5 +1,8 @@
 package org.infinispan.container;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.infinispan.container.entries.CacheEntry;
 import org.infinispan.container.entries.ImmortalCacheEntry;
 import org.infinispan.container.entries.ImmortalCacheValue;
@@ -12,6 +15,11 @@
 import org.infinispan.container.entries.TransientCacheValue;
 import org.infinispan.container.entries.TransientMortalCacheEntry;
 import org.infinispan.container.entries.TransientMortalCacheValue;
+import org.infinispan.container.entries.metadata.CompactMetadata;
+import org.infinispan.container.entries.metadata.CompactMetadataImmortalCacheEntry;
+import org.infinispan.container.entries.metadata.CompactMetadataMortalCacheEntry;
+import org.infinispan.container.entries.metadata.CompactMetadataTransientCacheEntry;
+import org.infinispan.container.entries.metadata.CompactMetadataTransientMortalCacheEntry;
 import org.infinispan.container.entries.metadata.L1MetadataInternalCacheEntry;
 import org.infinispan.container.entries.metadata.MetadataImmortalCacheEntry;
 import org.infinispan.container.entries.metadata.MetadataImmortalCacheValue;
@@ -38,6 +46,10 @@
  */
 public class InternalEntryFactoryImpl implements InternalEntryFactory {
 
+   // Caches usually only use a few distinct expiration settings, stop sharing if they don't
+   private static final int MAX_SHARED_METADATA = 1024;
+
+   private final ConcurrentMap<Metadata, Metadata> sharedMetadata = new ConcurrentHashMap<>();
    private TimeService timeService;
 
    @Inject
@@ -55,10 +67,8 @@ public InternalCacheEntry create(Object key, Object value, Metadata metadata) {
          if (lifespan < 0 && maxIdle > -1) return new TransientCacheEntry(key, value, maxIdle, timeService.wallClockTime());
          return new TransientMortalCacheEntry(key, value, maxIdle, lifespan, timeService.wallClockTime());
       } else {
-         if (lifespan < 0 && maxIdle < 0) return new MetadataImmortalCacheEntry(key, value, metadata);
-         if (lifespan > -1 && maxIdle < 0) return new MetadataMortalCacheEntry(key, value, metadata, timeService.wallClockTime());
-         if (lifespan < 0 && maxIdle > -1) return new MetadataTransientCacheEntry(key, value, metadata, timeService.wallClockTime());
-         return new MetadataTransientMortalCacheEntry(key, value, metadata, timeService.wallClockTime());
+         long now = lifespan > -1 || maxIdle > -1 ? timeService.wallClockTime() : -1;
+         return createMetadataAware(key, value, metadata, now, now);
       }
    }
 
@@ -85,10 +95,7 @@ public InternalCacheEntry create(Object key, Object value, EntryVersion version,
          // If no metadata passed, assumed embedded metadata
          Metadata metadata = new EmbeddedMetadata.Builder()
                .lifespan(lifespan).maxIdle(maxIdle).version(version).build();
-         if (lifespan < 0 && maxIdle < 0) return new MetadataImmortalCacheEntry(key, value, metadata);
-         if (lifespan > -1 && maxIdle < 0) return new MetadataMortalCacheEntry(key, value, metadata, created);
-         if (lifespan < 0 && maxIdle > -1) return new MetadataTransientCacheEntry(key, value, metadata, lastUsed);
-         return new MetadataTransientMortalCacheEntry(key, value, metadata, lastUsed, created);
+         return createMetadataAware(key, value, metadata, created, lastUsed);
       }
    }
 
@@ -100,13 +107,7 @@ public InternalCacheEntry create(Object key, Object value, Metadata metadata, lo
          if (lifespan < 0 && maxIdle > -1) return new TransientCacheEntry(key, value, maxIdle, lastUsed);
          return new TransientMortalCacheEntry(key, value, maxIdle, lifespan, lastUsed, created);
       } else {
-         // Metadata to store, take lifespan and maxIdle settings from it
-         long metaLifespan = metadata.lifespan();
-         long metaMaxIdle = metadata.maxIdle();
-         if (metaLifespan < 0 && metaMaxIdle < 0) return new MetadataImmortalCacheEntry(key, value, metadata);
-         if (metaLifespan > -1 && metaMaxIdle < 0) return new MetadataMortalCacheEntry(key, value, metadata, created);
-         if (metaLifespan < 0 && metaMaxIdle > -1) return new MetadataTransientCacheEntry(key, value, metadata, lastUsed);
-         return new MetadataTransientMortalCacheEntry(key, value, metadata, lastUsed, created);
+         return createMetadataAware(key, value, metadata, created, lastUsed);
       }
    }
 
@@ -137,13 +138,8 @@ public InternalCacheEntry create(Object key, Object value, Metadata metadata, lo
          if (lifespan < 0 && maxIdle > -1) return new TransientCacheEntry(key, value, maxIdle, timeService.wallClockTime());
          return new TransientMortalCacheEntry(key, value, maxIdle, lifespan, timeService.wallClockTime());
       } else {
-         // Metadata to store, take lifespan and maxIdle settings from it
-         long metaLifespan = metadata.lifespan();
-         long metaMaxIdle = metadata.maxIdle();
-         if (metaLifespan < 0 && metaMaxIdle < 0) return new MetadataImmortalCacheEntry(key, value, metadata);
-         if (metaLifespan > -1 && metaMaxIdle < 0) return new MetadataMortalCacheEntry(key, value, metadata, timeService.wallClockTime());
-         if (metaLifespan < 0 && metaMaxIdle > -1) return new MetadataTransientCacheEntry(key, value, metadata, timeService.wallClockTime());
-         return new MetadataTransientMortalCacheEntry(key, value, metadata, timeService.wallClockTime());
+         long now = metadata.lifespan() > -1 || metadata.maxIdle() > -1 ? timeService.wallClockTime() : -1;
+         return createMetadataAware(key, value, metadata, now, now);
       }
    }
 
@@ -290,9 +286,51 @@ private InternalCacheEntry updateMetadataUnawareEntry(InternalCacheEntry ice, lo
       return ice;
    }
 
+   /**
+    * Creates an entry that stores the metadata, taking the lifespan and maxIdle settings from it.  Metadata with a
+    * numeric version is stored by a compact entry, which only keeps the version and shares the rest of the metadata
+    * with the other entries of the cache.
+    */
+   private InternalCacheEntry createMetadataAware(Object key, Object value, Metadata metadata, long created, long lastUsed) {
+      long lifespan = metadata.lifespan();
+      long maxIdle = metadata.maxIdle();
+      if (CompactMetadata.canCompact(metadata)) {
+         Metadata shared = share(CompactMetadata.withoutVersion(metadata));
+         long version = CompactMetadata.version(metadata);
+         if (lifespan < 0 && maxIdle < 0) return new CompactMetadataImmortalCacheEntry(key, value, shared, version);
+         if (lifespan > -1 && maxIdle < 0) return new CompactMetadataMortalCacheEntry(key, value, shared, version, created);
+         if (lifespan < 0 && maxIdle > -1) return new CompactMetadataTransientCacheEntry(key, value, shared, version, lastUsed);
+         return new CompactMetadataTransientMortalCacheEntry(key, value, shared, version, lastUsed, created);
+      }
+      if (lifespan < 0 && maxIdle < 0) return new MetadataImmortalCacheEntry(key, value, metadata);
+      if (lifespan > -1 && maxIdle < 0) return new MetadataMortalCacheEntry(key, value, metadata, created);
+      if (lifespan < 0 && maxIdle > -1) return new MetadataTransientCacheEntry(key, value, metadata, lastUsed);
+      return new MetadataTransientMortalCacheEntry(key, value, metadata, lastUsed, created);
+   }
+
+   /**
+    * Returns an equal metadata instance that is already referenced by other entries, if there is one.
+    */
+   private Metadata share(Metadata metadata) {
+      Metadata shared = sharedMetadata.get(metadata);
+      if (shared != null) {
+         return shared;
+      }
+      if (sharedMetadata.size() >= MAX_SHARED_METADATA) {
+         return metadata;
+      }
+      shared = sharedMetadata.putIfAbsent(metadata, metadata);
+      return shared != null ? shared : metadata;
+   }
+
    private InternalCacheEntry updateMetadataAwareEntry(InternalCacheEntry ice, Metadata metadata) {
       long lifespan = metadata.lifespan();
       long maxIdle = metadata.maxIdle();
+      if (CompactMetadata.canCompact(metadata) || isEntryCompact(ice)) {
+         // Compact entries can't hold every kind of metadata and share theirs, so they are always recreated
+         long ctm = lifespan > -1 || maxIdle > -1 ? timeService.wallClockTime() : -1;
+         return createMetadataAware(ice.getKey(), ice.getValue(), metadata, ctm, ctm);
+      }
       if (ice instanceof MetadataImmortalCacheEntry) {
          if (lifespan < 0) {
             if (maxIdle < 0) {
@@ -379,6 +417,13 @@ private boolean isStoreMetadata(Metadata metadata, InternalCacheEntry ice) {
    }
 
 
+   private boolean isEntryCompact(InternalCacheEntry ice) {
+      return ice instanceof CompactMetadataImmortalCacheEntry
+            || ice instanceof CompactMetadataMortalCacheEntry
+            || ice instanceof CompactMetadataTransientCacheEntry
+            || ice instanceof CompactMetadataTransientMortalCacheEntry;
+   }
+
    private boolean isEntryMetadataAware(InternalCacheEntry ice) {
       return ice instanceof MetadataImmortalCacheEntry
             || ice instanceof MetadataMortalCacheEntry
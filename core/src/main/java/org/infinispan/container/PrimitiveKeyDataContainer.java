@@ -0,0 +1,657 @@
+package org.infinispan.container;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import org.infinispan.configuration.cache.KeyType;
+import org.infinispan.container.entries.ExpiryHelper;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.expiration.ExpirationManager;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.filter.KeyFilter;
+import org.infinispan.filter.KeyValueFilter;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.metadata.impl.L1Metadata;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Unbounded data container for caches whose keys are all {@link Long}s or all {@link Integer}s.  The keys are stored
+ * unboxed in open addressed tables which hold the value, the metadata and the timestamps of the entries in parallel
+ * arrays, so a stored entry needs neither a map node, nor a boxed key, nor an {@link InternalCacheEntry}.  Entries are
+ * instead created from the arrays when they are read.
+ * <p>
+ * The keys are spread over lock stripes, each of them a linear probing table guarded by a {@link StampedLock}.  Reads
+ * are first attempted optimistically without acquiring the read lock, and are only retried while holding it if a
+ * writer modified the same stripe concurrently.  Removed entries are deleted by shifting the following entries back,
+ * so the tables never contain tombstones.
+ * <p>
+ * L1 entries are not supported, as the table doesn't keep track of the type of the entries.
+ *
+ * @since 9.0
+ */
+@ThreadSafe
+public class PrimitiveKeyDataContainer<K, V> implements DataContainer<K, V> {
+
+   private static final Log log = LogFactory.getLog(PrimitiveKeyDataContainer.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final int STRIPES_PER_CONCURRENCY_LEVEL = 16;
+   private static final int MAX_STRIPES = 1 << 16;
+   private static final int INITIAL_CAPACITY = 16;
+   private static final int MAX_CAPACITY = 1 << 30;
+
+   private final boolean intKeys;
+   private final Stripe[] stripes;
+   private final int stripeShift;
+
+   private InternalEntryFactory entryFactory;
+   private ActivationManager activator;
+   private PassivationManager passivator;
+   private TimeService timeService;
+   private ExpirationManager<K, V> expirationManager;
+
+   public PrimitiveKeyDataContainer(KeyType keyType, int concurrencyLevel) {
+      if (keyType == KeyType.OBJECT) {
+         throw new IllegalArgumentException("Key type must be a primitive type");
+      }
+      intKeys = keyType == KeyType.INT;
+      int stripeCount = Math.min(Integer.highestOneBit(Math.max(concurrencyLevel, 1) * STRIPES_PER_CONCURRENCY_LEVEL),
+            MAX_STRIPES);
+      stripes = new Stripe[stripeCount];
+      for (int i = 0; i < stripeCount; ++i) {
+         stripes[i] = new Stripe();
+      }
+      stripeShift = 64 - Integer.numberOfTrailingZeros(stripeCount);
+   }
+
+   @Inject
+   public void initialize(InternalEntryFactory entryFactory, ActivationManager activator,
+                          PassivationManager passivator, TimeService timeService,
+                          ExpirationManager<K, V> expirationManager) {
+      this.entryFactory = entryFactory;
+      this.activator = activator;
+      this.passivator = passivator;
+      this.timeService = timeService;
+      this.expirationManager = expirationManager;
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> get(Object k) {
+      InternalCacheEntry<K, V> e = peek(k);
+      if (e != null && e.canExpire()) {
+         long currentTimeMillis = timeService.wallClockTime();
+         if (e.isExpired(currentTimeMillis)) {
+            expirationManager.handleInMemoryExpiration(e, currentTimeMillis);
+            e = null;
+         } else if (e.getMaxIdle() > -1) {
+            touch(k, currentTimeMillis);
+            e.touch(currentTimeMillis);
+         }
+      }
+      return e;
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> peek(Object k) {
+      long key = toPrimitive(k);
+      long hash = mix(key);
+      Stripe stripe = stripeFor(hash);
+      long stamp = stripe.tryOptimisticRead();
+      // Stamp is 0 if a writer currently holds the lock
+      if (stamp != 0) {
+         Table table = stripe.table;
+         int index = table.indexOf(key, hash);
+         InternalCacheEntry<K, V> e = index < 0 ? null : entryAt(table, index, (K) k);
+         if (stripe.validate(stamp)) {
+            return e;
+         }
+      }
+      stamp = stripe.readLock();
+      try {
+         Table table = stripe.table;
+         int index = table.indexOf(key, hash);
+         return index < 0 ? null : entryAt(table, index, (K) k);
+      } finally {
+         stripe.unlockRead(stamp);
+      }
+   }
+
+   private void touch(Object k, long currentTimeMillis) {
+      long key = toPrimitive(k);
+      long hash = mix(key);
+      Stripe stripe = stripeFor(hash);
+      // Concurrent touches only write the last used time, so they can share the read lock
+      long stamp = stripe.readLock();
+      try {
+         Table table = stripe.table;
+         int index = table.indexOf(key, hash);
+         if (index >= 0 && table.timestamps != null) {
+            table.timestamps[(index << 1) + 1] = currentTimeMillis;
+         }
+      } finally {
+         stripe.unlockRead(stamp);
+      }
+   }
+
+   @Override
+   public void put(K k, V v, Metadata metadata) {
+      if (metadata instanceof L1Metadata) {
+         throw new UnsupportedOperationException("L1 entries can't be stored in a primitive key data container");
+      }
+      long key = toPrimitive(k);
+      long hash = mix(key);
+      long created = -1;
+      long lastUsed = -1;
+      if (metadata != null && (metadata.lifespan() > -1 || metadata.maxIdle() > -1)) {
+         created = lastUsed = timeService.wallClockTime();
+      }
+      if (trace) {
+         log.tracef("Store key=%s, metadata=%s in container", k, metadata);
+      }
+      Stripe stripe = stripeFor(hash);
+      long stamp = stripe.writeLock();
+      try {
+         boolean created1 = store(stripe, key, hash, v, metadata, created, lastUsed);
+         activator.onUpdate(k, created1);
+         if (created > -1) {
+            expirationManager.registerExpiration(k, ExpiryHelper.expiryTime(metadata.lifespan(), created,
+                  metadata.maxIdle(), lastUsed));
+         } else if (!created1) {
+            // The previous entry may have been registered
+            expirationManager.unregisterExpiration(k);
+         }
+      } finally {
+         stripe.unlockWrite(stamp);
+      }
+   }
+
+   @Override
+   public boolean containsKey(Object k) {
+      InternalCacheEntry<K, V> ice = peek(k);
+      if (ice != null && ice.canExpire() && ice.isExpired(timeService.wallClockTime())) {
+         removeEntry(k);
+         ice = null;
+      }
+      return ice != null;
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> remove(Object k) {
+      long key = toPrimitive(k);
+      long hash = mix(key);
+      Stripe stripe = stripeFor(hash);
+      InternalCacheEntry<K, V> e;
+      long stamp = stripe.writeLock();
+      try {
+         Table table = stripe.table;
+         int index = table.indexOf(key, hash);
+         e = index < 0 ? null : entryAt(table, index, (K) k);
+         if (e != null) {
+            delete(stripe, table, index);
+            if (e.canExpire()) {
+               expirationManager.unregisterExpiration((K) k);
+            }
+         }
+         activator.onRemove(k, e == null);
+      } finally {
+         stripe.unlockWrite(stamp);
+      }
+      if (trace) {
+         log.tracef("Removed %s from container", e);
+      }
+      return e == null || (e.canExpire() && e.isExpired(timeService.wallClockTime())) ? null : e;
+   }
+
+   private void removeEntry(Object k) {
+      long key = toPrimitive(k);
+      long hash = mix(key);
+      Stripe stripe = stripeFor(hash);
+      long stamp = stripe.writeLock();
+      try {
+         Table table = stripe.table;
+         int index = table.indexOf(key, hash);
+         if (index >= 0) {
+            delete(stripe, table, index);
+            expirationManager.unregisterExpiration((K) k);
+         }
+      } finally {
+         stripe.unlockWrite(stamp);
+      }
+   }
+
+   @Override
+   public int size() {
+      int size = 0;
+      // We have to loop through to make sure to remove expired entries
+      for (Iterator<InternalCacheEntry<K, V>> iter = iterator(); iter.hasNext(); ) {
+         iter.next();
+         if (++size == Integer.MAX_VALUE) return Integer.MAX_VALUE;
+      }
+      return size;
+   }
+
+   @Override
+   public int sizeIncludingExpired() {
+      long size = 0;
+      for (Stripe stripe : stripes) {
+         size += stripe.size;
+      }
+      return (int) Math.min(size, Integer.MAX_VALUE);
+   }
+
+   @Override
+   public void clear() {
+      log.tracef("Clearing data container");
+      for (Stripe stripe : stripes) {
+         long stamp = stripe.writeLock();
+         try {
+            stripe.table = new Table(INITIAL_CAPACITY);
+            stripe.size = 0;
+         } finally {
+            stripe.unlockWrite(stamp);
+         }
+      }
+   }
+
+   @Override
+   public Set<K> keySet() {
+      return new KeySet();
+   }
+
+   @Override
+   public Collection<V> values() {
+      return new Values();
+   }
+
+   @Override
+   public Set<InternalCacheEntry<K, V>> entrySet() {
+      return new EntrySet();
+   }
+
+   @Override
+   public void evict(K k) {
+      long key = toPrimitive(k);
+      long hash = mix(key);
+      Stripe stripe = stripeFor(hash);
+      long stamp = stripe.writeLock();
+      try {
+         Table table = stripe.table;
+         int index = table.indexOf(key, hash);
+         if (index >= 0) {
+            InternalCacheEntry<K, V> e = entryAt(table, index, k);
+            passivator.passivate(e);
+            delete(stripe, table, index);
+            if (e.canExpire()) {
+               expirationManager.unregisterExpiration(k);
+            }
+         }
+      } finally {
+         stripe.unlockWrite(stamp);
+      }
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> compute(K k, ComputeAction<K, V> action) {
+      long key = toPrimitive(k);
+      long hash = mix(key);
+      Stripe stripe = stripeFor(hash);
+      long stamp = stripe.writeLock();
+      try {
+         Table table = stripe.table;
+         int index = table.indexOf(key, hash);
+         InternalCacheEntry<K, V> oldEntry = index < 0 ? null : entryAt(table, index, k);
+         InternalCacheEntry<K, V> newEntry = action.compute(k, oldEntry, entryFactory);
+         if (newEntry == null) {
+            if (oldEntry != null) {
+               delete(stripe, table, index);
+               activator.onRemove(k, false);
+               if (oldEntry.canExpire()) {
+                  expirationManager.unregisterExpiration(k);
+               }
+            }
+            return null;
+         }
+         if (newEntry.isL1Entry()) {
+            throw new UnsupportedOperationException("L1 entries can't be stored in a primitive key data container");
+         }
+         // The old entry is a copy, so it has to be stored again even if it is returned as it may have been modified
+         store(stripe, key, hash, newEntry.getValue(), newEntry.getMetadata(), newEntry.getCreated(),
+               newEntry.getLastUsed());
+         if (newEntry.canExpire()) {
+            expirationManager.registerExpiration(k, newEntry.getExpiryTime());
+         } else if (oldEntry != null && oldEntry.canExpire()) {
+            expirationManager.unregisterExpiration(k);
+         }
+         if (newEntry != oldEntry) {
+            activator.onUpdate(k, oldEntry == null);
+            if (trace)
+               log.tracef("Store %s in container", newEntry);
+         }
+         return newEntry;
+      } finally {
+         stripe.unlockWrite(stamp);
+      }
+   }
+
+   @Override
+   public void executeTask(KeyFilter<? super K> filter, BiConsumer<? super K, InternalCacheEntry<K, V>> action)
+         throws InterruptedException {
+      if (filter == null)
+         throw new IllegalArgumentException("No filter specified");
+      if (action == null)
+         throw new IllegalArgumentException("No action specified");
+
+      entryStream().forEach(ice -> {
+         if (filter.accept(ice.getKey())) {
+            action.accept(ice.getKey(), ice);
+         }
+      });
+      if (Thread.currentThread().isInterrupted()) {
+         throw new InterruptedException();
+      }
+   }
+
+   @Override
+   public void executeTask(KeyValueFilter<? super K, ? super V> filter,
+                           BiConsumer<? super K, InternalCacheEntry<K, V>> action) throws InterruptedException {
+      if (filter == null)
+         throw new IllegalArgumentException("No filter specified");
+      if (action == null)
+         throw new IllegalArgumentException("No action specified");
+
+      entryStream().forEach(ice -> {
+         if (filter.accept(ice.getKey(), ice.getValue(), ice.getMetadata())) {
+            action.accept(ice.getKey(), ice);
+         }
+      });
+      if (Thread.currentThread().isInterrupted()) {
+         throw new InterruptedException();
+      }
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iterator() {
+      return entryStream().filter(e -> !e.canExpire() || !e.isExpired(timeService.wallClockTime())).iterator();
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iteratorIncludingExpired() {
+      return entryStream().iterator();
+   }
+
+   /**
+    * Returns all of the entries, including expired ones.  The entries of a stripe are copied while holding its read
+    * lock when the stream reaches the stripe, so the stream is weakly consistent.
+    */
+   private Stream<InternalCacheEntry<K, V>> entryStream() {
+      return Arrays.stream(stripes).flatMap(stripe -> entries(stripe).stream());
+   }
+
+   private List<InternalCacheEntry<K, V>> entries(Stripe stripe) {
+      long stamp = stripe.readLock();
+      try {
+         if (stripe.size == 0) {
+            return Collections.emptyList();
+         }
+         Table table = stripe.table;
+         List<InternalCacheEntry<K, V>> entries = new ArrayList<>(stripe.size);
+         for (int i = 0; i < table.values.length; ++i) {
+            if (table.values[i] != null) {
+               entries.add(entryAt(table, i, toKey(table.keys[i])));
+            }
+         }
+         return entries;
+      } finally {
+         stripe.unlockRead(stamp);
+      }
+   }
+
+   private long toPrimitive(Object k) {
+      if (intKeys) {
+         if (k instanceof Integer) {
+            return (Integer) k;
+         }
+      } else if (k instanceof Long) {
+         return (Long) k;
+      }
+      throw new IllegalArgumentException("Require " + (intKeys ? "Integer" : "Long") + " key: got " +
+            (k == null ? null : k.getClass()));
+   }
+
+   private K toKey(long key) {
+      // Not a conditional expression, which would unbox both operands
+      if (intKeys) {
+         return (K) Integer.valueOf((int) key);
+      }
+      return (K) Long.valueOf(key);
+   }
+
+   private Stripe stripeFor(long hash) {
+      return stripes[(int) (hash >>> stripeShift)];
+   }
+
+   private InternalCacheEntry<K, V> entryAt(Table table, int index, K key) {
+      Metadata metadata = table.metadata[index];
+      long[] timestamps = table.timestamps;
+      long created = -1;
+      long lastUsed = -1;
+      if (timestamps != null) {
+         created = timestamps[index << 1];
+         lastUsed = timestamps[(index << 1) + 1];
+      }
+      long lifespan = metadata != null ? metadata.lifespan() : -1;
+      long maxIdle = metadata != null ? metadata.maxIdle() : -1;
+      return entryFactory.create(key, (V) table.values[index], metadata, created, lifespan, lastUsed, maxIdle);
+   }
+
+   /**
+    * Stores the entry, replacing the previous entry for the key if there was one.  The write lock of the stripe
+    * <b>must</b> be held.
+    * @return true if there was no entry for the key
+    */
+   private boolean store(Stripe stripe, long key, long hash, Object value, Metadata metadata, long created,
+                         long lastUsed) {
+      Table table = stripe.table;
+      int index = table.indexOf(key, hash);
+      boolean added = index < 0;
+      if (added) {
+         int capacity = table.keys.length;
+         // Keep the load factor under 3/4 so that probe sequences stay short
+         if (stripe.size + 1 > capacity - (capacity >>> 2) && capacity < MAX_CAPACITY) {
+            table = resize(stripe, table, capacity << 1);
+         }
+         index = table.freeSlot(hash);
+         table.keys[index] = key;
+         stripe.size++;
+      }
+      if (table.timestamps == null && (created > -1 || lastUsed > -1)) {
+         table.timestamps = new long[table.keys.length << 1];
+      }
+      if (table.timestamps != null) {
+         table.timestamps[index << 1] = created;
+         table.timestamps[(index << 1) + 1] = lastUsed;
+      }
+      table.metadata[index] = metadata;
+      table.values[index] = value;
+      return added;
+   }
+
+   private Table resize(Stripe stripe, Table table, int capacity) {
+      Table newTable = new Table(capacity);
+      if (table.timestamps != null) {
+         newTable.timestamps = new long[capacity << 1];
+      }
+      for (int i = 0; i < table.values.length; ++i) {
+         if (table.values[i] != null) {
+            int index = newTable.freeSlot(mix(table.keys[i]));
+            newTable.copy(index, table, i);
+         }
+      }
+      stripe.table = newTable;
+      return newTable;
+   }
+
+   /**
+    * Removes the entry at the given index, moving back the entries of the probe sequence after it.  The write lock of
+    * the stripe <b>must</b> be held.
+    */
+   private static void delete(Stripe stripe, Table table, int index) {
+      Object[] values = table.values;
+      int mask = values.length - 1;
+      int hole = index;
+      int next = (hole + 1) & mask;
+      while (values[next] != null) {
+         int ideal = (int) mix(table.keys[next]) & mask;
+         // The entry can fill the hole if the hole is between its ideal slot and its current slot
+         if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+            table.copy(hole, table, next);
+            hole = next;
+         }
+         next = (next + 1) & mask;
+      }
+      values[hole] = null;
+      table.metadata[hole] = null;
+      stripe.size--;
+   }
+
+   /**
+    * Murmur3 64 bit finalizer, the high bits select the stripe and the low bits the slot in its table.
+    */
+   static long mix(long key) {
+      key ^= key >>> 33;
+      key *= 0xff51afd7ed558ccdL;
+      key ^= key >>> 33;
+      key *= 0xc4ceb9fe1a85ec53L;
+      key ^= key >>> 33;
+      return key;
+   }
+
+   private static final class Table {
+      final long[] keys;
+      // A null value marks a free slot
+      final Object[] values;
+      final Metadata[] metadata;
+      // The created and last used time of each entry, only allocated once an entry that can expire is stored
+      long[] timestamps;
+
+      Table(int capacity) {
+         keys = new long[capacity];
+         values = new Object[capacity];
+         metadata = new Metadata[capacity];
+      }
+
+      int indexOf(long key, long hash) {
+         int mask = values.length - 1;
+         int index = (int) hash & mask;
+         // Bounded so that an optimistic read of a table being modified can't loop forever
+         for (int i = 0; i <= mask; ++i) {
+            if (values[index] == null) {
+               return -1;
+            }
+            if (keys[index] == key) {
+               return index;
+            }
+            index = (index + 1) & mask;
+         }
+         return -1;
+      }
+
+      int freeSlot(long hash) {
+         int mask = values.length - 1;
+         int index = (int) hash & mask;
+         while (values[index] != null) {
+            index = (index + 1) & mask;
+         }
+         return index;
+      }
+
+      void copy(int index, Table source, int sourceIndex) {
+         keys[index] = source.keys[sourceIndex];
+         values[index] = source.values[sourceIndex];
+         metadata[index] = source.metadata[sourceIndex];
+         if (source.timestamps != null) {
+            timestamps[index << 1] = source.timestamps[sourceIndex << 1];
+            timestamps[(index << 1) + 1] = source.timestamps[(sourceIndex << 1) + 1];
+         }
+      }
+   }
+
+   private static final class Stripe extends StampedLock {
+      volatile Table table = new Table(INITIAL_CAPACITY);
+      // Only written while holding the write lock
+      volatile int size;
+   }
+
+   private class KeySet extends AbstractSet<K> {
+      @Override
+      public boolean contains(Object o) {
+         return (intKeys ? o instanceof Integer : o instanceof Long) && peek(o) != null;
+      }
+
+      @Override
+      public Iterator<K> iterator() {
+         return entryStream().map(InternalCacheEntry::getKey).iterator();
+      }
+
+      @Override
+      public int size() {
+         return sizeIncludingExpired();
+      }
+   }
+
+   private class Values extends AbstractCollection<V> {
+      @Override
+      public Iterator<V> iterator() {
+         return entryStream().map(InternalCacheEntry::getValue).iterator();
+      }
+
+      @Override
+      public int size() {
+         return sizeIncludingExpired();
+      }
+   }
+
+   private class EntrySet extends AbstractSet<InternalCacheEntry<K, V>> {
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry)) {
+            return false;
+         }
+         Map.Entry e = (Map.Entry) o;
+         Object key = e.getKey();
+         if (!(intKeys ? key instanceof Integer : key instanceof Long)) {
+            return false;
+         }
+         InternalCacheEntry ice = peek(key);
+         return ice != null && ice.getValue().equals(e.getValue());
+      }
+
+      @Override
+      public Iterator<InternalCacheEntry<K, V>> iterator() {
+         // The entries are copies, so they are already immutable from the point of view of the container
+         return entryStream().iterator();
+      }
+
+      @Override
+      public int size() {
+         return sizeIncludingExpired();
+      }
+   }
+}
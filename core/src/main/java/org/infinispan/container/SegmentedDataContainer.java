@@ -0,0 +1,42 @@
+package org.infinispan.container;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+
+/**
+ * A {@link DataContainer} that keeps its entries partitioned by segment, so that operations that are only interested
+ * in a subset of the segments (state transfer, invalidation of segments no longer owned, distributed streams) can
+ * operate on those segments directly instead of scanning and hashing every entry in the container.
+ * <p>
+ * Segments are the ones defined by the cache's {@link org.infinispan.distribution.ch.KeyPartitioner}.
+ *
+ * @since 9.0
+ */
+public interface SegmentedDataContainer<K, V> extends DataContainer<K, V> {
+
+   /**
+    * Same as {@link DataContainer#iterator()} except that only entries that map to the given segments are returned.
+    * Segments that are not present in the container are ignored.
+    * @param segments the segments to iterate over
+    * @return iterator that doesn't produce expired entries
+    */
+   Iterator<InternalCacheEntry<K, V>> iterator(Set<Integer> segments);
+
+   /**
+    * Same as {@link DataContainer#iteratorIncludingExpired()} except that only entries that map to the given segments
+    * are returned. Segments that are not present in the container are ignored.
+    * @param segments the segments to iterate over
+    * @return iterator that returns all entries mapped to the given segments including expired ones
+    */
+   Iterator<InternalCacheEntry<K, V>> iteratorIncludingExpired(Set<Integer> segments);
+
+   /**
+    * Drops any entries still mapped to the given segments, normally invoked after this node is no longer an owner of
+    * them. No activation, passivation or notification is performed for the dropped entries, so callers
+    * that need those must remove the entries through the cache first.
+    * @param segments the segments to remove
+    */
+   void removeSegments(Set<Integer> segments);
+}
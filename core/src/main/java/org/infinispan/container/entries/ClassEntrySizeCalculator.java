@@ -0,0 +1,47 @@
+package org.infinispan.container.entries;
+
+import java.util.Map;
+
+import org.infinispan.commons.util.AbstractEntrySizeCalculatorHelper;
+import org.infinispan.commons.util.EntrySizeCalculator;
+
+/**
+ * Size calculator that delegates to the calculator registered for the class of the value.  A calculator registered for
+ * a super class or an interface of the value is used if there is none for the exact class.  Entries whose value has no
+ * registered calculator are passed to the default calculator.
+ * @since 9.0
+ */
+public class ClassEntrySizeCalculator extends AbstractEntrySizeCalculatorHelper<Object, Object> {
+   private final EntrySizeCalculator defaultCalculator;
+   private final ClassValue<EntrySizeCalculator> calculators;
+
+   public ClassEntrySizeCalculator(Map<Class<?>, EntrySizeCalculator<?, ?>> registered,
+                                   EntrySizeCalculator<?, ?> defaultCalculator) {
+      this.defaultCalculator = defaultCalculator;
+      this.calculators = new ClassValue<EntrySizeCalculator>() {
+         @Override
+         protected EntrySizeCalculator computeValue(Class<?> type) {
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+               EntrySizeCalculator calculator = registered.get(c);
+               if (calculator != null) {
+                  return calculator;
+               }
+            }
+            for (Map.Entry<Class<?>, EntrySizeCalculator<?, ?>> entry : registered.entrySet()) {
+               if (entry.getKey().isAssignableFrom(type)) {
+                  return entry.getValue();
+               }
+            }
+            return ClassEntrySizeCalculator.this.defaultCalculator;
+         }
+      };
+   }
+
+   @Override
+   public long calculateSize(Object key, Object value) {
+      if (value == null) {
+         return defaultCalculator.calculateSize(key, null);
+      }
+      return calculators.get(value.getClass()).calculateSize(key, value);
+   }
+}
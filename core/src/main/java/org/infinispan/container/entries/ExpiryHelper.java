@@ -21,4 +21,15 @@ public static boolean isExpiredTransientMortal(long maxIdle, long lastUsed, long
       return isExpiredTransient(maxIdle, lastUsed, now) || isExpiredMortal(lifespan, created, now);
    }
 
+   /**
+    * Returns the time an entry expires at if it isn't read in the meantime, or -1 if it can't expire.
+    */
+   public static long expiryTime(long lifespan, long created, long maxIdle, long lastUsed) {
+      long lifespanExpiry = lifespan > -1 && created > -1 ? created + lifespan : -1;
+      long maxIdleExpiry = maxIdle > -1 && lastUsed > -1 ? lastUsed + maxIdle : -1;
+      if (lifespanExpiry == -1) return maxIdleExpiry;
+      if (maxIdleExpiry == -1) return lifespanExpiry;
+      return Math.min(lifespanExpiry, maxIdleExpiry);
+   }
+
 }
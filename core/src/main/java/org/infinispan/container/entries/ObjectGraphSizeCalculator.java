@@ -0,0 +1,176 @@
+package org.infinispan.container.entries;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import sun.misc.Unsafe;
+
+/**
+ * Entry size calculator that estimates the size of any object by adding up the shallow size of every object reachable
+ * from the key and the value.  The shallow size and the reference fields of a class are computed once and cached, so
+ * sizing an entry only needs to read its references.  Strings and primitive wrappers are sized the same way as
+ * {@link PrimitiveEntrySizeCalculator} does.
+ * <p>
+ * Objects that are reachable multiple times are only counted once per entry.  Classes, class loaders and enum
+ * constants are never counted, as they are shared by all entries.  Any other object that is shared by multiple entries
+ * is counted for each of them, in which case a more accurate calculator for the type should be registered.
+ * <p>
+ * Keys and values that are strings, primitive wrappers or arrays of primitives are sized directly, without walking
+ * anything.  Walking the graph of other entries stops after {@link #DEFAULT_MAX_OBJECTS} objects, so the size of
+ * entries referencing larger graphs is underestimated.
+ * @since 9.0
+ */
+public class ObjectGraphSizeCalculator extends PrimitiveEntrySizeCalculator {
+   private static final Unsafe UNSAFE = getUnsafe();
+   public static final int DEFAULT_MAX_OBJECTS = 10_000;
+
+   private final ClassValue<ClassLayout> layouts = new ClassValue<ClassLayout>() {
+      @Override
+      protected ClassLayout computeValue(Class<?> type) {
+         return new ClassLayout(type);
+      }
+   };
+
+   private final int maxObjects;
+
+   public ObjectGraphSizeCalculator() {
+      this(DEFAULT_MAX_OBJECTS);
+   }
+
+   /**
+    * @param maxObjects the maximum number of objects visited when sizing an entry
+    */
+   public ObjectGraphSizeCalculator(int maxObjects) {
+      this.maxObjects = maxObjects;
+   }
+
+   @Override
+   public long calculateSize(Object key, Object value) {
+      if (isFlat(key) && isFlat(value)) {
+         return flatSize(key) + (value == key ? 0 : flatSize(value));
+      }
+      Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+      return sizeOf(key, visited) + sizeOf(value, visited);
+   }
+
+   @Override
+   protected long handleObject(Object object) {
+      if (isFlat(object)) {
+         return flatSize(object);
+      }
+      return sizeOf(object, Collections.newSetFromMap(new IdentityHashMap<>()));
+   }
+
+   /**
+    * @return true if the object has no references to follow
+    */
+   private static boolean isFlat(Object object) {
+      if (object == null) {
+         return true;
+      }
+      Class<?> type = object.getClass();
+      return isPrimitiveOrString(type) || type.isArray() && type.getComponentType().isPrimitive();
+   }
+
+   private long flatSize(Object object) {
+      return object == null ? 0 : super.handleObject(object);
+   }
+
+   private long sizeOf(Object root, Set<Object> visited) {
+      if (root == null) {
+         return 0;
+      }
+      long size = 0;
+      Deque<Object> pending = new ArrayDeque<>();
+      pending.push(root);
+      while (!pending.isEmpty() && visited.size() < maxObjects) {
+         Object object = pending.pop();
+         if (!visited.add(object)) {
+            continue;
+         }
+         Class<?> type = object.getClass();
+         if (isPrimitiveOrString(type)) {
+            size += super.handleObject(object);
+         } else if (type.isArray()) {
+            int length = Array.getLength(object);
+            size += roundUpToNearest8(UNSAFE.arrayBaseOffset(type) + (long) UNSAFE.arrayIndexScale(type) * length);
+            if (!type.getComponentType().isPrimitive()) {
+               Object[] array = (Object[]) object;
+               for (Object element : array) {
+                  addReference(pending, element);
+               }
+            }
+         } else {
+            ClassLayout layout = layouts.get(type);
+            size += layout.shallowSize;
+            for (long offset : layout.referenceOffsets) {
+               addReference(pending, UNSAFE.getObject(object, offset));
+            }
+         }
+      }
+      return size;
+   }
+
+   private static void addReference(Deque<Object> pending, Object reference) {
+      if (reference != null && !(reference instanceof Class) && !(reference instanceof ClassLoader) &&
+            !(reference instanceof Enum)) {
+         pending.push(reference);
+      }
+   }
+
+   private static boolean isPrimitiveOrString(Class<?> type) {
+      return type == String.class || type == Long.class || type == Integer.class || type == Short.class ||
+            type == Double.class || type == Float.class || type == Boolean.class || type == Character.class ||
+            type == Byte.class;
+   }
+
+   private static class ClassLayout {
+      private final long shallowSize;
+      private final long[] referenceOffsets;
+
+      ClassLayout(Class<?> type) {
+         // Every object has a header and a reference to its class
+         long end = OBJECT_SIZE + POINTER_SIZE;
+         List<Long> offsets = new ArrayList<>();
+         for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+               if (Modifier.isStatic(field.getModifiers())) {
+                  continue;
+               }
+               long offset = UNSAFE.objectFieldOffset(field);
+               Class<?> fieldType = field.getType();
+               end = Math.max(end, offset + fieldSize(fieldType));
+               if (!fieldType.isPrimitive()) {
+                  offsets.add(offset);
+               }
+            }
+         }
+         shallowSize = (end + 7) & ~0x7;
+         referenceOffsets = new long[offsets.size()];
+         for (int i = 0; i < referenceOffsets.length; ++i) {
+            referenceOffsets[i] = offsets.get(i);
+         }
+      }
+
+      private static int fieldSize(Class<?> fieldType) {
+         if (fieldType == long.class || fieldType == double.class) {
+            return 8;
+         } else if (fieldType == int.class || fieldType == float.class) {
+            return 4;
+         } else if (fieldType == short.class || fieldType == char.class) {
+            return 2;
+         } else if (fieldType == byte.class || fieldType == boolean.class) {
+            return 1;
+         }
+         return POINTER_SIZE;
+      }
+   }
+}
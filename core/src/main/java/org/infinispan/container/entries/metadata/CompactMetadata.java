@@ -0,0 +1,51 @@
+package org.infinispan.container.entries.metadata;
+
+import org.infinispan.container.versioning.NumericVersion;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+
+/**
+ * Helpers for the compact metadata aware entries, which keep the version of their metadata as a long and share the
+ * rest of the metadata with the other entries of the cache that have the same expiration settings.
+ *
+ * @since 9.0
+ */
+public final class CompactMetadata {
+
+   private CompactMetadata() {
+   }
+
+   /**
+    * Whether the metadata can be stored by a compact entry, which is the case for {@link EmbeddedMetadata} with a
+    * {@link NumericVersion}.
+    */
+   public static boolean canCompact(Metadata metadata) {
+      return metadata instanceof EmbeddedMetadata && metadata.version() != null
+            && metadata.version().getClass() == NumericVersion.class;
+   }
+
+   /**
+    * Returns the metadata without its version, which is the part of the metadata a compact entry can share.
+    */
+   public static Metadata withoutVersion(Metadata metadata) {
+      return metadata.builder().version(null).build();
+   }
+
+   /**
+    * Returns the version a compact entry inlines.
+    */
+   public static long version(Metadata metadata) {
+      return ((NumericVersion) metadata.version()).getVersion();
+   }
+
+   static Metadata withVersion(Metadata shared, long version) {
+      return shared.builder().version(new NumericVersion(version)).build();
+   }
+
+   static void checkCanCompact(Metadata metadata) {
+      if (!canCompact(metadata)) {
+         throw new IllegalStateException(
+               "Metadata cannot be set on compact entries unless it has a numeric version. They need to be recreated via the entry factory.");
+      }
+   }
+}
@@ -0,0 +1,43 @@
+package org.infinispan.container.entries.metadata;
+
+import org.infinispan.metadata.Metadata;
+
+/**
+ * A form of {@link MetadataImmortalCacheEntry} that inlines the numeric version of its metadata, and references metadata
+ * without a version that can be shared with other entries.  The metadata returned by {@link #getMetadata()} is
+ * created on every invocation.
+ *
+ * @since 9.0
+ * @see CompactMetadata
+ */
+public class CompactMetadataImmortalCacheEntry extends MetadataImmortalCacheEntry {
+
+   protected long version;
+
+   public CompactMetadataImmortalCacheEntry(Object key, Object value, Metadata sharedMetadata, long version) {
+      super(key, value, sharedMetadata);
+      this.version = version;
+   }
+
+   @Override
+   public Metadata getMetadata() {
+      return CompactMetadata.withVersion(metadata, version);
+   }
+
+   @Override
+   public void setMetadata(Metadata metadata) {
+      CompactMetadata.checkCanCompact(metadata);
+      this.metadata = CompactMetadata.withoutVersion(metadata);
+      this.version = CompactMetadata.version(metadata);
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      return super.equals(o) && version == ((CompactMetadataImmortalCacheEntry) o).version;
+   }
+
+   @Override
+   public int hashCode() {
+      return 31 * super.hashCode() + (int) (version ^ (version >>> 32));
+   }
+}
@@ -0,0 +1,43 @@
+package org.infinispan.container.entries.metadata;
+
+import org.infinispan.metadata.Metadata;
+
+/**
+ * A form of {@link MetadataTransientMortalCacheEntry} that inlines the numeric version of its metadata, and references metadata
+ * without a version that can be shared with other entries.  The metadata returned by {@link #getMetadata()} is
+ * created on every invocation.
+ *
+ * @since 9.0
+ * @see CompactMetadata
+ */
+public class CompactMetadataTransientMortalCacheEntry extends MetadataTransientMortalCacheEntry {
+
+   protected long version;
+
+   public CompactMetadataTransientMortalCacheEntry(Object key, Object value, Metadata sharedMetadata, long version, long lastUsed, long created) {
+      super(key, value, sharedMetadata, lastUsed, created);
+      this.version = version;
+   }
+
+   @Override
+   public Metadata getMetadata() {
+      return CompactMetadata.withVersion(metadata, version);
+   }
+
+   @Override
+   public void setMetadata(Metadata metadata) {
+      CompactMetadata.checkCanCompact(metadata);
+      this.metadata = CompactMetadata.withoutVersion(metadata);
+      this.version = CompactMetadata.version(metadata);
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      return super.equals(o) && version == ((CompactMetadataTransientMortalCacheEntry) o).version;
+   }
+
+   @Override
+   public int hashCode() {
+      return 31 * super.hashCode() + (int) (version ^ (version >>> 32));
+   }
+}
@@ -42,13 +42,13 @@ public void setMetadata(Metadata metadata) {
 
    @Override
    public InternalCacheValue toInternalCacheValue() {
-      return new MetadataImmortalCacheValue(value, metadata);
+      return new MetadataImmortalCacheValue(value, getMetadata());
    }
 
    @Override
    public String toString() {
       return String.format("MetadataImmortalCacheEntry{key=%s, value=%s, metadata=%s}",
-            toStr(key), toStr(value), metadata);
+            toStr(key), toStr(value), getMetadata());
    }
 
    public static class Externalizer extends AbstractExternalizer<MetadataImmortalCacheEntry> {
@@ -56,7 +56,7 @@ public static class Externalizer extends AbstractExternalizer<MetadataImmortalCa
       public void writeObject(ObjectOutput output, MetadataImmortalCacheEntry ice) throws IOException {
          output.writeObject(ice.key);
          output.writeObject(ice.value);
-         output.writeObject(ice.metadata);
+         output.writeObject(ice.getMetadata());
       }
 
       @Override
@@ -74,7 +74,8 @@ public Integer getId() {
 
       @Override
       public Set<Class<? extends MetadataImmortalCacheEntry>> getTypeClasses() {
-         return Util.<Class<? extends MetadataImmortalCacheEntry>>asSet(MetadataImmortalCacheEntry.class);
+         return Util.<Class<? extends MetadataImmortalCacheEntry>>asSet(MetadataImmortalCacheEntry.class,
+               CompactMetadataImmortalCacheEntry.class);
       }
    }
 }
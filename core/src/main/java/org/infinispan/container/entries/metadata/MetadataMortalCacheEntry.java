@@ -106,7 +106,7 @@ public void reincarnate(long now) {
 
    @Override
    public InternalCacheValue toInternalCacheValue() {
-      return new MetadataMortalCacheValue(value, metadata, created);
+      return new MetadataMortalCacheValue(value, getMetadata(), created);
    }
 
    @Override
@@ -145,7 +145,7 @@ public static class Externalizer extends AbstractExternalizer<MetadataMortalCach
       public void writeObject(ObjectOutput output, MetadataMortalCacheEntry ice) throws IOException {
          output.writeObject(ice.key);
          output.writeObject(ice.value);
-         output.writeObject(ice.metadata);
+         output.writeObject(ice.getMetadata());
          UnsignedNumeric.writeUnsignedLong(output, ice.created);
       }
 
@@ -165,7 +165,8 @@ public Integer getId() {
 
       @Override
       public Set<Class<? extends MetadataMortalCacheEntry>> getTypeClasses() {
-         return Util.<Class<? extends MetadataMortalCacheEntry>>asSet(MetadataMortalCacheEntry.class);
+         return Util.<Class<? extends MetadataMortalCacheEntry>>asSet(MetadataMortalCacheEntry.class,
+               CompactMetadataMortalCacheEntry.class);
       }
    }
 }
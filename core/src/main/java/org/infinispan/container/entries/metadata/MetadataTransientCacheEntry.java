@@ -108,7 +108,7 @@ public final long getMaxIdle() {
 
    @Override
    public InternalCacheValue toInternalCacheValue() {
-      return new MetadataTransientCacheValue(value, metadata, lastUsed);
+      return new MetadataTransientCacheValue(value, getMetadata(), lastUsed);
    }
 
    @Override
@@ -147,7 +147,7 @@ public static class Externalizer extends AbstractExternalizer<MetadataTransientC
       public void writeObject(ObjectOutput output, MetadataTransientCacheEntry ice) throws IOException {
          output.writeObject(ice.key);
          output.writeObject(ice.value);
-         output.writeObject(ice.metadata);
+         output.writeObject(ice.getMetadata());
          UnsignedNumeric.writeUnsignedLong(output, ice.lastUsed);
       }
 
@@ -167,7 +167,8 @@ public Integer getId() {
 
       @Override
       public Set<Class<? extends MetadataTransientCacheEntry>> getTypeClasses() {
-         return Util.<Class<? extends MetadataTransientCacheEntry>>asSet(MetadataTransientCacheEntry.class);
+         return Util.<Class<? extends MetadataTransientCacheEntry>>asSet(MetadataTransientCacheEntry.class,
+               CompactMetadataTransientCacheEntry.class);
       }
    }
 }
@@ -86,7 +86,7 @@ public final long getExpiryTime() {
 
    @Override
    public InternalCacheValue toInternalCacheValue() {
-      return new MetadataTransientMortalCacheValue(value, metadata, created, lastUsed);
+      return new MetadataTransientMortalCacheValue(value, getMetadata(), created, lastUsed);
    }
 
    @Override
@@ -162,7 +162,7 @@ public static class Externalizer extends AbstractExternalizer<MetadataTransientM
       public void writeObject(ObjectOutput output, MetadataTransientMortalCacheEntry ice) throws IOException {
          output.writeObject(ice.key);
          output.writeObject(ice.value);
-         output.writeObject(ice.metadata);
+         output.writeObject(ice.getMetadata());
          UnsignedNumeric.writeUnsignedLong(output, ice.created);
          UnsignedNumeric.writeUnsignedLong(output, ice.lastUsed);
       }
@@ -184,7 +184,8 @@ public Integer getId() {
 
       @Override
       public Set<Class<? extends MetadataTransientMortalCacheEntry>> getTypeClasses() {
-         return Util.<Class<? extends MetadataTransientMortalCacheEntry>>asSet(MetadataTransientMortalCacheEntry.class);
+         return Util.<Class<? extends MetadataTransientMortalCacheEntry>>asSet(MetadataTransientMortalCacheEntry.class,
+               CompactMetadataTransientMortalCacheEntry.class);
       }
    }
 }
@@ -11,33 +11,81 @@
 
 /**
  * Data Container implementation that stores entries in native memory (off-heap) that is also bounded.  This
- * implementation uses a simple LRU doubly linked list off-heap guarded by a single lock.
+ * implementation uses a W-TinyLFU eviction policy kept in off-heap doubly linked lists guarded by a single lock.
  * <p>
- * The link list consists of 28 bytes (3 longs and 1 int).  The first long is the actual entry address, the second is the
- * previous pointer, the third is the next pointer and lastly the int is the hashCode of the key to retrieve the lock.
+ * New entries are added to a small LRU window.  Entries that overflow the window move to the probation segment of the
+ * main space, and are promoted to its protected segment when they are read again.  When the container is full the
+ * newest probation entry is only kept instead of the oldest one if a {@link FrequencySketch} estimates that it was used
+ * more often, so that a single scan over many entries can't flush the entries that are used frequently.
+ * <p>
+ * Reads don't acquire the policy lock, instead the entries are recorded in a {@link ReadBuffer} that is drained in
+ * batches by writers or by the reader that filled it.  Nodes of removed entries may still be referenced by the buffer,
+ * so they are only freed after the buffer was drained.
+ * <p>
+ * A node consists of 40 bytes (4 longs and 2 ints).  The first long is the actual entry address, the second is the
+ * previous pointer, the third is the next pointer, then the int hashCode of the key to retrieve the lock, the int
+ * segment the node is in and lastly the long size of the entry.
  * @author wburns
  * @since 9.0
  */
 public class BoundedOffHeapDataContainer extends OffHeapDataContainer {
+   static final int NODE_SIZE = 40;
+
+   private static final int WINDOW = 0;
+   private static final int PROBATION = 1;
+   private static final int PROTECTED = 2;
+   // Node of an entry that was removed, it is freed once the read buffer can't reference it anymore
+   private static final int REMOVED = 3;
+
    private final long maxSize;
+   private final long windowMaxSize;
+   private final long protectedMaxSize;
    private final Lock lruLock;
    private final LongUnaryOperator sizeCalculator;
+   private final ReadBuffer readBuffer = new ReadBuffer();
 
+   // The following are guarded by lruLock
+   private final NodeQueue window = new NodeQueue();
+   private final NodeQueue probation = new NodeQueue();
+   private final NodeQueue protectedQueue = new NodeQueue();
+   private final FrequencySketch sketch;
    private long currentSize;
-   private long firstAddress;
-   private long lastAddress;
+   private long nodeCount;
+   // Removed nodes linked through their next pointer
+   private long removedNodes;
 
    public BoundedOffHeapDataContainer(int desiredSize, long maxSize, EvictionType type) {
-      super(desiredSize);
+      this(desiredSize, maxSize, type, -1);
+   }
+
+   /**
+    * @param desiredSize the initial amount of memory addresses
+    * @param maxSize the maximum amount of entries or bytes stored off-heap depending on the eviction type
+    * @param type the eviction type
+    * @param heapTierSize how many entries to keep a copy of on the heap, the on-heap tier is disabled if not positive
+    */
+   public BoundedOffHeapDataContainer(int desiredSize, long maxSize, EvictionType type, long heapTierSize) {
+      super(desiredSize, heapTierSize);
       this.maxSize = maxSize;
       if (type == EvictionType.COUNT) {
          sizeCalculator = i -> 1;
+         sketch = new FrequencySketch(maxSize);
       } else {
-         // Use size of entry plus 28 for our LRU pointer node
-         sizeCalculator = i -> offHeapEntryFactory.determineSize(i) + 28;
+         // Use size of entry plus our policy node
+         sizeCalculator = i -> offHeapEntryFactory.determineSize(i) + NODE_SIZE;
+         // We don't know how many entries fit, so the sketch grows with the amount of entries
+         sketch = new FrequencySketch(0);
       }
+      // Same split as Caffeine, 1% of the size for the window and 80% of the main space for protected entries
+      this.windowMaxSize = Math.max(1, maxSize / 100);
+      this.protectedMaxSize = (maxSize - windowMaxSize) * 4 / 5;
       this.lruLock = new ReentrantLock();
-      firstAddress = 0;
+   }
+
+   @Override
+   public InternalCacheEntry<WrappedBytes, WrappedBytes> get(Object k) {
+      // Retrieving an entry records its node, which requires the entry to stay put while we read its node address
+      return lockedGet(k);
    }
 
    @Override
@@ -74,7 +122,9 @@ protected void entryReplaced(long newAddress, long oldAddress) {
          UNSAFE.putLong(newAddress, lruNode);
          UNSAFE.putLong(lruNode, newAddress);
 
-         moveToEnd(lruNode);
+         queueOf(lruNode).size += newSize - oldSize;
+         UNSAFE.putLong(lruNode + 32, newSize);
+         nodeAccessed(lruNode);
 
          currentSize += newSize;
          currentSize -= oldSize;
@@ -91,7 +141,9 @@ protected void entryCreated(long newAddress) {
       lruLock.lock();
       try {
          currentSize += newSize;
-         addEntryAddressToEnd(newAddress, hashCode);
+         sketch.ensureCapacity(++nodeCount);
+         addEntryAddressToWindow(newAddress, hashCode, newSize);
+         sketch.increment(hashCode);
       } finally {
          lruLock.unlock();
       }
@@ -105,43 +157,16 @@ protected void entryRemoved(long removedAddress) {
       lruLock.lock();
       try {
          // Current size has to be updated in the lock
-         currentSize -=  removedSize;
-         boolean middleNode = true;
-         if (lruNode == lastAddress) {
-            if (trace) {
-               log.tracef("Removing last LRU node at %d", lruNode);
-            }
-            long previousLRUNode = UNSAFE.getLong(lruNode + 8);
-            if (previousLRUNode != 0) {
-               UNSAFE.putLong(previousLRUNode + 16, 0);
-            }
-            lastAddress = previousLRUNode;
-            middleNode = false;
-         }
-         if (lruNode == firstAddress) {
-            if (trace) {
-               log.tracef("Removing first LRU node at %d", lruNode);
-            }
-            long nextLRUNode = UNSAFE.getLong(lruNode + 16);
-            if (nextLRUNode != 0) {
-               UNSAFE.putLong(nextLRUNode + 8, 0);
-            }
-            firstAddress = nextLRUNode;
-            middleNode = false;
-         }
-         if (middleNode) {
-            if (trace) {
-               log.tracef("Removing middle LRU node at %d", lruNode);
-            }
-            // We are a middle pointer so both of these have to be non zero
-            long previousLRUNode = UNSAFE.getLong(lruNode + 8);
-            long nextLRUNode = UNSAFE.getLong(lruNode + 16);
-            assert previousLRUNode != 0;
-            assert nextLRUNode != 0;
-            UNSAFE.putLong(previousLRUNode + 16, nextLRUNode);
-            UNSAFE.putLong(nextLRUNode + 8, previousLRUNode);
+         currentSize -= removedSize;
+         nodeCount--;
+         if (trace) {
+            log.tracef("Removing LRU node at %d", lruNode);
          }
-         allocator.deallocate(lruNode, 28);
+         queueOf(lruNode).remove(lruNode);
+         // The read buffer may still reference the node, so it can only be freed after the buffer was drained
+         UNSAFE.putInt(lruNode + 28, REMOVED);
+         UNSAFE.putLong(lruNode + 16, removedNodes);
+         removedNodes = lruNode;
       } finally {
          lruLock.unlock();
       }
@@ -150,15 +175,14 @@ protected void entryRemoved(long removedAddress) {
 
    @Override
    protected void entryRetrieved(long entryAddress) {
-      lruLock.lock();
-      try {
-         long lruNode = UNSAFE.getLong(entryAddress);
-         if (trace) {
-            log.tracef("Moving lruNode %d to the end which points at address %d", lruNode, entryAddress);
+      long lruNode = UNSAFE.getLong(entryAddress);
+      // The node can't be freed while we hold the read lock for the entry, so it is safe to record it
+      if (readBuffer.offer(lruNode) && lruLock.tryLock()) {
+         try {
+            drainReadBuffer();
+         } finally {
+            lruLock.unlock();
          }
-         moveToEnd(lruNode);
-      } finally {
-         lruLock.unlock();
       }
       super.entryRetrieved(entryAddress);
    }
@@ -171,15 +195,18 @@ protected void performClear() {
       // Technically we don't need to do lruLock since clear obtains all write locks first
       lruLock.lock();
       try {
-         long address = firstAddress;
-         while (address != 0) {
-            long nextAddress = UNSAFE.getLong(address + 16);
-            allocator.deallocate(address, 28);
-            address = nextAddress;
-         }
+         // No reader can be recording while we hold all the write locks, so the buffer is always fully drained
+         readBuffer.drainTo(node -> {});
+         freeNodes(window.first);
+         freeNodes(probation.first);
+         freeNodes(protectedQueue.first);
+         freeNodes(removedNodes);
+         window.clear();
+         probation.clear();
+         protectedQueue.clear();
+         removedNodes = 0;
          currentSize = 0;
-         firstAddress = 0;
-         lastAddress = 0;
+         nodeCount = 0;
       } finally {
          lruLock.unlock();
       }
@@ -189,15 +216,40 @@ protected void performClear() {
       super.performClear();
    }
 
+   private void freeNodes(long address) {
+      while (address != 0) {
+         long nextAddress = UNSAFE.getLong(address + 16);
+         allocator.deallocate(address, NODE_SIZE);
+         address = nextAddress;
+      }
+   }
+
+   @Override
+   public long capacity() {
+      return maxSize;
+   }
+
+   @Override
+   public long evictionSize() {
+      lruLock.lock();
+      try {
+         return currentSize;
+      } finally {
+         lruLock.unlock();
+      }
+   }
+
    private void ensureSize() {
       while (true) {
          long addressToRemove;
          Lock entryWriteLock;
          lruLock.lock();
          try {
+            drainReadBuffer();
             if (currentSize > maxSize) {
+               long victimNode = selectVictim();
                // Retrieve the hashCode so we can lock it to verify the address is still present
-               int hashCode = UNSAFE.getInt(firstAddress + 24);
+               int hashCode = UNSAFE.getInt(victimNode + 24);
                entryWriteLock = locks.getLockFromHashCode(hashCode).writeLock();
                if (!entryWriteLock.tryLock()) {
                   // Attempts to release the lru lock and reacquire the write lock are problematic as underlying allocator
@@ -205,7 +257,7 @@ private void ensureSize() {
                   // in an efficient way - just force loop back around to allow other threads to get lruLock
                   addressToRemove = 0;
                } else {
-                  addressToRemove = UNSAFE.getLong(firstAddress);
+                  addressToRemove = UNSAFE.getLong(victimNode);
                }
             } else {
                // This is the only way to break out of loop
@@ -223,7 +275,9 @@ private void ensureSize() {
                      addressToRemove, currentSize, maxSize);
             }
             try {
-               performRemove(addressToRemove, offHeapEntryFactory.getKey(addressToRemove));
+               // The entry may not be the first in its bucket, so the removal has to start from the bucket head
+               WrappedBytes key = offHeapEntryFactory.getKey(addressToRemove);
+               performRemove(memoryLookup.getMemoryAddress(key), key);
             } finally {
                entryWriteLock.unlock();
             }
@@ -235,13 +289,105 @@ private void ensureSize() {
    }
 
    /**
-    * Method to be invoked when adding a new entry address to the end of the lru nodes.  This occurs for newly created
+    * Picks the node of the entry to evict.  The entries that overflow the window become candidates at the end of the
+    * probation segment, and the newest candidate is only admitted in place of the oldest probation entry if it was used
+    * more often.
+    * This method should only be invoked after acquiring the lruLock
+    * @return the node whose entry should be evicted
+    */
+   private long selectVictim() {
+      while (window.size > windowMaxSize && window.first != 0) {
+         long node = window.first;
+         window.remove(node);
+         addToQueue(probation, node, PROBATION);
+      }
+      long victim = probation.first;
+      if (victim == 0) {
+         return window.first != 0 ? window.first : protectedQueue.first;
+      }
+      long candidate = probation.last;
+      if (candidate == victim) {
+         return victim;
+      }
+      int candidateFrequency = sketch.frequency(UNSAFE.getInt(candidate + 24));
+      int victimFrequency = sketch.frequency(UNSAFE.getInt(victim + 24));
+      return candidateFrequency > victimFrequency ? victim : candidate;
+   }
+
+   /**
+    * Updates the policy with the reads recorded in the read buffer, and frees the nodes of removed entries if no read
+    * can reference them anymore.
+    * This method should only be invoked after acquiring the lruLock
+    */
+   private void drainReadBuffer() {
+      if (readBuffer.drainTo(this::nodeAccessed) && removedNodes != 0) {
+         // Reads are recorded while holding the read lock of the entry, so every read of a removed node was recorded
+         // before the node was removed and was just drained
+         freeNodes(removedNodes);
+         removedNodes = 0;
+      }
+   }
+
+   /**
+    * Updates the policy when the entry of the given node was used.
+    * This method should only be invoked after acquiring the lruLock
+    * @param lruNode the node of the entry that was used
+    */
+   private void nodeAccessed(long lruNode) {
+      int segment = UNSAFE.getInt(lruNode + 28);
+      if (segment == REMOVED) {
+         return;
+      }
+      sketch.increment(UNSAFE.getInt(lruNode + 24));
+      if (trace) {
+         log.tracef("Recording access of lruNode %d which points at address %d", lruNode, UNSAFE.getLong(lruNode));
+      }
+      switch (segment) {
+         case WINDOW:
+            window.moveToEnd(lruNode);
+            break;
+         case PROBATION:
+            probation.remove(lruNode);
+            addToQueue(protectedQueue, lruNode, PROTECTED);
+            // Demote the oldest protected entries to make room
+            while (protectedQueue.size > protectedMaxSize && protectedQueue.first != lruNode) {
+               long demoted = protectedQueue.first;
+               protectedQueue.remove(demoted);
+               addToQueue(probation, demoted, PROBATION);
+            }
+            break;
+         case PROTECTED:
+            protectedQueue.moveToEnd(lruNode);
+            break;
+      }
+   }
+
+   private NodeQueue queueOf(long lruNode) {
+      switch (UNSAFE.getInt(lruNode + 28)) {
+         case WINDOW:
+            return window;
+         case PROBATION:
+            return probation;
+         case PROTECTED:
+            return protectedQueue;
+         default:
+            throw new IllegalStateException("Node " + lruNode + " was already removed");
+      }
+   }
+
+   private void addToQueue(NodeQueue queue, long lruNode, int segment) {
+      UNSAFE.putInt(lruNode + 28, segment);
+      queue.addLast(lruNode);
+   }
+
+   /**
+    * Method to be invoked when adding a new entry address to the end of the window.  This occurs for newly created
     * entries.
     * This method should only be invoked after acquiring the lruLock
     * @param entryAddress the new entry address pointer *NOT* the lru node
     */
-   private void addEntryAddressToEnd(long entryAddress, int hashCode) {
-      long nodeAddress = allocator.allocate(28);
+   private void addEntryAddressToWindow(long entryAddress, int hashCode, long size) {
+      long nodeAddress = allocator.allocate(NODE_SIZE);
       if (trace) {
          log.tracef("Creating LRU node %d for new entry %d", nodeAddress, entryAddress);
       }
@@ -249,48 +395,62 @@ private void addEntryAddressToEnd(long entryAddress, int hashCode) {
       UNSAFE.putLong(nodeAddress, entryAddress);
       // Also our entry address needs a pointer to its lru node
       UNSAFE.putLong(entryAddress, nodeAddress);
-      // This means it is the first entry
-      if (lastAddress == 0) {
-         firstAddress = nodeAddress;
-         lastAddress = nodeAddress;
-         // Have to make sure the memory is cleared so we don't use unitialized values
-         UNSAFE.putLong(nodeAddress + 8, 0);
-      } else {
-         // Writes back pointer to the old lastAddress
-         UNSAFE.putLong(nodeAddress + 8, lastAddress);
-         // Write the forward pointer in old lastAddress to point to us
-         UNSAFE.putLong(lastAddress + 16, nodeAddress);
-         // Finally make us the last address
-         lastAddress = nodeAddress;
-      }
-      // Since we are last there is no pointer after us
-      UNSAFE.putLong(nodeAddress + 16, 0);
       UNSAFE.putInt(nodeAddress + 24, hashCode);
+      UNSAFE.putLong(nodeAddress + 32, size);
+      addToQueue(window, nodeAddress, WINDOW);
    }
 
    /**
-    * Method to be invoked when moving an existing lru node to the end.  This occurs when the entry is accessed for this
-    * node.
-    * This method should only be invoked after acquiring the lruLock.
-    * @param lruNode the node to move to the end
+    * Doubly linked list of nodes along with the total size of their entries.  All methods should only be invoked
+    * after acquiring the lruLock.
     */
-   private void moveToEnd(long lruNode) {
-      if (lruNode != lastAddress) {
-         long nextLruNode = UNSAFE.getLong(lruNode + 16);
-         if (lruNode == firstAddress) {
-            UNSAFE.putLong(nextLruNode + 8, 0);
-            firstAddress = nextLruNode;
+   private static class NodeQueue {
+      private long first;
+      private long last;
+      private long size;
+
+      void addLast(long lruNode) {
+         // Writes back pointer to the old last node
+         UNSAFE.putLong(lruNode + 8, last);
+         // Since we are last there is no pointer after us
+         UNSAFE.putLong(lruNode + 16, 0);
+         if (last == 0) {
+            first = lruNode;
          } else {
-            long prevLruNode = UNSAFE.getLong(lruNode + 8);
-            UNSAFE.putLong(prevLruNode + 16, nextLruNode);
-            UNSAFE.putLong(nextLruNode + 8, prevLruNode);
+            // Write the forward pointer in old last node to point to us
+            UNSAFE.putLong(last + 16, lruNode);
          }
-         // Link the previous last node to our new last node
-         UNSAFE.putLong(lastAddress + 16, lruNode);
-         // Sets the previous node of our new tail node to the previous tail node
-         UNSAFE.putLong(lruNode + 8, lastAddress);
-         UNSAFE.putLong(lruNode + 16, 0);
-         lastAddress = lruNode;
+         last = lruNode;
+         size += UNSAFE.getLong(lruNode + 32);
+      }
+
+      void remove(long lruNode) {
+         long previousLRUNode = UNSAFE.getLong(lruNode + 8);
+         long nextLRUNode = UNSAFE.getLong(lruNode + 16);
+         if (previousLRUNode == 0) {
+            first = nextLRUNode;
+         } else {
+            UNSAFE.putLong(previousLRUNode + 16, nextLRUNode);
+         }
+         if (nextLRUNode == 0) {
+            last = previousLRUNode;
+         } else {
+            UNSAFE.putLong(nextLRUNode + 8, previousLRUNode);
+         }
+         size -= UNSAFE.getLong(lruNode + 32);
+      }
+
+      void moveToEnd(long lruNode) {
+         if (lruNode != last) {
+            remove(lruNode);
+            addLast(lruNode);
+         }
+      }
+
+      void clear() {
+         first = 0;
+         last = 0;
+         size = 0;
       }
    }
 }
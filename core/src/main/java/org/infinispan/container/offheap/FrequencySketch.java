@@ -0,0 +1,109 @@
+package org.infinispan.container.offheap;
+
+/**
+ * Count-min sketch that estimates how often a key was used, based on its hash code.  Every key has four 4-bit
+ * counters and the estimate is the smallest of them, so the frequency saturates at 15.  Once enough increments were
+ * recorded all counters are halved, so that keys that used to be popular eventually lose their frequency.
+ * <p>
+ * This class is not thread safe, it must only be used while holding the lock of the eviction policy.
+ * @since 9.0
+ */
+class FrequencySketch {
+   private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+         0xcbf29ce484222325L};
+   private static final long RESET_MASK = 0x7777777777777777L;
+   private static final long ONE_MASK = 0x1111111111111111L;
+   private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+   private long[] table;
+   private int tableMask;
+   private int sampleSize;
+   private int size;
+
+   FrequencySketch(long expectedEntries) {
+      ensureCapacity(expectedEntries);
+   }
+
+   /**
+    * Grows the sketch so that it can hold the given amount of keys with a low error rate.  The frequencies recorded so
+    * far are lost if the sketch has to grow.
+    * @param expectedEntries how many keys are expected to be tracked
+    */
+   void ensureCapacity(long expectedEntries) {
+      int maximum = (int) Math.min(Math.max(expectedEntries, 16), MAXIMUM_CAPACITY);
+      if (table != null && table.length >= maximum) {
+         return;
+      }
+      table = new long[OffHeapDataContainer.nextPowerOfTwo(maximum)];
+      tableMask = table.length - 1;
+      sampleSize = 10 * maximum;
+      size = 0;
+   }
+
+   /**
+    * Returns the estimated amount of times the key with the given hash code was used.
+    * @param hashCode hash code of the key
+    * @return the frequency, which is never more than 15
+    */
+   int frequency(int hashCode) {
+      int hash = spread(hashCode);
+      int start = (hash & 3) << 2;
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; ++i) {
+         int index = indexOf(hash, i);
+         int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+         frequency = Math.min(frequency, count);
+      }
+      return frequency;
+   }
+
+   /**
+    * Records a use of the key with the given hash code.
+    * @param hashCode hash code of the key
+    */
+   void increment(int hashCode) {
+      int hash = spread(hashCode);
+      int start = (hash & 3) << 2;
+      boolean added = false;
+      for (int i = 0; i < 4; ++i) {
+         added |= incrementAt(indexOf(hash, i), start + i);
+      }
+      if (added && ++size == sampleSize) {
+         reset();
+      }
+   }
+
+   private boolean incrementAt(int index, int counter) {
+      int offset = counter << 2;
+      long mask = 0xfL << offset;
+      if ((table[index] & mask) != mask) {
+         table[index] += 1L << offset;
+         return true;
+      }
+      return false;
+   }
+
+   /**
+    * Halves all of the counters.
+    */
+   void reset() {
+      int odd = 0;
+      for (int i = 0; i < table.length; ++i) {
+         odd += Long.bitCount(table[i] & ONE_MASK);
+         table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      size = (size >>> 1) - (odd >>> 2);
+   }
+
+   private int indexOf(int hash, int i) {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return ((int) h) & tableMask;
+   }
+
+   private static int spread(int h) {
+      h = ((h >>> 16) ^ h) * 0x45d9f3b;
+      h = ((h >>> 16) ^ h) * 0x45d9f3b;
+      return (h >>> 16) ^ h;
+   }
+}
@@ -0,0 +1,125 @@
+package org.infinispan.container.offheap;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.infinispan.commons.marshall.WrappedBytes;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Bounded on-heap copy of the off-heap entries that are read repeatedly.  Reading an entry from off-heap memory copies
+ * its key, value and metadata into new objects on every read, whereas entries in this tier are returned as is.
+ * <p>
+ * The off-heap container always keeps every entry, so this tier only holds copies: an entry evicted from it is simply
+ * dropped, as it is still available from off-heap memory, and entries are never passivated because of it.  The
+ * container <b>must</b> invalidate the copy of an entry while holding its write lock whenever the entry is written
+ * or removed, and must only promote entries while holding the read lock.
+ * @since 9.0
+ */
+class HeapTier {
+   private static final int MAX_ACCESSED_LENGTH = 1 << 23;
+
+   private final Cache<WrappedBytes, CachedEntry> entries;
+   // Hash codes of keys that were read once from off-heap memory, a key is promoted if it is read again.  Collisions
+   // only make a key promoted on its first read
+   private final AtomicIntegerArray accessed;
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder promotions = new LongAdder();
+
+   HeapTier(long maxEntries) {
+      entries = Caffeine.newBuilder().executor(new WithinThreadExecutor()).maximumSize(maxEntries).build();
+      accessed = new AtomicIntegerArray(OffHeapDataContainer.nextPowerOfTwo(
+            (int) Math.min(maxEntries << 1, MAX_ACCESSED_LENGTH)));
+   }
+
+   /**
+    * Returns the copy of the entry for the given key if it is present in this tier.
+    * @param key the key of the entry
+    * @return the entry and its off-heap address or null
+    */
+   CachedEntry get(Object key) {
+      CachedEntry entry = entries.getIfPresent(key);
+      if (entry != null) {
+         hits.increment();
+      }
+      return entry;
+   }
+
+   /**
+    * Records a read of the given key from off-heap memory.
+    * @param key the key that was read
+    * @return true if the key was read recently as well and should be promoted
+    */
+   boolean recordAccess(Object key) {
+      int hash = key.hashCode();
+      // 0 marks a free slot
+      if (hash == 0) {
+         hash = 1;
+      }
+      int index = spread(hash) & (accessed.length() - 1);
+      if (accessed.get(index) == hash) {
+         accessed.lazySet(index, 0);
+         return true;
+      }
+      accessed.lazySet(index, hash);
+      return false;
+   }
+
+   /**
+    * Adds a copy of the entry stored at the given off-heap address.  The read lock of the key <b>must</b> be held.
+    * @param entry the entry read from off-heap memory
+    * @param address the address the entry was read from
+    */
+   void promote(InternalCacheEntry<WrappedBytes, WrappedBytes> entry, long address) {
+      entries.put(entry.getKey(), new CachedEntry(entry, address));
+      promotions.increment();
+   }
+
+   /**
+    * Removes the copy of the entry for the given key.  The write lock of the key <b>must</b> be held.
+    * @param key the key of the entry
+    */
+   void invalidate(Object key) {
+      entries.invalidate(key);
+   }
+
+   /**
+    * Removes all copies.  All write locks <b>must</b> be held.
+    */
+   void invalidateAll() {
+      entries.invalidateAll();
+   }
+
+   long size() {
+      return entries.estimatedSize();
+   }
+
+   long hitCount() {
+      return hits.sum();
+   }
+
+   long promotionCount() {
+      return promotions.sum();
+   }
+
+   private static int spread(int h) {
+      h ^= h >>> 16;
+      h *= 0x85ebca6b;
+      return h ^ (h >>> 13);
+   }
+
+   static final class CachedEntry {
+      final InternalCacheEntry<WrappedBytes, WrappedBytes> entry;
+      // Valid as long as the entry is present, as the copy is invalidated before the memory is released
+      final long address;
+
+      CachedEntry(InternalCacheEntry<WrappedBytes, WrappedBytes> entry, long address) {
+         this.entry = entry;
+         this.address = address;
+      }
+   }
+}
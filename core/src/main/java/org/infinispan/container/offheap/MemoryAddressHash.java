@@ -5,6 +5,14 @@
 import sun.misc.Unsafe;
 
 /**
+ * Table of pointers to the first entry of each bucket.  The table can be resized while it is in use: the buckets are
+ * moved to a new table one lock stripe at a time, so that only the writers and readers of the stripe being moved are
+ * blocked.  This requires that every bucket maps to the lock stripe {@code spread(hashCode) & (lockCount - 1)}, which
+ * holds as long as both the pointer and lock counts are powers of two and the pointer count is never smaller than the
+ * lock count.
+ * <p>
+ * Callers must hold the lock of the stripe the key maps to while reading or updating pointers, or validate their
+ * optimistic read afterwards.  Moving a stripe must be done while holding the write lock of that stripe.
  * @author wburns
  * @since 9.0
  */
@@ -13,38 +21,140 @@ public class MemoryAddressHash {
    private static final int MAXIMUM_CAPACITY = 1 << 30;
    private static final int HASH_BITS = 0x7fffffff; // usable bits of normal node hash
 
-   private final long memory;
-   private final int pointerCount;
+   private final int lockCount;
+   private volatile Table table;
 
    public MemoryAddressHash(int pointers) {
-      this.pointerCount = nextPowerOfTwo(pointers);
-      long bytes = ((long) pointerCount) << 3;
-      memory = UNSAFE.allocateMemory(bytes);
-      // Have to clear out bytes to make sure no bad stuff was read in
-      UNSAFE.setMemory(memory, bytes, (byte) 0);
+      this(pointers, 1);
    }
 
-   private int findOffset(Object instance) {
-      int h = spread(instance.hashCode());
-      int pointerMask = pointerCount - 1;
-      return h & pointerMask;
+   public MemoryAddressHash(int pointers, int lockCount) {
+      this.lockCount = nextPowerOfTwo(lockCount);
+      this.table = new Table(Math.max(nextPowerOfTwo(pointers), this.lockCount), this.lockCount);
+   }
+
+   private Table tableForStripe(int stripe) {
+      Table current = table;
+      Table target = current.resizeTarget;
+      return target != null && current.migrated[stripe] ? target : current;
+   }
+
+   private Table tableForHash(int h) {
+      return tableForStripe(h & (lockCount - 1));
    }
 
    public void putMemoryAddress(Object instance, long address) {
-      int offset = findOffset(instance);
-      UNSAFE.putLong(memory + (((long) offset) << 3), address);
+      int h = spread(instance.hashCode());
+      Table t = tableForHash(h);
+      UNSAFE.putLong(t.pointer(h & (t.pointerCount - 1)), address);
    }
 
    public long getMemoryAddress(Object instance) {
-      return UNSAFE.getLong(memory + (findOffset(instance) << 3));
+      int h = spread(instance.hashCode());
+      Table t = tableForHash(h);
+      return UNSAFE.getLong(t.pointer(h & (t.pointerCount - 1)));
+   }
+
+   /**
+    * Returns the address stored in the given bucket of the table currently used by the given stripe.  The offset must
+    * map to the stripe and be smaller than {@link #getPointerCount(int)} of the stripe.
+    * @param stripe the lock stripe the offset belongs to
+    * @param offset the bucket to read
+    * @return the address of the first entry in the bucket or 0
+    */
+   public long getMemoryAddressOffset(int stripe, int offset) {
+      return UNSAFE.getLong(tableForStripe(stripe).pointer(offset));
    }
 
-   public long getMemoryAddressOffset(int offset) {
-      return UNSAFE.getLong(memory + (((long) offset) << 3));
+   /**
+    * Returns the amount of buckets in the table currently used by the given stripe.
+    * @param stripe the lock stripe
+    * @return how many buckets there are
+    */
+   public int getPointerCount(int stripe) {
+      return tableForStripe(stripe).pointerCount;
+   }
+
+   /**
+    * Returns the amount of buckets in the table, or in the table being resized to if a resize is in progress.
+    * @return how many buckets there are
+    */
+   public int getPointerCount() {
+      Table current = table;
+      Table target = current.resizeTarget;
+      return target != null ? target.pointerCount : current.pointerCount;
+   }
+
+   /**
+    * Whether buckets are currently being moved to a new table.
+    * @return true if a resize was started but not completed
+    */
+   public boolean isResizing() {
+      return table.resizeTarget != null;
    }
 
+   /**
+    * Allocates a new table with the given amount of buckets that the stripes will be moved to.  Only a single resize
+    * can be in progress at a time.
+    * @param pointers the amount of buckets of the new table
+    */
+   public void startResize(int pointers) {
+      Table current = table;
+      if (current.resizeTarget != null) {
+         throw new IllegalStateException("Resize already in progress");
+      }
+      current.resizeTarget = new Table(Math.max(nextPowerOfTwo(pointers), lockCount), lockCount);
+   }
+
+   /**
+    * Moves every entry of the given stripe to the table being resized to.  The write lock for the stripe <b>must</b>
+    * be held.  Entries are prepended to the new buckets, so that the linked pointer of every entry is updated exactly
+    * once and no entry is ever unreachable to a reader holding the read lock.
+    * @param stripe the stripe to move
+    * @param entryFactory factory used to read the hash code and update the linked pointer of the entries
+    * @return true if this was the last stripe that needed to be moved, in which case the resize is complete and the
+    *         address of the old table is returned from {@link #completeResize()}
+    */
+   public boolean migrateStripe(int stripe, OffHeapEntryFactory entryFactory) {
+      Table current = table;
+      Table target = current.resizeTarget;
+      int targetMask = target.pointerCount - 1;
+      for (int i = stripe; i < current.pointerCount; i += lockCount) {
+         long pointer = current.pointer(i);
+         long address = UNSAFE.getLong(pointer);
+         while (address != 0) {
+            long nextAddress = entryFactory.getNextLinkedPointerAddress(address);
+            long targetPointer = target.pointer(spread(entryFactory.getHashCodeForAddress(address)) & targetMask);
+            entryFactory.updateNextLinkedPointerAddress(address, UNSAFE.getLong(targetPointer));
+            UNSAFE.putLong(targetPointer, address);
+            address = nextAddress;
+         }
+         UNSAFE.putLong(pointer, 0);
+      }
+      current.migrated[stripe] = true;
+      return ++current.migratedCount == lockCount;
+   }
+
+   /**
+    * Makes the table that all stripes were moved to the current one.  This must be invoked while holding the write
+    * lock of the last stripe that was moved.
+    * @return the memory address of the old table, which can be freed once no optimistic reader can reference it
+    */
+   public long completeResize() {
+      Table old = table;
+      table = old.resizeTarget;
+      return old.memory;
+   }
+
+   /**
+    * Frees the table and the table being resized to, if any.
+    */
    public void deallocate() {
-      UNSAFE.freeMemory(memory);
+      Table current = table;
+      if (current.resizeTarget != null) {
+         UNSAFE.freeMemory(current.resizeTarget.memory);
+      }
+      UNSAFE.freeMemory(current.memory);
    }
 
    /**
@@ -52,10 +162,10 @@ public void deallocate() {
     * @return stream of the various memory locations
     */
    public LongStream toStream() {
-      return LongStream.iterate(memory, l -> l + 8)
-            .limit(pointerCount)
-            .map(UNSAFE::getLong)
-            .filter(l -> l != 0);
+      Table current = table;
+      LongStream stream = current.toStream();
+      Table target = current.resizeTarget;
+      return target == null ? stream : LongStream.concat(stream, target.toStream());
    }
 
    /**
@@ -63,10 +173,10 @@ public LongStream toStream() {
     * @return stream with the valid memory pointers to stored values
     */
    public LongStream toStreamRemoved() {
-      return LongStream.iterate(memory, l -> l + 8)
-            .limit(pointerCount)
-            .map(l -> UNSAFE.getAndSetLong(null, l, 0))
-            .filter(l -> l != 0);
+      Table current = table;
+      LongStream stream = current.toStreamRemoved();
+      Table target = current.resizeTarget;
+      return target == null ? stream : LongStream.concat(stream, target.toStreamRemoved());
    }
 
    private static final int nextPowerOfTwo(int c) {
@@ -82,4 +192,41 @@ private static final int nextPowerOfTwo(int c) {
    static final int spread(int h) {
       return (h ^ (h >>> 16)) & HASH_BITS;
    }
+
+   private static class Table {
+      private final long memory;
+      private final int pointerCount;
+      // Which stripes were already moved to resizeTarget, only written while holding the write lock of the stripe
+      private final boolean[] migrated;
+      // Only updated while holding the write lock of a stripe, and there is only ever one resize running
+      private int migratedCount;
+      private volatile Table resizeTarget;
+
+      Table(int pointerCount, int lockCount) {
+         this.pointerCount = pointerCount;
+         this.migrated = new boolean[lockCount];
+         long bytes = ((long) pointerCount) << 3;
+         memory = UNSAFE.allocateMemory(bytes);
+         // Have to clear out bytes to make sure no bad stuff was read in
+         UNSAFE.setMemory(memory, bytes, (byte) 0);
+      }
+
+      long pointer(int offset) {
+         return memory + (((long) offset) << 3);
+      }
+
+      LongStream toStream() {
+         return LongStream.iterate(memory, l -> l + 8)
+               .limit(pointerCount)
+               .map(UNSAFE::getLong)
+               .filter(l -> l != 0);
+      }
+
+      LongStream toStreamRemoved() {
+         return LongStream.iterate(memory, l -> l + 8)
+               .limit(pointerCount)
+               .map(l -> UNSAFE.getAndSetLong(null, l, 0))
+               .filter(l -> l != 0);
+      }
+   }
 }
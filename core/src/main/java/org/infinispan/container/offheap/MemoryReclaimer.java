@@ -0,0 +1,192 @@
+package org.infinispan.container.offheap;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import sun.misc.Unsafe;
+
+/**
+ * Epoch based reclamation of off-heap entries.  Readers that follow memory addresses without holding a lock must
+ * surround their reads with {@link #enter()} and {@link #exit()}.  Writers that unlink an entry while holding the write
+ * lock must then {@link #retire(long)} it instead of deallocating it, so that the memory is only returned to the
+ * allocator once no reader that could have observed the entry is still active.
+ * <p>
+ * Every reader thread publishes the epoch it observed when it entered in its own slot, so entering and exiting does
+ * not write to any memory shared with other readers.  Retired memory is tagged with the current epoch and can be freed
+ * when every active reader has entered in a later epoch.
+ * @since 9.0
+ */
+public class MemoryReclaimer {
+   private static final Log log = LogFactory.getLog(MemoryReclaimer.class);
+   private static final boolean trace = log.isTraceEnabled();
+   private static final Unsafe UNSAFE = UnsafeHolder.UNSAFE;
+
+   // Epoch of a reader that is not currently reading
+   private static final long IDLE = Long.MAX_VALUE;
+   // How many retired addresses are allowed to pile up before we try to free them
+   private static final int RECLAIM_THRESHOLD = 64;
+
+   private final LongConsumer allocatorDeallocator;
+   private final AtomicLong epoch = new AtomicLong();
+   private final Queue<ReaderSlot> readers = new ConcurrentLinkedQueue<>();
+   private final ThreadLocal<ReaderSlot> localReader = ThreadLocal.withInitial(this::registerReader);
+   private final Queue<RetiredAddress> retired = new ConcurrentLinkedQueue<>();
+   private final AtomicInteger retiredCount = new AtomicInteger();
+   private final Lock reclaimLock = new ReentrantLock();
+
+   public MemoryReclaimer(OffHeapMemoryAllocator allocator) {
+      this.allocatorDeallocator = allocator::deallocate;
+   }
+
+   private ReaderSlot registerReader() {
+      ReaderSlot slot = new ReaderSlot(Thread.currentThread());
+      readers.add(slot);
+      return slot;
+   }
+
+   /**
+    * Marks the current thread as reading off-heap memory.  Any address reachable after this method returns will not be
+    * freed until {@link #exit()} is invoked.  Calls may be nested as long as every enter is matched by an exit.
+    */
+   public void enter() {
+      ReaderSlot slot = localReader.get();
+      if (slot.depth++ == 0) {
+         // Volatile write is required so the following reads cannot happen before our epoch is visible
+         slot.epoch = epoch.get();
+      }
+   }
+
+   /**
+    * Marks the current thread as no longer reading off-heap memory.
+    */
+   public void exit() {
+      ReaderSlot slot = localReader.get();
+      if (--slot.depth == 0) {
+         slot.epoch = IDLE;
+      }
+   }
+
+   /**
+    * Schedules the entry at the given address to be deallocated once no reader can still reference it.  The address
+    * <b>must</b> already be unreachable for new readers.
+    * @param address the address of the entry that was just unlinked
+    */
+   public void retire(long address) {
+      retire(address, allocatorDeallocator);
+   }
+
+   /**
+    * Same as {@link #retire(long)} except that the memory is freed by the given deallocator instead of the allocator.
+    * This is used for memory that was not handed out by the allocator, such as the old table of a resized
+    * {@link MemoryAddressHash}.
+    * @param address the address that was just made unreachable
+    * @param deallocator invoked with the address once it can be freed
+    */
+   public void retire(long address, LongConsumer deallocator) {
+      // Make sure the unlink is visible before we read the epoch to tag the address with
+      UNSAFE.fullFence();
+      retired.add(new RetiredAddress(address, epoch.get(), deallocator));
+      if (retiredCount.incrementAndGet() >= RECLAIM_THRESHOLD) {
+         reclaim();
+      }
+   }
+
+   /**
+    * Frees any retired addresses that are no longer visible to any reader.  Does nothing if another thread is already
+    * reclaiming.
+    */
+   public void reclaim() {
+      if (reclaimLock.tryLock()) {
+         try {
+            freeRetired();
+         } finally {
+            reclaimLock.unlock();
+         }
+      }
+   }
+
+   /**
+    * Waits for all readers that are currently active to exit and then frees all of the retired addresses.  This should
+    * only be used when no new readers can observe any of the memory, such as when the container is being shut down.
+    */
+   public void reclaimAll() {
+      reclaimLock.lock();
+      try {
+         long currentEpoch = epoch.incrementAndGet();
+         while (minimumActiveEpoch() < currentEpoch) {
+            Thread.yield();
+         }
+         freeRetired();
+      } finally {
+         reclaimLock.unlock();
+      }
+   }
+
+   private void freeRetired() {
+      // Any reader entering after this increment cannot see the addresses retired so far
+      epoch.incrementAndGet();
+      long minimumEpoch = minimumActiveEpoch();
+      int freed = 0;
+      for (Iterator<RetiredAddress> iter = retired.iterator(); iter.hasNext(); ) {
+         RetiredAddress retiredAddress = iter.next();
+         if (retiredAddress.epoch < minimumEpoch) {
+            iter.remove();
+            retiredAddress.deallocator.accept(retiredAddress.address);
+            freed++;
+         }
+      }
+      retiredCount.addAndGet(-freed);
+      if (trace) {
+         log.tracef("Freed %d retired off heap addresses, minimum active epoch is %d", freed, minimumEpoch);
+      }
+   }
+
+   private long minimumActiveEpoch() {
+      long minimumEpoch = IDLE;
+      for (Iterator<ReaderSlot> iter = readers.iterator(); iter.hasNext(); ) {
+         ReaderSlot slot = iter.next();
+         long readerEpoch = slot.epoch;
+         if (readerEpoch == IDLE) {
+            // Threads that died can never read again
+            if (!slot.owner.isAlive()) {
+               iter.remove();
+            }
+         } else if (readerEpoch < minimumEpoch) {
+            minimumEpoch = readerEpoch;
+         }
+      }
+      return minimumEpoch;
+   }
+
+   private static class ReaderSlot {
+      private final Thread owner;
+      // Only ever touched by the owner
+      private int depth;
+      private volatile long epoch = IDLE;
+
+      ReaderSlot(Thread owner) {
+         this.owner = owner;
+      }
+   }
+
+   private static class RetiredAddress {
+      private final long address;
+      private final long epoch;
+      private final LongConsumer deallocator;
+
+      RetiredAddress(long address, long epoch, LongConsumer deallocator) {
+         this.address = address;
+         this.epoch = epoch;
+         this.deallocator = deallocator;
+      }
+   }
+}
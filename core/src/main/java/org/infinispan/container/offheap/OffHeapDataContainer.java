@@ -7,10 +7,13 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.StampedLock;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
@@ -19,12 +22,16 @@
 import org.infinispan.commons.marshall.WrappedBytes;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.entries.ExpiryHelper;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.eviction.PassivationManager;
+import org.infinispan.expiration.ExpirationManager;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.filter.KeyValueFilter;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
@@ -32,9 +39,24 @@
 
 /**
  * Data Container implementation that stores entries in native memory (off-heap).
+ * <p>
+ * Reads are first attempted optimistically without acquiring the read lock, and are only retried while holding the
+ * read lock if a writer modified the same lock stripe concurrently.  Entries that are removed or replaced are handed
+ * to a {@link MemoryReclaimer} instead of being deallocated directly so an optimistic reader can never read memory
+ * that was already freed.
+ * <p>
+ * The memory lookup table grows when the amount of entries exceeds the load factor and shrinks back towards the
+ * configured address count when entries are removed.  Resizing is done by the writer that crossed the threshold after
+ * it released its own lock, moving the buckets one lock stripe at a time so that only operations on the stripe being
+ * moved are blocked.
+ * <p>
+ * A bounded on-heap tier can be enabled in front of the off-heap memory, which keeps a copy of the entries that are read
+ * repeatedly so that they don't have to be copied out of native memory on every read.  Off-heap memory still holds all
+ * of the entries, so the copies are simply dropped when the on-heap tier is full.
  * @author wburns
  * @since 9.0
  */
+@MBean(objectName = "OffHeapDataContainer", description = "Data container storing entries in native memory")
 public class OffHeapDataContainer implements DataContainer<WrappedBytes, WrappedBytes> {
    protected final Log log = LogFactory.getLog(getClass());
    protected final boolean trace = log.isTraceEnabled();
@@ -42,20 +64,36 @@ public class OffHeapDataContainer implements DataContainer<WrappedBytes, Wrapped
 
    protected final AtomicLong size = new AtomicLong();
    protected final int lockCount;
+   // The initial amount of memory addresses, the lookup table never shrinks below this
    protected final int memoryAddressCount;
    protected final StripedLock locks;
    protected final MemoryAddressHash memoryLookup;
    protected OffHeapMemoryAllocator allocator;
+   protected MemoryReclaimer reclaimer;
    protected OffHeapEntryFactory offHeapEntryFactory;
    protected InternalEntryFactory internalEntryFactory;
    protected TimeService timeService;
    protected PassivationManager passivator;
+   protected ExpirationManager<WrappedBytes, WrappedBytes> expirationManager;
+   // Null if the on-heap tier is disabled
+   protected final HeapTier heapTier;
    // Variable to make sure memory locations aren't read after being deallocated
-   // This variable should always be read first after acquiring either the read or write lock
-   private boolean dellocated = false;
+   // This variable should always be read first after acquiring either the read or write lock, or after entering the
+   // reclaimer for optimistic reads
+   private volatile boolean dellocated = false;
+   // Only a single resize of the memory lookup table can run at a time
+   private final AtomicBoolean resizing = new AtomicBoolean();
+   private final AtomicLong resizeCount = new AtomicLong();
 
    // Max would be 1:1 ratio with memory addresses - must be a crazy machine to have that many processors
    private final static int MAX_LOCK_COUNT = 1 << 30;
+   private final static int MAX_ADDRESS_COUNT = 1 << 30;
+   // The lookup table grows when there are more entries than 3/4 of the buckets
+   private final static int LOAD_FACTOR_NUMERATOR = 3;
+   private final static int LOAD_FACTOR_DENOMINATOR = 4;
+   // The lookup table shrinks when it is used less than this fraction of the load factor
+   private final static int SHRINK_DIVISOR = 4;
+   private final static LongConsumer FREE_MEMORY = UnsafeHolder.UNSAFE::freeMemory;
 
    static int nextPowerOfTwo(int target) {
       int n = target - 1;
@@ -68,44 +106,60 @@ static int nextPowerOfTwo(int target) {
    }
 
    public OffHeapDataContainer(int desiredSize) {
+      this(desiredSize, -1);
+   }
+
+   /**
+    * @param desiredSize the initial amount of memory addresses
+    * @param heapTierSize how many entries to keep a copy of on the heap, the on-heap tier is disabled if not positive
+    */
+   public OffHeapDataContainer(int desiredSize, long heapTierSize) {
+      heapTier = heapTierSize > 0 ? new HeapTier(heapTierSize) : null;
       lockCount = nextPowerOfTwo(Runtime.getRuntime().availableProcessors()) << 1;
       int memoryAddresses = desiredSize >= MAX_LOCK_COUNT ? MAX_LOCK_COUNT : lockCount;
       while (memoryAddresses < desiredSize) {
          memoryAddresses <<= 1;
       }
       memoryAddressCount = memoryAddresses;
-      memoryLookup = new MemoryAddressHash(memoryAddressCount);
+      memoryLookup = new MemoryAddressHash(memoryAddressCount, lockCount);
       // Unfortunately desired size directly correlates to lock size
       locks = new StripedLock(lockCount);
    }
 
    @Inject
    public void inject(PassivationManager passivator, OffHeapEntryFactory offHeapEntryFactory,
-         OffHeapMemoryAllocator allocator, TimeService timeService, InternalEntryFactory internalEntryFactory) {
+         OffHeapMemoryAllocator allocator, TimeService timeService, InternalEntryFactory internalEntryFactory,
+         ExpirationManager<WrappedBytes, WrappedBytes> expirationManager) {
       this.passivator = passivator;
+      this.expirationManager = expirationManager;
       this.internalEntryFactory = internalEntryFactory;
       this.allocator = allocator;
+      this.reclaimer = new MemoryReclaimer(allocator);
       this.offHeapEntryFactory = offHeapEntryFactory;
       this.timeService = timeService;
    }
 
    /**
-    * Clears the memory lookups and cache data.
+    * Clears the memory lookups and cache data.  This runs right before the allocator is stopped, as the allocator may
+    * release all of its memory when stopping.
     */
-   @Stop(priority = Integer.MAX_VALUE)
+   @Stop(priority = Integer.MAX_VALUE - 1)
    public void deallocate() {
       locks.lockAll();
       try {
+         checkDeallocation();
          if (size.get() != 0) {
             log.warn("Container was not cleared before deallocating memory lookup tables!  Memory leak " +
                   "will have occurred!");
          }
-         clear();
-         memoryLookup.deallocate();
+         performClear();
          dellocated = true;
       } finally {
          locks.unlockAll();
       }
+      // Optimistic readers may still be reading the lookup table or retired entries
+      reclaimer.reclaimAll();
+      memoryLookup.deallocate();
    }
 
    static WrappedByteArray toWrapper(Object obj) {
@@ -123,16 +177,93 @@ protected void checkDeallocation() {
 
    @Override
    public InternalCacheEntry<WrappedBytes, WrappedBytes> get(Object k) {
+      if (heapTier != null) {
+         HeapTier.CachedEntry cached = heapTier.get(k);
+         if (cached != null) {
+            return cached.entry;
+         }
+      }
+      StampedLock lock = locks.getStampedLock(k);
+      long stamp = lock.tryOptimisticRead();
+      // Stamp is 0 if a writer currently holds the lock
+      if (stamp != 0) {
+         InternalCacheEntry<WrappedBytes, WrappedBytes> ice;
+         reclaimer.enter();
+         try {
+            checkDeallocation();
+            long address = memoryLookup.getMemoryAddress(k);
+            ice = address == 0 ? null : performGet(address, k);
+         } finally {
+            reclaimer.exit();
+         }
+         if (lock.validate(stamp)) {
+            if (ice != null) {
+               promoteIfAccessedRecently(k);
+            }
+            return ice;
+         }
+      }
+      return lockedGet(k);
+   }
+
+   /**
+    * Same as {@link #get(Object)} except that the read lock is always acquired.  This must be used by implementations
+    * that need {@link #entryRetrieved(long)} to be invoked while holding the read lock.
+    * @param k the key to retrieve
+    * @return the entry or null if not present
+    */
+   protected InternalCacheEntry<WrappedBytes, WrappedBytes> lockedGet(Object k) {
+      InternalCacheEntry<WrappedBytes, WrappedBytes> ice;
       Lock lock = locks.getLock(k).readLock();
       lock.lock();
       try {
          checkDeallocation();
+         if (heapTier != null) {
+            // The copy is invalidated while holding the write lock, so its address is valid while we hold the read lock
+            HeapTier.CachedEntry cached = heapTier.get(k);
+            if (cached != null) {
+               entryRetrieved(cached.address);
+               return cached.entry;
+            }
+         }
          long address = memoryLookup.getMemoryAddress(k);
          if (address == 0) {
             return null;
          }
 
-         return performGet(address, k);
+         ice = performGet(address, k);
+      } finally {
+         lock.unlock();
+      }
+      if (ice != null) {
+         promoteIfAccessedRecently(k);
+      }
+      return ice;
+   }
+
+   /**
+    * Copies the entry for the given key to the on-heap tier if it was also read recently.  This <b>must</b> be invoked
+    * without holding the lock for the key.
+    * @param k the key that was just read from off-heap memory
+    */
+   private void promoteIfAccessedRecently(Object k) {
+      if (heapTier == null || !heapTier.recordAccess(k)) {
+         return;
+      }
+      WrappedBytes wrappedKey = toWrapper(k);
+      Lock lock = locks.getLock(k).readLock();
+      lock.lock();
+      try {
+         checkDeallocation();
+         // The entry may have been replaced or removed since it was read
+         long address = memoryLookup.getMemoryAddress(k);
+         while (address != 0) {
+            if (offHeapEntryFactory.equalsKey(address, wrappedKey)) {
+               heapTier.promote(offHeapEntryFactory.fromMemory(address), address);
+               return;
+            }
+            address = offHeapEntryFactory.getNextLinkedPointerAddress(address);
+         }
       } finally {
          lock.unlock();
       }
@@ -160,15 +291,28 @@ public InternalCacheEntry<WrappedBytes, WrappedBytes> peek(Object k) {
 
    @Override
    public void put(WrappedBytes key, WrappedBytes value, Metadata metadata) {
+      long expiryTime = -1;
+      if (metadata != null && (metadata.lifespan() > -1 || metadata.maxIdle() > -1)) {
+         // Read before the entry is created, so that it doesn't expire before the registered time
+         long now = timeService.wallClockTime();
+         expiryTime = ExpiryHelper.expiryTime(metadata.lifespan(), now, metadata.maxIdle(), now);
+      }
       Lock lock = locks.getLock(key).writeLock();
       lock.lock();
       try {
          checkDeallocation();
          long newAddress = offHeapEntryFactory.create(key, value, metadata);
          performPut(newAddress, key);
+         if (expiryTime > -1) {
+            expirationManager.registerExpiration(key, expiryTime);
+         } else {
+            // The previous entry may have been registered
+            expirationManager.unregisterExpiration(key);
+         }
       } finally {
          lock.unlock();
       }
+      checkResize();
    }
 
    /**
@@ -178,6 +322,11 @@ public void put(WrappedBytes key, WrappedBytes value, Metadata metadata) {
     * @param key the key of the entry
     */
    protected void performPut(long newAddress, WrappedBytes key) {
+      if (heapTier != null) {
+         heapTier.invalidate(key);
+      }
+      // The entry contents must be visible before the entry is reachable by optimistic readers
+      UnsafeHolder.UNSAFE.storeFence();
       long address = memoryLookup.getMemoryAddress(key);
       boolean shouldCreate = false;
       // Have to start new linked node list
@@ -186,18 +335,17 @@ protected void performPut(long newAddress, WrappedBytes key) {
          entryCreated(newAddress);
          size.incrementAndGet();
       } else {
-         // Whether the key was found or not - short circuit equality checks
-         boolean foundKey = false;
+         // Address of the entry we replaced if the key was found - short circuit equality checks
+         long replacedAddress = 0;
          // Holds the previous linked list address
          long prevAddress = 0;
          // Keep looping until we get the tail end - we always append the put to the end
          while (address != 0) {
             long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
-            if (!foundKey) {
+            if (replacedAddress == 0) {
                if (offHeapEntryFactory.equalsKey(address, key)) {
                   entryReplaced(newAddress, address);
-                  allocator.deallocate(address);
-                  foundKey = true;
+                  replacedAddress = address;
                   // If this is true it means this was the first node in the linked list
                   if (prevAddress == 0) {
                      if (nextAddress == 0) {
@@ -210,7 +358,7 @@ protected void performPut(long newAddress, WrappedBytes key) {
                   } else {
                      // This branch means our node was not the first, so we have to update the address before ours
                      // to the one we previously referenced
-                     UNSAFE.putLong(prevAddress, nextAddress);
+                     offHeapEntryFactory.updateNextLinkedPointerAddress(prevAddress, nextAddress);
                      // We purposely don't update prevAddress, because we have to keep it as the current pointer
                      // since we removed ours
                      address = nextAddress;
@@ -222,7 +370,7 @@ protected void performPut(long newAddress, WrappedBytes key) {
             address = nextAddress;
          }
          // If we didn't find the key previous, it means we are a new entry
-         if (!foundKey) {
+         if (replacedAddress == 0) {
             entryCreated(newAddress);
             size.incrementAndGet();
          }
@@ -232,6 +380,10 @@ protected void performPut(long newAddress, WrappedBytes key) {
             // Now prevAddress should be the last link so we fix our link
             offHeapEntryFactory.updateNextLinkedPointerAddress(prevAddress, newAddress);
          }
+         // The replaced entry can only be freed after it was unlinked
+         if (replacedAddress != 0) {
+            reclaimer.retire(replacedAddress);
+         }
       }
    }
 
@@ -246,7 +398,7 @@ protected void entryCreated(long newAddress) {
 
    /**
     * Invoked when an entry is about to be replaced with a new one.  The old and new address are both addressable,
-    * however oldAddress may be freed after this method returns.  The write lock will already be acquired for the given
+    * however oldAddress may be freed at any point after this method returns.  The write lock will already be acquired for the given
     * segment the key mapped to.
     * @param newAddress the address just created that will be the new entry
     * @param oldAddress the old address for this entry that will be soon removed
@@ -266,27 +418,45 @@ protected void entryRemoved(long removedAddress) {
 
    @Override
    public boolean containsKey(Object k) {
-      Lock lock = locks.getLock(k).readLock();
-      lock.lock();
+      StampedLock lock = locks.getStampedLock(k);
+      long stamp = lock.tryOptimisticRead();
+      if (stamp != 0) {
+         boolean contains;
+         reclaimer.enter();
+         try {
+            checkDeallocation();
+            contains = performContainsKey(memoryLookup.getMemoryAddress(k), k);
+         } finally {
+            reclaimer.exit();
+         }
+         if (lock.validate(stamp)) {
+            return contains;
+         }
+      }
+      Lock readLock = lock.asReadLock();
+      readLock.lock();
       try {
          checkDeallocation();
-         long address = memoryLookup.getMemoryAddress(k);
-         if (address == 0) {
-            return false;
-         }
-         WrappedByteArray wba = toWrapper(k);
+         return performContainsKey(memoryLookup.getMemoryAddress(k), k);
+      } finally {
+         readLock.unlock();
+      }
+   }
 
-         while (address != 0) {
-            long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
-            if (offHeapEntryFactory.equalsKey(address, wba)) {
-               return true;
-            }
-            address = nextAddress;
-         }
+   private boolean performContainsKey(long address, Object k) {
+      if (address == 0) {
          return false;
-      } finally {
-         lock.unlock();
       }
+      WrappedByteArray wba = toWrapper(k);
+
+      while (address != 0) {
+         long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
+         if (offHeapEntryFactory.equalsKey(address, wba)) {
+            return true;
+         }
+         address = nextAddress;
+      }
+      return false;
    }
 
    /**
@@ -300,6 +470,7 @@ protected void entryRetrieved(long entryAddress) {
 
    @Override
    public InternalCacheEntry<WrappedBytes, WrappedBytes> remove(Object key) {
+      InternalCacheEntry<WrappedBytes, WrappedBytes> ice;
       Lock lock = locks.getLock(key).writeLock();
       lock.lock();
       try {
@@ -308,10 +479,12 @@ public InternalCacheEntry<WrappedBytes, WrappedBytes> remove(Object key) {
          if (address == 0) {
             return null;
          }
-         return performRemove(address, key);
+         ice = performRemove(address, key);
       } finally {
          lock.unlock();
       }
+      checkResize();
+      return ice;
    }
 
    /**
@@ -328,14 +501,20 @@ protected InternalCacheEntry<WrappedBytes, WrappedBytes> performRemove(long addr
          long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
          InternalCacheEntry<WrappedBytes, WrappedBytes> ice = offHeapEntryFactory.fromMemory(address);
          if (ice.getKey().equals(wba)) {
+            if (heapTier != null) {
+               heapTier.invalidate(key);
+            }
+            if (ice.canExpire()) {
+               expirationManager.unregisterExpiration(ice.getKey());
+            }
             entryRemoved(address);
-            // Free the node
-            allocator.deallocate(address);
             if (prevAddress != 0) {
-               UNSAFE.putLong(prevAddress, nextAddress);
+               offHeapEntryFactory.updateNextLinkedPointerAddress(prevAddress, nextAddress);
             } else {
                memoryLookup.putMemoryAddress(key, nextAddress);
             }
+            // Free the node once no optimistic reader can see it
+            reclaimer.retire(address);
             size.decrementAndGet();
             return ice;
          }
@@ -373,16 +552,21 @@ public void clear() {
       } finally {
          locks.unlockAll();
       }
+      reclaimer.reclaim();
+      checkResize();
    }
 
    protected void performClear() {
       if (trace) {
          log.trace("Clearing off heap data");
       }
+      if (heapTier != null) {
+         heapTier.invalidateAll();
+      }
       memoryLookup.toStreamRemoved().forEach(address -> {
          while (address != 0) {
             long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
-            allocator.deallocate(address);
+            reclaimer.retire(address);
             address = nextAddress;
          }
       });
@@ -491,33 +675,164 @@ public void evict(WrappedBytes key) {
       lock.lock();
       try {
          checkDeallocation();
-         // TODO: this could be more efficient
-         passivator.passivate(get(key));
-         remove(key);
+         long address = memoryLookup.getMemoryAddress(key);
+         if (address != 0) {
+            // TODO: this could be more efficient
+            passivator.passivate(performGet(address, key));
+            performRemove(address, key);
+         }
       } finally {
          lock.unlock();
       }
+      checkResize();
    }
 
    @Override
    public InternalCacheEntry<WrappedBytes, WrappedBytes> compute(WrappedBytes key,
          ComputeAction<WrappedBytes, WrappedBytes> action) {
+      InternalCacheEntry<WrappedBytes, WrappedBytes> result;
       Lock lock = locks.getLock(key).writeLock();
       lock.lock();
       try {
          checkDeallocation();
-         InternalCacheEntry<WrappedBytes, WrappedBytes> prev = get(key);
-         InternalCacheEntry<WrappedBytes, WrappedBytes> result = action.compute(key, prev, internalEntryFactory);
+         // The lock is not reentrant so we can't use get or remove here
+         long address = memoryLookup.getMemoryAddress(key);
+         InternalCacheEntry<WrappedBytes, WrappedBytes> prev = address == 0 ? null : performGet(address, key);
+         result = action.compute(key, prev, internalEntryFactory);
          if (result != null) {
             long newAddress = offHeapEntryFactory.create(key, result.getValue(), result.getMetadata());
             performPut(newAddress, key);
-         } else {
-            remove(key);
+            if (result.canExpire()) {
+               expirationManager.registerExpiration(key, result.getExpiryTime());
+            } else if (prev != null && prev.canExpire()) {
+               expirationManager.unregisterExpiration(key);
+            }
+         } else if (address != 0) {
+            performRemove(address, key);
          }
-         return result;
       } finally {
          lock.unlock();
       }
+      checkResize();
+      return result;
+   }
+
+   /**
+    * Grows or shrinks the memory lookup table if the amount of entries is no longer within the load factor.  This
+    * <b>must</b> be invoked without holding any lock, as the buckets are moved one lock stripe at a time.  Does nothing
+    * if another thread is already resizing the table.
+    */
+   protected void checkResize() {
+      int pointerCount = memoryLookup.getPointerCount();
+      long currentSize = size.get();
+      int newCount = pointerCount;
+      while (newCount < MAX_ADDRESS_COUNT &&
+            currentSize * LOAD_FACTOR_DENOMINATOR > (long) newCount * LOAD_FACTOR_NUMERATOR) {
+         newCount <<= 1;
+      }
+      if (newCount == pointerCount) {
+         while (newCount > memoryAddressCount &&
+               currentSize * LOAD_FACTOR_DENOMINATOR * SHRINK_DIVISOR < (long) newCount * LOAD_FACTOR_NUMERATOR) {
+            newCount >>>= 1;
+         }
+      }
+      if (newCount != pointerCount && resizing.compareAndSet(false, true)) {
+         try {
+            // Another thread may have completed a resize since we read the pointer count
+            if (memoryLookup.getPointerCount() == pointerCount) {
+               resize(newCount);
+            }
+         } finally {
+            resizing.set(false);
+         }
+      }
+   }
+
+   private void resize(int pointerCount) {
+      if (trace) {
+         log.tracef("Resizing off heap memory lookup from %d to %d addresses with %d entries",
+               memoryLookup.getPointerCount(), pointerCount, size.get());
+      }
+      for (int i = 0; i < lockCount; ++i) {
+         Lock lock = locks.getLockWithOffset(i).writeLock();
+         lock.lock();
+         try {
+            if (dellocated) {
+               // The lookup table was already freed
+               return;
+            }
+            if (i == 0) {
+               memoryLookup.startResize(pointerCount);
+            }
+            if (memoryLookup.migrateStripe(i, offHeapEntryFactory)) {
+               // Optimistic readers may still be reading the old table
+               reclaimer.retire(memoryLookup.completeResize(), FREE_MEMORY);
+            }
+         } finally {
+            lock.unlock();
+         }
+      }
+      resizeCount.incrementAndGet();
+      if (trace) {
+         log.tracef("Resized off heap memory lookup to %d addresses", pointerCount);
+      }
+   }
+
+   @ManagedAttribute(description = "Number of addresses in the off-heap memory lookup table",
+         displayName = "Memory address count")
+   public int getMemoryAddressCount() {
+      return memoryLookup.getPointerCount();
+   }
+
+   @ManagedAttribute(description = "Number of times the off-heap memory lookup table was resized",
+         displayName = "Memory lookup resizes")
+   public long getResizeCount() {
+      return resizeCount.get();
+   }
+
+   @ManagedAttribute(description = "Number of entries with a copy in the on-heap tier, 0 if it is disabled",
+         displayName = "On-heap tier entries")
+   public long getHeapTierEntries() {
+      return heapTier == null ? 0 : heapTier.size();
+   }
+
+   @ManagedAttribute(description = "Number of reads served from the on-heap tier",
+         displayName = "On-heap tier hits")
+   public long getHeapTierHits() {
+      return heapTier == null ? 0 : heapTier.hitCount();
+   }
+
+   @ManagedAttribute(description = "Number of entries copied to the on-heap tier after being read repeatedly",
+         displayName = "On-heap tier promotions")
+   public long getHeapTierPromotions() {
+      return heapTier == null ? 0 : heapTier.promotionCount();
+   }
+
+   @ManagedAttribute(description = "Average number of entries stored per used memory address",
+         displayName = "Average chain length")
+   public double getAverageChainLength() {
+      long entries = 0;
+      long usedAddresses = 0;
+      for (int i = 0; i < lockCount; ++i) {
+         Lock lock = locks.getLockWithOffset(i).readLock();
+         lock.lock();
+         try {
+            checkDeallocation();
+            int pointerCount = memoryLookup.getPointerCount(i);
+            for (int j = i; j < pointerCount; j += lockCount) {
+               long address = memoryLookup.getMemoryAddressOffset(i, j);
+               if (address != 0) {
+                  usedAddresses++;
+                  do {
+                     entries++;
+                  } while ((address = offHeapEntryFactory.getNextLinkedPointerAddress(address)) != 0);
+               }
+            }
+         } finally {
+            lock.unlock();
+         }
+      }
+      return usedAddresses == 0 ? 0 : (double) entries / usedAddresses;
    }
 
    private void executeTask(Consumer<InternalCacheEntry<WrappedBytes, WrappedBytes>> consumer) {
@@ -526,8 +841,9 @@ private void executeTask(Consumer<InternalCacheEntry<WrappedBytes, WrappedBytes>
          lock.lock();
          try {
             checkDeallocation();
-            for (int j = i; j < memoryAddressCount; j += lockCount) {
-               long address = memoryLookup.getMemoryAddressOffset(j);
+            int pointerCount = memoryLookup.getPointerCount(i);
+            for (int j = i; j < pointerCount; j += lockCount) {
+               long address = memoryLookup.getMemoryAddressOffset(i, j);
                while (address != 0) {
                   long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
                   InternalCacheEntry<WrappedBytes, WrappedBytes> ice = offHeapEntryFactory.fromMemory(address);
@@ -562,32 +878,22 @@ public void executeTask(KeyValueFilter<? super WrappedBytes, ? super WrappedByte
    }
 
    private Stream<InternalCacheEntry<WrappedBytes, WrappedBytes>> entryStream() {
-      int limit = memoryAddressCount / lockCount;
       return IntStream.range(0, lockCount)
             // REALLY REALLY stupid there is no flatMapToObj on IntStream...
             .boxed()
             .flatMap(l -> {
                int value = l;
-               return LongStream.iterate(value, i -> i + lockCount).limit(limit)
+               // The lookup table may be resized while we iterate, so the addresses are always relative to the
+               // amount of addresses the stripe had when we started iterating it
+               int pointerCount = memoryLookup.getPointerCount(value);
+               return LongStream.iterate(value, i -> i + lockCount).limit(pointerCount / lockCount)
                      .boxed()
                      .flatMap(a -> {
                      Lock lock = locks.getLockWithOffset(value).readLock();
                      lock.lock();
                      try {
                         checkDeallocation();
-                        long address = memoryLookup.getMemoryAddressOffset(a.intValue());
-                        if (address == 0) {
-                           return Stream.empty();
-                        }
-                        Stream.Builder<InternalCacheEntry<WrappedBytes, WrappedBytes>> builder = Stream.builder();
-                        while (address != 0) {
-                           long nextAddress;
-                           do {
-                              nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
-                              builder.accept(offHeapEntryFactory.fromMemory(address));
-                           } while ((address = nextAddress) != 0);
-                        }
-                        return builder.build();
+                        return addressEntries(value, a.intValue(), pointerCount);
                      } finally {
                         lock.unlock();
                      }
@@ -595,6 +901,46 @@ private Stream<InternalCacheEntry<WrappedBytes, WrappedBytes>> entryStream() {
             });
    }
 
+   /**
+    * Returns all of the entries that mapped to the given address offset when the stripe had the given amount of
+    * addresses.  The read lock for the stripe <b>must</b> be held.
+    * @param stripe the lock stripe the offset belongs to
+    * @param offset the address offset when there were pointerCount addresses
+    * @param pointerCount the amount of addresses the offset is relative to
+    * @return stream of the entries
+    */
+   private Stream<InternalCacheEntry<WrappedBytes, WrappedBytes>> addressEntries(int stripe, int offset,
+         int pointerCount) {
+      int currentCount = memoryLookup.getPointerCount(stripe);
+      if (currentCount == pointerCount && memoryLookup.getMemoryAddressOffset(stripe, offset) == 0) {
+         return Stream.empty();
+      }
+      Stream.Builder<InternalCacheEntry<WrappedBytes, WrappedBytes>> builder = Stream.builder();
+      if (currentCount >= pointerCount) {
+         // The address was split into multiple ones since, which only contain entries that mapped to our offset
+         for (int i = offset; i < currentCount; i += pointerCount) {
+            long address = memoryLookup.getMemoryAddressOffset(stripe, i);
+            while (address != 0) {
+               long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
+               builder.accept(offHeapEntryFactory.fromMemory(address));
+               address = nextAddress;
+            }
+         }
+      } else {
+         // The address was merged with others, so only return the entries that mapped to our offset
+         long address = memoryLookup.getMemoryAddressOffset(stripe, offset & (currentCount - 1));
+         while (address != 0) {
+            long nextAddress = offHeapEntryFactory.getNextLinkedPointerAddress(address);
+            int hashCode = offHeapEntryFactory.getHashCodeForAddress(address);
+            if ((MemoryAddressHash.spread(hashCode) & (pointerCount - 1)) == offset) {
+               builder.accept(offHeapEntryFactory.fromMemory(address));
+            }
+            address = nextAddress;
+         }
+      }
+      return builder.build();
+   }
+
    @Override
    public Iterator<InternalCacheEntry<WrappedBytes, WrappedBytes>> iterator() {
       long time = timeService.time();
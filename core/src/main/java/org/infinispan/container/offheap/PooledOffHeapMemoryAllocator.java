@@ -0,0 +1,334 @@
+package org.infinispan.container.offheap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongUnaryOperator;
+
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import sun.misc.Unsafe;
+
+/**
+ * Memory allocator that pools native memory instead of allocating and freeing it for every entry.
+ * <p>
+ * Memory is reserved in large arenas which are carved into slabs, where each slab is split into blocks of a single
+ * size class.  Freed blocks are kept on a free list for their size class and are reused by later allocations of the
+ * same class, so that entry churn does not fragment the native heap.  Every thread keeps a small cache of blocks per
+ * size class so most allocations and deallocations don't need to acquire the lock of the size class.  Requests larger
+ * than the biggest size class are allocated directly.
+ * <p>
+ * The first arena holds a single slab and every new arena is twice as large as the previous one, up to
+ * {@link #MAX_ARENA_SIZE}, so a cache with few entries doesn't reserve much more memory than it uses.  Memory in the
+ * arenas is only returned when this allocator is stopped.  Every cache using this allocator has its own arenas.
+ * @since 9.0
+ */
+@MBean(objectName = "OffHeapMemoryAllocator", description = "Pooled allocator of native memory used for off-heap storage")
+public class PooledOffHeapMemoryAllocator implements OffHeapMemoryAllocator {
+   private static final Unsafe UNSAFE = UnsafeHolder.UNSAFE;
+   private static final Log log = LogFactory.getLog(PooledOffHeapMemoryAllocator.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   static final int SLAB_SIZE = 64 * 1024;
+   static final int MAX_ARENA_SIZE = 4 * 1024 * 1024;
+   // Size classes are 16 bytes apart up to this size and then 4 classes per power of two
+   private static final int SMALL_SIZE = 256;
+   private static final int SMALL_CLASSES = SMALL_SIZE >> 4;
+   static final int MAX_POOLED_SIZE = 16 * 1024;
+   private static final int THREAD_CACHE_SIZE = 32;
+
+   private final SizeClass[] sizeClasses;
+   private final LongAdder inUse = new LongAdder();
+   private final AtomicLong reserved = new AtomicLong();
+   private final Queue<ThreadCache> threadCaches = new ConcurrentLinkedQueue<>();
+   private final ThreadLocal<ThreadCache> threadCache = ThreadLocal.withInitial(this::registerThreadCache);
+
+   // The following are guarded by arenaLock
+   private final Object arenaLock = new Object();
+   private final List<Long> arenas = new ArrayList<>();
+   private long arenaPosition;
+   private long arenaLimit;
+   private long arenaBytes;
+   private int nextArenaSize = SLAB_SIZE;
+
+   private LongUnaryOperator sizeCalculator;
+
+   public PooledOffHeapMemoryAllocator() {
+      sizeClasses = new SizeClass[sizeClassIndex(MAX_POOLED_SIZE) + 1];
+      for (int i = 0; i < sizeClasses.length; ++i) {
+         sizeClasses[i] = new SizeClass(blockSize(i));
+      }
+   }
+
+   @Inject
+   public void inject(OffHeapEntryFactory offHeapEntryFactory) {
+      sizeCalculator = offHeapEntryFactory::determineSize;
+   }
+
+   /**
+    * Returns all of the native memory reserved by this allocator.  Any address handed out by this allocator can no
+    * longer be used after this is invoked.  This runs after the data containers released their entries.
+    */
+   @Stop(priority = Integer.MAX_VALUE)
+   public void stop() {
+      synchronized (arenaLock) {
+         if (inUse.sum() != 0) {
+            log.debugf("Releasing off heap arenas while %d bytes are still in use", inUse.sum());
+         }
+         for (long arena : arenas) {
+            UNSAFE.freeMemory(arena);
+         }
+         reserved.addAndGet(-arenaBytes);
+         arenas.clear();
+         arenaPosition = 0;
+         arenaLimit = 0;
+         arenaBytes = 0;
+         nextArenaSize = SLAB_SIZE;
+      }
+      for (SizeClass sizeClass : sizeClasses) {
+         synchronized (sizeClass) {
+            sizeClass.freeList = 0;
+         }
+      }
+      threadCaches.clear();
+   }
+
+   static int sizeClassIndex(long size) {
+      if (size <= SMALL_SIZE) {
+         return (int) ((size + 15) >>> 4) - 1;
+      }
+      int log2 = 63 - Long.numberOfLeadingZeros(size - 1);
+      int quarter = (int) ((size - 1) >>> (log2 - 2)) & 3;
+      return SMALL_CLASSES + ((log2 - 8) << 2) + quarter;
+   }
+
+   static int blockSize(int sizeClassIndex) {
+      if (sizeClassIndex < SMALL_CLASSES) {
+         return (sizeClassIndex + 1) << 4;
+      }
+      int group = (sizeClassIndex - SMALL_CLASSES) >>> 2;
+      int quarter = (sizeClassIndex - SMALL_CLASSES) & 3;
+      return (SMALL_SIZE << group) + ((quarter + 1) << (6 + group));
+   }
+
+   @Override
+   public long allocate(long memoryLength) {
+      if (memoryLength > MAX_POOLED_SIZE) {
+         long memoryLocation = UNSAFE.allocateMemory(memoryLength);
+         reserved.addAndGet(memoryLength);
+         inUse.add(memoryLength);
+         if (trace) {
+            log.tracef("Allocated unpooled off heap memory at %d with %d bytes", memoryLocation, memoryLength);
+         }
+         return memoryLocation;
+      }
+      int index = sizeClassIndex(memoryLength);
+      ThreadCache cache = threadCache.get();
+      long[] blocks = cache.blocks(index);
+      int count = cache.counts[index];
+      if (count == 0) {
+         count = refill(sizeClasses[index], blocks);
+      }
+      long memoryLocation = blocks[--count];
+      cache.counts[index] = count;
+      inUse.add(sizeClasses[index].blockSize);
+      if (trace) {
+         log.tracef("Allocated off heap memory at %d with %d bytes using block of %d bytes", memoryLocation,
+               memoryLength, sizeClasses[index].blockSize);
+      }
+      return memoryLocation;
+   }
+
+   @Override
+   public void deallocate(long memoryAddress) {
+      deallocate(memoryAddress, sizeCalculator.applyAsLong(memoryAddress));
+   }
+
+   @Override
+   public void deallocate(long memoryAddress, long size) {
+      if (size > MAX_POOLED_SIZE) {
+         if (trace) {
+            log.tracef("Deallocating unpooled off heap memory at %d with %d bytes", memoryAddress, size);
+         }
+         inUse.add(-size);
+         reserved.addAndGet(-size);
+         UNSAFE.freeMemory(memoryAddress);
+         return;
+      }
+      int index = sizeClassIndex(size);
+      if (trace) {
+         log.tracef("Deallocating off heap memory at %d with %d bytes", memoryAddress, size);
+      }
+      inUse.add(-sizeClasses[index].blockSize);
+      ThreadCache cache = threadCache.get();
+      long[] blocks = cache.blocks(index);
+      int count = cache.counts[index];
+      if (count == blocks.length) {
+         // Give half of our blocks back so other threads can use them
+         count >>= 1;
+         release(sizeClasses[index], blocks, count, blocks.length - count);
+      }
+      blocks[count++] = memoryAddress;
+      cache.counts[index] = count;
+   }
+
+   @Override
+   public long getAllocatedAmount() {
+      return getInUseBytes();
+   }
+
+   @ManagedAttribute(description = "Amount of native memory in bytes currently handed out for entries",
+         displayName = "Off-heap memory in use")
+   public long getInUseBytes() {
+      return inUse.sum();
+   }
+
+   @ManagedAttribute(description = "Amount of native memory in bytes reserved from the operating system, including " +
+         "free pooled memory", displayName = "Off-heap memory reserved")
+   public long getReservedBytes() {
+      return reserved.get();
+   }
+
+   @ManagedAttribute(description = "Number of arenas currently reserved", displayName = "Off-heap arenas",
+         dataType = DataType.TRAIT)
+   public int getArenaCount() {
+      synchronized (arenaLock) {
+         return arenas.size();
+      }
+   }
+
+   /**
+    * Fills the given thread cache blocks with half of its capacity from the central free list of the size class.
+    * @return how many blocks were added
+    */
+   private int refill(SizeClass sizeClass, long[] blocks) {
+      if (sizeClass.freeList == 0) {
+         releaseDeadThreadCaches();
+      }
+      int wanted = blocks.length >> 1;
+      synchronized (sizeClass) {
+         for (int i = 0; i < wanted; ++i) {
+            if (sizeClass.freeList == 0) {
+               carveSlab(sizeClass);
+            }
+            long block = sizeClass.freeList;
+            sizeClass.freeList = UNSAFE.getLong(block);
+            blocks[i] = block;
+         }
+      }
+      return wanted;
+   }
+
+   /**
+    * Puts the given blocks back on the central free list of the size class.  Must not be invoked while holding the
+    * lock of another size class.
+    */
+   private void release(SizeClass sizeClass, long[] blocks, int offset, int count) {
+      synchronized (sizeClass) {
+         for (int i = offset; i < offset + count; ++i) {
+            UNSAFE.putLong(blocks[i], sizeClass.freeList);
+            sizeClass.freeList = blocks[i];
+         }
+      }
+   }
+
+   /**
+    * Splits a new slab into blocks for the given size class, adding them to its free list.  Must be invoked while
+    * holding the lock of the size class.
+    */
+   private void carveSlab(SizeClass sizeClass) {
+      long slab = reserveSlab();
+      int blockSize = sizeClass.blockSize;
+      for (long block = slab + SLAB_SIZE - blockSize; block >= slab; block -= blockSize) {
+         UNSAFE.putLong(block, sizeClass.freeList);
+         sizeClass.freeList = block;
+      }
+   }
+
+   private long reserveSlab() {
+      synchronized (arenaLock) {
+         if (arenaPosition + SLAB_SIZE > arenaLimit) {
+            int arenaSize = nextArenaSize;
+            long arena = UNSAFE.allocateMemory(arenaSize);
+            arenas.add(arena);
+            arenaBytes += arenaSize;
+            reserved.addAndGet(arenaSize);
+            arenaPosition = arena;
+            arenaLimit = arena + arenaSize;
+            nextArenaSize = Math.min(arenaSize * 2, MAX_ARENA_SIZE);
+            if (trace) {
+               log.tracef("Reserved off heap arena at %d, total arenas %d", arena, arenas.size());
+            }
+         }
+         long slab = arenaPosition;
+         arenaPosition += SLAB_SIZE;
+         return slab;
+      }
+   }
+
+   private ThreadCache registerThreadCache() {
+      ThreadCache cache = new ThreadCache(Thread.currentThread(), sizeClasses.length);
+      threadCaches.add(cache);
+      return cache;
+   }
+
+   /**
+    * Blocks cached by threads that are no longer alive would otherwise never be reused, so give them back to the
+    * central free lists.
+    */
+   private void releaseDeadThreadCaches() {
+      for (Iterator<ThreadCache> iter = threadCaches.iterator(); iter.hasNext(); ) {
+         ThreadCache cache = iter.next();
+         // Only the thread that manages to remove the cache can release its blocks
+         if (!cache.owner.isAlive() && threadCaches.remove(cache)) {
+            for (int i = 0; i < sizeClasses.length; ++i) {
+               if (cache.counts[i] > 0) {
+                  release(sizeClasses[i], cache.blocks[i], 0, cache.counts[i]);
+                  cache.counts[i] = 0;
+               }
+            }
+         }
+      }
+   }
+
+   private static class SizeClass {
+      private final int blockSize;
+      // Head of the free blocks, each free block holds the address of the next one in its first 8 bytes
+      private long freeList;
+
+      SizeClass(int blockSize) {
+         this.blockSize = blockSize;
+      }
+   }
+
+   private static class ThreadCache {
+      private final Thread owner;
+      private final long[][] blocks;
+      private final int[] counts;
+
+      ThreadCache(Thread owner, int sizeClassCount) {
+         this.owner = owner;
+         this.blocks = new long[sizeClassCount][];
+         this.counts = new int[sizeClassCount];
+      }
+
+      long[] blocks(int index) {
+         long[] array = blocks[index];
+         if (array == null) {
+            array = new long[THREAD_CACHE_SIZE];
+            blocks[index] = array;
+         }
+         return array;
+      }
+   }
+}
@@ -0,0 +1,84 @@
+package org.infinispan.container.offheap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+/**
+ * Lossy buffer of non zero longs, used to record which entries were read so that the eviction policy can be updated in
+ * batches while holding its lock instead of acquiring it on every read.  The buffer is striped by thread to reduce
+ * contention between readers.  Values are dropped when a stripe is full or when another thread is adding to the same
+ * stripe at the same time, which only affects the precision of the eviction policy.
+ * @since 9.0
+ */
+class ReadBuffer {
+   static final int STRIPE_SIZE = 16;
+   private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+   private final Stripe[] stripes;
+
+   ReadBuffer() {
+      stripes = new Stripe[OffHeapDataContainer.nextPowerOfTwo(Runtime.getRuntime().availableProcessors())];
+      for (int i = 0; i < stripes.length; ++i) {
+         stripes[i] = new Stripe();
+      }
+   }
+
+   /**
+    * Records the given value if there is room for it.
+    * @param value the value to record, must not be 0
+    * @return true if the stripe the value was recorded to is now full and should be drained
+    */
+   boolean offer(long value) {
+      Stripe stripe = stripes[stripeIndex()];
+      long tail = stripe.writeCounter.get();
+      long size = tail - stripe.readCounter;
+      if (size >= STRIPE_SIZE) {
+         return true;
+      }
+      if (stripe.writeCounter.compareAndSet(tail, tail + 1)) {
+         stripe.buffer.lazySet((int) tail & STRIPE_MASK, value);
+         return size + 1 >= STRIPE_SIZE;
+      }
+      return false;
+   }
+
+   /**
+    * Passes all of the recorded values to the consumer.  Only one thread may drain the buffer at a time.
+    * @param consumer the consumer to pass the values to
+    * @return true if every value that was recorded before this method was invoked was drained
+    */
+   boolean drainTo(LongConsumer consumer) {
+      boolean drained = true;
+      for (Stripe stripe : stripes) {
+         long head = stripe.readCounter;
+         long tail = stripe.writeCounter.get();
+         for (; head != tail; ++head) {
+            int index = (int) head & STRIPE_MASK;
+            long value = stripe.buffer.get(index);
+            if (value == 0) {
+               // The writer reserved the slot but didn't write the value yet
+               drained = false;
+               break;
+            }
+            stripe.buffer.lazySet(index, 0);
+            consumer.accept(value);
+         }
+         stripe.readCounter = head;
+      }
+      return drained;
+   }
+
+   private int stripeIndex() {
+      long id = Thread.currentThread().getId();
+      int h = (int) (id ^ (id >>> 32)) * 0x9e3779b9;
+      return (h ^ (h >>> 16)) & (stripes.length - 1);
+   }
+
+   private static class Stripe {
+      private final AtomicLongArray buffer = new AtomicLongArray(STRIPE_SIZE);
+      private final AtomicLong writeCounter = new AtomicLong();
+      // Only written by the thread draining the buffer
+      private volatile long readCounter;
+   }
+}
@@ -1,10 +1,12 @@
 package org.infinispan.container.offheap;
 
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
 /**
- * Holder for read write locks that provides ability to retrieve them by offset and hashCode
+ * Holder for read write locks that provides ability to retrieve them by offset and hashCode.  The locks are backed by
+ * {@link StampedLock} instances so that readers can also use optimistic reads.  Note that the locks are <b>not</b>
+ * reentrant.
  * @author wburns
  * @since 9.0
  */
@@ -12,16 +14,16 @@ public class StripedLock {
    private static final int MAXIMUM_CAPACITY = 1 << 30;
    private static final int HASH_BITS = 0x7fffffff; // usable bits of normal node hash
 
-   private final ReadWriteLock[] locks;
+   private final StampedLock[] locks;
 
    public StripedLock() {
       this(Runtime.getRuntime().availableProcessors() * 2);
    }
 
    public StripedLock(int lockCount) {
-      locks = new ReadWriteLock[tableSizeFor(lockCount)];
+      locks = new StampedLock[tableSizeFor(lockCount)];
       for (int i = 0; i< locks.length; ++i) {
-         locks[i] = new ReentrantReadWriteLock();
+         locks[i] = new StampedLock();
       }
    }
 
@@ -40,6 +42,20 @@ public ReadWriteLock getLock(Object obj) {
     * @return the lock associated with the given hashCode
     */
    public ReadWriteLock getLockFromHashCode(int hashCode) {
+      return getStampedLockFromHashCode(hashCode).asReadWriteLock();
+   }
+
+   /**
+    * Retrieves the stamped lock attributed to the given object using its hashCode for lookup.  This is the same lock
+    * returned from {@link StripedLock#getLock(Object)}, which can be used to perform optimistic reads.
+    * @param obj the object to use to find the lock
+    * @return the stamped lock associated with the object
+    */
+   public StampedLock getStampedLock(Object obj) {
+      return getStampedLockFromHashCode(obj.hashCode());
+   }
+
+   private StampedLock getStampedLockFromHashCode(int hashCode) {
       int h = spread(hashCode);
       int offset = h & (locks.length - 1);
       return locks[offset];
@@ -55,7 +71,7 @@ public ReadWriteLock getLockWithOffset(int offset) {
       if (offset >= locks.length) {
          throw new ArrayIndexOutOfBoundsException();
       }
-      return locks[offset];
+      return locks[offset].asReadWriteLock();
    }
 
    /**
@@ -63,7 +79,7 @@ public ReadWriteLock getLockWithOffset(int offset) {
     */
    public void lockAll() {
       for (int i = 0; i < locks.length; ++i) {
-         locks[i].writeLock().lock();
+         locks[i].asWriteLock().lock();
       }
    }
 
@@ -72,7 +88,7 @@ public void lockAll() {
     */
    void unlockAll() {
       for (int i = 0; i < locks.length; ++i) {
-         locks[i].writeLock().unlock();
+         locks[i].asWriteLock().unlock();
       }
    }
 
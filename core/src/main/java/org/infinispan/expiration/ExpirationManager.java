@@ -60,6 +60,27 @@
     */
    void handleInStoreExpiration(MarshalledEntry<K, V> marshalledEntry);
 
+   /**
+    * This should be invoked by the data container whenever it stores an entry that can expire, so that the expiration
+    * reaper only has to visit the entries that are due to expire instead of all of the entries.  The time doesn't have
+    * to be updated when an entry is read, as the reaper checks the actual expiration time of the entry before
+    * expiring it.  The container must hold the lock of the key, so that the registrations of a key are ordered like
+    * its writes.  Does nothing unless the expiry index is enabled, see
+    * {@link org.infinispan.configuration.cache.ExpirationConfigurationBuilder#expiryIndex(boolean)}.
+    * @param key the key of the entry
+    * @param expiryTime the time the entry expires at if it isn't read before, in milliseconds
+    */
+   default void registerExpiration(K key, long expiryTime) {
+   }
+
+   /**
+    * This should be invoked by the data container, while holding the lock of the key, whenever it removes an entry
+    * that can expire or replaces it with an entry that can't expire.
+    * @param key the key of the entry
+    */
+   default void unregisterExpiration(K key) {
+   }
+
    /**
     * This is to be invoked with a when a write is known to occur to prevent expiration from happening.  This way we
     * won't have a swarm of remote calls required.
@@ -2,9 +2,13 @@
 
 import static org.infinispan.commons.util.Util.toStr;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
 
 import javax.transaction.HeuristicMixedException;
 import javax.transaction.HeuristicRollbackException;
@@ -16,16 +20,22 @@
 import javax.transaction.TransactionManager;
 
 import org.infinispan.AdvancedCache;
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.remote.RemoveExpiredBatchCommand;
 import org.infinispan.commons.CacheException;
-import org.infinispan.commons.util.Util;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.entries.ExpiryHelper;
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.DistributionInfo;
 import org.infinispan.factories.KnownComponentNames;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
+import org.infinispan.interceptors.locking.ClusteringDependentLogic;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.metadata.InternalMetadata;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.concurrent.CompletableFutures;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -42,6 +52,9 @@
  * Cache stores however do not supply the value or metadata information which means if an entry is purged from the cache
  * store that it will forcibly remove the value even if a concurrent write updated it just before.  This will be
  * addressed by future SPI changes to the cache store.
+ * <p>
+ * The reaper groups the entries whose lifespan expired by primary owner and removes the entries of each owner with a
+ * single {@link RemoveExpiredBatchCommand}, instead of a remote removal per entry.
  * @param <K>
  * @param <V>
  */
@@ -49,55 +62,131 @@
 public class ClusterExpirationManager<K, V> extends ExpirationManagerImpl<K, V> {
    protected static final Log log = LogFactory.getLog(ClusterExpirationManager.class);
    protected static final boolean trace = log.isTraceEnabled();
+   // How many expired entries the reaper removes with a single command
+   private static final int MAX_BATCH_SIZE = 32;
 
    private ExecutorService asyncExecutor;
    private AdvancedCache<K, V> cache;
    private boolean needTransaction;
+   private RpcManager rpcManager;
+   private CommandsFactory commandsFactory;
+   private ClusteringDependentLogic clusteringDependentLogic;
+
+   // The entries found by the reaper that were not sent yet, by primary owner
+   private final ConcurrentMap<Address, ExpirationBatch<K, V>> batches = new ConcurrentHashMap<>();
 
    @Inject
    public void inject(AdvancedCache<K, V> cache, Configuration configuration,
-           @ComponentName(KnownComponentNames.ASYNC_OPERATIONS_EXECUTOR) ExecutorService asyncExecutor) {
+           @ComponentName(KnownComponentNames.ASYNC_OPERATIONS_EXECUTOR) ExecutorService asyncExecutor,
+           RpcManager rpcManager, CommandsFactory commandsFactory,
+           ClusteringDependentLogic clusteringDependentLogic) {
       this.cache = cache;
       this.asyncExecutor = asyncExecutor;
+      this.rpcManager = rpcManager;
+      this.commandsFactory = commandsFactory;
+      this.clusteringDependentLogic = clusteringDependentLogic;
       needTransaction = configuration.transaction().transactionMode().isTransactional();
    }
 
    @Override
-   public void processExpiration() {
-      long start = 0;
-      if (!Thread.currentThread().isInterrupted()) {
+   protected CompletableFuture<Void> expireIfExpired(InternalCacheEntry<K, V> e, long currentTimeMillis) {
+      if (ExpiryHelper.isExpiredMortal(e.getLifespan(), e.getCreated(), currentTimeMillis)) {
+         return addToBatch(e);
+      } else if (ExpiryHelper.isExpiredTransient(e.getMaxIdle(), e.getLastUsed(), currentTimeMillis)) {
+         super.handleInMemoryExpiration(e, currentTimeMillis);
+         return CompletableFutures.completedNull();
+      }
+      return null;
+   }
+
+   /**
+    * Adds the entry to the batch of its primary owner, sending the batch if it is full.
+    * @return a future that completes when the batch holding the entry has been removed
+    */
+   private CompletableFuture<Void> addToBatch(InternalCacheEntry<K, V> entry) {
+      K key = entry.getKey();
+      if (expiring.putIfAbsent(key, key) != null) {
+         return CompletableFutures.completedNull();
+      }
+      DistributionInfo info = clusteringDependentLogic.getCacheTopology().getDistribution(key);
+      Address owner = info.isPrimary() ? rpcManager.getAddress() : info.primary();
+      ExpirationBatch<K, V> batch = batches.compute(owner, (o, b) -> {
+         if (b == null) {
+            b = new ExpirationBatch<>();
+         }
+         b.add(key, entry.getValue(), entry.getLifespan());
+         return b;
+      });
+      if (batch.size() >= MAX_BATCH_SIZE && batches.remove(owner, batch)) {
+         sendBatch(owner, batch);
+      }
+      return batch.future;
+   }
+
+   @Override
+   protected void flushExpirations() {
+      for (Address owner : batches.keySet()) {
+         ExpirationBatch<K, V> batch = batches.remove(owner);
+         if (batch != null) {
+            sendBatch(owner, batch);
+         }
+      }
+   }
+
+   /**
+    * Removes the entries of the batch on their primary owner, which is this node or a remote one.  The future of the
+    * batch fails if any of its entries couldn't be removed, so that the reaper retries all of them.
+    */
+   private void sendBatch(Address owner, ExpirationBatch<K, V> batch) {
+      if (trace) {
+         log.tracef("Submitting expiration removal for keys %s to %s", batch.keys, owner);
+      }
+      CompletableFuture<?> future;
+      if (owner == null || owner.equals(rpcManager.getAddress())) {
+         future = CompletableFuture.runAsync(() -> removeExpired(batch.keys, batch.values, batch.lifespans),
+                                             asyncExecutor);
+      } else {
+         RemoveExpiredBatchCommand command = commandsFactory.buildRemoveExpiredBatchCommand(
+               (List) batch.keys, (List) batch.values, batch.lifespans);
+         future = rpcManager.invokeRemotelyAsync(Collections.singleton(owner), command,
+                                                  rpcManager.getDefaultRpcOptions(true));
+      }
+      future.whenComplete((r, t) -> {
+         for (K key : batch.keys) {
+            expiring.remove(key);
+         }
+         if (t != null) {
+            batch.future.completeExceptionally(t);
+         } else {
+            batch.future.complete(null);
+         }
+      });
+   }
+
+   /**
+    * Removes expired entries whose primary owner is this node, sent by the reaper of this or another node.  A failure
+    * doesn't stop the removal of the other entries, and the first one is thrown after all of them were attempted.
+    */
+   public void removeExpired(List<K> keys, List<V> values, List<Long> lifespans) {
+      RuntimeException failure = null;
+      for (int i = 0; i < keys.size(); i++) {
+         K key = keys.get(i);
          try {
-            if (trace) {
-               log.trace("Purging data container of expired entries");
-               start = timeService.time();
-            }
-            long currentTimeMillis = timeService.wallClockTime();
-            for (Iterator<InternalCacheEntry<K, V>> purgeCandidates = dataContainer.iteratorIncludingExpired();
-                 purgeCandidates.hasNext();) {
-               InternalCacheEntry<K, V> e = purgeCandidates.next();
-               if (e.canExpire()) {
-                  if (ExpiryHelper.isExpiredMortal(e.getLifespan(), e.getCreated(), currentTimeMillis)) {
-                     handleLifespanExpireEntry(e, true);
-                  } else if (ExpiryHelper.isExpiredTransient(e.getMaxIdle(), e.getLastUsed(), currentTimeMillis)) {
-                     super.handleInMemoryExpiration(e, currentTimeMillis);
-                  }
-               }
+            removeExpired(key, values.get(i), lifespans.get(i));
+         } catch (RuntimeException e) {
+            if (failure == null) {
+               failure = e;
+            } else {
+               failure.addSuppressed(e);
             }
-            if (trace) {
-               log.tracef("Purging data container completed in %s",
-                       Util.prettyPrintTime(timeService.timeDuration(start, TimeUnit.MILLISECONDS)));
-            }
-         } catch (Exception e) {
-            log.exceptionPurgingDataContainer(e);
          }
       }
-
-      if (!Thread.currentThread().isInterrupted()) {
-         persistenceManager.purgeExpired();
+      if (failure != null) {
+         throw failure;
       }
    }
 
-   void handleLifespanExpireEntry(InternalCacheEntry<K, V> entry, boolean sync) {
+   CompletableFuture<Void> handleLifespanExpireEntry(InternalCacheEntry<K, V> entry, boolean sync) {
       K key = entry.getKey();
       // The most used case will be a miss so no extra read before
       if (expiring.putIfAbsent(key, key) == null) {
@@ -115,9 +204,10 @@ void handleLifespanExpireEntry(InternalCacheEntry<K, V> entry, boolean sync) {
          if (sync) {
             runnable.run();
          } else {
-            asyncExecutor.submit(runnable);
+            return CompletableFuture.runAsync(runnable, asyncExecutor);
          }
       }
+      return CompletableFutures.completedNull();
    }
 
    private void removeExpired(K key, V value, Long lifespan) {
@@ -184,4 +274,27 @@ public void handleInStoreExpiration(MarshalledEntry<K, V> marshalledEntry) {
          }
       }
    }
+
+   /**
+    * The expired entries of a primary owner that are removed together.  Entries are only added while the batch is
+    * mapped to its owner, under the lock of the map entry, and the batch is sent once it was unmapped.
+    */
+   private static final class ExpirationBatch<K, V> {
+      final List<K> keys = new ArrayList<>();
+      final List<V> values = new ArrayList<>();
+      final List<Long> lifespans = new ArrayList<>();
+      final CompletableFuture<Void> future = new CompletableFuture<>();
+      private volatile int size;
+
+      void add(K key, V value, long lifespan) {
+         keys.add(key);
+         values.add(value);
+         lifespans.add(lifespan);
+         size = keys.size();
+      }
+
+      int size() {
+         return size;
+      }
+   }
 }
@@ -1,17 +1,30 @@
 package org.infinispan.expiration.impl;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
 
 import org.infinispan.Cache;
 import org.infinispan.commons.util.Util;
 import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ExpirationConfiguration;
+import org.infinispan.configuration.cache.StorageType;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.executors.ExecutorAllCompletionService;
 import org.infinispan.expiration.ExpirationManager;
 import org.infinispan.factories.KnownComponentNames;
 import org.infinispan.factories.annotations.ComponentName;
@@ -23,6 +36,7 @@
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.CompletableFutures;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -32,6 +46,8 @@
 public class ExpirationManagerImpl<K, V> implements ExpirationManager<K, V> {
    protected static final Log log = LogFactory.getLog(ExpirationManagerImpl.class);
    protected static final boolean trace = log.isTraceEnabled();
+   // How many expirations a reaper run waits for at once when they complete asynchronously
+   private static final int MAX_PENDING_EXPIRATIONS = 64;
    protected ScheduledFuture<?> expirationTask;
 
    // components to be injected
@@ -52,17 +68,31 @@
     */
    protected ConcurrentMap<K, Object> expiring;
 
+   /**
+    * The keys of the entries that can expire, indexed by expiration time so that the reaper only visits the entries
+    * that are due.  There is an index per segment when the data container is segmented, so that the reaper processes
+    * the segments in parallel, otherwise a single one.  Null if the reaper or the index are disabled, in which case
+    * {@link #processExpiration()} visits all of the entries.
+    */
+   private List<ExpirationIndex<K>> indexes;
+   private KeyPartitioner keyPartitioner;
+   // Not the async executor: the segment tasks wait for the cluster expiration removals, which run there
+   private ExecutorService persistenceExecutor;
+   private long bucketInterval;
+
    @Inject
    public void initialize(@ComponentName(KnownComponentNames.EXPIRATION_SCHEDULED_EXECUTOR)
          ScheduledExecutorService executor, Cache<K, V> cache, Configuration cfg, DataContainer<K, V> dataContainer,
-         PersistenceManager persistenceManager, CacheNotifier<K, V> cacheNotifier, TimeService timeService) {
+         PersistenceManager persistenceManager, CacheNotifier<K, V> cacheNotifier, TimeService timeService,
+         KeyPartitioner keyPartitioner,
+         @ComponentName(KnownComponentNames.PERSISTENCE_EXECUTOR) ExecutorService persistenceExecutor) {
       initialize(executor, cache.getName(), cfg, dataContainer,
-                 persistenceManager, cacheNotifier, timeService);
+                 persistenceManager, cacheNotifier, timeService, keyPartitioner, persistenceExecutor);
    }
 
    void initialize(ScheduledExecutorService executor, String cacheName, Configuration cfg,
            DataContainer<K, V> dataContainer, PersistenceManager persistenceManager, CacheNotifier<K, V> cacheNotifier,
-           TimeService timeService) {
+           TimeService timeService, KeyPartitioner keyPartitioner, ExecutorService persistenceExecutor) {
       this.executor = executor;
       this.configuration = cfg;
       this.cacheName = cacheName;
@@ -72,8 +102,29 @@ void initialize(ScheduledExecutorService executor, String cacheName, Configurati
       this.timeService = timeService;
 
       this.expiring = new ConcurrentHashMap<>();
+
+      // Entries may be written before this component is started, e.g. when preloading
+      long wakeUpInterval = cfg.expiration().wakeUpInterval();
+      if (cfg.expiration().reaperEnabled() && useExpiryIndex(cfg) && wakeUpInterval > 0) {
+         this.bucketInterval = wakeUpInterval;
+         int numIndexes = 1;
+         if (dataContainer instanceof SegmentedDataContainer) {
+            numIndexes = cfg.clustering().hash().numSegments();
+            this.keyPartitioner = keyPartitioner;
+            this.persistenceExecutor = persistenceExecutor;
+         }
+         this.indexes = new ArrayList<>(numIndexes);
+         for (int i = 0; i < numIndexes; i++) {
+            indexes.add(new ExpirationIndex<>());
+         }
+      }
    }
 
+   private static boolean useExpiryIndex(Configuration cfg) {
+      // The index keeps a heap copy of every off-heap key, so off-heap caches only use it when asked to
+      return cfg.expiration().expiryIndex() && (cfg.memory().storageType() != StorageType.OFF_HEAP ||
+            cfg.expiration().attributes().attribute(ExpirationConfiguration.EXPIRY_INDEX).isModified());
+   }
 
    @Start(priority = 55)
    // make sure this starts after the PersistenceManager
@@ -103,13 +154,22 @@ public void processExpiration() {
                start = timeService.time();
             }
             long currentTimeMillis = timeService.wallClockTime();
-            for (Iterator<InternalCacheEntry<K, V>> purgeCandidates = dataContainer.iteratorIncludingExpired();
-                 purgeCandidates.hasNext();) {
-               InternalCacheEntry<K, V> e = purgeCandidates.next();
-               if (e.isExpired(currentTimeMillis)) {
-                  handleInMemoryExpiration(e, currentTimeMillis);
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            if (indexes != null && indexes.size() > 1) {
+               processDueSegments(currentTimeMillis);
+            } else if (indexes != null) {
+               processDueEntries(indexes.get(0), currentTimeMillis, pending, Thread.currentThread());
+            } else {
+               for (Iterator<InternalCacheEntry<K, V>> purgeCandidates = dataContainer.iteratorIncludingExpired();
+                    purgeCandidates.hasNext();) {
+                  InternalCacheEntry<K, V> e = purgeCandidates.next();
+                  if (e.canExpire()) {
+                     expire(e, currentTimeMillis, pending);
+                  }
                }
             }
+            flushExpirations();
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[pending.size()])).join();
             if (trace) {
                log.tracef("Purging data container completed in %s",
                           Util.prettyPrintTime(timeService.timeDuration(start, TimeUnit.MILLISECONDS)));
@@ -124,6 +184,133 @@ public void processExpiration() {
       }
    }
 
+   /**
+    * Processes the due entries of each segment in a separate task, and waits for all of them.
+    */
+   private void processDueSegments(long currentTimeMillis) {
+      Thread reaperThread = Thread.currentThread();
+      long dueBucketId = currentTimeMillis / bucketInterval;
+      ExecutorAllCompletionService eacs = new ExecutorAllCompletionService(persistenceExecutor);
+      for (ExpirationIndex<K> index : indexes) {
+         if (!index.hasDueBuckets(dueBucketId)) {
+            continue;
+         }
+         eacs.submit(() -> {
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            processDueEntries(index, currentTimeMillis, pending, reaperThread);
+            flushExpirations();
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[pending.size()])).join();
+            return null;
+         });
+      }
+      eacs.waitUntilAllCompleted();
+      if (eacs.isExceptionThrown()) {
+         log.exceptionPurgingDataContainer(eacs.getFirstException());
+      }
+   }
+
+   /**
+    * Expires the entries of the buckets whose interval started before the given time.  Entries that are not expired
+    * yet, because they were updated or read since they were registered, are registered again with their current
+    * expiration time.  If the reaper thread is interrupted or the run fails, the keys of the current bucket that were
+    * not processed are put back in the index for the next run.
+    */
+   private void processDueEntries(ExpirationIndex<K> index, long currentTimeMillis,
+                                  List<CompletableFuture<Void>> pending, Thread reaperThread) {
+      // Buckets registered again while iterating are only processed by the next run, as the iteration is ascending
+      for (Long bucketId : index.buckets.headMap(currentTimeMillis / bucketInterval, true).keySet()) {
+         ExpirationBucket<K> bucket = index.buckets.remove(bucketId);
+         if (bucket == null) {
+            continue;
+         }
+         Set<K> keys = bucket.close();
+         try {
+            for (Iterator<K> it = keys.iterator(); it.hasNext(); ) {
+               if (reaperThread.isInterrupted()) {
+                  return;
+               }
+               K key = it.next();
+               InternalCacheEntry<K, V> e = dataContainer.peek(key);
+               if (e == null || !e.canExpire()) {
+                  // Drop the key from the index, unless it was registered again in the meantime
+                  index.registeredBuckets.remove(key, bucketId);
+               } else if (!expire(e, currentTimeMillis, pending)) {
+                  index.register(key, e.getExpiryTime() / bucketInterval);
+               }
+               it.remove();
+            }
+         } finally {
+            index.restoreKeys(bucketId, keys);
+         }
+      }
+   }
+
+   /**
+    * Expires the entry if it is expired.  Expirations that complete asynchronously are added to the pending list,
+    * which is waited upon whenever it grows too large, so that a run doesn't flood the executor.
+    * @return true if the entry was expired
+    */
+   private boolean expire(InternalCacheEntry<K, V> e, long currentTimeMillis, List<CompletableFuture<Void>> pending) {
+      CompletableFuture<Void> future = expireIfExpired(e, currentTimeMillis);
+      if (future == null) {
+         return false;
+      }
+      // A failed removal doesn't stop the run, and the key is registered again so that the next run retries it
+      future = future.exceptionally(t -> {
+         log.exceptionPurgingDataContainer(CompletableFutures.asCompletionException(t));
+         registerExpiration(e.getKey(), e.getExpiryTime());
+         return null;
+      });
+      if (!future.isDone()) {
+         pending.add(future);
+         if (pending.size() >= MAX_PENDING_EXPIRATIONS) {
+            flushExpirations();
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[pending.size()])).join();
+            pending.clear();
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Invoked by the reaper for every entry that may be expired.
+    * @param e the entry, which can expire
+    * @param currentTimeMillis the time of the reaper run
+    * @return null if the entry isn't expired, otherwise a future that completes when it has been expired
+    */
+   protected CompletableFuture<Void> expireIfExpired(InternalCacheEntry<K, V> e, long currentTimeMillis) {
+      if (!e.isExpired(currentTimeMillis)) {
+         return null;
+      }
+      handleInMemoryExpiration(e, currentTimeMillis);
+      return CompletableFutures.completedNull();
+   }
+
+   /**
+    * Invoked by the reaper before it waits for the expirations returned by
+    * {@link #expireIfExpired(InternalCacheEntry, long)}, so that expirations that are batched start now.
+    */
+   protected void flushExpirations() {
+   }
+
+   @Override
+   public void registerExpiration(K key, long expiryTime) {
+      if (indexes != null) {
+         indexFor(key).register(key, expiryTime / bucketInterval);
+      }
+   }
+
+   @Override
+   public void unregisterExpiration(K key) {
+      if (indexes != null) {
+         indexFor(key).unregister(key);
+      }
+   }
+
+   private ExpirationIndex<K> indexFor(K key) {
+      return keyPartitioner == null ? indexes.get(0) : indexes.get(keyPartitioner.getSegment(key));
+   }
+
    @Override
    public boolean isEnabled() {
       return enabled;
@@ -223,6 +410,102 @@ public void stop() {
       }
    }
 
+   /**
+    * The keys of the entries that can expire, grouped by the wake up interval their expiration time falls into.  A key
+    * is moved to another bucket when its entry is updated and dropped when its entry is removed, but a bucket may
+    * still contain a few keys that were registered concurrently, or whose entries were cleared, which the reaper skips.
+    */
+   private static final class ExpirationIndex<K> {
+      private final ConcurrentNavigableMap<Long, ExpirationBucket<K>> buckets = new ConcurrentSkipListMap<>();
+      // The bucket each key was last registered in
+      private final ConcurrentMap<K, Long> registeredBuckets = new ConcurrentHashMap<>();
+
+      boolean hasDueBuckets(long dueBucketId) {
+         return !buckets.headMap(dueBucketId, true).isEmpty();
+      }
+
+      void register(K key, Long bucketId) {
+         Long previousBucketId = registeredBuckets.put(key, bucketId);
+         if (previousBucketId != null && !previousBucketId.equals(bucketId)) {
+            removeFromBucket(key, previousBucketId);
+         }
+         addToBucket(key, bucketId);
+      }
+
+      void unregister(K key) {
+         Long bucketId = registeredBuckets.remove(key);
+         if (bucketId != null) {
+            removeFromBucket(key, bucketId);
+         }
+      }
+
+      /**
+       * Puts the keys of a bucket that the reaper did not process back in the index, unless they were registered in
+       * another bucket in the meantime.
+       */
+      void restoreKeys(Long bucketId, Set<K> keys) {
+         for (K key : keys) {
+            if (bucketId.equals(registeredBuckets.get(key))) {
+               addToBucket(key, bucketId);
+            }
+         }
+      }
+
+      private void addToBucket(K key, Long bucketId) {
+         // The reaper removes a bucket before closing it, so a closed bucket is replaced by the next lookup
+         boolean added;
+         do {
+            added = buckets.computeIfAbsent(bucketId, id -> new ExpirationBucket<>()).add(key);
+         } while (!added);
+      }
+
+      private void removeFromBucket(K key, Long bucketId) {
+         // The bucket is gone if the reaper already processed it
+         ExpirationBucket<K> bucket = buckets.get(bucketId);
+         if (bucket != null) {
+            bucket.remove(key);
+         }
+      }
+   }
+
+   /**
+    * The keys of the entries that expire in an interval.  Writers add keys while holding the read lock, so that once
+    * the reaper closed the bucket with the write lock it can iterate the keys without missing any.
+    */
+   private static final class ExpirationBucket<K> {
+      private final Set<K> keys = ConcurrentHashMap.newKeySet();
+      private final StampedLock lock = new StampedLock();
+      private boolean closed;
+
+      boolean add(K key) {
+         long stamp = lock.readLock();
+         try {
+            if (closed) {
+               return false;
+            }
+            keys.add(key);
+            return true;
+         } finally {
+            lock.unlockRead(stamp);
+         }
+      }
+
+      void remove(K key) {
+         // The reaper may be iterating the keys, which is safe as they are concurrent
+         keys.remove(key);
+      }
+
+      Set<K> close() {
+         long stamp = lock.writeLock();
+         try {
+            closed = true;
+         } finally {
+            lock.unlockWrite(stamp);
+         }
+         return keys;
+      }
+   }
+
    class ScheduledTask implements Runnable {
       @Override
       public void run() {
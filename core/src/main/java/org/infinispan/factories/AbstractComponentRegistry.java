@@ -25,7 +25,6 @@
 import org.infinispan.commons.CacheException;
 import org.infinispan.commons.api.Lifecycle;
 import org.infinispan.commons.util.ReflectionUtil;
-import org.infinispan.commons.util.Util;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
 import org.infinispan.factories.annotations.Inject;
@@ -364,7 +363,7 @@ protected Component lookupComponent(String componentClassName, String componentN
     * @return factory instance
     */
    AbstractComponentFactory instantiateFactory(String factoryName) {
-      Class<?> factory = Util.loadClass(factoryName, getClass().getClassLoader());
+      Class<?> factory = getComponentMetadataRepo().loadFactoryClass(factoryName, getClass().getClassLoader());
       if (AutoInstantiableFactory.class.isAssignableFrom(factory)) {
          try {
             return (AbstractComponentFactory) factory.newInstance();
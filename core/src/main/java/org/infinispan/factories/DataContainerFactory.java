@@ -1,13 +1,20 @@
 package org.infinispan.factories;
 
 import org.infinispan.configuration.cache.EvictionConfiguration;
+import org.infinispan.configuration.cache.KeyType;
 import org.infinispan.configuration.cache.MemoryConfiguration;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.DefaultSegmentedDataContainer;
+import org.infinispan.container.PrimitiveKeyDataContainer;
 import org.infinispan.configuration.cache.StorageType;
+import org.infinispan.container.entries.ClassEntrySizeCalculator;
+import org.infinispan.container.entries.ObjectGraphSizeCalculator;
 import org.infinispan.container.offheap.BoundedOffHeapDataContainer;
 import org.infinispan.container.offheap.OffHeapDataContainer;
+import org.infinispan.eviction.EvictionType;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
+import org.infinispan.marshall.core.WrappedByteArraySizeCalculator;
 
 /**
  * Constructs the data container
@@ -33,8 +40,14 @@ public <T> T construct(Class<T> componentType) {
 
          //handle case when < 0 value signifies unbounded container
          if(thresholdSize < 0) {
+            if (configuration.memory().segmented() && configuration.clustering().cacheMode().needsStateTransfer()) {
+               return (T) createSegmentedDataContainer(level);
+            }
             if (configuration.memory().storageType() == StorageType.OFF_HEAP) {
-               return (T) new OffHeapDataContainer(configuration.memory().addressCount());
+               return (T) new OffHeapDataContainer(configuration.memory().addressCount(),
+                     configuration.memory().heapTierSize());
+            } else if (configuration.memory().keyType() != KeyType.OBJECT) {
+               return (T) new PrimitiveKeyDataContainer<>(configuration.memory().keyType(), level);
             } else {
                return (T) DefaultDataContainer.unBoundedDataContainer(level);
             }
@@ -43,7 +56,12 @@ public <T> T construct(Class<T> componentType) {
          DataContainer dataContainer;
          if (configuration.memory().storageType() == StorageType.OFF_HEAP) {
             dataContainer = new BoundedOffHeapDataContainer(configuration.memory().addressCount(), thresholdSize,
-                  configuration.memory().evictionType());
+                  configuration.memory().evictionType(), configuration.memory().heapTierSize());
+         } else if (configuration.memory().evictionType() == EvictionType.MEMORY &&
+               !configuration.memory().sizeCalculators().isEmpty()) {
+            dataContainer = DefaultDataContainer.boundedDataContainer(level, thresholdSize,
+                  new ClassEntrySizeCalculator(configuration.memory().sizeCalculators(),
+                        new WrappedByteArraySizeCalculator<>(new ObjectGraphSizeCalculator())));
          } else {
             dataContainer = DefaultDataContainer.boundedDataContainer(level, thresholdSize,
                   configuration.memory().evictionType());
@@ -55,4 +73,22 @@ public <T> T construct(Class<T> componentType) {
          return (T) dataContainer;
       }
    }
+
+   private DataContainer createSegmentedDataContainer(int level) {
+      int numSegments = configuration.clustering().hash().numSegments();
+      if (configuration.memory().storageType() == StorageType.OFF_HEAP) {
+         // Spread the address pointers over the segments so the total memory used by the lookup tables is unchanged
+         int addressCount = Math.max(configuration.memory().addressCount() / numSegments, 1);
+         long heapTierSize = configuration.memory().heapTierSize();
+         long segmentHeapTierSize = heapTierSize > 0 ? Math.max(heapTierSize / numSegments, 1) : heapTierSize;
+         return new DefaultSegmentedDataContainer<>(numSegments, () -> new OffHeapDataContainer(addressCount,
+               segmentHeapTierSize));
+      }
+      KeyType keyType = configuration.memory().keyType();
+      if (keyType != KeyType.OBJECT) {
+         // Each segment only holds a fraction of the keys, so it doesn't need as many lock stripes
+         return new DefaultSegmentedDataContainer<>(numSegments, () -> new PrimitiveKeyDataContainer<>(keyType, 1));
+      }
+      return new DefaultSegmentedDataContainer<>(numSegments, () -> DefaultDataContainer.unBoundedDataContainer(level));
+   }
 }
@@ -10,7 +10,11 @@
 import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.io.ByteBufferFactory;
 import org.infinispan.commons.io.ByteBufferFactoryImpl;
+import org.infinispan.configuration.cache.AllocatorType;
 import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.container.offheap.OffHeapMemoryAllocator;
+import org.infinispan.container.offheap.PooledOffHeapMemoryAllocator;
+import org.infinispan.container.offheap.UnpooledOffHeapMemoryAllocator;
 import org.infinispan.context.InvocationContextFactory;
 import org.infinispan.context.NonTransactionalInvocationContextFactory;
 import org.infinispan.context.TransactionalInvocationContextFactory;
@@ -68,7 +72,8 @@
                               TotalOrderManager.class, ByteBufferFactory.class, MarshalledEntryFactory.class,
                               RemoteValueRetrievedListener.class, InvocationContextFactory.class, CommitManager.class,
                               XSiteStateTransferManager.class, XSiteStateConsumer.class, XSiteStateProvider.class,
-                              FunctionalNotifier.class, CommandAckCollector.class, TriangleOrderManager.class})
+                              FunctionalNotifier.class, CommandAckCollector.class, TriangleOrderManager.class,
+                              OffHeapMemoryAllocator.class})
 public class EmptyConstructorNamedCacheFactory extends AbstractNamedCacheComponentFactory implements AutoInstantiableFactory {
 
    @Override
@@ -146,6 +151,13 @@ public <T> T construct(Class<T> componentType) {
             return componentType.cast(new CommandAckCollector());
          } else if (componentType.equals(TriangleOrderManager.class)) {
             return componentType.cast(new TriangleOrderManager(configuration.clustering().hash().numSegments()));
+         } else if (componentType.equals(OffHeapMemoryAllocator.class)) {
+            // The allocator is a component of the cache either way, so the off-heap memory used by a cache only counts
+            // its own entries and the cache container statistics add them up
+            if (configuration.memory().allocator() == AllocatorType.POOLED) {
+               return componentType.cast(new PooledOffHeapMemoryAllocator());
+            }
+            return componentType.cast(new UnpooledOffHeapMemoryAllocator());
          }
       }
 
@@ -187,8 +187,12 @@ public String toString() {
     * This class encapsulates metadata on a prioritized method, such as one annotated with {@link Start} or {@link @Stop}
     */
    public static class PrioritizedMethodMetadata implements Serializable {
+
+      // The serialVersionUID computed before the method became volatile, to read the metadata of other modules
+      private static final long serialVersionUID = -7906020468335680660L;
+
       String methodName;
-      transient Method method;
+      transient volatile Method method;
       int priority;
 
       public PrioritizedMethodMetadata(String methodName, int priority) {
@@ -227,9 +231,10 @@ public static class InjectMetadata implements Serializable {
       private static final long serialVersionUID = 4848856551345751894L;
 
       String methodName;
-      transient Method method;
+      // Resolved lazily and shared by all the registries of the cache manager
+      transient volatile Method method;
       String[] parameters;
-      transient Class<?>[] parameterClasses;
+      transient volatile Class<?>[] parameterClasses;
       String[] parameterNames;
 
       private InjectMetadata(String methodName) {
@@ -253,19 +258,19 @@ public boolean isParameterNameSet(int subscript) {
          return parameterNames != null && parameterNames[subscript] != null;
       }
 
-      public synchronized Method getMethod() {
+      public Method getMethod() {
          return method;
       }
 
-      public synchronized void setMethod(Method method) {
+      public void setMethod(Method method) {
          this.method = method;
       }
 
-      public synchronized Class<?>[] getParameterClasses() {
+      public Class<?>[] getParameterClasses() {
          return parameterClasses;
       }
 
-      public synchronized void setParameterClasses(Class<?>[] parameterClasses) {
+      public void setParameterClasses(Class<?>[] parameterClasses) {
          this.parameterClasses = parameterClasses;
       }
 
@@ -4,14 +4,23 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.lang.reflect.Method;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.infinispan.commons.CacheException;
 import org.infinispan.commons.util.FileLookup;
 import org.infinispan.commons.util.FileLookupFactory;
+import org.infinispan.commons.util.ReflectionUtil;
+import org.infinispan.commons.util.Util;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
 
 /**
  * This is a repository of component metadata, which is populated when the Infinispan core jar is loaded up.  Actual
@@ -25,6 +34,9 @@ public class ComponentMetadataRepo {
    final Map<String, ComponentMetadata> componentMetadataMap = new HashMap<String, ComponentMetadata>(128);
    final Map<String, String> factories = new HashMap<String, String>(16);
    private final ComponentMetadata dependencyFreeComponent = new ComponentMetadata();
+   // Caches the lookups by class, as every component and command of every cache is wired with its metadata
+   private final ConcurrentMap<Class<?>, ComponentMetadata> metadataByClass = new ConcurrentHashMap<>(256);
+   private final ConcurrentMap<String, Class<?>> factoryClasses = new ConcurrentHashMap<>(64);
 
    @SuppressWarnings("unchecked")
    public synchronized void readMetadata(URL metadataFile) throws IOException, ClassNotFoundException {
@@ -41,17 +53,51 @@ public synchronized void readMetadata(URL metadataFile) throws IOException, Clas
 
       componentMetadataMap.putAll(comp);
       factories.putAll(fact);
+      metadataByClass.clear();
    }
 
    /**
     * Locates metadata for a given component type if registered.  If not registered, superclasses/interfaces are
     * consulted, until, finally, an empty instance of {@link ComponentMetadata} is returned effectively declaring
     * that the component has no dependencies or any lifecycle methods declared.
+    * <p>
+    * Classes that were not scanned at build time, e.g. the custom interceptors, are scanned for {@link Inject},
+    * {@link Start} and {@link Stop} methods with reflection, and only once.
     *
     * @param componentType component type to look for
     * @return metadata expressed as a ComponentMetadata instance
     */
    public ComponentMetadata findComponentMetadata(Class<?> componentType) {
+      ComponentMetadata md = metadataByClass.get(componentType);
+      if (md == null) {
+         md = lookupComponentMetadata(componentType);
+         ComponentMetadata existing = metadataByClass.putIfAbsent(componentType, md);
+         if (existing != null)
+            md = existing;
+      }
+      return md;
+   }
+
+   private ComponentMetadata lookupComponentMetadata(Class<?> componentType) {
+      ComponentMetadata md = componentMetadataMap.get(componentType.getName());
+      if (md != null)
+         return md;
+
+      ComponentMetadata inherited = findInheritedComponentMetadata(componentType);
+      if (inherited.isManageable())
+         return inherited;
+      List<Method> injectMethods = ReflectionUtil.getAllMethods(componentType, Inject.class);
+      List<Method> startMethods = ReflectionUtil.getAllMethods(componentType, Start.class);
+      List<Method> stopMethods = ReflectionUtil.getAllMethods(componentType, Stop.class);
+      if (injectMethods.size() == inherited.getInjectMethods().length
+            && startMethods.size() == inherited.getStartMethods().length
+            && stopMethods.size() == inherited.getStopMethods().length)
+         return inherited;
+      return new ComponentMetadata(componentType, injectMethods, startMethods, stopMethods, inherited.isGlobalScope(),
+            inherited.isSurvivesRestarts());
+   }
+
+   private ComponentMetadata findInheritedComponentMetadata(Class<?> componentType) {
       ComponentMetadata md = null;
       while (md == null) {
          String componentName = componentType.getName();
@@ -88,6 +134,17 @@ public String findFactoryForComponent(Class<?> componentType) {
       return factories.get(componentType.getName());
    }
 
+   /**
+    * Loads a factory class returned by {@link #findFactoryForComponent(Class)}, the class is only loaded once.
+    *
+    * @param factoryName fully qualified class name of the factory
+    * @param cl class loader used to load the factory class
+    * @return the factory class
+    */
+   public Class<?> loadFactoryClass(String factoryName, ClassLoader cl) {
+      return factoryClasses.computeIfAbsent(factoryName, name -> Util.loadClass(name, cl));
+   }
+
    /**
     * Initializes this repository.  The Iterable passed in should contain all {@link ModuleMetadataFileFinder} instances
     * for all loaded Infinispan modules.  Note that the core module is always loaded and need not be contained in this
@@ -3,11 +3,15 @@
 import static org.infinispan.factories.KnownComponentNames.PERSISTENCE_EXECUTOR;
 import static org.infinispan.persistence.PersistenceUtil.convert;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -149,10 +153,7 @@ public Object visitGetCacheEntryCommand(InvocationContext ctx,
    @Override
    public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command)
          throws Throwable {
-      for (Object key : command.getKeys()) {
-         loadIfNeeded(ctx, key, command);
-      }
-      return invokeNext(ctx, command);
+      return visitManyDataCommand(ctx, command, command.getKeys());
    }
 
    @Override
@@ -160,9 +161,7 @@ public Object visitInvalidateCommand(InvocationContext ctx, InvalidateCommand co
          throws Throwable {
       Object[] keys;
       if ((keys = command.getKeys()) != null && keys.length > 0) {
-         for (Object key : command.getKeys()) {
-            loadIfNeeded(ctx, key, command);
-         }
+         return visitManyDataCommand(ctx, command, Arrays.asList(keys));
       }
       return invokeNext(ctx, command);
    }
@@ -181,17 +180,61 @@ public Object visitReplaceCommand(InvocationContext ctx, ReplaceCommand command)
 
    private Object visitManyDataCommand(InvocationContext ctx, FlagAffectedCommand command, Collection<?> keys)
          throws Throwable {
+      if (activation) {
+         // Activating an entry must be atomic with its load, so the keys are loaded one at a time
+         for (Object key : keys) {
+            loadIfNeeded(ctx, key, command);
+         }
+         return invokeNext(ctx, command);
+      }
+
+      // The keys are loaded in a single batch, and the context is only updated once all of them have been loaded
+      List<K> loadedKeys = new ArrayList<>(keys.size());
+      List<AtomicReference<Boolean>> isLoaded = new ArrayList<>(keys.size());
       for (Object key : keys) {
-         loadIfNeeded(ctx, key, command);
+         if (skipLoad(command, key, ctx))
+            continue;
+
+         loadedKeys.add((K) key);
+         isLoaded.add(new AtomicReference<>());
+      }
+      if (loadedKeys.isEmpty()) {
+         return invokeNext(ctx, command);
+      }
+
+      if (!canLoadAsync(ctx)) {
+         List<InternalCacheEntry<K, V>> entries = PersistenceUtil.loadBatchAndStoreInDataContainer(dataContainer,
+               persistenceManager, loadedKeys, ctx, timeService, isLoaded);
+         wrapLoadedEntries(ctx, command, loadedKeys, entries, isLoaded);
+         return invokeNext(ctx, command);
+      }
+
+      CompletableFuture<Void> allLoaded = PersistenceUtil.loadBatchAndStoreInDataContainerAsync(dataContainer,
+            persistenceManager, loadedKeys, ctx, timeService, isLoaded)
+            .thenAccept(entries -> wrapLoadedEntries(ctx, command, loadedKeys, entries, isLoaded))
+            .toCompletableFuture();
+      return asyncInvokeNext(ctx, command, allLoaded);
+   }
+
+   private void wrapLoadedEntries(InvocationContext ctx, FlagAffectedCommand command, List<K> keys,
+                                  List<InternalCacheEntry<K, V>> entries, List<AtomicReference<Boolean>> isLoaded) {
+      for (int i = 0; i < keys.size(); i++) {
+         wrapLoadedEntry(ctx, keys.get(i), command, entries.get(i), isLoaded.get(i).get());
       }
-      return invokeNext(ctx, command);
    }
 
    private Object visitDataCommand(InvocationContext ctx, AbstractDataCommand command)
          throws Throwable {
       Object key;
       if ((key = command.getKey()) != null) {
-         loadIfNeeded(ctx, key, command);
+         if (canLoadAsync(ctx)) {
+            CompletableFuture<Boolean> loaded = loadIfNeededAsync(ctx, key, command);
+            if (loaded != null) {
+               return asyncInvokeNext(ctx, command, loaded);
+            }
+         } else {
+            loadIfNeeded(ctx, key, command);
+         }
       }
       return invokeNext(ctx, command);
    }
@@ -330,11 +373,43 @@ protected final Boolean loadIfNeeded(final InvocationContext ctx, Object key, fi
       return loadInContext(ctx, key, cmd);
    }
 
+   /**
+    * Same as {@link #loadIfNeeded(InvocationContext, Object, FlagAffectedCommand)}, but the cache loader is queried
+    * without blocking the caller. The found value is loaded into the context when the returned stage completes, so the
+    * invocation must only continue after that.
+    * @return A stage completed with whether the entry was found in the cache loader, or {@code null} if the cache loader
+    * doesn't need to be queried.
+    */
+   protected final CompletableFuture<Boolean> loadIfNeededAsync(final InvocationContext ctx, Object key,
+                                                                final FlagAffectedCommand cmd) {
+      if (skipLoad(cmd, key, ctx)) {
+         return null;
+      }
+
+      final AtomicReference<Boolean> isLoaded = new AtomicReference<>();
+      return PersistenceUtil.loadAndStoreInDataContainerAsync(dataContainer, persistenceManager, (K) key, ctx,
+            timeService, isLoaded)
+            .thenApply(entry -> wrapLoadedEntry(ctx, key, cmd, entry, isLoaded.get()))
+            .toCompletableFuture();
+   }
+
+   /**
+    * The stores are only queried asynchronously for non-transactional invocations, as the transaction is bound to the
+    * invoking thread, and without passivation, as activating an entry must be atomic with the load.
+    */
+   private boolean canLoadAsync(InvocationContext ctx) {
+      return !activation && !ctx.isInTxScope();
+   }
+
    private Boolean loadInContext(InvocationContext ctx, Object key, FlagAffectedCommand cmd) {
       final AtomicReference<Boolean> isLoaded = new AtomicReference<>();
       InternalCacheEntry<K, V> entry = PersistenceUtil.loadAndStoreInDataContainer(dataContainer, persistenceManager, (K) key,
                                                                              ctx, timeService, isLoaded);
-      Boolean isLoadedValue = isLoaded.get();
+      return wrapLoadedEntry(ctx, key, cmd, entry, isLoaded.get());
+   }
+
+   private Boolean wrapLoadedEntry(InvocationContext ctx, Object key, FlagAffectedCommand cmd,
+                                   InternalCacheEntry<K, V> entry, Boolean isLoadedValue) {
       if (trace) {
          log.tracef("Entry was loaded? %s", isLoadedValue);
       }
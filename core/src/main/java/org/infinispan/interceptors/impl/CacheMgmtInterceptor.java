@@ -23,6 +23,7 @@
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.impl.FlagBitSets;
+import org.infinispan.eviction.EvictionType;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.jmx.annotations.DisplayType;
@@ -374,6 +375,19 @@ public long getOffHeapMemoryUsed() {
       return allocator.getAllocatedAmount();
    }
 
+   @ManagedAttribute(
+         description = "Amount in bytes of memory used by the entries in the data container for MEMORY based eviction",
+         displayName = "Data Memory Used",
+         displayType = DisplayType.SUMMARY
+   )
+   public long getDataMemoryUsed() {
+      if (cacheConfiguration.memory().size() > 0 &&
+            cacheConfiguration.memory().evictionType() == EvictionType.MEMORY) {
+         return dataContainer.evictionSize();
+      }
+      return 0;
+   }
+
    @ManagedAttribute(
          description = "Number of seconds since cache started",
          displayName = "Seconds since cache started",
@@ -4,8 +4,12 @@
 import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.BOTH;
 import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.PRIVATE;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.transaction.InvalidTransactionException;
@@ -56,6 +60,7 @@
 import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryImpl;
 import org.infinispan.metadata.EmbeddedMetadata;
 import org.infinispan.metadata.Metadata;
@@ -156,15 +161,13 @@ private Transaction suspendRunningTx(TxInvocationContext ctx) throws SystemExcep
 
    @Override
    public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) throws Throwable {
-      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+      return invokeNextThenApply(ctx, command, (rCtx, rCommand, rv) -> {
          RemoveCommand removeCommand = (RemoveCommand) rCommand;
-         if (!isStoreEnabled(removeCommand) || rCtx.isInTxScope() || !removeCommand.isSuccessful()) return;
-         if (!isProperWriter(rCtx, removeCommand, removeCommand.getKey())) return;
+         if (!isStoreEnabled(removeCommand) || rCtx.isInTxScope() || !removeCommand.isSuccessful()) return rv;
+         if (!isProperWriter(rCtx, removeCommand, removeCommand.getKey())) return rv;
 
          Object key = removeCommand.getKey();
-         boolean resp = persistenceManager.deleteFromAllStores(key, BOTH);
-         if (trace)
-            getLog().tracef("Removed entry under key %s and got response %s from CacheStore", key, resp);
+         return delayedValue(deleteEntry(key, BOTH), rv);
       });
    }
 
@@ -178,51 +181,55 @@ public Object visitClearCommand(InvocationContext ctx, ClearCommand command) thr
 
    @Override
    public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
-      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+      return invokeNextThenApply(ctx, command, (rCtx, rCommand, rv) -> {
          PutKeyValueCommand putKeyValueCommand = (PutKeyValueCommand) rCommand;
          if (!isStoreEnabled(putKeyValueCommand) || rCtx.isInTxScope() || !putKeyValueCommand.isSuccessful())
-            return;
+            return rv;
          if (!isProperWriter(rCtx, putKeyValueCommand, putKeyValueCommand.getKey()))
-            return;
+            return rv;
 
          Object key = putKeyValueCommand.getKey();
-         storeEntry(rCtx, key, putKeyValueCommand);
+         CompletionStage<Void> stored = storeEntryAsync(rCtx, key, putKeyValueCommand);
          if (getStatisticsEnabled())
             cacheStores.incrementAndGet();
+         return delayedValue(stored, rv);
       });
    }
 
    @Override
    public Object visitReplaceCommand(InvocationContext ctx, ReplaceCommand command) throws Throwable {
-      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+      return invokeNextThenApply(ctx, command, (rCtx, rCommand, rv) -> {
          ReplaceCommand replaceCommand = (ReplaceCommand) rCommand;
          if (!isStoreEnabled(replaceCommand) || rCtx.isInTxScope() || !replaceCommand.isSuccessful())
-            return;
+            return rv;
          if (!isProperWriter(rCtx, replaceCommand, replaceCommand.getKey()))
-            return;
+            return rv;
 
          Object key = replaceCommand.getKey();
-         storeEntry(rCtx, key, replaceCommand);
+         CompletionStage<Void> stored = storeEntryAsync(rCtx, key, replaceCommand);
          if (getStatisticsEnabled())
             cacheStores.incrementAndGet();
+         return delayedValue(stored, rv);
       });
    }
 
    @Override
    public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) throws Throwable {
-      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+      return invokeNextThenApply(ctx, command, (rCtx, rCommand, rv) -> {
          PutMapCommand putMapCommand = (PutMapCommand) rCommand;
          if (!isStoreEnabled(putMapCommand) || rCtx.isInTxScope())
-            return;
+            return rv;
 
          Map<Object, Object> map = putMapCommand.getMap();
+         List<Object> keys = new ArrayList<>(map.size());
          for (Object key : map.keySet()) {
             if (isProperWriter(rCtx, putMapCommand, key)) {
-               storeEntry(rCtx, key, putMapCommand);
+               keys.add(key);
             }
          }
          if (getStatisticsEnabled())
             cacheStores.getAndAdd(map.size());
+         return delayedValue(storeEntriesAsync(rCtx, keys, putMapCommand), rv);
       });
    }
 
@@ -253,12 +260,12 @@ public Object visitWriteOnlyKeyValueCommand(InvocationContext ctx, WriteOnlyKeyV
 
    private <T extends DataWriteCommand & FunctionalCommand> Object visitWriteCommand(InvocationContext ctx,
          VisitableCommand command) throws Throwable {
-      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+      return invokeNextThenApply(ctx, command, (rCtx, rCommand, rv) -> {
          T dataWriteCommand = (T) rCommand;
          if (!isStoreEnabled(dataWriteCommand) || rCtx.isInTxScope() || !dataWriteCommand.isSuccessful())
-            return;
+            return rv;
          if (!isProperWriter(rCtx, dataWriteCommand, dataWriteCommand.getKey()))
-            return;
+            return rv;
 
          Param<PersistenceMode> persistMode = dataWriteCommand.getParams().get(PersistenceMode.ID);
          switch (persistMode.get()) {
@@ -267,12 +274,9 @@ private <T extends DataWriteCommand & FunctionalCommand> Object visitWriteComman
                CacheEntry entry = rCtx.lookupEntry(key);
                if (entry != null) {
                   if (entry.isRemoved()) {
-                     boolean resp = persistenceManager.deleteFromAllStores(key, BOTH);
-                     if (trace)
-                        getLog().tracef("Removed entry under key %s and got response %s from CacheStore", key,
-                              resp);
+                     return delayedValue(deleteEntry(key, BOTH), rv);
                   } else if (entry.isChanged()) {
-                     storeEntry(rCtx, key, dataWriteCommand);
+                     return delayedValue(storeEntryAsync(rCtx, key, dataWriteCommand), rv);
                   }
                }
                log.trace("Skipping cache store since entry was not found in context");
@@ -280,6 +284,7 @@ private <T extends DataWriteCommand & FunctionalCommand> Object visitWriteComman
             case SKIP:
                log.trace("Skipping cache store since persistence mode parameter is SKIP");
          }
+         return rv;
       });
    }
 
@@ -309,24 +314,24 @@ public Object visitReadWriteManyEntriesCommand(InvocationContext ctx, ReadWriteM
 
    private <T extends WriteCommand & FunctionalCommand> Object visitWriteManyCommand(InvocationContext ctx,
                                                                                                    WriteCommand command) throws Throwable {
-      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+      return invokeNextThenApply(ctx, command, (rCtx, rCommand, rv) -> {
          T manyEntriesCommand = (T) rCommand;
          if (!isStoreEnabled(manyEntriesCommand) || rCtx.isInTxScope())
-            return;
+            return rv;
 
          Param<PersistenceMode> persistMode = manyEntriesCommand.getParams().get(PersistenceMode.ID);
          switch (persistMode.get()) {
             case PERSIST:
                int storedCount = 0;
+               CompletionStage<Void> stored = null;
                for (Object key : ((WriteCommand) rCommand).getAffectedKeys()) {
                   CacheEntry entry = rCtx.lookupEntry(key);
                   if (entry != null) {
                      if (entry.isRemoved()) {
-                        boolean resp = persistenceManager.deleteFromAllStores(key, BOTH);
-                        if (trace) getLog().tracef("Removed entry under key %s and got response %s from CacheStore", key, resp);
+                        stored = allOf(stored, deleteEntry(key, BOTH));
                      } else {
                         if (entry.isChanged() && isProperWriter(rCtx, manyEntriesCommand, key)) {
-                           storeEntry(rCtx, key, manyEntriesCommand);
+                           stored = allOf(stored, storeEntryAsync(rCtx, key, manyEntriesCommand));
                            storedCount++;
                         }
                      }
@@ -335,10 +340,11 @@ private <T extends WriteCommand & FunctionalCommand> Object visitWriteManyComman
 
                if (getStatisticsEnabled())
                   cacheStores.getAndAdd(storedCount);
-               break;
+               return delayedValue(stored, rv);
             case SKIP:
                log.trace("Skipping cache store since persistence mode parameter is SKIP");
          }
+         return rv;
       });
    }
 
@@ -475,11 +481,68 @@ public long getWritesToTheStores() {
       return cacheStores.get();
    }
 
-   void storeEntry(InvocationContext ctx, Object key, FlagAffectedCommand command) {
+   /**
+    * Writes the entry to the stores without blocking the caller.
+    */
+   CompletionStage<Void> storeEntryAsync(InvocationContext ctx, Object key, FlagAffectedCommand command) {
       InternalCacheValue sv = getStoredValue(key, ctx);
-      persistenceManager.writeToAllNonTxStores(new MarshalledEntryImpl(key, sv.getValue(), internalMetadata(sv), marshaller),
-                                               skipSharedStores(ctx, key, command) ? PRIVATE : BOTH, command.getFlagsBitSet());
-      if (trace) getLog().tracef("Stored entry %s under key %s", sv, key);
+      CompletionStage<Void> stored = persistenceManager.writeToAllNonTxStoresAsync(
+            new MarshalledEntryImpl(key, sv.getValue(), internalMetadata(sv), marshaller),
+            skipSharedStores(ctx, key, command) ? PRIVATE : BOTH, command.getFlagsBitSet());
+      if (trace) getLog().tracef("Storing entry %s under key %s", sv, key);
+      return stored;
+   }
+
+   /**
+    * Writes the entries to the stores without blocking the caller. Each store receives the entries in a single batch
+    * per access mode.
+    */
+   CompletionStage<Void> storeEntriesAsync(InvocationContext ctx, Collection<Object> keys, FlagAffectedCommand command) {
+      List<MarshalledEntry> privateEntries = new ArrayList<>();
+      List<MarshalledEntry> allEntries = new ArrayList<>(keys.size());
+      for (Object key : keys) {
+         InternalCacheValue sv = getStoredValue(key, ctx);
+         MarshalledEntry entry = new MarshalledEntryImpl(key, sv.getValue(), internalMetadata(sv), marshaller);
+         (skipSharedStores(ctx, key, command) ? privateEntries : allEntries).add(entry);
+      }
+      if (trace) getLog().tracef("Storing entries under keys %s", keys);
+      CompletionStage<Void> stored = null;
+      if (!privateEntries.isEmpty())
+         stored = persistenceManager.writeBatchToAllNonTxStoresAsync(privateEntries, PRIVATE, command.getFlagsBitSet());
+      if (!allEntries.isEmpty())
+         stored = allOf(stored, persistenceManager.writeBatchToAllNonTxStoresAsync(allEntries, BOTH, command.getFlagsBitSet()));
+      return stored;
+   }
+
+   /**
+    * Removes the key from the stores without blocking the caller.
+    */
+   CompletionStage<Void> deleteEntry(Object key, PersistenceManager.AccessMode mode) {
+      return persistenceManager.deleteFromAllStoresAsync(key, mode).thenAccept(resp -> {
+         if (trace)
+            getLog().tracef("Removed entry under key %s and got response %s from CacheStore", key, resp);
+      });
+   }
+
+   /**
+    * Combines the stages of the store operations issued by the same command, {@code all} may be {@code null}.
+    */
+   static CompletionStage<Void> allOf(CompletionStage<Void> all, CompletionStage<Void> stage) {
+      return all == null ? stage : all.thenCombine(stage, (v1, v2) -> null);
+   }
+
+   /**
+    * Continues the invocation with the given return value once the store operations completed.
+    */
+   static Object delayedValue(CompletionStage<Void> stage, Object rv) {
+      if (stage == null)
+         return rv;
+
+      CompletableFuture<Void> future = stage.toCompletableFuture();
+      if (future.isDone() && !future.isCompletedExceptionally())
+         return rv;
+
+      return asyncValue(future.thenApply(ignore -> rv));
    }
 
    protected boolean skipSharedStores(InvocationContext ctx, Object key, FlagAffectedCommand command) {
@@ -3,7 +3,10 @@
 import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.BOTH;
 import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.PRIVATE;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
@@ -72,10 +75,10 @@ public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand
          if (!isProperWriter(rCtx, putKeyValueCommand, putKeyValueCommand.getKey()))
             return rv;
 
-         storeEntry(rCtx, key, putKeyValueCommand);
+         CompletionStage<Void> stored = storeEntryAsync(rCtx, key, putKeyValueCommand);
          if (getStatisticsEnabled())
             cacheStores.incrementAndGet();
-         return rv;
+         return delayedValue(stored, rv);
       });
    }
 
@@ -84,11 +87,11 @@ public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) t
       if (!isStoreEnabled(command) || ctx.isInTxScope())
          return invokeNext(ctx, command);
 
-      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+      return invokeNextThenApply(ctx, command, (rCtx, rCommand, rv) -> {
          PutMapCommand putMapCommand = (PutMapCommand) rCommand;
          LocalizedCacheTopology cacheTopology = dm.getCacheTopology();
          Map<Object, Object> map = putMapCommand.getMap();
-         int count = 0;
+         List<Object> keys = new ArrayList<>(map.size());
          for (Object key : map.keySet()) {
             // In non-tx mode, a node may receive the same forwarded PutMapCommand many times - but each time
             // it must write only the keys locked on the primary owner that forwarded the command
@@ -97,12 +100,12 @@ public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) t
                continue;
 
             if (isProperWriter(rCtx, putMapCommand, key)) {
-               storeEntry(rCtx, key, putMapCommand);
-               count++;
+               keys.add(key);
             }
          }
          if (getStatisticsEnabled())
-            cacheStores.getAndAdd(count);
+            cacheStores.getAndAdd(keys.size());
+         return delayedValue(storeEntriesAsync(rCtx, keys, putMapCommand), rv);
       });
    }
 
@@ -116,12 +119,7 @@ public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) t
          if (!isProperWriter(rCtx, removeCommand, key))
             return rv;
 
-         boolean resp = persistenceManager
-               .deleteFromAllStores(key, skipSharedStores(rCtx, key, removeCommand) ? PRIVATE : BOTH);
-         if (trace)
-            log.tracef("Removed entry under key %s and got response %s from CacheStore", key, resp);
-
-         return rv;
+         return delayedValue(deleteEntry(key, skipSharedStores(rCtx, key, removeCommand) ? PRIVATE : BOTH), rv);
       });
    }
 
@@ -136,11 +134,11 @@ public Object visitReplaceCommand(InvocationContext ctx, ReplaceCommand command)
          if (!isProperWriter(rCtx, replaceCommand, replaceCommand.getKey()))
             return rv;
 
-         storeEntry(rCtx, key, replaceCommand);
+         CompletionStage<Void> stored = storeEntryAsync(rCtx, key, replaceCommand);
          if (getStatisticsEnabled())
             cacheStores.incrementAndGet();
 
-         return rv;
+         return delayedValue(stored, rv);
       });
    }
 
@@ -140,9 +140,10 @@ protected void updateDomain(ComponentsJmxRegistration registrar, GlobalComponent
                                MBeanServer mBeanServer, String groupName) {
       CacheManagerJmxRegistration managerJmxReg = componentRegistry.getComponent(CacheManagerJmxRegistration.class);
       if (!globalConfig.globalJmxStatistics().enabled() && jmxDomain == null) {
-         String tmpJmxDomain = JmxUtil.buildJmxDomain(globalConfig, mBeanServer, groupName);
          synchronized (managerJmxReg) {
             if (managerJmxReg.jmxDomain == null) {
+               // Only the first cache looks for a free domain, the query scans all the registered MBeans
+               String tmpJmxDomain = JmxUtil.buildJmxDomain(globalConfig, mBeanServer, groupName);
                if (!tmpJmxDomain.equals(globalConfig.globalJmxStatistics().domain()) && !globalConfig.globalJmxStatistics().allowDuplicateDomains()) {
                   throw log.jmxMBeanAlreadyRegistered(tmpJmxDomain, globalConfig.globalJmxStatistics().domain());
                }
@@ -3,6 +3,8 @@
 import java.io.IOException;
 import java.io.ObjectInput;
 
+import org.infinispan.commons.marshall.PositionalObjectInput;
+
 /**
  * Array backed, expandable {@link ObjectInput} implementation.
  *
@@ -10,7 +12,7 @@
  * if a negative number is passed in, they skip backwards effectively
  * providing rewind capabilities.
  */
-final class BytesObjectInput implements ObjectInput {
+final class BytesObjectInput implements PositionalObjectInput {
 
    final byte bytes[];
 
@@ -100,6 +102,16 @@ public int skipBytes(int n) {
       return (int) skip(n);
    }
 
+   @Override
+   public int position() {
+      return pos;
+   }
+
+   @Override
+   public void position(int position) {
+      pos = position;
+   }
+
    @Override
    public boolean readBoolean() {
       return readByte() != 0;
@@ -5,11 +5,12 @@
 
 import org.infinispan.commons.io.ByteBuffer;
 import org.infinispan.commons.io.ByteBufferImpl;
+import org.infinispan.commons.marshall.PositionalObjectOutput;
 
 /**
  * Array backed, expandable {@link ObjectOutput} implementation.
  */
-final class BytesObjectOutput implements ObjectOutput {
+final class BytesObjectOutput implements PositionalObjectOutput {
 
    final GlobalMarshaller marshaller;
 
@@ -21,6 +22,14 @@ final class BytesObjectOutput implements ObjectOutput {
       this.marshaller = marshaller;
    }
 
+   /**
+    * Writes into an existing buffer, starting at its beginning.
+    */
+   BytesObjectOutput(byte[] bytes, GlobalMarshaller marshaller) {
+      this.bytes = bytes;
+      this.marshaller = marshaller;
+   }
+
    @Override
    public void writeObject(Object obj) throws IOException {
       marshaller.writeNullableObject(obj, this);
@@ -87,6 +96,19 @@ public void writeInt(int v) {
       pos = newcount;
    }
 
+   @Override
+   public int position() {
+      return pos;
+   }
+
+   @Override
+   public void writeInt(int position, int v) {
+      bytes[position] = (byte) (v >> 24);
+      bytes[position+1] = (byte) (v >> 16);
+      bytes[position+2] = (byte) (v >> 8);
+      bytes[position+3] = (byte) v;
+   }
+
    @Override
    public void writeLong(long v) {
       int newcount = ensureCapacity(8);
@@ -3,11 +3,14 @@
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.marshall.AdvancedExternalizer;
+import org.infinispan.commons.marshall.MarshallerAware;
+import org.infinispan.commons.util.ServiceFinder;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -19,10 +22,11 @@ final class ExternalExternalizers {
    private ExternalExternalizers() {
    }
 
-   static ClassToExternalizerMap load(GlobalConfiguration globalCfg) {
+   static ClassToExternalizerMap load(GlobalMarshaller marshaller, GlobalConfiguration globalCfg) {
       ClassToExternalizerMap exts = new ClassToExternalizerMap(4, 0.375f);
 
       Map<Integer, AdvancedExternalizer<?>> cfgExts = globalCfg.serialization().advancedExternalizers();
+      Map<Integer, AdvancedExternalizer<?>> usedIds = new HashMap<>();
       for (Map.Entry<Integer, AdvancedExternalizer<?>> config : cfgExts.entrySet()) {
          AdvancedExternalizer ext = config.getValue();
 
@@ -38,16 +42,42 @@ else if (config.getKey() != null)
             id = config.getKey();
 
          checkForeignIdLimit(id, ext);
+         usedIds.put(id, ext);
+         register(marshaller, exts, id, ext);
+      }
 
-         Set<Class> subTypes = ext.getTypeClasses();
-         ForeignAdvancedExternalizer foreignExt = new ForeignAdvancedExternalizer(id, ext);
-         for (Class<?> subType : subTypes)
-            exts.put(subType, foreignExt);
+      // Externalizers generated from @GenerateExternalizer, that may also have been configured explicitly
+      for (AdvancedExternalizer<?> ext : ServiceFinder.load(AdvancedExternalizer.class, globalCfg.classLoader())) {
+         Integer id = ext.getId();
+         if (id == null)
+            throw new CacheConfigurationException(String.format(
+                  "No advanced externalizer identifier set for externalizer %s",
+                  ext.getClass().getName()));
+         checkForeignIdLimit(id, ext);
+         AdvancedExternalizer<?> existing = usedIds.putIfAbsent(id, ext);
+         if (existing != null) {
+            if (existing.getClass() != ext.getClass())
+               throw log.duplicateExternalizerIdFound(id, existing.getClass().getName());
+            continue;
+         }
+         if (log.isTraceEnabled())
+            log.tracef("Loaded generated externalizer %s with id %d", ext.getClass().getName(), id);
+         register(marshaller, exts, id, ext);
       }
 
       return exts;
    }
 
+   private static void register(GlobalMarshaller marshaller, ClassToExternalizerMap exts, int id,
+                                AdvancedExternalizer ext) {
+      if (ext instanceof MarshallerAware)
+         ((MarshallerAware) ext).setMarshaller(marshaller);
+      Set<Class> subTypes = ext.getTypeClasses();
+      ForeignAdvancedExternalizer foreignExt = new ForeignAdvancedExternalizer(id, ext);
+      for (Class<?> subType : subTypes)
+         exts.put(subType, foreignExt);
+   }
+
    private static void checkForeignIdLimit(int id, AdvancedExternalizer<?> ext) {
       if (id < 0)
          throw log.foreignExternalizerUsingNegativeId(ext, id);
@@ -12,6 +12,7 @@
 import org.infinispan.commands.RemoteCommandsFactory;
 import org.infinispan.commons.CacheException;
 import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.io.ByteBufferImpl;
 import org.infinispan.commons.io.ExposedByteArrayOutputStream;
 import org.infinispan.commons.marshall.AdvancedExternalizer;
 import org.infinispan.commons.marshall.BufferSizePredictor;
@@ -93,6 +94,22 @@ public class GlobalMarshaller implements StreamingMarshaller {
    static final int FLAG_ARRAY_LARGE               = 0xC0;
 
 
+   /**
+    * The initial size of the marshalling buffers kept by each thread.
+    */
+   static final int POOLED_OUTPUT_INITIAL_SIZE = 1024;
+   /**
+    * The marshalling buffers that grow bigger than this are not kept, so that a few big objects don't keep a lot of
+    * memory in every thread.
+    */
+   static final int POOLED_OUTPUT_MAX_SIZE = 64 * 1024;
+
+   /**
+    * The marshalling buffer of each thread. Only the array is pooled, so that the buffer doesn't keep a marshaller, and
+    * with it a stopped cache manager, reachable from the threads that used it.
+    */
+   private static final ThreadLocal<byte[]> POOLED_BUFFERS = new ThreadLocal<>();
+
    private final MarshallableTypeHints marshallableTypeHints = new MarshallableTypeHints();
 
    private GlobalComponentRegistry gcr;
@@ -129,7 +146,7 @@ public void start() {
          log.tracef("Internal reverse externalizers: %s", reverseInternalExts);
       }
 
-      externalExts = ExternalExternalizers.load(gcr.getGlobalConfiguration());
+      externalExts = ExternalExternalizers.load(this, gcr.getGlobalConfiguration());
       reverseExternalExts = externalExts.reverseMap();
       if (trace) {
          log.tracef("External class to externalizer ids: %s", externalExts);
@@ -167,20 +184,35 @@ public void stopDefaultExternalMarshaller() {
 
    @Override
    public byte[] objectToByteBuffer(Object obj) throws IOException, InterruptedException {
+      BytesObjectOutput out = takePooledOutput();
       try {
-         BytesObjectOutput out = writeObjectOutput(obj);
+         writeNullableObject(obj, out);
          return out.toBytes(); // trim out unused bytes
       } catch (java.io.NotSerializableException nse) {
          if (log.isDebugEnabled()) log.debug("Object is not serializable", nse);
          throw new NotSerializableException(nse.getMessage(), nse.getCause());
+      } finally {
+         releasePooledOutput(out);
       }
    }
 
-   private BytesObjectOutput writeObjectOutput(Object obj) throws IOException {
-      BufferSizePredictor sizePredictor = marshallableTypeHints.getBufferSizePredictor(obj);
-      BytesObjectOutput out = writeObjectOutput(obj, sizePredictor.nextSize(obj));
-      sizePredictor.recordSize(out.pos);
-      return out;
+   /**
+    * Takes the calling thread's marshalling buffer out of the pool, so that a nested marshalling call allocates its own
+    * buffer.
+    */
+   private BytesObjectOutput takePooledOutput() {
+      byte[] bytes = POOLED_BUFFERS.get();
+      if (bytes == null) {
+         return new BytesObjectOutput(POOLED_OUTPUT_INITIAL_SIZE, this);
+      }
+      POOLED_BUFFERS.set(null);
+      return new BytesObjectOutput(bytes, this);
+   }
+
+   private static void releasePooledOutput(BytesObjectOutput out) {
+      if (out.bytes.length <= POOLED_OUTPUT_MAX_SIZE) {
+         POOLED_BUFFERS.set(out.bytes);
+      }
    }
 
    private BytesObjectOutput writeObjectOutput(Object obj, int estimatedSize) throws IOException {
@@ -301,12 +333,21 @@ public BufferSizePredictor getBufferSizePredictor(Object o) {
 
    @Override
    public ByteBuffer objectToBuffer(Object o) throws IOException, InterruptedException {
+      // The transport keeps the buffer until the message is acknowledged, so only the marshalling buffer is reused
+      BytesObjectOutput out = takePooledOutput();
       try {
-         BytesObjectOutput out = writeObjectOutput(o);
-         return out.toByteBuffer();
+         writeNullableObject(o, out);
+         if (out.bytes.length > POOLED_OUTPUT_MAX_SIZE) {
+            // The buffer won't be pooled, so there's no need to copy it
+            return out.toByteBuffer();
+         }
+         byte[] bytes = out.toBytes();
+         return new ByteBufferImpl(bytes, 0, bytes.length);
       } catch (java.io.NotSerializableException nse) {
          if (log.isDebugEnabled()) log.debug("Object is not serializable", nse);
          throw new NotSerializableException(nse.getMessage(), nse.getCause());
+      } finally {
+         releasePooledOutput(out);
       }
    }
 
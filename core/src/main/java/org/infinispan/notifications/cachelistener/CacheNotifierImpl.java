@@ -62,7 +62,6 @@
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.filter.CacheFilters;
 import org.infinispan.filter.KeyFilter;
-import org.infinispan.interceptors.AsyncInterceptorChain;
 import org.infinispan.interceptors.locking.ClusteringDependentLogic;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.metadata.Metadata;
@@ -186,7 +185,8 @@
    private Cache<K, V> cache;
    private ClusteringDependentLogic clusteringDependentLogic;
    private TransactionManager transactionManager;
-   private DistributedExecutorService distExecutorService;
+   // Created on first use, see getDistExecutorService()
+   private volatile DistributedExecutorService distExecutorService;
    private Configuration config;
    private DistributionManager distributionManager;
    private InternalEntryFactory entryFactory;
@@ -200,6 +200,7 @@
 
    private final Map<Object, UUID> clusterListenerIDs = new ConcurrentHashMap<>();
 
+   // Loaded on first use, see getFilterIndexingServiceProviders()
    private Collection<FilterIndexingServiceProvider> filterIndexingServiceProviders;
 
    /**
@@ -254,13 +255,29 @@ void injectDependencies(Cache<K, V> cache, ClusteringDependentLogic clusteringDe
    @Override
    public void start() {
       super.start();
-      AsyncInterceptorChain interceptorChain = SecurityActions.getAsyncInterceptorChain(cache);
-      if (interceptorChain != null && !interceptorChain.getInterceptors().isEmpty()) {
-         this.distExecutorService = SecurityActions.getDefaultExecutorService(cache);
-      }
       componentRegistry = cache.getAdvancedCache().getComponentRegistry();
       cacheConverter = componentRegistry.getComponent(TypeConverter.class);
+   }
+
+   @Override
+   public void stop() {
+      super.stop();
       //TODO This is executed twice because component CacheNotifier is also ClusterCacheNotifier (see https://issues.jboss.org/browse/ISPN-5353)
+      synchronized (this) {
+         if (filterIndexingServiceProviders != null) {
+            for (FilterIndexingServiceProvider provider : filterIndexingServiceProviders) {
+               provider.stop();
+            }
+            filterIndexingServiceProviders = null;
+         }
+      }
+   }
+
+   /**
+    * Most caches never register a listener with an indexed filter, so the providers are only loaded and started
+    * when the first one is registered.
+    */
+   private synchronized Collection<FilterIndexingServiceProvider> getFilterIndexingServiceProviders() {
       if (filterIndexingServiceProviders == null) {
          filterIndexingServiceProviders = ServiceFinder.load(FilterIndexingServiceProvider.class);
          for (FilterIndexingServiceProvider provider : filterIndexingServiceProviders) {
@@ -268,18 +285,25 @@ public void start() {
             provider.start();
          }
       }
+      return filterIndexingServiceProviders;
    }
 
-   @Override
-   public void stop() {
-      super.stop();
-      //TODO This is executed twice because component CacheNotifier is also ClusterCacheNotifier (see https://issues.jboss.org/browse/ISPN-5353)
-      if (filterIndexingServiceProviders != null) {
-         for (FilterIndexingServiceProvider provider : filterIndexingServiceProviders) {
-            provider.stop();
+   /**
+    * The executor is only needed to replicate the cluster listeners, so it is created when the first one is
+    * registered.
+    */
+   private DistributedExecutorService getDistExecutorService() {
+      DistributedExecutorService executorService = distExecutorService;
+      if (executorService == null) {
+         synchronized (this) {
+            executorService = distExecutorService;
+            if (executorService == null) {
+               executorService = SecurityActions.getDefaultExecutorService(cache);
+               distExecutorService = executorService;
+            }
          }
-         filterIndexingServiceProviders = null;
       }
+      return executorService;
    }
 
    @Override
@@ -871,7 +895,7 @@ public <C> void addListener(Object listener, CacheEventFilter<? super K, ? super
             List<Address> members = manager.getMembers();
             // If we are the only member don't even worry about sending listeners
             if (members != null && members.size() > 1) {
-               DistributedExecutionCompletionService decs = new DistributedExecutionCompletionService(distExecutorService);
+               DistributedExecutionCompletionService decs = new DistributedExecutionCompletionService(getDistExecutorService());
 
                if (trace) {
                   log.tracef("Replicating cluster listener to other nodes %s for cluster listener with id %s",
@@ -980,7 +1004,7 @@ public <C> void addListener(Object listener, CacheEventFilter<? super K, ? super
    }
 
    private FilterIndexingServiceProvider findIndexingServiceProvider(IndexedFilter indexedFilter) {
-      for (FilterIndexingServiceProvider provider : filterIndexingServiceProviders) {
+      for (FilterIndexingServiceProvider provider : getFilterIndexingServiceProviders()) {
          if (provider.supportsFilter(indexedFilter)) {
             return provider;
          }
@@ -1094,7 +1118,7 @@ public <C> void addFilteredListener(Object listener, CacheEventFilter<? super K,
             List<Address> members = manager.getMembers();
             // If we are the only member don't even worry about sending listeners
             if (members != null && members.size() > 1) {
-               DistributedExecutionCompletionService decs = new DistributedExecutionCompletionService(distExecutorService);
+               DistributedExecutionCompletionService decs = new DistributedExecutionCompletionService(getDistExecutorService());
 
                if (trace) {
                   log.tracef("Replicating cluster listener to other nodes %s for cluster listener with id %s",
@@ -1644,7 +1668,7 @@ public void removeListener(Object listener) {
       super.removeListener(listener);
       UUID id = clusterListenerIDs.remove(listener);
       if (id != null) {
-         List<Future<?>> futures = distExecutorService.submitEverywhere(new ClusterListenerRemoveCallable(id));
+         List<Future<?>> futures = getDistExecutorService().submitEverywhere(new ClusterListenerRemoveCallable(id));
          for (Future<?> future : futures) {
             try {
                future.get();
@@ -1,8 +1,16 @@
 package org.infinispan.persistence;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -11,6 +19,7 @@
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.entries.InternalCacheValue;
 import org.infinispan.context.InvocationContext;
+import org.infinispan.distribution.ch.KeyPartitioner;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.metadata.InternalMetadata;
@@ -18,6 +27,7 @@
 import org.infinispan.metadata.impl.InternalMetadataImpl;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.persistence.spi.SegmentedCacheLoader;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
@@ -58,6 +68,23 @@ public static <K, V> Set<InternalCacheEntry> toEntrySet(AdvancedCacheLoader<K, V
       return set;
    }
 
+   /**
+    * Iterates over the entries of the loader that map to the given segments. A {@link SegmentedCacheLoader} only reads
+    * the requested segments, any other loader is iterated fully and its keys are filtered by segment.
+    */
+   public static <K, V> void processSegments(AdvancedCacheLoader<K, V> acl, Set<Integer> segments,
+                                             KeyPartitioner keyPartitioner, KeyFilter<? super K> filter,
+                                             AdvancedCacheLoader.CacheLoaderTask<K, V> task, Executor executor,
+                                             boolean fetchValue, boolean fetchMetadata) {
+      if (acl instanceof SegmentedCacheLoader) {
+         ((SegmentedCacheLoader<K, V>) acl).process(segments, filter, task, executor, fetchValue, fetchMetadata);
+      } else {
+         KeyFilter<? super K> keyFilter = notNull(filter);
+         acl.process(key -> segments.contains(keyPartitioner.getSegment(key)) && keyFilter.accept(key), task, executor,
+                     fetchValue, fetchMetadata);
+      }
+   }
+
    public static long getExpiryTime(InternalMetadata internalMetadata) {
       return internalMetadata == null ? -1 : internalMetadata.expiryTime();
    }
@@ -99,6 +126,200 @@ public static <K, V> InternalCacheEntry<K,V> loadAndStoreInDataContainer(DataCon
       });
    }
 
+   /**
+    * Same as {@link #loadAndStoreInDataContainer(DataContainer, PersistenceManager, Object, InvocationContext,
+    * TimeService, AtomicReference)}, but the stores are queried without blocking the caller and without holding the
+    * data container lock. If an entry was stored in the data container in the meantime, it is kept and the loaded one
+    * is discarded. If the key was written to or deleted from the stores in the meantime, the loaded entry may be stale,
+    * so it is discarded and the key is loaded again.
+    */
+   public static <K, V> CompletionStage<InternalCacheEntry<K, V>> loadAndStoreInDataContainerAsync(DataContainer<K, V> dataContainer,
+                                                                  final PersistenceManager persistenceManager, K key,
+                                                                  final InvocationContext ctx, final TimeService timeService,
+                                                                  final AtomicReference<Boolean> isLoaded) {
+      InternalCacheEntry<K, V> existing = dataContainer.peek(key);
+      if (existing != null && (!existing.canExpire() || !existing.isExpired(timeService.wallClockTime()))) {
+         if (isLoaded != null) {
+            isLoaded.set(null); //not loaded
+         }
+         return CompletableFuture.completedFuture(existing);
+      }
+
+      long stamp = persistenceManager.writeStamp(key);
+      return persistenceManager.loadFromAllStoresAsync(key, ctx).thenCompose(me -> {
+         AtomicBoolean stale = new AtomicBoolean();
+         InternalCacheEntry<K, V> entry = storeLoadedEntry(dataContainer, persistenceManager, key,
+                                                           checkExpiration(me, key, timeService), stamp, stale,
+                                                           timeService, isLoaded);
+         return stale.get() ?
+               loadAndStoreInDataContainerAsync(dataContainer, persistenceManager, key, ctx, timeService, isLoaded) :
+               CompletableFuture.completedFuture(entry);
+      });
+   }
+
+   /**
+    * Same as {@link #loadAndStoreInDataContainer(DataContainer, PersistenceManager, Object, InvocationContext,
+    * TimeService, AtomicReference)} for many keys, but the keys missing in the data container are loaded with a single
+    * {@link PersistenceManager#loadBatchFromAllStores(java.util.Collection, InvocationContext)} invocation, outside of
+    * the data container lock. If an entry was stored in the data container in the meantime, it is kept and the loaded
+    * one is discarded. If a key was written to or deleted from the stores in the meantime, it is loaded again while
+    * holding the data container lock, like {@link #loadAndStoreInDataContainer(DataContainer, PersistenceManager,
+    * Object, InvocationContext, TimeService, AtomicReference)} does.
+    *
+    * @param isLoaded set to whether each key was loaded, in the same order as {@code keys}
+    * @return the entries in the data container, in the same order as {@code keys}
+    */
+   public static <K, V> List<InternalCacheEntry<K, V>> loadBatchAndStoreInDataContainer(DataContainer<K, V> dataContainer,
+                                                                  final PersistenceManager persistenceManager, List<K> keys,
+                                                                  final InvocationContext ctx, final TimeService timeService,
+                                                                  final List<AtomicReference<Boolean>> isLoaded) {
+      List<InternalCacheEntry<K, V>> entries = peekAll(dataContainer, keys, timeService);
+      List<K> missing = missingKeys(keys, entries);
+      Map<Object, Long> stamps = writeStamps(persistenceManager, missing);
+      Map<Object, MarshalledEntry> loaded = missing.isEmpty() ? Collections.emptyMap() :
+            persistenceManager.loadBatchFromAllStores(missing, ctx);
+      List<Integer> stale = storeLoadedEntries(dataContainer, persistenceManager, keys, entries, loaded, stamps,
+                                               timeService, isLoaded);
+      for (int i : stale) {
+         entries.set(i, loadAndStoreInDataContainer(dataContainer, persistenceManager, keys.get(i), ctx, timeService,
+                                                    isLoaded.get(i)));
+      }
+      return entries;
+   }
+
+   /**
+    * Same as {@link #loadBatchAndStoreInDataContainer(DataContainer, PersistenceManager, List, InvocationContext,
+    * TimeService, List)}, but the stores are queried without blocking the caller. The keys written to or deleted from
+    * the stores while loading are loaded again with {@link #loadAndStoreInDataContainerAsync(DataContainer,
+    * PersistenceManager, Object, InvocationContext, TimeService, AtomicReference)}.
+    */
+   public static <K, V> CompletionStage<List<InternalCacheEntry<K, V>>> loadBatchAndStoreInDataContainerAsync(DataContainer<K, V> dataContainer,
+                                                                  final PersistenceManager persistenceManager, List<K> keys,
+                                                                  final InvocationContext ctx, final TimeService timeService,
+                                                                  final List<AtomicReference<Boolean>> isLoaded) {
+      List<InternalCacheEntry<K, V>> entries = peekAll(dataContainer, keys, timeService);
+      List<K> missing = missingKeys(keys, entries);
+      Map<Object, Long> stamps = writeStamps(persistenceManager, missing);
+      if (missing.isEmpty()) {
+         storeLoadedEntries(dataContainer, persistenceManager, keys, entries, Collections.emptyMap(), stamps,
+                            timeService, isLoaded);
+         return CompletableFuture.completedFuture(entries);
+      }
+      return persistenceManager.loadBatchFromAllStoresAsync(missing, ctx).thenCompose(loaded -> {
+         List<Integer> stale = storeLoadedEntries(dataContainer, persistenceManager, keys, entries, loaded, stamps,
+                                                  timeService, isLoaded);
+         if (stale.isEmpty()) {
+            return CompletableFuture.completedFuture(entries);
+         }
+         CompletableFuture<?>[] reloads = new CompletableFuture[stale.size()];
+         for (int j = 0; j < reloads.length; j++) {
+            int i = stale.get(j);
+            reloads[j] = loadAndStoreInDataContainerAsync(dataContainer, persistenceManager, keys.get(i), ctx,
+                                                          timeService, isLoaded.get(i))
+                  .thenAccept(entry -> entries.set(i, entry)).toCompletableFuture();
+         }
+         return CompletableFuture.allOf(reloads).thenApply(v -> entries);
+      });
+   }
+
+   private static <K> Map<Object, Long> writeStamps(PersistenceManager persistenceManager, List<K> keys) {
+      Map<Object, Long> stamps = new HashMap<>();
+      for (K key : keys) {
+         stamps.put(key, persistenceManager.writeStamp(key));
+      }
+      return stamps;
+   }
+
+   private static <K, V> List<InternalCacheEntry<K, V>> peekAll(DataContainer<K, V> dataContainer, List<K> keys,
+                                                               TimeService timeService) {
+      List<InternalCacheEntry<K, V>> entries = new ArrayList<>(keys.size());
+      for (K key : keys) {
+         InternalCacheEntry<K, V> existing = dataContainer.peek(key);
+         if (existing != null && existing.canExpire() && existing.isExpired(timeService.wallClockTime())) {
+            existing = null;
+         }
+         entries.add(existing);
+      }
+      return entries;
+   }
+
+   private static <K, V> List<K> missingKeys(List<K> keys, List<InternalCacheEntry<K, V>> entries) {
+      List<K> missing = new ArrayList<>();
+      for (int i = 0; i < keys.size(); i++) {
+         if (entries.get(i) == null) {
+            missing.add(keys.get(i));
+         }
+      }
+      return missing;
+   }
+
+   /**
+    * Stores the loaded entries of the keys that were missing in the data container in {@code entries}.
+    *
+    * @return the indexes of the keys whose loaded entries were discarded because they may be stale
+    */
+   private static <K, V> List<Integer> storeLoadedEntries(DataContainer<K, V> dataContainer,
+                                                          PersistenceManager persistenceManager, List<K> keys,
+                                                          List<InternalCacheEntry<K, V>> entries,
+                                                          Map<Object, MarshalledEntry> loaded,
+                                                          Map<Object, Long> stamps, TimeService timeService,
+                                                          List<AtomicReference<Boolean>> isLoaded) {
+      List<Integer> staleIndexes = new ArrayList<>();
+      for (int i = 0; i < keys.size(); i++) {
+         if (entries.get(i) != null) {
+            isLoaded.get(i).set(null); //not loaded
+         } else {
+            K key = keys.get(i);
+            MarshalledEntry me = checkExpiration(loaded.get(key), key, timeService);
+            AtomicBoolean stale = new AtomicBoolean();
+            entries.set(i, storeLoadedEntry(dataContainer, persistenceManager, key, me, stamps.get(key), stale,
+                                            timeService, isLoaded.get(i)));
+            if (stale.get()) {
+               staleIndexes.add(i);
+            }
+         }
+      }
+      return staleIndexes;
+   }
+
+   /**
+    * Stores an entry loaded without holding the data container lock. Writers update the stores before the data
+    * container, so if the key was written to or deleted from the stores since the stamp was taken, the loaded entry
+    * may be older than the stores: it is discarded and {@code stale} is set, so that the caller loads the key again.
+    */
+   private static <K, V> InternalCacheEntry<K, V> storeLoadedEntry(DataContainer<K, V> dataContainer,
+                                                                  PersistenceManager persistenceManager, K key,
+                                                                  MarshalledEntry loaded, long stamp,
+                                                                  AtomicBoolean stale, TimeService timeService,
+                                                                  AtomicReference<Boolean> isLoaded) {
+      return dataContainer.compute(key, (k, oldEntry, factory) -> {
+         //under the lock, check if the entry was stored in the DataContainer while loading
+         if (oldEntry != null && (!oldEntry.canExpire() || !oldEntry.isExpired(timeService.wallClockTime()))) {
+            if (isLoaded != null) {
+               isLoaded.set(null); //not loaded
+            }
+            return oldEntry; //no changes in container
+         }
+
+         if (persistenceManager.isWrittenSince(k, stamp)) {
+            stale.set(true);
+            return null; //the expired entry, if any, is removed like when nothing is loaded
+         }
+
+         if (loaded == null) {
+            if (isLoaded != null) {
+               isLoaded.set(Boolean.FALSE); //not loaded
+            }
+            return null; //no changed in container
+         }
+
+         if (isLoaded != null) {
+            isLoaded.set(Boolean.TRUE); //loaded!
+         }
+         return convert(loaded, factory);
+      });
+   }
+
    public static <K, V> InternalCacheEntry<K,V> loadAndComputeInDataContainer(DataContainer<K, V> dataContainer, final PersistenceManager persistenceManager,
                                                                               K key, final InvocationContext ctx, final TimeService timeService,
                                                                               DataContainer.ComputeAction<K, V> action) {
@@ -120,7 +341,10 @@ public static <K, V> InternalCacheEntry<K,V> loadAndComputeInDataContainer(DataC
 
    public static MarshalledEntry loadAndCheckExpiration(PersistenceManager persistenceManager, Object key,
                                                         InvocationContext context, TimeService timeService) {
-      final MarshalledEntry loaded = persistenceManager.loadFromAllStores(key, context);
+      return checkExpiration(persistenceManager.loadFromAllStores(key, context), key, timeService);
+   }
+
+   private static MarshalledEntry checkExpiration(MarshalledEntry loaded, Object key, TimeService timeService) {
       if (trace) {
          log.tracef("Loaded %s for key %s from persistence.", loaded, key);
       }
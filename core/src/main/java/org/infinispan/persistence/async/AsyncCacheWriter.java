@@ -12,6 +12,8 @@
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 import org.infinispan.Cache;
 import org.infinispan.commons.CacheException;
@@ -20,12 +22,14 @@
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.persistence.modifications.Modification;
+import org.infinispan.persistence.modifications.ModificationsList;
 import org.infinispan.persistence.modifications.Remove;
 import org.infinispan.persistence.modifications.Store;
 import org.infinispan.persistence.spi.CacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.persistence.support.DelegatingCacheWriter;
+import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -49,6 +53,12 @@
  * <p/>
  * Write operations affecting same key are now coalesced so that only the final state is actually stored.
  * <p/>
+ * Modifications are flushed as soon as they are available, unless a
+ * {@link AsyncStoreConfiguration#flushInterval() flush interval} is configured: the modifications are then buffered
+ * until the interval elapses or the {@link AsyncStoreConfiguration#flushThreshold() flush threshold} is reached,
+ * so that repeated writes to the same key are coalesced and the underlying store receives them through
+ * {@link CacheWriter#writeBatch(Iterable)} and {@link CacheWriter#deleteBatch(Iterable)}.
+ * <p/>
  *
  * @author Manik Surtani
  * @author Galder Zamarreño
@@ -66,12 +76,17 @@ public class AsyncCacheWriter extends DelegatingCacheWriter {
    private Thread coordinator;
    private int concurrencyLevel;
    private String cacheName;
+   private TimeService timeService;
+   private long flushIntervalNanos;
+   private int flushThreshold;
+   private final LongAdder flushCount = new LongAdder();
+   private final LongAdder flushTimeNanos = new LongAdder();
 
    protected BufferLock stateLock;
    @GuardedBy("stateLock")
    protected final AtomicReference<State> state = new AtomicReference<State>();
    @GuardedBy("stateLock")
-   private boolean stopped;
+   private volatile boolean stopped;
 
    protected AsyncStoreConfiguration asyncConfiguration;
 
@@ -88,6 +103,7 @@ public void init(InitializationContext ctx) {
       Configuration cacheCfg = cache != null ? cache.getCacheConfiguration() : null;
       concurrencyLevel = cacheCfg != null ? cacheCfg.locking().concurrencyLevel() : 16;
       cacheName = cache != null ? cache.getName() : null;
+      timeService = ctx.getTimeService();
    }
 
    @Override
@@ -95,7 +111,13 @@ public void start() {
       log.debugf("Async cache loader starting %s", this);
       state.set(newState(false, null));
       stopped = false;
-      stateLock = new BufferLock(asyncConfiguration.modificationQueueSize());
+      int queueSize = asyncConfiguration.modificationQueueSize();
+      stateLock = new BufferLock(queueSize);
+      flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(asyncConfiguration.flushInterval());
+      // Never wait for more modifications than the queue can hold, writers would block forever
+      flushThreshold = queueSize > 0 ? queueSize : Integer.MAX_VALUE;
+      if (asyncConfiguration.flushThreshold() > 0)
+         flushThreshold = Math.min(flushThreshold, asyncConfiguration.flushThreshold());
 
       // Create a thread pool with unbounded work queue, so that all work is accepted and eventually
       // executed. A bounded queue could throw RejectedExecutionException and thus lose data.
@@ -121,6 +143,7 @@ public void stop() {
       stateLock.writeLock(0);
       stopped = true;
       stateLock.writeUnlock();
+      LockSupport.unpark(coordinator);
       try {
          // It is safe to wait without timeout because the thread pool uses an unbounded work queue (i.e.
          // all work handed to the pool will be accepted and eventually executed) and AsyncStoreProcessors
@@ -151,19 +174,47 @@ public boolean delete(Object key) {
       return true;
    }
 
+   @Override
+   public void writeBatch(Iterable entries) {
+      List<Modification> mods = new ArrayList<>();
+      for (Object entry : entries) {
+         MarshalledEntry me = (MarshalledEntry) entry;
+         mods.add(new Store(me.getKey(), me));
+      }
+      if (!mods.isEmpty())
+         put(new ModificationsList(mods), mods.size());
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      List<Modification> mods = new ArrayList<>();
+      for (Object key : keys) {
+         mods.add(new Remove(key));
+      }
+      if (!mods.isEmpty())
+         put(new ModificationsList(mods), mods.size());
+   }
+
    protected void applyModificationsSync(List<Modification> mods) throws PersistenceException {
+      List<MarshalledEntry> entries = new ArrayList<>(mods.size());
+      List<Object> keys = new ArrayList<>();
       for (Modification m : mods) {
          switch (m.getType()) {
             case STORE:
-               actual.write(((Store) m).getStoredValue());
+               entries.add(((Store) m).getStoredValue());
                break;
             case REMOVE:
-               actual.delete(((Remove) m).getKey());
+               keys.add(((Remove) m).getKey());
                break;
             default:
                throw new IllegalArgumentException("Unknown modification type " + m.getType());
          }
       }
+      // The coordinator never hands out two modifications for the same key, so the order doesn't matter
+      if (!entries.isEmpty())
+         actual.writeBatch(entries);
+      if (!keys.isEmpty())
+         actual.deleteBatch(keys);
    }
 
 
@@ -188,12 +239,36 @@ private void put(Modification mod, int count) {
       } finally {
          stateLock.writeUnlock();
       }
+      if (flushIntervalNanos > 0 && stateLock.size() >= flushThreshold)
+         LockSupport.unpark(coordinator);
    }
 
    public AtomicReference<State> getState() {
       return state;
    }
 
+   /**
+    * @return the number of modifications waiting to be handed to the underlying store
+    */
+   public int getQueueSize() {
+      return stateLock.size();
+   }
+
+   /**
+    * @return the number of batches applied to the underlying store
+    */
+   public long getFlushCount() {
+      return flushCount.sum();
+   }
+
+   /**
+    * @return the average time in milliseconds spent applying a batch to the underlying store
+    */
+   public long getAverageFlushTime() {
+      long count = flushCount.sum();
+      return count > 0 ? TimeUnit.NANOSECONDS.toMillis(flushTimeNanos.sum() / count) : 0;
+   }
+
    protected void clearStore() {
       // No-op, not supported for async
    }
@@ -207,6 +282,8 @@ public void run() {
             for (;;) {
                final State s, head, tail;
                final boolean shouldStop;
+               if (flushIntervalNanos > 0)
+                  awaitFlush();
                stateLock.readLock();
                try {
                   s = state.get();
@@ -276,6 +353,21 @@ public void run() {
          }
       }
 
+      /**
+       * Waits until the flush interval elapsed since the first buffered modification, the flush threshold was
+       * reached or the writer was stopped.
+       */
+      private void awaitFlush() {
+         stateLock.awaitAvailable();
+         long deadline = timeService.expectedEndTime(flushIntervalNanos, TimeUnit.NANOSECONDS);
+         while (!stopped && stateLock.size() < flushThreshold) {
+            long remaining = timeService.remainingTime(deadline, TimeUnit.NANOSECONDS);
+            if (remaining <= 0)
+               return;
+            LockSupport.parkNanos(this, remaining);
+         }
+      }
+
       private List<AsyncStoreProcessor> createProcessors(State state, List<Modification> mods) {
          List<AsyncStoreProcessor> result = new ArrayList<>();
          // distribute modifications evenly across worker threads
@@ -327,7 +419,10 @@ private void retryWork(int maxRetries) {
                log.debugf("Retrying due to previous failure. %s attempts left.", maxRetries - attempt);
 
             try {
+               long start = timeService.time();
                AsyncCacheWriter.this.applyModificationsSync(modifications);
+               flushTimeNanos.add(timeService.timeDuration(start, TimeUnit.NANOSECONDS));
+               flushCount.increment();
                return;
             } catch (Exception e) {
                if (log.isDebugEnabled())
@@ -29,6 +29,10 @@ private static class Counter extends AbstractQueuedSynchronizer {
          this.size = size;
       }
 
+      int size() {
+         return getState();
+      }
+
       int add(int count) {
          for (;;) {
             int state = getState();
@@ -129,7 +133,7 @@ protected boolean tryReleaseShared(int unused) {
     */
    BufferLock(int size) {
       sync = new Sync();
-      counter = size > 0 ? new Counter(size) : null;
+      counter = new Counter(size > 0 ? size : Integer.MAX_VALUE);
       available = new Available();
    }
 
@@ -141,7 +145,7 @@ protected boolean tryReleaseShared(int unused) {
     *           number of items the caller intends to write
     */
    void writeLock(int count) {
-      if (count > 0 && counter != null)
+      if (count > 0)
          counter.acquireShared(count);
       sync.acquireShared(1);
    }
@@ -177,8 +181,7 @@ void readUnlock() {
     *           number of available items in the buffer
     */
    void reset(int count) {
-      if (counter != null)
-         counter.releaseShared(count);
+      counter.releaseShared(count);
       available.releaseShared(count);
    }
 
@@ -189,8 +192,21 @@ void reset(int count) {
     *           number of items to add to the buffer counter
     */
    void add(int count) {
-      if (counter != null)
-         count = counter.add(count);
+      count = counter.add(count);
       available.releaseShared(count);
    }
+
+   /**
+    * Blocks until the buffer contains data, without acquiring the read lock.
+    */
+   void awaitAvailable() {
+      available.acquireShared(1);
+   }
+
+   /**
+    * Returns the number of items currently in the buffer.
+    */
+   int size() {
+      return counter.size();
+   }
 }
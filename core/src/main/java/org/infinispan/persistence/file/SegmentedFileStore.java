@@ -0,0 +1,710 @@
+package org.infinispan.persistence.file;
+
+import static org.infinispan.factories.KnownComponentNames.PERSISTENCE_EXECUTOR;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.infinispan.commons.configuration.ConfiguredBy;
+import org.infinispan.commons.io.ByteBufferFactory;
+import org.infinispan.commons.persistence.Store;
+import org.infinispan.configuration.cache.HashConfiguration;
+import org.infinispan.configuration.cache.SegmentedFileStoreConfiguration;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.executors.ExecutorAllCompletionService;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.filter.KeyFilter;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.TaskContextImpl;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.spi.SegmentedCacheLoader;
+import org.infinispan.persistence.spi.SegmentedCacheWriter;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+/**
+ * A filesystem-based implementation of a {@link org.infinispan.persistence.spi.CacheLoader} that keeps the entries
+ * of each segment (or group of consecutive segments, see
+ * {@link org.infinispan.configuration.cache.SegmentedFileStoreConfigurationBuilder#segmentsPerFile(int)}) in a
+ * separate file <tt>&lt;location&gt;/&lt;cache name&gt;/&lt;file index&gt;.dat</tt>. Keys and file positions are
+ * kept in memory, like in the {@link SingleFileStore}.
+ * <p/>
+ * Unlike the {@link SingleFileStore}, space is never reused in place: entries are always appended to the file of
+ * their segment, and the space of the replaced or removed entries is reclaimed by rewriting the live entries into a
+ * new file once the unused space exceeds the configured compaction threshold. Because the bytes of an entry never
+ * change until the file is compacted, loads and deletes only share a per-file lock and the index is a concurrent map.
+ * Appends to the same file are serialized, so that a crash can only leave an incomplete entry at the end of the file.
+ * Files are compacted in the persistence executor, and compacting a file only blocks the operations on the keys of
+ * that file.
+ * <p/>
+ * Iterating over a subset of the segments only reads their files, and the files of the segments that are no longer
+ * owned are truncated at once instead of deleting their entries one by one.
+ *
+ * @since 9.0
+ */
+@Store
+@ConfiguredBy(SegmentedFileStoreConfiguration.class)
+public class SegmentedFileStore<K, V> implements AdvancedLoadWriteStore<K, V>, SegmentedCacheLoader<K, V>,
+                                                 SegmentedCacheWriter<K, V> {
+   private static final Log log = LogFactory.getLog(SegmentedFileStore.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final byte[] MAGIC = new byte[]{'F', 'S', 'S', '1'};
+   private static final byte[] ZERO_INT = {0, 0, 0, 0};
+   private static final int KEYLEN_POS = 4;
+   private static final int KEY_POS = 4 + 4 + 4 + 4 + 8;
+   // Rewriting a file smaller than this does not reclaim enough space to be worth it
+   private static final long MIN_COMPACTION_SIZE = 64 * 1024;
+
+   private SegmentedFileStoreConfiguration configuration;
+
+   protected InitializationContext ctx;
+
+   private TimeService timeService;
+   private KeyPartitioner keyPartitioner;
+   private int numSegments;
+   private int segmentsPerFile;
+   private float compactionThreshold;
+   private Executor compactionExecutor;
+   private List<SegmentFile> files;
+
+   @Override
+   public void init(InitializationContext ctx) {
+      this.ctx = ctx;
+      this.configuration = ctx.getConfiguration();
+      this.timeService = ctx.getTimeService();
+   }
+
+   @Override
+   public void start() {
+      try {
+         String location = configuration.location();
+         if (location == null || location.trim().length() == 0)
+            location = "Infinispan-SegmentedFileStore";
+
+         File dir = new File(location, ctx.getCache().getName());
+         if (!dir.mkdirs() && !dir.exists()) {
+            throw log.directoryCannotBeCreated(dir.getAbsolutePath());
+         }
+
+         HashConfiguration hashConfiguration = ctx.getCache().getCacheConfiguration().clustering().hash();
+         ComponentRegistry componentRegistry = ctx.getCache().getAdvancedCache().getComponentRegistry();
+         keyPartitioner = componentRegistry.getComponent(KeyPartitioner.class);
+         if (keyPartitioner == null) {
+            keyPartitioner = hashConfiguration.keyPartitioner();
+            keyPartitioner.init(hashConfiguration);
+         }
+         compactionExecutor = componentRegistry.getComponent(ExecutorService.class, PERSISTENCE_EXECUTOR);
+         if (compactionExecutor == null) {
+            compactionExecutor = new WithinThreadExecutor();
+         }
+         numSegments = hashConfiguration.numSegments();
+         segmentsPerFile = configuration.segmentsPerFile();
+         compactionThreshold = configuration.compactionThreshold();
+
+         int numFiles = (numSegments + segmentsPerFile - 1) / segmentsPerFile;
+         files = new ArrayList<>(numFiles);
+         for (int i = 0; i < numFiles; i++) {
+            SegmentFile file = new SegmentFile(new File(dir, i + ".dat"));
+            files.add(file);
+            file.open();
+         }
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   @Override
+   public void stop() {
+      try {
+         if (files != null) {
+            log.tracef("Stopping store %s, size = %d", ctx.getCache().getName(), size());
+            for (SegmentFile file : files) {
+               file.close();
+            }
+            files = null;
+         }
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   @Override
+   public boolean contains(Object key) {
+      FileEntry fe = fileFor(key).entries.get(key);
+      return fe != null && !fe.isExpired(timeService.wallClockTime());
+   }
+
+   @Override
+   public MarshalledEntry<K, V> load(Object key) {
+      return fileFor(key).load(key, true, true);
+   }
+
+   @Override
+   public void write(MarshalledEntry<? extends K, ? extends V> marshalledEntry) {
+      // serialize cache value
+      org.infinispan.commons.io.ByteBuffer key = marshalledEntry.getKeyBytes();
+      org.infinispan.commons.io.ByteBuffer data = marshalledEntry.getValueBytes();
+      org.infinispan.commons.io.ByteBuffer metadata = marshalledEntry.getMetadataBytes();
+
+      int metadataLength = metadata == null ? 0 : metadata.getLength();
+      int len = KEY_POS + key.getLength() + data.getLength() + metadataLength;
+      long expiryTime = metadata != null ? marshalledEntry.getMetadata().expiryTime() : -1;
+      ByteBuffer buf = ByteBuffer.allocate(len);
+      buf.putInt(len);
+      buf.putInt(key.getLength());
+      buf.putInt(data.getLength());
+      buf.putInt(metadataLength);
+      buf.putLong(expiryTime);
+      buf.put(key.getBuf(), key.getOffset(), key.getLength());
+      buf.put(data.getBuf(), data.getOffset(), data.getLength());
+      if (metadata != null)
+         buf.put(metadata.getBuf(), metadata.getOffset(), metadata.getLength());
+      buf.flip();
+
+      SegmentFile file = fileFor(marshalledEntry.getKey());
+      file.append(marshalledEntry.getKey(), buf, key.getLength(), data.getLength(), metadataLength, expiryTime);
+      file.compactIfNeeded();
+   }
+
+   @Override
+   public boolean delete(Object key) {
+      SegmentFile file = fileFor(key);
+      boolean removed = file.delete(key);
+      if (removed)
+         file.compactIfNeeded();
+      return removed;
+   }
+
+   @Override
+   public void clear() {
+      for (SegmentFile file : files) {
+         file.truncate();
+      }
+   }
+
+   @Override
+   public void removeSegments(Set<Integer> segments) {
+      for (int i = 0; i < files.size(); i++) {
+         int first = i * segmentsPerFile;
+         int last = Math.min(first + segmentsPerFile, numSegments);
+         int removed = 0;
+         for (int segment = first; segment < last; segment++) {
+            if (segments.contains(segment))
+               removed++;
+         }
+         if (removed == last - first) {
+            if (trace) log.tracef("Dropping file %s", files.get(i).file);
+            files.get(i).truncate();
+         } else if (removed > 0) {
+            files.get(i).removeSegments(segments);
+            files.get(i).compactIfNeeded();
+         }
+      }
+   }
+
+   @Override
+   public void process(KeyFilter<? super K> filter, CacheLoaderTask<K, V> task, Executor executor,
+                       boolean fetchValue, boolean fetchMetadata) {
+      process(files, filter, task, executor, fetchValue, fetchMetadata);
+   }
+
+   @Override
+   public void process(Set<Integer> segments, KeyFilter<? super K> filter, CacheLoaderTask<K, V> task,
+                       Executor executor, boolean fetchValue, boolean fetchMetadata) {
+      List<SegmentFile> filesToProcess = new ArrayList<>();
+      boolean skipOtherSegments = false;
+      for (int i = 0; i < files.size(); i++) {
+         int first = i * segmentsPerFile;
+         int last = Math.min(first + segmentsPerFile, numSegments);
+         int included = 0;
+         for (int segment = first; segment < last; segment++) {
+            if (segments.contains(segment))
+               included++;
+         }
+         if (included > 0)
+            filesToProcess.add(files.get(i));
+         skipOtherSegments |= included > 0 && included < last - first;
+      }
+      KeyFilter<? super K> segmentFilter = PersistenceUtil.notNull(filter);
+      if (skipOtherSegments) {
+         KeyFilter<? super K> notNullFilter = segmentFilter;
+         segmentFilter = key -> segments.contains(keyPartitioner.getSegment(key)) && notNullFilter.accept(key);
+      }
+      process(filesToProcess, segmentFilter, task, executor, fetchValue, fetchMetadata);
+   }
+
+   private void process(List<SegmentFile> filesToProcess, KeyFilter<? super K> filter, CacheLoaderTask<K, V> task,
+                        Executor executor, boolean fetchValue, boolean fetchMetadata) {
+      KeyFilter<? super K> notNullFilter = PersistenceUtil.notNull(filter);
+      ExecutorAllCompletionService eacs = new ExecutorAllCompletionService(executor);
+      TaskContextImpl taskContext = new TaskContextImpl();
+      // The files are read in parallel, the entries of each file in the order they were written
+      for (SegmentFile file : filesToProcess) {
+         if (file.entries.isEmpty())
+            continue;
+
+         eacs.submit(() -> {
+            try {
+               for (K key : file.keysByOffset(notNullFilter)) {
+                  if (taskContext.isStopped())
+                     break;
+
+                  MarshalledEntry<K, V> marshalledEntry = file.load(key, fetchValue, fetchMetadata);
+                  if (marshalledEntry != null) {
+                     task.processEntry(marshalledEntry, taskContext);
+                  }
+               }
+               return null;
+            } catch (Exception e) {
+               log.errorExecutingParallelStoreTask(e);
+               throw e;
+            }
+         });
+      }
+      eacs.waitUntilAllCompleted();
+      if (eacs.isExceptionThrown()) {
+         throw new PersistenceException("Execution exception!", eacs.getFirstException());
+      }
+   }
+
+   @Override
+   public void purge(Executor threadPool, PurgeListener<? super K> listener) {
+      long now = timeService.wallClockTime();
+      for (SegmentFile file : files) {
+         file.purge(now, listener);
+         file.compactIfNeeded();
+      }
+   }
+
+   @Override
+   public int size() {
+      int size = 0;
+      for (SegmentFile file : files) {
+         size += file.entries.size();
+      }
+      return size;
+   }
+
+   public SegmentedFileStoreConfiguration getConfiguration() {
+      return configuration;
+   }
+
+   File getFile(int segment) {
+      return files.get(segment / segmentsPerFile).file;
+   }
+
+   long getFileSize(int segment) {
+      return files.get(segment / segmentsPerFile).filePos.get();
+   }
+
+   private SegmentFile fileFor(Object key) {
+      return files.get(keyPartitioner.getSegment(key) / segmentsPerFile);
+   }
+
+   private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+      while (buf.hasRemaining()) {
+         int read = channel.read(buf, position);
+         if (read < 0)
+            return;
+         position += read;
+      }
+   }
+
+   private static void writeFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+      while (buf.hasRemaining()) {
+         position += channel.write(buf, position);
+      }
+   }
+
+   /**
+    * The data file of a segment or group of segments, and the index of the entries it contains.
+    */
+   private class SegmentFile {
+      private final File file;
+      private final ConcurrentMap<K, FileEntry> entries = new ConcurrentHashMap<>();
+      // Appends, loads and deletes share the lock, compaction and truncation need exclusive access to the file
+      private final ReadWriteLock lock = new ReentrantReadWriteLock();
+      // Appends reserve their position and write the entry while holding this lock, so that there is no gap before
+      // the entries that were written successfully
+      private final Lock appendLock = new ReentrantLock();
+      private final AtomicLong filePos = new AtomicLong(MAGIC.length);
+      private final AtomicLong unusedBytes = new AtomicLong();
+      private final AtomicBoolean compacting = new AtomicBoolean();
+      private volatile FileChannel channel;
+      private boolean closed;
+
+      SegmentFile(File file) {
+         this.file = file;
+      }
+
+      void open() throws Exception {
+         channel = new RandomAccessFile(file, "rw").getChannel();
+         // check file format and read persistent state
+         byte[] header = new byte[MAGIC.length];
+         if (channel.read(ByteBuffer.wrap(header), 0) == MAGIC.length && Arrays.equals(MAGIC, header)) {
+            rebuildIndex();
+         } else {
+            reset();
+         }
+      }
+
+      void close() throws IOException {
+         // Wait for a running compaction, and skip the ones that didn't start yet
+         lock.writeLock().lock();
+         try {
+            closed = true;
+            channel.close();
+            entries.clear();
+         } finally {
+            lock.writeLock().unlock();
+         }
+      }
+
+      /**
+       * Rebuilds the in-memory index from file.
+       */
+      private void rebuildIndex() throws Exception {
+         long fileSize = channel.size();
+         long pos = MAGIC.length;
+         ByteBuffer buf = ByteBuffer.allocate(KEY_POS);
+         for (; ; ) {
+            // read FileEntry fields from file (size, keyLen etc.)
+            buf.clear().limit(KEY_POS);
+            readFully(channel, buf, pos);
+            buf.flip();
+            // stop at the end of the file, or at the entry being appended when the store crashed: appends are
+            // serialized, so it is always the last one
+            int entrySize = buf.remaining() < KEY_POS ? 0 : buf.getInt();
+            if (entrySize == 0 || pos + entrySize > fileSize)
+               break;
+
+            int keyLen = buf.getInt();
+            int dataLen = buf.getInt();
+            int metadataLen = buf.getInt();
+            long expiryTime = buf.getLong();
+            FileEntry fe = new FileEntry(pos, entrySize, keyLen, dataLen, metadataLen, expiryTime);
+
+            // sanity check
+            if (fe.size < KEY_POS + fe.keyLen + fe.dataLen + fe.metadataLen) {
+               throw log.errorReadingFileStore(file.getPath(), pos);
+            }
+            pos += fe.size;
+
+            // check if the entry is used or was replaced/removed
+            if (fe.keyLen > 0) {
+               if (buf.capacity() < fe.keyLen)
+                  buf = ByteBuffer.allocate(fe.keyLen);
+
+               buf.clear().limit(fe.keyLen);
+               readFully(channel, buf, fe.offset + KEY_POS);
+
+               K key = (K) ctx.getMarshaller().objectFromByteBuffer(buf.array(), 0, fe.keyLen);
+               // The entries are read in the order they were written, so the last one wins
+               FileEntry previous = entries.put(key, fe);
+               if (previous != null)
+                  free(previous);
+            } else {
+               unusedBytes.addAndGet(fe.size);
+            }
+         }
+         // drop any incomplete entry at the end of the file
+         channel.truncate(pos);
+         filePos.set(pos);
+      }
+
+      MarshalledEntry<K, V> load(Object key, boolean loadValue, boolean loadMetadata) {
+         FileEntry fe;
+         byte[] data;
+         lock.readLock().lock();
+         try {
+            fe = entries.get(key);
+            // Entries are removed due to expiration from {@link SegmentedFileStore#purge}
+            if (fe == null || fe.isExpired(timeService.wallClockTime()))
+               return null;
+
+            // If we only require the key, then no need to read disk
+            if (!loadValue && !loadMetadata)
+               return ctx.getMarshalledEntryFactory().newMarshalledEntry(key, (org.infinispan.commons.io.ByteBuffer) null,
+                                                                     (org.infinispan.commons.io.ByteBuffer) null);
+
+            // The bytes of the entry don't change until the file is compacted, even if the entry is replaced
+            data = new byte[fe.keyLen + fe.dataLen + (loadMetadata ? fe.metadataLen : 0)];
+            readFully(channel, ByteBuffer.wrap(data), fe.offset + KEY_POS);
+         } catch (IOException e) {
+            throw new PersistenceException(e);
+         } finally {
+            lock.readLock().unlock();
+         }
+
+         if (trace) log.tracef("Read entry %s at %d:%d from %s", key, fe.offset, fe.size, file);
+         ByteBufferFactory factory = ctx.getByteBufferFactory();
+         org.infinispan.commons.io.ByteBuffer keyBb = factory.newByteBuffer(data, 0, fe.keyLen);
+         org.infinispan.commons.io.ByteBuffer valueBb = null;
+         org.infinispan.commons.io.ByteBuffer metadataBb = null;
+         if (loadValue) {
+            valueBb = factory.newByteBuffer(data, fe.keyLen, fe.dataLen);
+         }
+         if (loadMetadata && fe.metadataLen > 0) {
+            metadataBb = factory.newByteBuffer(data, fe.keyLen + fe.dataLen, fe.metadataLen);
+         }
+         return ctx.getMarshalledEntryFactory().newMarshalledEntry(keyBb, valueBb, metadataBb);
+      }
+
+      void append(K key, ByteBuffer buf, int keyLen, int dataLen, int metadataLen, long expiryTime) {
+         lock.readLock().lock();
+         try {
+            int len = buf.remaining();
+            FileEntry fe;
+            appendLock.lock();
+            try {
+               fe = new FileEntry(filePos.get(), len, keyLen, dataLen, metadataLen, expiryTime);
+               writeFully(channel, buf, fe.offset);
+               filePos.set(fe.offset + len);
+            } finally {
+               appendLock.unlock();
+            }
+            if (trace) log.tracef("Wrote entry %s:%d at %d in %s", key, len, fe.offset, file);
+
+            FileEntry oldEntry = entries.put(key, fe);
+            if (oldEntry != null)
+               free(oldEntry);
+         } catch (IOException e) {
+            throw new PersistenceException(e);
+         } finally {
+            lock.readLock().unlock();
+         }
+      }
+
+      boolean delete(Object key) {
+         lock.readLock().lock();
+         try {
+            FileEntry fe = entries.remove(key);
+            if (fe != null)
+               free(fe);
+            return fe != null;
+         } catch (IOException e) {
+            throw new PersistenceException(e);
+         } finally {
+            lock.readLock().unlock();
+         }
+      }
+
+      void removeSegments(Set<Integer> segments) {
+         lock.readLock().lock();
+         try {
+            for (Map.Entry<K, FileEntry> e : entries.entrySet()) {
+               if (segments.contains(keyPartitioner.getSegment(e.getKey())) && entries.remove(e.getKey(), e.getValue()))
+                  free(e.getValue());
+            }
+         } catch (IOException e) {
+            throw new PersistenceException(e);
+         } finally {
+            lock.readLock().unlock();
+         }
+      }
+
+      void purge(long now, PurgeListener<? super K> listener) {
+         lock.readLock().lock();
+         try {
+            for (Iterator<Map.Entry<K, FileEntry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+               Map.Entry<K, FileEntry> e = it.next();
+               FileEntry fe = e.getValue();
+               if (fe.isExpired(now) && entries.remove(e.getKey(), fe)) {
+                  free(fe);
+                  if (listener != null) listener.entryPurged(e.getKey());
+               }
+            }
+         } catch (IOException e) {
+            throw new PersistenceException(e);
+         } finally {
+            lock.readLock().unlock();
+         }
+      }
+
+      /**
+       * Invalidates an entry that was replaced or removed, so that it is skipped when the index is rebuilt.
+       * <p/>
+       * Note: Caller must hold the {@code lock} in shared mode. Concurrent readers are not affected, since they
+       * never read the key length from the file.
+       */
+      private void free(FileEntry fe) throws IOException {
+         writeFully(channel, ByteBuffer.wrap(ZERO_INT), fe.offset + KEYLEN_POS);
+         unusedBytes.addAndGet(fe.size);
+      }
+
+      List<K> keysByOffset(KeyFilter<? super K> filter) {
+         List<Map.Entry<K, FileEntry>> list = new ArrayList<>(entries.size());
+         for (Map.Entry<K, FileEntry> e : entries.entrySet()) {
+            if (filter.accept(e.getKey()))
+               list.add(e);
+         }
+         list.sort(Comparator.comparingLong(e -> e.getValue().offset));
+         List<K> keys = new ArrayList<>(list.size());
+         for (Map.Entry<K, FileEntry> e : list) {
+            keys.add(e.getKey());
+         }
+         return keys;
+      }
+
+      void compactIfNeeded() {
+         if (needsCompaction() && compacting.compareAndSet(false, true)) {
+            try {
+               compactionExecutor.execute(() -> {
+                  try {
+                     compact();
+                  } catch (Throwable t) {
+                     log.errorCompactingFile(file.getPath(), t);
+                  } finally {
+                     compacting.set(false);
+                  }
+               });
+            } catch (RejectedExecutionException e) {
+               // The next write will try again
+               compacting.set(false);
+               log.errorCompactingFile(file.getPath(), e);
+            }
+         }
+      }
+
+      private boolean needsCompaction() {
+         long size = filePos.get();
+         return size >= MIN_COMPACTION_SIZE && unusedBytes.get() > size * compactionThreshold;
+      }
+
+      /**
+       * Copies the live entries to a new file and replaces the current file with it.
+       */
+      private void compact() {
+         lock.writeLock().lock();
+         try {
+            // The file may have been closed or truncated since the compaction was requested
+            if (closed || !needsCompaction())
+               return;
+
+            long oldSize = filePos.get();
+            List<Map.Entry<K, FileEntry>> live = new ArrayList<>(entries.entrySet());
+            live.sort(Comparator.comparingLong(e -> e.getValue().offset));
+
+            File compacted = new File(file.getPath() + ".compact");
+            List<FileEntry> moved = new ArrayList<>(live.size());
+            long pos = MAGIC.length;
+            try (FileChannel target = new RandomAccessFile(compacted, "rw").getChannel()) {
+               target.truncate(0);
+               writeFully(target, ByteBuffer.wrap(MAGIC), 0);
+               ByteBuffer buf = ByteBuffer.allocate(KEY_POS);
+               for (Map.Entry<K, FileEntry> e : live) {
+                  FileEntry fe = e.getValue();
+                  if (buf.capacity() < fe.size)
+                     buf = ByteBuffer.allocate(fe.size);
+
+                  buf.clear().limit(fe.size);
+                  readFully(channel, buf, fe.offset);
+                  buf.flip();
+                  writeFully(target, buf, pos);
+                  moved.add(new FileEntry(pos, fe.size, fe.keyLen, fe.dataLen, fe.metadataLen, fe.expiryTime));
+                  pos += fe.size;
+               }
+               target.force(false);
+            }
+
+            channel.close();
+            try {
+               Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+               channel = new RandomAccessFile(file, "rw").getChannel();
+            }
+            for (int i = 0; i < live.size(); i++) {
+               entries.put(live.get(i).getKey(), moved.get(i));
+            }
+            filePos.set(pos);
+            unusedBytes.set(0);
+            if (trace) log.tracef("Compacted %s from %d to %d bytes", file, oldSize, pos);
+         } catch (IOException e) {
+            throw new PersistenceException(e);
+         } finally {
+            lock.writeLock().unlock();
+         }
+      }
+
+      void truncate() {
+         lock.writeLock().lock();
+         try {
+            reset();
+         } catch (IOException e) {
+            throw new PersistenceException(e);
+         } finally {
+            lock.writeLock().unlock();
+         }
+      }
+
+      private void reset() throws IOException {
+         entries.clear();
+         if (trace) log.tracef("Truncating file %s, current size is %d", file, filePos.get());
+         channel.truncate(0);
+         writeFully(channel, ByteBuffer.wrap(MAGIC), 0);
+         filePos.set(MAGIC.length);
+         unusedBytes.set(0);
+      }
+   }
+
+   /**
+    * The position and the sizes of an entry in a segment file. The format on disk is the same as in the
+    * {@link SingleFileStore}, except that entries are never split or merged, so the size of the block is always the
+    * size of the entry.
+    */
+   private static class FileEntry {
+      private final long offset;
+      private final int size;
+      private final int keyLen;
+      private final int dataLen;
+      private final int metadataLen;
+      private final long expiryTime;
+
+      FileEntry(long offset, int size, int keyLen, int dataLen, int metadataLen, long expiryTime) {
+         this.offset = offset;
+         this.size = size;
+         this.keyLen = keyLen;
+         this.dataLen = dataLen;
+         this.metadataLen = metadataLen;
+         this.expiryTime = expiryTime;
+      }
+
+      boolean isExpired(long now) {
+         return expiryTime > 0 && expiryTime < now;
+      }
+
+      @Override
+      public String toString() {
+         return "FileEntry@" + offset + "{size=" + size + '}';
+      }
+   }
+}
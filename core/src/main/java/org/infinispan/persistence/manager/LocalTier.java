@@ -0,0 +1,114 @@
+package org.infinispan.persistence.manager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.infinispan.util.concurrent.WithinThreadExecutor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+/**
+ * Tracks the local tier of a tiered persistence configuration: the local stores, which cache the entries of the
+ * shared stores.
+ * <p>
+ * An entry read from the shared stores is promoted to the local stores, but the promotion must not overwrite a newer
+ * value written concurrently. A promotion is skipped if a write of the same key is in progress when the shared stores
+ * are read, and the promoted entry is deleted again if a write of the key started in the meantime, as tracked by the
+ * {@link StoreWriteTracker}. Deleting an entry from the local tier is always safe, as the shared tier has all the
+ * entries.
+ * <p>
+ * If the local tier is bounded, the keys written to it are tracked and the least recently used keys are deleted from
+ * the local stores when there are too many.
+ *
+ * @since 9.0
+ */
+class LocalTier {
+   private final StoreWriteTracker writeTracker;
+   private final Cache<Object, Boolean> keys;
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder promotions = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
+
+   LocalTier(StoreWriteTracker writeTracker, int maxEntries, Consumer<Object> evict) {
+      this.writeTracker = writeTracker;
+      // The evicted keys are deleted from the local stores by the thread that added the keys
+      keys = maxEntries > 0 ? Caffeine.newBuilder().maximumSize(maxEntries).executor(new WithinThreadExecutor())
+            .<Object, Boolean>removalListener((key, value, cause) -> {
+               if (cause == RemovalCause.SIZE) {
+                  evictions.increment();
+                  evict.accept(key);
+               }
+            }).build() : null;
+   }
+
+   boolean isBounded() {
+      return keys != null;
+   }
+
+   /**
+    * Must be invoked before reading the shared stores.
+    *
+    * @return the stamp to pass to {@link #isPromotionStale(Object, long)}, or -1 if the entry must not be promoted
+    */
+   long promotionStamp(Object key) {
+      return writeTracker.stamp(key);
+   }
+
+   Map<Object, Long> promotionStamps(Collection<?> keys) {
+      Map<Object, Long> stamps = new HashMap<>();
+      for (Object key : keys) {
+         stamps.put(key, promotionStamp(key));
+      }
+      return stamps;
+   }
+
+   /**
+    * Must be invoked after the entry was written to the local stores.
+    */
+   boolean isPromotionStale(Object key, long stamp) {
+      return writeTracker.isWrittenSince(key, stamp);
+   }
+
+   void promoted(Object key) {
+      promotions.increment();
+      added(key);
+   }
+
+   void hit(Object key) {
+      hits.increment();
+      if (keys != null)
+         keys.getIfPresent(key);
+   }
+
+   void added(Object key) {
+      if (keys != null)
+         keys.put(key, Boolean.TRUE);
+   }
+
+   void removed(Object key) {
+      if (keys != null)
+         keys.invalidate(key);
+   }
+
+   void clear() {
+      if (keys != null)
+         keys.invalidateAll();
+   }
+
+   long getHits() {
+      return hits.sum();
+   }
+
+   long getPromotions() {
+      return promotions.sum();
+   }
+
+   long getEvictions() {
+      return evictions.sum();
+   }
+}
@@ -0,0 +1,167 @@
+package org.infinispan.persistence.manager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.configuration.cache.PersistenceConfiguration;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Filters the lookups of keys that are not in any store, so that they don't reach the stores.
+ * <p>
+ * The bloom filter is told about every key written to the stores before the write happens. Deleted keys can't be
+ * removed from it, so it lets more missing keys through as entries are removed, until it is cleared or rebuilt when
+ * the cache starts. The negative cache remembers a bounded number of keys that were recently found missing, and a
+ * key is forgotten as soon as it's written. A miss is only remembered if no write completed while the stores were
+ * read, otherwise it may be older than the write.
+ *
+ * @since 9.0
+ */
+class MissingKeyFilter {
+   private static final MurmurHash3 HASH = MurmurHash3.getInstance();
+
+   private final AtomicLongArray bits;
+   private final long numBits;
+   private final int numHashes;
+   private final Cache<Object, Boolean> missingKeys;
+   private final AtomicLong writes = new AtomicLong();
+   private final LongAdder rejected = new LongAdder();
+   private final LongAdder falsePositives = new LongAdder();
+   private final LongAdder negativeCacheHits = new LongAdder();
+
+   MissingKeyFilter(PersistenceConfiguration configuration) {
+      int entries = configuration.bloomFilterEntries();
+      if (entries > 0) {
+         double ln2 = Math.log(2);
+         long requiredBits = (long) Math.ceil(-entries * Math.log(configuration.bloomFilterFalsePositiveRate()) / (ln2 * ln2));
+         int words = (int) Math.min(Integer.MAX_VALUE, (requiredBits + 63) / 64);
+         bits = new AtomicLongArray(words);
+         numBits = words * 64L;
+         numHashes = Math.max(1, (int) Math.round((double) numBits / entries * ln2));
+      } else {
+         bits = null;
+         numBits = 0;
+         numHashes = 0;
+      }
+      int negativeCacheSize = configuration.negativeCacheSize();
+      missingKeys = negativeCacheSize > 0 ?
+            Caffeine.newBuilder().maximumSize(negativeCacheSize).executor(new WithinThreadExecutor()).<Object, Boolean>build() : null;
+   }
+
+   boolean usesBloomFilter() {
+      return bits != null;
+   }
+
+   /**
+    * @return false if the key is definitely not in any store
+    */
+   boolean mightContain(Object key) {
+      if (bits != null && !bloomFilterContains(key)) {
+         rejected.increment();
+         return false;
+      }
+      if (missingKeys != null && missingKeys.getIfPresent(key) != null) {
+         negativeCacheHits.increment();
+         return false;
+      }
+      return true;
+   }
+
+   /**
+    * Must be invoked before reading the stores, and the result passed to {@link #loaded(Object, boolean, long)}.
+    */
+   long stamp() {
+      return writes.get();
+   }
+
+   void loaded(Object key, boolean found, long stamp) {
+      if (found)
+         return;
+      if (bits != null)
+         falsePositives.increment();
+      if (missingKeys != null) {
+         missingKeys.put(key, Boolean.TRUE);
+         // A write may have completed after the stores were read, and it may have invalidated the key before the put
+         if (writes.get() != stamp)
+            missingKeys.invalidate(key);
+      }
+   }
+
+   void beforeWrite(Object key) {
+      if (bits != null) {
+         long h1 = HASH.hash(key);
+         long h2 = HASH.hash((int) h1) | 1;
+         for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((bits.get(word) & mask) == 0)
+               bits.accumulateAndGet(word, mask, (current, m) -> current | m);
+         }
+      }
+   }
+
+   void afterWrite(Object key) {
+      writes.incrementAndGet();
+      if (missingKeys != null)
+         missingKeys.invalidate(key);
+   }
+
+   /**
+    * Used when the written keys are not known, e.g. when committing the transactional stores.
+    */
+   void afterWriteAll() {
+      writes.incrementAndGet();
+      if (missingKeys != null)
+         missingKeys.invalidateAll();
+   }
+
+   /**
+    * Forgets all the keys. The stores must have been cleared already.
+    */
+   void clear() {
+      if (bits != null) {
+         for (int i = 0; i < bits.length(); i++) {
+            bits.set(i, 0);
+         }
+      }
+      afterWriteAll();
+   }
+
+   private boolean bloomFilterContains(Object key) {
+      long h1 = HASH.hash(key);
+      long h2 = HASH.hash((int) h1) | 1;
+      for (int i = 0; i < numHashes; i++) {
+         long bit = Math.floorMod(h1 + i * h2, numBits);
+         if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+            return false;
+      }
+      return true;
+   }
+
+   long getRejected() {
+      return rejected.sum();
+   }
+
+   long getFalsePositives() {
+      return falsePositives.sum();
+   }
+
+   long getNegativeCacheHits() {
+      return negativeCacheHits.sum();
+   }
+
+   /**
+    * The fraction of the lookups of missing keys that the bloom filter let through to the stores.
+    */
+   double getFalsePositiveRate() {
+      long falsePositives = getFalsePositives();
+      long total = falsePositives + getRejected();
+      return total == 0 ? 0 : (double) falsePositives / total;
+   }
+}
@@ -1,7 +1,9 @@
 package org.infinispan.persistence.manager;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 
 import javax.transaction.Transaction;
@@ -48,8 +50,21 @@ public interface PersistenceManager extends Lifecycle {
     */
    void clearAllStores(AccessMode mode);
 
+   /**
+    * Invokes {@link org.infinispan.persistence.spi.SegmentedCacheWriter#removeSegments(Set)} on all the stores that
+    * allow it. Other stores keep the entries of the given segments.
+    */
+   void removeSegmentsFromAllStores(Set<Integer> segments, AccessMode mode);
+
    boolean deleteFromAllStores(Object key, AccessMode mode);
 
+   /**
+    * Same as {@link #deleteFromAllStores(Object, AccessMode)}, but the stores are invoked without blocking the caller.
+    *
+    * @return a stage completed with true if the key was removed from any of the stores.
+    */
+   CompletionStage<Boolean> deleteFromAllStoresAsync(Object key, AccessMode mode);
+
    void processOnAllStores(KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata);
 
    void processOnAllStores(Executor executor, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata);
@@ -58,13 +73,65 @@ public interface PersistenceManager extends Lifecycle {
 
    void processOnAllStores(Executor executor, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata, AccessMode mode);
 
+   /**
+    * Same as {@link #processOnAllStores(KeyFilter, AdvancedCacheLoader.CacheLoaderTask, boolean, boolean, AccessMode)},
+    * but only the entries that map to the given segments are passed to the task. Stores implementing
+    * {@link org.infinispan.persistence.spi.SegmentedCacheLoader} only read the given segments.
+    */
+   void processOnAllStores(Set<Integer> segments, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata, AccessMode mode);
+
    MarshalledEntry loadFromAllStores(Object key, InvocationContext context);
 
+   /**
+    * Same as {@link #loadFromAllStores(Object, InvocationContext)}, but the loaders are invoked without blocking the
+    * caller. Loaders implementing {@link org.infinispan.persistence.spi.NonBlockingCacheLoader} are used directly, the
+    * others are invoked on the persistence executor.
+    *
+    * @return a stage completed with the entry loaded from the first loader containing the key, or with null.
+    */
+   CompletionStage<MarshalledEntry> loadFromAllStoresAsync(Object key, InvocationContext context);
+
+   /**
+    * Loads the given keys with as few queries as possible. Each loader is only queried for the keys not found in the
+    * previous loaders.
+    *
+    * @return the loaded entries, keyed by their key. Keys not found in any of the loaders are not present in the map.
+    * @see org.infinispan.persistence.spi.CacheLoader#loadBatch(Collection)
+    */
+   Map<Object, MarshalledEntry> loadBatchFromAllStores(Collection<?> keys, InvocationContext context);
+
+   /**
+    * Same as {@link #loadBatchFromAllStores(Collection, InvocationContext)}, but the loaders are invoked without
+    * blocking the caller.
+    */
+   CompletionStage<Map<Object, MarshalledEntry>> loadBatchFromAllStoresAsync(Collection<?> keys, InvocationContext context);
+
+   /**
+    * Returns a stamp of the writes of the given key to the stores. An entry loaded without holding the data container
+    * lock may be stale if the key was written or deleted after the stores were read, so the stamp is taken before
+    * loading and checked with {@link #isWrittenSince(Object, long)} under the data container lock.
+    *
+    * @return the stamp, or -1 if a write of the key is in progress
+    */
+   long writeStamp(Object key);
+
+   /**
+    * @return whether the given key was written to or deleted from the stores since the stamp was taken with
+    * {@link #writeStamp(Object)}. Keys that share internal state with the given key may report false positives.
+    */
+   boolean isWrittenSince(Object key, long stamp);
+
    /**
     * Returns the store one configured with fetch persistent state, or null if none exist.
     */
    AdvancedCacheLoader getStateTransferProvider();
 
+   /**
+    * Creates an executor for reading a store in parallel, e.g. during state transfer, which runs at most
+    * {@link org.infinispan.configuration.cache.PersistenceConfiguration#parallelism()} tasks at the same time.
+    */
+   Executor createParallelExecutor();
+
    int size();
 
    public static enum AccessMode {
@@ -132,6 +199,23 @@ protected boolean canPerform(StoreConfiguration configuration) {
     */
    void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode modes, long flags);
 
+   /**
+    * Same as {@link #writeToAllNonTxStores(MarshalledEntry, AccessMode, long)}, but the stores are invoked without
+    * blocking the caller. Writers implementing {@link org.infinispan.persistence.spi.NonBlockingCacheWriter} are used
+    * directly, the others are invoked on the persistence executor.
+    *
+    * @return a stage completed when the entry was written to all the stores.
+    */
+   CompletionStage<Void> writeToAllNonTxStoresAsync(MarshalledEntry marshalledEntry, AccessMode modes, long flags);
+
+   /**
+    * Writes all the entries to the non-transactional stores without blocking the caller. Each store receives the
+    * entries in a single {@link org.infinispan.persistence.spi.CacheWriter#writeBatch(Iterable)} invocation.
+    *
+    * @return a stage completed when the entries were written to all the stores.
+    */
+   CompletionStage<Void> writeBatchToAllNonTxStoresAsync(Collection<MarshalledEntry> marshalledEntries, AccessMode modes, long flags);
+
    /**
     * Perform the prepare phase of 2PC on all Tx stores.
     *
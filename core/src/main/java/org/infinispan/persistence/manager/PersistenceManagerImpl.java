@@ -15,20 +15,26 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
@@ -45,7 +51,10 @@
 import org.infinispan.configuration.cache.StoreConfiguration;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
+import org.infinispan.distribution.ch.KeyPartitioner;
 import org.infinispan.eviction.EvictionType;
+import org.infinispan.executors.ExecutorAllCompletionService;
+import org.infinispan.executors.LimitedExecutor;
 import org.infinispan.expiration.ExpirationManager;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
@@ -57,11 +66,15 @@
 import org.infinispan.interceptors.impl.CacheLoaderInterceptor;
 import org.infinispan.interceptors.impl.CacheWriterInterceptor;
 import org.infinispan.interceptors.impl.TransactionalStoreInterceptor;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryFactory;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.metadata.impl.InternalMetadataImpl;
 import org.infinispan.persistence.InitializationContextImpl;
+import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.async.AdvancedAsyncCacheLoader;
 import org.infinispan.persistence.async.AdvancedAsyncCacheWriter;
 import org.infinispan.persistence.async.AsyncCacheLoader;
@@ -75,22 +88,31 @@
 import org.infinispan.persistence.spi.CacheWriter;
 import org.infinispan.persistence.spi.FlagAffectedStore;
 import org.infinispan.persistence.spi.LocalOnlyCacheLoader;
+import org.infinispan.persistence.spi.NonBlockingCacheLoader;
+import org.infinispan.persistence.spi.NonBlockingCacheWriter;
 import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.spi.SegmentedCacheLoader;
+import org.infinispan.persistence.spi.SegmentedCacheWriter;
 import org.infinispan.persistence.spi.TransactionalCacheWriter;
 import org.infinispan.persistence.support.AdvancedSingletonCacheWriter;
 import org.infinispan.persistence.support.BatchModification;
 import org.infinispan.persistence.support.DelegatingCacheLoader;
 import org.infinispan.persistence.support.DelegatingCacheWriter;
+import org.infinispan.persistence.support.NonBlockingCacheLoaderAdapter;
+import org.infinispan.persistence.support.NonBlockingCacheWriterAdapter;
 import org.infinispan.persistence.support.SingletonCacheWriter;
 import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.CompletableFutures;
 import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+@MBean(objectName = "PersistenceManager", description = "Component that manages the cache stores and loaders.")
 public class PersistenceManagerImpl implements PersistenceManager {
 
    private static final Log log = LogFactory.getLog(PersistenceManagerImpl.class);
    private static final boolean trace = log.isTraceEnabled();
+   private static final int PRELOAD_BATCH_SIZE = 128;
 
    Configuration configuration;
    AdvancedCache<Object, Object> cache;
@@ -101,6 +123,8 @@ public class PersistenceManagerImpl implements PersistenceManager {
    private final List<CacheLoader> loaders = new ArrayList<>();
    private final List<CacheWriter> nonTxWriters = new ArrayList<>();
    private final List<TransactionalCacheWriter> txWriters = new ArrayList<>();
+   private final Map<CacheLoader, NonBlockingCacheLoader> nonBlockingLoaders = new HashMap<>();
+   private final Map<CacheWriter, NonBlockingCacheWriter> nonBlockingWriters = new HashMap<>();
 
    private final ReadWriteLock storesMutex = new ReentrantReadWriteLock();
    private final Map<Object, StoreConfiguration> configMap = new HashMap<>();
@@ -119,13 +143,23 @@ public class PersistenceManagerImpl implements PersistenceManager {
    private ByteBufferFactory byteBufferFactory;
    private MarshalledEntryFactory marshalledEntryFactory;
    private volatile boolean clearOnStop;
+   private KeyPartitioner keyPartitioner;
+
+   private volatile boolean preloading;
+   private final LongAdder preloadedEntries = new LongAdder();
+   private final AtomicInteger preloadedSegments = new AtomicInteger();
+   private volatile long preloadTime;
+   private volatile MissingKeyFilter missingKeyFilter;
+   private volatile LocalTier localTier;
+   private final StoreWriteTracker writeTracker = new StoreWriteTracker();
 
    @Inject
    public void inject(AdvancedCache<Object, Object> cache, StreamingMarshaller marshaller,
                       Configuration configuration, TransactionManager transactionManager,
                       TimeService timeService, @ComponentName(PERSISTENCE_EXECUTOR) ExecutorService persistenceExecutor,
                       ByteBufferFactory byteBufferFactory, MarshalledEntryFactory marshalledEntryFactory,
-                      CacheStoreFactoryRegistry cacheStoreFactoryRegistry, ExpirationManager expirationManager) {
+                      CacheStoreFactoryRegistry cacheStoreFactoryRegistry, ExpirationManager expirationManager,
+                      KeyPartitioner keyPartitioner) {
       this.cache = cache;
       this.m = marshaller;
       this.configuration = configuration;
@@ -136,6 +170,7 @@ public void inject(AdvancedCache<Object, Object> cache, StreamingMarshaller mars
       this.marshalledEntryFactory = marshalledEntryFactory;
       this.cacheStoreFactoryRegistry = cacheStoreFactoryRegistry;
       this.expirationManager = expirationManager;
+      this.keyPartitioner = keyPartitioner;
 
       this.advancedListener = new AdvancedPurgeListener(expirationManager);
    }
@@ -186,6 +221,13 @@ public void start() {
                   }
                }
             }
+
+            if (configuration.persistence().filteringMissingKeys()) {
+               missingKeyFilter = createMissingKeyFilter();
+            }
+            if (configuration.persistence().tiered()) {
+               localTier = createLocalTier();
+            }
          } finally {
             if (xaTx != null) {
                transactionManager.resume(xaTx);
@@ -253,22 +295,103 @@ public void preload() {
          return;
 
       long start = timeService.time();
+      preloadedEntries.reset();
+      preloadedSegments.set(0);
+      preloading = true;
+      try {
+         final long maxEntries = getMaxEntries();
+         final AtomicInteger loadedEntries = new AtomicInteger(0);
+         final PreloadBatch batch = new PreloadBatch(getCacheForStateInsertion());
+         AdvancedCacheLoader.CacheLoaderTask task = (me, taskContext) -> {
+            if (loadedEntries.getAndIncrement() >= maxEntries) {
+               taskContext.stop();
+               return;
+            }
+            batch.add(me);
+         };
+         Executor executor = createParallelExecutor();
+         if (preloadCl instanceof SegmentedCacheLoader) {
+            preloadSegments((SegmentedCacheLoader) preloadCl, task, executor);
+         } else {
+            preloadCl.process(null, task, executor, true, true);
+         }
+         batch.flush();
 
+         log.debugf("Preloaded %s keys in %s", preloadedEntries, Util.prettyPrintTime(timeService.timeDuration(start, MILLISECONDS)));
+      } finally {
+         preloadTime = timeService.timeDuration(start, MILLISECONDS);
+         preloading = false;
+      }
+   }
+
+   /**
+    * The bloom filter is filled with the keys of all the stores, as it must know every key written before the cache
+    * started.
+    */
+   private MissingKeyFilter createMissingKeyFilter() {
+      MissingKeyFilter filter = new MissingKeyFilter(configuration.persistence());
+      if (filter.usesBloomFilter()) {
+         long start = timeService.time();
+         Executor executor = createParallelExecutor();
+         for (CacheLoader l : loaders) {
+            if (!(l instanceof AdvancedCacheLoader)) {
+               throw new PersistenceException("Cannot build the bloom filter from cache loader '" + l.getClass().getName()
+                                                    + "' as it doesn't implement '" + AdvancedCacheLoader.class.getName() + "'");
+            }
+            ((AdvancedCacheLoader) l).process(null, (me, taskContext) -> filter.beforeWrite(me.getKey()), executor,
+                                              false, false);
+         }
+         log.debugf("Built the bloom filter of the stores in %s",
+                    Util.prettyPrintTime(timeService.timeDuration(start, MILLISECONDS)));
+      }
+      return filter;
+   }
 
-      final long maxEntries = getMaxEntries();
-      final AtomicInteger loadedEntries = new AtomicInteger(0);
-      final AdvancedCache<Object, Object> flaggedCache = getCacheForStateInsertion();
-      preloadCl.process(null, (me, taskContext) -> {
-         if (loadedEntries.getAndIncrement() >= maxEntries) {
-            taskContext.stop();
-            return;
+   /**
+    * The keys already in the local stores are tracked, so that the local tier is bounded after a restart too.
+    */
+   private LocalTier createLocalTier() {
+      LocalTier tier = new LocalTier(writeTracker, configuration.persistence().localTierMaxEntries(), this::evictFromLocalTier);
+      if (tier.isBounded()) {
+         Executor executor = createParallelExecutor();
+         for (CacheLoader l : loaders) {
+            if (!configMap.get(l).shared() && l instanceof AdvancedCacheLoader) {
+               ((AdvancedCacheLoader) l).process(null, (me, taskContext) -> tier.added(me.getKey()), executor,
+                                                 false, false);
+            }
          }
-         Metadata metadata = me.getMetadata() != null ? ((InternalMetadataImpl) me.getMetadata()).actual() :
-               null; //the downcast will go away with ISPN-3460
-         preloadKey(flaggedCache, me.getKey(), me.getValue(), metadata);
-      }, new WithinThreadExecutor(), true, true);
+      }
+      return tier;
+   }
 
-      log.debugf("Preloaded %s keys in %s", loadedEntries, Util.prettyPrintTime(timeService.timeDuration(start, MILLISECONDS)));
+   /**
+    * Each segment is read by a separate task, and the tasks run in parallel.
+    */
+   private void preloadSegments(SegmentedCacheLoader loader, AdvancedCacheLoader.CacheLoaderTask task, Executor executor) {
+      ExecutorAllCompletionService ecs = new ExecutorAllCompletionService(executor);
+      int numSegments = configuration.clustering().hash().numSegments();
+      for (int i = 0; i < numSegments; i++) {
+         Set<Integer> segment = Collections.singleton(i);
+         ecs.submit(() -> {
+            loader.process(segment, null, task, new WithinThreadExecutor(), true, true);
+            preloadedSegments.incrementAndGet();
+            return null;
+         });
+      }
+      ecs.waitUntilAllCompleted();
+      if (ecs.isExceptionThrown()) {
+         throw new PersistenceException("Unable to preload!", ecs.getFirstException());
+      }
+   }
+
+   /**
+    * The executor for preload, purge and state transfer reads, running at most
+    * {@link org.infinispan.configuration.cache.PersistenceConfiguration#parallelism()} tasks at the same time.
+    */
+   @Override
+   public Executor createParallelExecutor() {
+      return new LimitedExecutor("Persistence-" + cache.getName(), persistenceExecutor,
+                                 configuration.persistence().parallelism());
    }
 
    @Override
@@ -279,6 +402,8 @@ public void disableStore(String storeType) {
             removeCacheLoader(storeType, loaders);
             removeCacheWriter(storeType, nonTxWriters);
             removeCacheWriter(storeType, txWriters);
+            nonBlockingLoaders.keySet().retainAll(loaders);
+            nonBlockingWriters.keySet().retainAll(nonTxWriters);
          } finally {
             storesMutex.writeLock().unlock();
          }
@@ -379,6 +504,7 @@ public void purgeExpired() {
             start = timeService.time();
          }
 
+         Executor executor = createParallelExecutor();
          storesMutex.readLock().lock();
          try {
             Consumer<CacheWriter> purgeWriter = writer -> {
@@ -387,9 +513,9 @@ public void purgeExpired() {
                   return;
 
                if (writer instanceof AdvancedCacheExpirationWriter) {
-                  ((AdvancedCacheExpirationWriter)writer).purge(persistenceExecutor, advancedListener);
+                  ((AdvancedCacheExpirationWriter)writer).purge(executor, advancedListener);
                } else if (writer instanceof AdvancedCacheWriter) {
-                  ((AdvancedCacheWriter)writer).purge(persistenceExecutor, key -> {
+                  ((AdvancedCacheWriter)writer).purge(executor, key -> {
                      expirationManager.handleInStoreExpiration(key);
                   });
                }
@@ -411,25 +537,54 @@ public void purgeExpired() {
 
    @Override
    public void clearAllStores(AccessMode mode) {
+      LocalTier tier = localTier;
+      writeTracker.beforeWriteAll();
       storesMutex.readLock().lock();
       try {
+         boolean[] clearedAll = {true};
          // Apply to txWriters as well as clear does not happen in a Tx context
          Consumer<CacheWriter> clearWriter = writer -> {
-            if (writer instanceof AdvancedCacheWriter) {
-               if (mode.canPerform(configMap.get(writer))) {
-                  ((AdvancedCacheWriter) writer).clear();
-               }
+            if (writer instanceof AdvancedCacheWriter && mode.canPerform(configMap.get(writer))) {
+               ((AdvancedCacheWriter) writer).clear();
+            } else {
+               clearedAll[0] = false;
             }
          };
          nonTxWriters.forEach(clearWriter);
          txWriters.forEach(clearWriter);
+         MissingKeyFilter filter = missingKeyFilter;
+         // The keys of the stores that were not cleared must stay in the bloom filter
+         if (filter != null && clearedAll[0]) {
+            filter.clear();
+         }
+         if (tier != null)
+            tier.clear();
       } finally {
          storesMutex.readLock().unlock();
+         writeTracker.afterWriteAll();
+      }
+   }
+
+   @Override
+   public void removeSegmentsFromAllStores(Set<Integer> segments, AccessMode mode) {
+      writeTracker.beforeWriteAll();
+      storesMutex.readLock().lock();
+      try {
+         for (CacheWriter writer : nonTxWriters) {
+            if (writer instanceof SegmentedCacheWriter && mode.canPerform(configMap.get(writer))) {
+               ((SegmentedCacheWriter) writer).removeSegments(segments);
+            }
+         }
+      } finally {
+         storesMutex.readLock().unlock();
+         writeTracker.afterWriteAll();
       }
    }
 
    @Override
    public boolean deleteFromAllStores(Object key, AccessMode mode) {
+      LocalTier tier = localTier;
+      writeTracker.beforeWrite(key);
       storesMutex.readLock().lock();
       try {
          boolean removed = false;
@@ -439,6 +594,47 @@ public boolean deleteFromAllStores(Object key, AccessMode mode) {
             }
          }
          return removed;
+      } finally {
+         storesMutex.readLock().unlock();
+         if (tier != null)
+            tier.removed(key);
+         writeTracker.afterWrite(key);
+      }
+   }
+
+   @Override
+   public CompletionStage<Boolean> deleteFromAllStoresAsync(Object key, AccessMode mode) {
+      LocalTier tier = localTier;
+      CompletionStage<Boolean> removed = writeStores(Collections.singletonList(key),
+                                                     () -> doDeleteFromAllStoresAsync(key, mode));
+      return tier == null ? removed : removed.whenComplete((r, t) -> tier.removed(key));
+   }
+
+   /**
+    * Runs an asynchronous write of the given keys to the stores between {@link StoreWriteTracker#beforeWrite(Object)}
+    * and {@link StoreWriteTracker#afterWrite(Object)}.
+    */
+   private <T> CompletionStage<T> writeStores(Collection<?> keys, Supplier<CompletionStage<T>> write) {
+      keys.forEach(writeTracker::beforeWrite);
+      try {
+         return write.get().whenComplete((r, t) -> keys.forEach(writeTracker::afterWrite));
+      } catch (Throwable t) {
+         keys.forEach(writeTracker::afterWrite);
+         throw t;
+      }
+   }
+
+   private CompletionStage<Boolean> doDeleteFromAllStoresAsync(Object key, AccessMode mode) {
+      storesMutex.readLock().lock();
+      try {
+         CompletionStage<Boolean> removed = null;
+         for (CacheWriter w : nonTxWriters) {
+            if (mode.canPerform(configMap.get(w))) {
+               CompletionStage<Boolean> stage = nonBlockingWriters.get(w).deleteAsync(key);
+               removed = removed == null ? stage : removed.thenCombine(stage, (r1, r2) -> r1 | r2);
+            }
+         }
+         return removed != null ? removed : CompletableFutures.completedFalse();
       } finally {
          storesMutex.readLock().unlock();
       }
@@ -475,24 +671,355 @@ public void processOnAllStores(Executor executor, KeyFilter keyFilter, AdvancedC
       }
    }
 
+   @Override
+   public void processOnAllStores(Set<Integer> segments, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task,
+                                  boolean fetchValue, boolean fetchMetadata, AccessMode mode) {
+      Executor executor = createParallelExecutor();
+      storesMutex.readLock().lock();
+      try {
+         for (CacheLoader loader : loaders) {
+            if (mode.canPerform(configMap.get(loader)) && loader instanceof AdvancedCacheLoader) {
+               PersistenceUtil.processSegments((AdvancedCacheLoader) loader, segments, keyPartitioner, keyFilter, task,
+                                               executor, fetchValue, fetchMetadata);
+            }
+         }
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
    @Override
    public MarshalledEntry loadFromAllStores(Object key, InvocationContext context) {
+      MissingKeyFilter filter = missingKeyFilter;
+      if (filter != null && !filter.mightContain(key))
+         return null;
+
+      long stamp = filter != null ? filter.stamp() : 0;
+      LocalTier tier = localTier;
+      Map<Object, Long> promotionStamps = tier != null ? tier.promotionStamps(Collections.singleton(key)) : null;
+      MarshalledEntry load = null;
+      boolean shared = false;
+      storesMutex.readLock().lock();
+      try {
+         boolean allLoaders = true;
+         for (CacheLoader l : loaders) {
+            if (!context.isOriginLocal() && isLocalOnlyLoader(l)) {
+               allLoaders = false;
+               continue;
+            }
+
+            load = l.load(key);
+            if (load != null) {
+               shared = configMap.get(l).shared();
+               break;
+            }
+         }
+         // The key may still be in one of the skipped loaders
+         if (load == null && filter != null && allLoaders)
+            filter.loaded(key, false, stamp);
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+      if (load != null && tier != null) {
+         if (shared) {
+            promote(tier, Collections.singletonList(load), promotionStamps);
+         } else {
+            tier.hit(key);
+         }
+      }
+      return load;
+   }
+
+   @Override
+   public CompletionStage<MarshalledEntry> loadFromAllStoresAsync(Object key, InvocationContext context) {
+      MissingKeyFilter filter = missingKeyFilter;
+      if (filter == null)
+         return loadFromStoresAsync(key, context);
+      if (!filter.mightContain(key))
+         return CompletableFutures.completedNull();
+
+      long stamp = filter.stamp();
+      boolean allLoaders = !skipsLoaders(context);
+      return loadFromStoresAsync(key, context).thenApply(loaded -> {
+         if (allLoaders)
+            filter.loaded(key, loaded != null, stamp);
+         return loaded;
+      });
+   }
+
+   private CompletionStage<MarshalledEntry> loadFromStoresAsync(Object key, InvocationContext context) {
+      LocalTier tier = localTier;
+      if (tier == null)
+         return loadFromLoaders(nonBlockingLoaders(context, c -> true), 0, key);
+
+      Map<Object, Long> promotionStamps = tier.promotionStamps(Collections.singleton(key));
+      return loadFromLoaders(nonBlockingLoaders(context, c -> !c.shared()), 0, key).thenCompose(loaded -> {
+         if (loaded != null) {
+            tier.hit(key);
+            return CompletableFuture.completedFuture(loaded);
+         }
+         return loadFromLoaders(nonBlockingLoaders(context, StoreConfiguration::shared), 0, key).thenApply(shared -> {
+            // Don't make the caller wait for the local stores
+            if (shared != null)
+               persistenceExecutor.execute(() -> promote(tier, Collections.singletonList(shared), promotionStamps));
+            return shared;
+         });
+      });
+   }
+
+   private List<NonBlockingCacheLoader> nonBlockingLoaders(InvocationContext context, Predicate<StoreConfiguration> tier) {
       storesMutex.readLock().lock();
       try {
+         List<NonBlockingCacheLoader> candidates = new ArrayList<>(loaders.size());
          for (CacheLoader l : loaders) {
             if (!context.isOriginLocal() && isLocalOnlyLoader(l))
                continue;
+            if (!tier.test(configMap.get(l)))
+               continue;
 
-            MarshalledEntry load = l.load(key);
-            if (load != null)
-               return load;
+            candidates.add(nonBlockingLoaders.get(l));
          }
-         return null;
+         return candidates;
       } finally {
          storesMutex.readLock().unlock();
       }
    }
 
+   private boolean skipsLoaders(InvocationContext context) {
+      if (context.isOriginLocal())
+         return false;
+      storesMutex.readLock().lock();
+      try {
+         for (CacheLoader l : loaders) {
+            if (isLocalOnlyLoader(l))
+               return true;
+         }
+         return false;
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
+   private CompletionStage<MarshalledEntry> loadFromLoaders(List<NonBlockingCacheLoader> candidates, int index, Object key) {
+      if (index >= candidates.size())
+         return CompletableFutures.completedNull();
+
+      CompletionStage<MarshalledEntry> stage = candidates.get(index).loadAsync(key);
+      if (index == candidates.size() - 1)
+         return stage;
+
+      // Only query the next loader if the key was not found in this one
+      return stage.thenCompose(loaded -> loaded != null ? stage : loadFromLoaders(candidates, index + 1, key));
+   }
+
+   @Override
+   public Map<Object, MarshalledEntry> loadBatchFromAllStores(Collection<?> keys, InvocationContext context) {
+      Map<Object, MarshalledEntry> entries = new HashMap<>();
+      MissingKeyFilter filter = missingKeyFilter;
+      Collection<?> remaining = filter != null ? filterMissingKeys(filter, keys) : keys;
+      if (remaining.isEmpty())
+         return entries;
+
+      long stamp = filter != null ? filter.stamp() : 0;
+      LocalTier tier = localTier;
+      Map<Object, Long> promotionStamps = tier != null ? tier.promotionStamps(remaining) : null;
+      List<MarshalledEntry> sharedEntries = new ArrayList<>();
+      storesMutex.readLock().lock();
+      try {
+         boolean allLoaders = true;
+         for (CacheLoader l : loaders) {
+            if (!context.isOriginLocal() && isLocalOnlyLoader(l)) {
+               allLoaders = false;
+               continue;
+            }
+
+            Map<Object, MarshalledEntry> loaded = l.loadBatch(remaining);
+            if (tier != null) {
+               if (configMap.get(l).shared()) {
+                  sharedEntries.addAll(loaded.values());
+               } else {
+                  loaded.keySet().forEach(tier::hit);
+               }
+            }
+            entries.putAll(loaded);
+            remaining = missingKeys(remaining, entries);
+            if (remaining.isEmpty())
+               break;
+         }
+         if (filter != null && allLoaders) {
+            for (Object key : remaining) {
+               filter.loaded(key, false, stamp);
+            }
+         }
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+      if (!sharedEntries.isEmpty())
+         promote(tier, sharedEntries, promotionStamps);
+      return entries;
+   }
+
+   @Override
+   public CompletionStage<Map<Object, MarshalledEntry>> loadBatchFromAllStoresAsync(Collection<?> keys, InvocationContext context) {
+      MissingKeyFilter filter = missingKeyFilter;
+      if (filter == null)
+         return loadBatchFromStoresAsync(keys, context);
+
+      Collection<?> candidateKeys = filterMissingKeys(filter, keys);
+      long stamp = filter.stamp();
+      boolean allLoaders = !skipsLoaders(context);
+      return loadBatchFromStoresAsync(candidateKeys, context).thenApply(entries -> {
+         if (allLoaders) {
+            for (Object key : candidateKeys) {
+               filter.loaded(key, entries.containsKey(key), stamp);
+            }
+         }
+         return entries;
+      });
+   }
+
+   private CompletionStage<Map<Object, MarshalledEntry>> loadBatchFromStoresAsync(Collection<?> keys,
+                                                                                  InvocationContext context) {
+      LocalTier tier = localTier;
+      if (tier == null)
+         return loadBatchFromLoaders(nonBlockingLoaders(context, c -> true), 0, keys, new HashMap<>());
+
+      Map<Object, Long> promotionStamps = tier.promotionStamps(keys);
+      return loadBatchFromLoaders(nonBlockingLoaders(context, c -> !c.shared()), 0, keys, new HashMap<>())
+            .thenCompose(local -> {
+               local.keySet().forEach(tier::hit);
+               Collection<?> remaining = missingKeys(keys, local);
+               return loadBatchFromLoaders(nonBlockingLoaders(context, StoreConfiguration::shared), 0, remaining,
+                                           new HashMap<>())
+                     .thenApply(shared -> {
+                        // Don't make the caller wait for the local stores
+                        if (!shared.isEmpty()) {
+                           List<MarshalledEntry> promoted = new ArrayList<>(shared.values());
+                           persistenceExecutor.execute(() -> promote(tier, promoted, promotionStamps));
+                        }
+                        local.putAll(shared);
+                        return local;
+                     });
+            });
+   }
+
+   @Override
+   public long writeStamp(Object key) {
+      return writeTracker.stamp(key);
+   }
+
+   @Override
+   public boolean isWrittenSince(Object key, long stamp) {
+      return writeTracker.isWrittenSince(key, stamp);
+   }
+
+   /**
+    * Copies entries read from the shared stores to the local stores. If a write of a key started since the shared
+    * stores were read, its copy may be older than the written entry, so it is deleted again.
+    */
+   private void promote(LocalTier tier, Collection<MarshalledEntry> candidates, Map<Object, Long> promotionStamps) {
+      List<MarshalledEntry> entries = new ArrayList<>(candidates.size());
+      for (MarshalledEntry entry : candidates) {
+         if (promotionStamps.getOrDefault(entry.getKey(), -1L) >= 0)
+            entries.add(entry);
+      }
+      if (entries.isEmpty())
+         return;
+      storesMutex.readLock().lock();
+      try {
+         List<CacheWriter> localWriters = localTierWriters();
+         try {
+            for (CacheWriter writer : localWriters) {
+               if (entries.size() == 1) {
+                  writer.write(entries.iterator().next());
+               } else {
+                  writer.writeBatch(entries);
+               }
+            }
+         } catch (PersistenceException e) {
+            // The entries are still read from the shared stores
+            log.debugf(e, "Failed to copy %d entries to the local stores", entries.size());
+         }
+         List<Object> staleKeys = new ArrayList<>();
+         for (MarshalledEntry entry : entries) {
+            Object key = entry.getKey();
+            if (tier.isPromotionStale(key, promotionStamps.get(key))) {
+               staleKeys.add(key);
+            } else {
+               tier.promoted(key);
+            }
+         }
+         if (!staleKeys.isEmpty()) {
+            for (CacheWriter writer : localWriters) {
+               writer.deleteBatch(staleKeys);
+            }
+         }
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
+   private List<CacheWriter> localTierWriters() {
+      List<CacheWriter> writers = new ArrayList<>();
+      for (CacheWriter writer : nonTxWriters) {
+         if (!configMap.get(writer).shared())
+            writers.add(writer);
+      }
+      for (CacheWriter writer : txWriters) {
+         if (!configMap.get(writer).shared())
+            writers.add(writer);
+      }
+      return writers;
+   }
+
+   /**
+    * Invoked when the local tier has too many entries.
+    */
+   private void evictFromLocalTier(Object key) {
+      storesMutex.readLock().lock();
+      try {
+         for (CacheWriter writer : localTierWriters()) {
+            writer.delete(key);
+         }
+      } catch (PersistenceException e) {
+         log.debugf(e, "Failed to evict key %s from the local stores", key);
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
+   private static Collection<?> filterMissingKeys(MissingKeyFilter filter, Collection<?> keys) {
+      List<Object> candidates = new ArrayList<>(keys.size());
+      for (Object key : keys) {
+         if (filter.mightContain(key))
+            candidates.add(key);
+      }
+      return candidates;
+   }
+
+   private CompletionStage<Map<Object, MarshalledEntry>> loadBatchFromLoaders(List<NonBlockingCacheLoader> candidates,
+                                                                              int index, Collection<?> keys,
+                                                                              Map<Object, MarshalledEntry> entries) {
+      if (index >= candidates.size() || keys.isEmpty())
+         return CompletableFuture.completedFuture(entries);
+
+      CompletionStage<Map<Object, MarshalledEntry>> stage = candidates.get(index).loadBatchAsync(keys);
+      // Only query the next loader for the keys that were not found in this one
+      return stage.thenCompose(loaded -> {
+         entries.putAll(loaded);
+         return loadBatchFromLoaders(candidates, index + 1, missingKeys(keys, entries), entries);
+      });
+   }
+
+   private static Collection<?> missingKeys(Collection<?> keys, Map<Object, MarshalledEntry> entries) {
+      List<Object> missing = new ArrayList<>(keys.size());
+      for (Object key : keys) {
+         if (!entries.containsKey(key))
+            missing.add(key);
+      }
+      return missing;
+   }
+
    private boolean isLocalOnlyLoader(CacheLoader loader) {
       if (loader instanceof LocalOnlyCacheLoader) return true;
       if (loader instanceof DelegatingCacheLoader) {
@@ -510,12 +1037,109 @@ public void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode ac
 
    @Override
    public void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode accessMode, long flags) {
+      MissingKeyFilter filter = missingKeyFilter;
+      if (filter != null)
+         filter.beforeWrite(marshalledEntry.getKey());
+      LocalTier tier = localTier;
+      writeTracker.beforeWrite(marshalledEntry.getKey());
       storesMutex.readLock().lock();
       try {
          nonTxWriters.stream()
                .filter(writer -> !(writer instanceof FlagAffectedStore) || FlagAffectedStore.class.cast(writer).shouldWrite(flags))
                .filter(writer -> accessMode.canPerform(configMap.get(writer)))
                .forEach(writer -> writer.write(marshalledEntry));
+      } finally {
+         storesMutex.readLock().unlock();
+         if (tier != null)
+            tier.added(marshalledEntry.getKey());
+         writeTracker.afterWrite(marshalledEntry.getKey());
+         if (filter != null)
+            filter.afterWrite(marshalledEntry.getKey());
+      }
+   }
+
+   @Override
+   public CompletionStage<Void> writeToAllNonTxStoresAsync(MarshalledEntry marshalledEntry, AccessMode accessMode, long flags) {
+      MissingKeyFilter filter = missingKeyFilter;
+      if (filter == null)
+         return doWriteToAllNonTxStoresAsync(marshalledEntry, accessMode, flags);
+
+      filter.beforeWrite(marshalledEntry.getKey());
+      return doWriteToAllNonTxStoresAsync(marshalledEntry, accessMode, flags)
+            .whenComplete((v, t) -> filter.afterWrite(marshalledEntry.getKey()));
+   }
+
+   private CompletionStage<Void> doWriteToAllNonTxStoresAsync(MarshalledEntry marshalledEntry, AccessMode accessMode,
+                                                              long flags) {
+      LocalTier tier = localTier;
+      CompletionStage<Void> written = writeStores(Collections.singletonList(marshalledEntry.getKey()),
+                                                  () -> writeToNonTxWriters(marshalledEntry, accessMode, flags));
+      return tier == null ? written : written.whenComplete((v, t) -> tier.added(marshalledEntry.getKey()));
+   }
+
+   private CompletionStage<Void> writeToNonTxWriters(MarshalledEntry marshalledEntry, AccessMode accessMode, long flags) {
+      storesMutex.readLock().lock();
+      try {
+         CompletionStage<Void> written = null;
+         for (CacheWriter writer : nonTxWriters) {
+            if (writer instanceof FlagAffectedStore && !((FlagAffectedStore) writer).shouldWrite(flags))
+               continue;
+            if (!accessMode.canPerform(configMap.get(writer)))
+               continue;
+
+            CompletionStage<Void> stage = nonBlockingWriters.get(writer).writeAsync(marshalledEntry);
+            written = written == null ? stage : written.thenCombine(stage, (v1, v2) -> null);
+         }
+         return written != null ? written : CompletableFutures.completedNull();
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
+   @Override
+   public CompletionStage<Void> writeBatchToAllNonTxStoresAsync(Collection<MarshalledEntry> marshalledEntries,
+                                                                AccessMode accessMode, long flags) {
+      MissingKeyFilter filter = missingKeyFilter;
+      if (filter == null)
+         return doWriteBatchToAllNonTxStoresAsync(marshalledEntries, accessMode, flags);
+
+      for (MarshalledEntry marshalledEntry : marshalledEntries) {
+         filter.beforeWrite(marshalledEntry.getKey());
+      }
+      return doWriteBatchToAllNonTxStoresAsync(marshalledEntries, accessMode, flags).whenComplete((v, t) -> {
+         for (MarshalledEntry marshalledEntry : marshalledEntries) {
+            filter.afterWrite(marshalledEntry.getKey());
+         }
+      });
+   }
+
+   private CompletionStage<Void> doWriteBatchToAllNonTxStoresAsync(Collection<MarshalledEntry> marshalledEntries,
+                                                                   AccessMode accessMode, long flags) {
+      LocalTier tier = localTier;
+      List<Object> keys = new ArrayList<>(marshalledEntries.size());
+      for (MarshalledEntry marshalledEntry : marshalledEntries) {
+         keys.add(marshalledEntry.getKey());
+      }
+      CompletionStage<Void> written = writeStores(keys,
+                                                  () -> writeBatchToNonTxWriters(marshalledEntries, accessMode, flags));
+      return tier == null ? written : written.whenComplete((v, t) -> keys.forEach(tier::added));
+   }
+
+   private CompletionStage<Void> writeBatchToNonTxWriters(Collection<MarshalledEntry> marshalledEntries,
+                                                          AccessMode accessMode, long flags) {
+      storesMutex.readLock().lock();
+      try {
+         CompletionStage<Void> written = null;
+         for (CacheWriter writer : nonTxWriters) {
+            if (writer instanceof FlagAffectedStore && !((FlagAffectedStore) writer).shouldWrite(flags))
+               continue;
+            if (!accessMode.canPerform(configMap.get(writer)))
+               continue;
+
+            CompletionStage<Void> stage = nonBlockingWriters.get(writer).writeBatchAsync(marshalledEntries);
+            written = written == null ? stage : written.thenCombine(stage, (v1, v2) -> null);
+         }
+         return written != null ? written : CompletableFutures.completedNull();
       } finally {
          storesMutex.readLock().unlock();
       }
@@ -524,6 +1148,12 @@ public void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode ac
    @Override
    public void prepareAllTxStores(Transaction transaction, BatchModification batchModification,
                                   AccessMode accessMode) throws PersistenceException {
+      MissingKeyFilter filter = missingKeyFilter;
+      if (filter != null) {
+         for (MarshalledEntry marshalledEntry : batchModification.getMarshalledEntries()) {
+            filter.beforeWrite(marshalledEntry.getKey());
+         }
+      }
       storesMutex.readLock().lock();
       try {
          for (CacheWriter writer : txWriters) {
@@ -539,7 +1169,17 @@ public void prepareAllTxStores(Transaction transaction, BatchModification batchM
 
    @Override
    public void commitAllTxStores(Transaction transaction, AccessMode accessMode) {
-      performOnAllTxStores(accessMode, writer -> writer.commit(transaction));
+      // The transactional stores only apply the modifications on commit
+      writeTracker.beforeWriteAll();
+      try {
+         performOnAllTxStores(accessMode, writer -> writer.commit(transaction));
+      } finally {
+         writeTracker.afterWriteAll();
+         MissingKeyFilter filter = missingKeyFilter;
+         // The committed keys are not known here
+         if (filter != null)
+            filter.afterWriteAll();
+      }
    }
 
    @Override
@@ -567,7 +1207,8 @@ public int size() {
       storesMutex.readLock().lock();
       try {
          for (CacheLoader l : loaders) {
-            if (l instanceof AdvancedCacheLoader)
+            // The local tier may only have some of the entries
+            if (l instanceof AdvancedCacheLoader && (localTier == null || configMap.get(l).shared()))
                return ((AdvancedCacheLoader) l).size();
          }
       } finally {
@@ -594,7 +1235,7 @@ public List<CacheWriter> getAllTxWriters() {
    }
 
    private void createLoadersAndWriters() {
-      for (StoreConfiguration cfg : configuration.persistence().stores()) {
+      for (StoreConfiguration cfg : storeConfigurations()) {
          Object bareInstance = cacheStoreFactoryRegistry.createInstance(cfg);
 
          StoreConfiguration processedConfiguration = cacheStoreFactoryRegistry.processStoreConfiguration(cfg);
@@ -613,6 +1254,18 @@ private void createLoadersAndWriters() {
       }
    }
 
+   /**
+    * In a tiered configuration the local stores come first, so that they are read before the shared stores.
+    */
+   private List<StoreConfiguration> storeConfigurations() {
+      List<StoreConfiguration> stores = configuration.persistence().stores();
+      if (!configuration.persistence().tiered())
+         return stores;
+      List<StoreConfiguration> sorted = new ArrayList<>(stores);
+      sorted.sort(Comparator.comparing(StoreConfiguration::shared));
+      return sorted;
+   }
+
    private CacheLoader postProcessReader(StoreConfiguration cfg, CacheWriter writer, CacheLoader loader) {
       if(cfg.async().enabled() && loader != null && writer != null) {
          loader = createAsyncLoader(loader, (AsyncCacheWriter) writer);
@@ -657,10 +1310,10 @@ private void initializeWriter(StoreConfiguration cfg, CacheWriter writer, Initia
             } else {
                // If cache is non-transactional then it is not possible for the store to be, so treat as normal store
                // Shouldn't happen as a CacheConfigurationException should be thrown on validation
-               nonTxWriters.add(writer);
+               addNonTxWriter(writer);
             }
          } else {
-            nonTxWriters.add(writer);
+            addNonTxWriter(writer);
          }
 
          configMap.put(writer, cfg);
@@ -672,10 +1325,18 @@ private void initializeLoader(StoreConfiguration cfg, CacheLoader loader, Initia
          if (loader instanceof DelegatingCacheLoader)
             loader.init(ctx);
          loaders.add(loader);
+         nonBlockingLoaders.put(loader, loader instanceof NonBlockingCacheLoader ? (NonBlockingCacheLoader) loader :
+               new NonBlockingCacheLoaderAdapter<>(loader, persistenceExecutor));
          configMap.put(loader, cfg);
       }
    }
 
+   private void addNonTxWriter(CacheWriter writer) {
+      nonTxWriters.add(writer);
+      nonBlockingWriters.put(writer, writer instanceof NonBlockingCacheWriter ? (NonBlockingCacheWriter) writer :
+            new NonBlockingCacheWriterAdapter<>(writer, persistenceExecutor));
+   }
+
    private void initializeBareInstance(Object instance, InitializationContextImpl ctx) {
       // the delegates only propagate init if the underlaying object is a delegate as well.
       // we do this in order to assure the init is only invoked once
@@ -743,13 +1404,20 @@ private long getMaxEntries() {
       return ne;
    }
 
-   private void preloadKey(AdvancedCache<Object, Object> cache, Object key, Object value, Metadata metadata) {
+   private void preloadEntries(AdvancedCache<Object, Object> cache, List<MarshalledEntry> entries) {
       final Transaction transaction = suspendIfNeeded();
       boolean success = false;
       try {
          try {
             beginIfNeeded();
-            cache.put(key, value, metadata);
+            // Entries with the same metadata are inserted with a single command
+            Map<Metadata, Map<Object, Object>> entriesByMetadata = new HashMap<>();
+            for (MarshalledEntry me : entries) {
+               Metadata metadata = me.getMetadata() != null ? ((InternalMetadataImpl) me.getMetadata()).actual() :
+                     null; //the downcast will go away with ISPN-3460
+               entriesByMetadata.computeIfAbsent(metadata, m -> new HashMap<>()).put(me.getKey(), me.getValue());
+            }
+            entriesByMetadata.forEach((metadata, values) -> cache.putAll(values, metadata));
             success = true;
          } catch (Exception e) {
             throw new PersistenceException("Unable to preload!", e);
@@ -760,6 +1428,7 @@ private void preloadKey(AdvancedCache<Object, Object> cache, Object key, Object
          //commitIfNeeded can throw an exception, so we need a try { } finally { }
          resumeIfNeeded(transaction);
       }
+      preloadedEntries.add(entries.size());
    }
 
    private void resumeIfNeeded(Transaction transaction) {
@@ -812,6 +1481,124 @@ public Executor getPersistenceExecutor() {
       return persistenceExecutor;
    }
 
+   @ManagedAttribute(description = "Whether the cache is being preloaded from the cache store", displayName = "Preloading")
+   public boolean isPreloading() {
+      return preloading;
+   }
+
+   @ManagedAttribute(description = "Number of entries preloaded from the cache store", displayName = "Preloaded entries")
+   public long getPreloadedEntries() {
+      return preloadedEntries.sum();
+   }
+
+   @ManagedAttribute(description = "Number of segments preloaded from a segmented cache store",
+         displayName = "Preloaded segments")
+   public int getPreloadedSegments() {
+      return preloadedSegments.get();
+   }
+
+   @ManagedAttribute(description = "Time spent preloading the cache, in milliseconds", displayName = "Preload time",
+         units = Units.MILLISECONDS)
+   public long getPreloadTime() {
+      return preloadTime;
+   }
+
+   @ManagedAttribute(description = "Number of lookups of keys that the bloom filter kept from reaching the stores",
+         displayName = "Bloom filter rejections")
+   public long getBloomFilterRejections() {
+      MissingKeyFilter filter = missingKeyFilter;
+      return filter != null ? filter.getRejected() : 0;
+   }
+
+   @ManagedAttribute(description = "Number of lookups of missing keys that the bloom filter let through to the stores",
+         displayName = "Bloom filter false positives")
+   public long getBloomFilterFalsePositives() {
+      MissingKeyFilter filter = missingKeyFilter;
+      return filter != null ? filter.getFalsePositives() : 0;
+   }
+
+   @ManagedAttribute(description = "Fraction of the lookups of missing keys that the bloom filter let through to the stores",
+         displayName = "Bloom filter false positive rate", units = Units.PERCENTAGE)
+   public double getBloomFilterFalsePositiveRate() {
+      MissingKeyFilter filter = missingKeyFilter;
+      return filter != null ? filter.getFalsePositiveRate() : 0;
+   }
+
+   @ManagedAttribute(description = "Number of lookups of keys that were recently found missing in the stores",
+         displayName = "Negative cache hits")
+   public long getNegativeCacheHits() {
+      MissingKeyFilter filter = missingKeyFilter;
+      return filter != null ? filter.getNegativeCacheHits() : 0;
+   }
+
+   @ManagedAttribute(description = "Number of entries read from the local stores of a tiered configuration",
+                     displayName = "Local tier hits")
+   public long getLocalTierHits() {
+      LocalTier tier = localTier;
+      return tier != null ? tier.getHits() : 0;
+   }
+
+   @ManagedAttribute(description = "Number of entries read from the shared stores and copied to the local stores",
+                     displayName = "Local tier promotions")
+   public long getLocalTierPromotions() {
+      LocalTier tier = localTier;
+      return tier != null ? tier.getPromotions() : 0;
+   }
+
+   @ManagedAttribute(description = "Number of entries deleted from the local stores as there were too many",
+                     displayName = "Local tier evictions")
+   public long getLocalTierEvictions() {
+      LocalTier tier = localTier;
+      return tier != null ? tier.getEvictions() : 0;
+   }
+
+   @ManagedAttribute(description = "Number of modifications waiting to be applied to the async stores",
+                     displayName = "Async store queue size")
+   public int getAsyncStoreQueueSize() {
+      int size = 0;
+      for (AsyncCacheWriter writer : asyncWriters()) {
+         size += writer.getQueueSize();
+      }
+      return size;
+   }
+
+   @ManagedAttribute(description = "Number of batches of modifications applied to the async stores",
+                     displayName = "Async store flushes")
+   public long getAsyncStoreFlushCount() {
+      long count = 0;
+      for (AsyncCacheWriter writer : asyncWriters()) {
+         count += writer.getFlushCount();
+      }
+      return count;
+   }
+
+   @ManagedAttribute(description = "Average time spent applying a batch of modifications to the async stores",
+                     displayName = "Async store average flush time", units = Units.MILLISECONDS)
+   public long getAsyncStoreAverageFlushTime() {
+      long count = 0;
+      long time = 0;
+      for (AsyncCacheWriter writer : asyncWriters()) {
+         long flushes = writer.getFlushCount();
+         count += flushes;
+         time += flushes * writer.getAverageFlushTime();
+      }
+      return count > 0 ? time / count : 0;
+   }
+
+   private List<AsyncCacheWriter> asyncWriters() {
+      storesMutex.readLock().lock();
+      try {
+         List<AsyncCacheWriter> writers = new ArrayList<>();
+         for (CacheWriter writer : nonTxWriters) {
+            if (writer instanceof AsyncCacheWriter)
+               writers.add((AsyncCacheWriter) writer);
+         }
+         return writers;
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
    public StreamingMarshaller getMarshaller() {
       return m;
    }
@@ -850,4 +1637,42 @@ private void performOnAllTxStores(AccessMode accessMode, Consumer<TransactionalC
          storesMutex.readLock().unlock();
       }
    }
+
+   /**
+    * Collects the preloaded entries and inserts them in the cache in batches. Invoked concurrently by the preload
+    * tasks, each full batch is inserted by the thread that filled it.
+    */
+   private class PreloadBatch {
+      private final AdvancedCache<Object, Object> cache;
+      private List<MarshalledEntry> entries = new ArrayList<>(PRELOAD_BATCH_SIZE);
+
+      PreloadBatch(AdvancedCache<Object, Object> cache) {
+         this.cache = cache;
+      }
+
+      void add(MarshalledEntry entry) {
+         List<MarshalledEntry> full = null;
+         synchronized (this) {
+            entries.add(entry);
+            if (entries.size() >= PRELOAD_BATCH_SIZE) {
+               full = entries;
+               entries = new ArrayList<>(PRELOAD_BATCH_SIZE);
+            }
+         }
+         if (full != null) {
+            preloadEntries(cache, full);
+         }
+      }
+
+      void flush() {
+         List<MarshalledEntry> remaining;
+         synchronized (this) {
+            remaining = entries;
+            entries = new ArrayList<>(PRELOAD_BATCH_SIZE);
+         }
+         if (!remaining.isEmpty()) {
+            preloadEntries(cache, remaining);
+         }
+      }
+   }
 }
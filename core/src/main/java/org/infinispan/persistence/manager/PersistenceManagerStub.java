@@ -2,7 +2,10 @@
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 
 import javax.transaction.Transaction;
@@ -14,6 +17,8 @@
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.persistence.support.BatchModification;
+import org.infinispan.util.concurrent.CompletableFutures;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
 
 /**
  * @author Radim Vansa &lt;rvansa@redhat.com&gt;
@@ -54,11 +59,20 @@ public void purgeExpired() {
    public void clearAllStores(AccessMode mode) {
    }
 
+   @Override
+   public void removeSegmentsFromAllStores(Set<Integer> segments, AccessMode mode) {
+   }
+
    @Override
    public boolean deleteFromAllStores(Object key, AccessMode mode) {
       return false;
    }
 
+   @Override
+   public CompletionStage<Boolean> deleteFromAllStoresAsync(Object key, AccessMode mode) {
+      return CompletableFutures.completedFalse();
+   }
+
    @Override
    public void processOnAllStores(KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata) {
    }
@@ -75,11 +89,40 @@ public void processOnAllStores(KeyFilter keyFilter, AdvancedCacheLoader.CacheLoa
    public void processOnAllStores(Executor executor, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata, AccessMode mode) {
    }
 
+   @Override
+   public void processOnAllStores(Set<Integer> segments, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata, AccessMode mode) {
+   }
+
    @Override
    public MarshalledEntry loadFromAllStores(Object key, InvocationContext context) {
       return null;
    }
 
+   @Override
+   public CompletionStage<MarshalledEntry> loadFromAllStoresAsync(Object key, InvocationContext context) {
+      return CompletableFutures.completedNull();
+   }
+
+   @Override
+   public long writeStamp(Object key) {
+      return 0;
+   }
+
+   @Override
+   public boolean isWrittenSince(Object key, long stamp) {
+      return false;
+   }
+
+   @Override
+   public Map<Object, MarshalledEntry> loadBatchFromAllStores(Collection<?> keys, InvocationContext context) {
+      return Collections.emptyMap();
+   }
+
+   @Override
+   public CompletionStage<Map<Object, MarshalledEntry>> loadBatchFromAllStoresAsync(Collection<?> keys, InvocationContext context) {
+      return CompletableFuture.completedFuture(Collections.emptyMap());
+   }
+
    @Override
    public void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode modes) {
    }
@@ -88,11 +131,26 @@ public void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode mo
    public void writeToAllNonTxStores(MarshalledEntry marshalledEntry, AccessMode modes, long flags) {
    }
 
+   @Override
+   public CompletionStage<Void> writeToAllNonTxStoresAsync(MarshalledEntry marshalledEntry, AccessMode modes, long flags) {
+      return CompletableFutures.completedNull();
+   }
+
+   @Override
+   public CompletionStage<Void> writeBatchToAllNonTxStoresAsync(Collection<MarshalledEntry> marshalledEntries, AccessMode modes, long flags) {
+      return CompletableFutures.completedNull();
+   }
+
    @Override
    public AdvancedCacheLoader getStateTransferProvider() {
       return null;
    }
 
+   @Override
+   public Executor createParallelExecutor() {
+      return new WithinThreadExecutor();
+   }
+
    @Override
    public int size() {
       return 0;
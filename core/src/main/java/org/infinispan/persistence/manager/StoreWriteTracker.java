@@ -0,0 +1,76 @@
+package org.infinispan.persistence.manager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks the writes and deletes of the stores, so that an entry read from the stores without holding any lock can be
+ * discarded if its key was written in the meantime.
+ * <p>
+ * A reader takes a stamp of the key before reading the stores and checks it with
+ * {@link #isWrittenSince(Object, long)} once it holds the lock that orders it with the writers.  A write that is in
+ * progress when the stamp is taken may or may not be visible to the reader, so the key counts as written.  The writes
+ * are tracked in a fixed number of stripes, so a write of a key that shares the stripe of the read key also counts.
+ * The writes whose keys are not known, e.g. clearing the stores, count for all the keys.
+ *
+ * @since 9.0
+ */
+class StoreWriteTracker {
+   private static final int STRIPES = 1024;
+
+   private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+   private final AtomicIntegerArray writesInProgress = new AtomicIntegerArray(STRIPES);
+   private final AtomicLong allVersion = new AtomicLong();
+   private final AtomicInteger allWritesInProgress = new AtomicInteger();
+
+   void beforeWrite(Object key) {
+      int stripe = stripe(key);
+      writesInProgress.incrementAndGet(stripe);
+      versions.incrementAndGet(stripe);
+   }
+
+   void afterWrite(Object key) {
+      int stripe = stripe(key);
+      versions.incrementAndGet(stripe);
+      writesInProgress.decrementAndGet(stripe);
+   }
+
+   /**
+    * Used when the written keys are not known, e.g. when clearing the stores.
+    */
+   void beforeWriteAll() {
+      allWritesInProgress.incrementAndGet();
+      allVersion.incrementAndGet();
+   }
+
+   void afterWriteAll() {
+      allVersion.incrementAndGet();
+      allWritesInProgress.decrementAndGet();
+   }
+
+   /**
+    * Must be invoked before reading the stores.
+    *
+    * @return the stamp to pass to {@link #isWrittenSince(Object, long)}, or -1 if a write of the key is in progress
+    */
+   long stamp(Object key) {
+      int stripe = stripe(key);
+      // Both versions only grow, so their sum changes whenever one of them does
+      long stamp = versions.get(stripe) + allVersion.get();
+      return writesInProgress.get(stripe) == 0 && allWritesInProgress.get() == 0 ? stamp : -1;
+   }
+
+   /**
+    * @return whether the key was written since the stamp was taken, or was being written when it was taken
+    */
+   boolean isWrittenSince(Object key, long stamp) {
+      return stamp < 0 || versions.get(stripe(key)) + allVersion.get() != stamp;
+   }
+
+   private static int stripe(Object key) {
+      int h = key.hashCode();
+      return (h ^ (h >>> 16)) & (STRIPES - 1);
+   }
+}
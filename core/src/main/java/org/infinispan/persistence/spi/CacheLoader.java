@@ -1,5 +1,9 @@
 package org.infinispan.persistence.spi;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.infinispan.commons.api.Lifecycle;
 import org.infinispan.marshall.core.MarshalledEntry;
 
@@ -33,6 +37,25 @@
     */
    MarshalledEntry<K, V> load(Object key);
 
+   /**
+    * Fetches the entries associated with the given keys from the storage. The default implementation loads the keys one
+    * at a time, loaders able to fetch them in fewer round-trips, e.g. with a single database query, should override it.
+    *
+    * @return the entries found in the storage, keyed by their key. Keys that do not exist are not present in the map
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    * @see #load(Object)
+    */
+   default Map<Object, MarshalledEntry<K, V>> loadBatch(Collection<?> keys) {
+      Map<Object, MarshalledEntry<K, V>> entries = new HashMap<>();
+      for (Object key : keys) {
+         MarshalledEntry<K, V> entry = load(key);
+         if (entry != null) {
+            entries.put(key, entry);
+         }
+      }
+      return entries;
+   }
+
    /**
     * Returns true if the storage contains an entry associated with the given key.
     *
@@ -35,4 +35,30 @@
     * @throws PersistenceException in case of an error, e.g. communicating with the external storage
     */
    boolean delete(Object key);
+
+   /**
+    * Persists all provided entries to the storage. The default implementation writes the entries one at a time, stores
+    * able to apply them in fewer round-trips, e.g. with a single database batch, should override it.
+    *
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    * @see #write(MarshalledEntry)
+    */
+   default void writeBatch(Iterable<MarshalledEntry<? extends K, ? extends V>> entries) {
+      for (MarshalledEntry<? extends K, ? extends V> entry : entries) {
+         write(entry);
+      }
+   }
+
+   /**
+    * Removes all provided keys from the storage. The default implementation deletes the keys one at a time, stores
+    * able to remove them in fewer round-trips should override it.
+    *
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    * @see #delete(Object)
+    */
+   default void deleteBatch(Iterable<Object> keys) {
+      for (Object key : keys) {
+         delete(key);
+      }
+   }
 }
@@ -0,0 +1,63 @@
+package org.infinispan.persistence.spi;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.infinispan.marshall.core.MarshalledEntry;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Implemented by {@link CacheLoader}s that can read from the external storage without blocking the invoking thread.
+ * <p>
+ * The {@link org.infinispan.persistence.manager.PersistenceManager} prefers these methods to the blocking ones when
+ * loading entries for non-transactional invocations. Loaders not implementing this interface are invoked on the
+ * persistence executor instead.
+ *
+ * @since 9.0
+ */
+@ThreadSafe
+public interface NonBlockingCacheLoader<K, V> {
+
+   /**
+    * Fetches an entry from the storage.
+    *
+    * @return a stage completed with the entry, or with null if the entry does not exist. The stage completes
+    *         exceptionally with a {@link PersistenceException} in case of an error, e.g. communicating with the
+    *         external storage
+    * @see CacheLoader#load(Object)
+    */
+   CompletionStage<MarshalledEntry<K, V>> loadAsync(Object key);
+
+   /**
+    * Fetches the entries associated with the given keys from the storage. The default implementation loads all the
+    * keys concurrently with {@link #loadAsync(Object)}.
+    *
+    * @return a stage completed with the entries found in the storage, keyed by their key
+    * @see CacheLoader#loadBatch(Collection)
+    */
+   default CompletionStage<Map<Object, MarshalledEntry<K, V>>> loadBatchAsync(Collection<?> keys) {
+      Map<Object, MarshalledEntry<K, V>> entries = new HashMap<>();
+      CompletableFuture[] futures = new CompletableFuture[keys.size()];
+      int i = 0;
+      for (Object key : keys) {
+         futures[i++] = loadAsync(key).thenAccept(entry -> {
+            if (entry != null) {
+               synchronized (entries) {
+                  entries.put(key, entry);
+               }
+            }
+         }).toCompletableFuture();
+      }
+      return CompletableFuture.allOf(futures).thenApply(ignore -> entries);
+   }
+
+   /**
+    * @return a stage completed with true if the storage contains an entry associated with the given key.
+    * @see CacheLoader#contains(Object)
+    */
+   CompletionStage<Boolean> containsAsync(Object key);
+}
@@ -0,0 +1,66 @@
+package org.infinispan.persistence.spi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.infinispan.marshall.core.MarshalledEntry;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Implemented by {@link CacheWriter}s that can modify the external storage without blocking the invoking thread.
+ * <p>
+ * The {@link org.infinispan.persistence.manager.PersistenceManager} prefers these methods to the blocking ones when
+ * writing the modifications of non-transactional invocations. Writers not implementing this interface are invoked on
+ * the persistence executor instead.
+ *
+ * @since 9.0
+ */
+@ThreadSafe
+public interface NonBlockingCacheWriter<K, V> {
+
+   /**
+    * Persists the entry to the storage.
+    *
+    * @return a stage completed when the entry was persisted. The stage completes exceptionally with a
+    *         {@link PersistenceException} in case of an error, e.g. communicating with the external storage
+    * @see CacheWriter#write(MarshalledEntry)
+    */
+   CompletionStage<Void> writeAsync(MarshalledEntry<? extends K, ? extends V> entry);
+
+   /**
+    * @return a stage completed with true if the entry existed in the persistent store and it was deleted.
+    * @see CacheWriter#delete(Object)
+    */
+   CompletionStage<Boolean> deleteAsync(Object key);
+
+   /**
+    * Persists all the entries to the storage. The default implementation writes the entries independently, stores
+    * able to apply them in a single round-trip should override it.
+    *
+    * @return a stage completed when all the entries were persisted.
+    */
+   default CompletionStage<Void> writeBatchAsync(Iterable<MarshalledEntry<? extends K, ? extends V>> entries) {
+      List<CompletableFuture<Void>> stages = new ArrayList<>();
+      for (MarshalledEntry<? extends K, ? extends V> entry : entries) {
+         stages.add(writeAsync(entry).toCompletableFuture());
+      }
+      return CompletableFuture.allOf(stages.toArray(new CompletableFuture[stages.size()]));
+   }
+
+   /**
+    * Removes all the keys from the storage. The default implementation deletes the keys independently, stores able to
+    * remove them in a single round-trip should override it.
+    *
+    * @return a stage completed when all the keys were removed.
+    */
+   default CompletionStage<Void> deleteBatchAsync(Iterable<Object> keys) {
+      List<CompletableFuture<Boolean>> stages = new ArrayList<>();
+      for (Object key : keys) {
+         stages.add(deleteAsync(key).toCompletableFuture());
+      }
+      return CompletableFuture.allOf(stages.toArray(new CompletableFuture[stages.size()]));
+   }
+}
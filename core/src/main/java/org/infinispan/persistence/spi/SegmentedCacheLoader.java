@@ -0,0 +1,38 @@
+package org.infinispan.persistence.spi;
+
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.infinispan.filter.KeyFilter;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * An {@link AdvancedCacheLoader} that keeps its entries partitioned by segment, so that it can iterate over the
+ * entries of a subset of the segments without reading the entries of the other segments.
+ * <p>
+ * Segments are the ones defined by the cache's {@link org.infinispan.distribution.ch.KeyPartitioner}. Since the
+ * segments can be iterated independently, preload and state transfer invoke
+ * {@link #process(Set, KeyFilter, CacheLoaderTask, Executor, boolean, boolean)} concurrently for disjoint sets of
+ * segments.
+ *
+ * @since 9.0
+ */
+@ThreadSafe
+public interface SegmentedCacheLoader<K, V> extends AdvancedCacheLoader<K, V> {
+
+   /**
+    * Same as {@link AdvancedCacheLoader#process(KeyFilter, CacheLoaderTask, Executor, boolean, boolean)} except that
+    * only the entries that map to the given segments are passed to the task.
+    *
+    * @param segments      the segments to iterate over
+    * @param filter        to validate which entries should be feed into the task. Might be null.
+    * @param task          callback to be invoked for each stored entry that passes the filter check
+    * @param executor      an external thread pool to be used for parallel iteration
+    * @param fetchValue    whether or not to fetch the value from the persistent store
+    * @param fetchMetadata whether or not to fetch the metadata from the persistent store
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   void process(Set<Integer> segments, KeyFilter<? super K> filter, CacheLoaderTask<K, V> task, Executor executor,
+                boolean fetchValue, boolean fetchMetadata);
+}
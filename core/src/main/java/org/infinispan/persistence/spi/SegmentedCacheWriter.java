@@ -0,0 +1,26 @@
+package org.infinispan.persistence.spi;
+
+import java.util.Set;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A {@link CacheWriter} that keeps its entries partitioned by segment, so that it can drop all the entries of a
+ * segment at once instead of deleting them one by one.
+ * <p>
+ * Segments are the ones defined by the cache's {@link org.infinispan.distribution.ch.KeyPartitioner}. The method is
+ * only invoked on stores that are not shared, after the node stopped owning the segments.
+ *
+ * @since 9.0
+ */
+@ThreadSafe
+public interface SegmentedCacheWriter<K, V> extends CacheWriter<K, V> {
+
+   /**
+    * Removes all the entries that map to the given segments.
+    *
+    * @param segments the segments to remove
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   void removeSegments(Set<Integer> segments);
+}
@@ -0,0 +1,49 @@
+package org.infinispan.persistence.support;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.spi.CacheLoader;
+import org.infinispan.persistence.spi.NonBlockingCacheLoader;
+
+/**
+ * Exposes a blocking {@link CacheLoader} as a {@link NonBlockingCacheLoader} by invoking it on the given executor.
+ * <p>
+ * The executor should be bounded and run rejected tasks in the caller thread, like the persistence executor, so that
+ * a slow store throttles its callers instead of queueing an unbounded number of operations.
+ *
+ * @since 9.0
+ */
+public class NonBlockingCacheLoaderAdapter<K, V> implements NonBlockingCacheLoader<K, V> {
+
+   private final CacheLoader<K, V> loader;
+   private final Executor executor;
+
+   public NonBlockingCacheLoaderAdapter(CacheLoader<K, V> loader, Executor executor) {
+      this.loader = loader;
+      this.executor = executor;
+   }
+
+   @Override
+   public CompletionStage<MarshalledEntry<K, V>> loadAsync(Object key) {
+      return CompletableFuture.supplyAsync(() -> loader.load(key), executor);
+   }
+
+   @Override
+   public CompletionStage<Map<Object, MarshalledEntry<K, V>>> loadBatchAsync(Collection<?> keys) {
+      return CompletableFuture.supplyAsync(() -> loader.loadBatch(keys), executor);
+   }
+
+   @Override
+   public CompletionStage<Boolean> containsAsync(Object key) {
+      return CompletableFuture.supplyAsync(() -> loader.contains(key), executor);
+   }
+
+   public CacheLoader<K, V> getLoader() {
+      return loader;
+   }
+}
@@ -0,0 +1,53 @@
+package org.infinispan.persistence.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.spi.CacheWriter;
+import org.infinispan.persistence.spi.NonBlockingCacheWriter;
+
+/**
+ * Exposes a blocking {@link CacheWriter} as a {@link NonBlockingCacheWriter} by invoking it on the given executor.
+ * <p>
+ * Batches are applied by a single task through {@link CacheWriter#writeBatch(Iterable)} and
+ * {@link CacheWriter#deleteBatch(Iterable)}, so they only hold one thread of the executor.
+ *
+ * @since 9.0
+ * @see NonBlockingCacheLoaderAdapter
+ */
+public class NonBlockingCacheWriterAdapter<K, V> implements NonBlockingCacheWriter<K, V> {
+
+   private final CacheWriter<K, V> writer;
+   private final Executor executor;
+
+   public NonBlockingCacheWriterAdapter(CacheWriter<K, V> writer, Executor executor) {
+      this.writer = writer;
+      this.executor = executor;
+   }
+
+   @Override
+   public CompletionStage<Void> writeAsync(MarshalledEntry<? extends K, ? extends V> entry) {
+      return CompletableFuture.runAsync(() -> writer.write(entry), executor);
+   }
+
+   @Override
+   public CompletionStage<Boolean> deleteAsync(Object key) {
+      return CompletableFuture.supplyAsync(() -> writer.delete(key), executor);
+   }
+
+   @Override
+   public CompletionStage<Void> writeBatchAsync(Iterable<MarshalledEntry<? extends K, ? extends V>> entries) {
+      return CompletableFuture.runAsync(() -> writer.writeBatch(entries), executor);
+   }
+
+   @Override
+   public CompletionStage<Void> deleteBatchAsync(Iterable<Object> keys) {
+      return CompletableFuture.runAsync(() -> writer.deleteBatch(keys), executor);
+   }
+
+   public CacheWriter<K, V> getWriter() {
+      return writer;
+   }
+}
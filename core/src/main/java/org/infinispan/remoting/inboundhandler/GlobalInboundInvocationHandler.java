@@ -10,6 +10,7 @@
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commons.CacheException;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.factories.GlobalComponentRegistry;
@@ -115,8 +116,17 @@ private void handleCacheRpcCommand(Address origin, CacheRpcCommand command, Repl
          reply.reply(CacheNotFoundResponse.INSTANCE);
          return;
       }
-      initializeCacheRpcCommand(command, cr);
       PerCacheInboundInvocationHandler handler = cr.getPerCacheInboundInvocationHandler();
+      if (command instanceof MultipleRpcCommand) {
+         // the bundled commands are one-way, nobody waits for a reply
+         ((MultipleRpcCommand) command).forEachCommand(cr.getCacheMarshaller(), bundled -> {
+            bundled.setOrigin(origin);
+            initializeCacheRpcCommand(bundled, cr);
+            handler.handle(bundled, Reply.NO_OP, mode);
+         }, log::errorUnMarshallingCommand);
+         return;
+      }
+      initializeCacheRpcCommand(command, cr);
       handler.handle(command, reply, mode);
    }
 
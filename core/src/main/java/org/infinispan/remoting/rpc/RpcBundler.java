@@ -0,0 +1,243 @@
+package org.infinispan.remoting.rpc;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commons.io.UnsignedNumeric;
+import org.infinispan.remoting.inboundhandler.DeliverOrder;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.remoting.transport.Transport;
+import org.infinispan.util.TimeService;
+
+/**
+ * Bundles the one-way commands sent concurrently to the same node in a single
+ * {@link org.infinispan.commands.remote.MultipleRpcCommand}.
+ * <p>
+ * A command waits at most {@code delay} for other commands to the same node: the first command queued for a node
+ * schedules the flush of its queue, and the queue is flushed right away by the sender once it has {@code maxCommands}
+ * commands. The commands are marshalled before they are queued, because the callers may modify a command after sending
+ * it, and they are appended to the buffer of the next bundle, so the bundle is written with a single copy. A command
+ * that is alone in its bundle is sent as it is, without the bundle.
+ * <p>
+ * Only the commands sent with {@link DeliverOrder#NONE} can be bundled, as the bundles to the same node can be sent
+ * concurrently.
+ *
+ * @since 9.0
+ */
+class RpcBundler {
+   private final Transport transport;
+   private final CommandsFactory commandsFactory;
+   private final Consumer<Exception> errorHandler;
+   private final ScheduledExecutorService timeoutExecutor;
+   private final ExecutorService flushExecutor;
+   private final TimeService timeService;
+   private final int maxCommands;
+   private final long delayNanos;
+   private final Map<Address, Destination> destinations = new ConcurrentHashMap<>();
+
+   RpcBundler(Transport transport, CommandsFactory commandsFactory,
+              Consumer<Exception> errorHandler, ScheduledExecutorService timeoutExecutor,
+              ExecutorService flushExecutor, TimeService timeService, int maxCommands, long delayNanos) {
+      this.transport = transport;
+      this.commandsFactory = commandsFactory;
+      this.errorHandler = errorHandler;
+      this.timeoutExecutor = timeoutExecutor;
+      this.flushExecutor = flushExecutor;
+      this.timeService = timeService;
+      this.maxCommands = maxCommands;
+      this.delayNanos = delayNanos;
+   }
+
+   /**
+    * Queues a command for the given node.
+    *
+    * @param command the command, marshalled by the cache marshaller
+    */
+   void send(Address address, byte[] command) {
+      destinations.computeIfAbsent(address, Destination::new).add(command);
+   }
+
+   /**
+    * Sends all the queued commands.
+    */
+   void flushAll() {
+      destinations.values().forEach(Destination::flushAll);
+   }
+
+   void resetStatistics() {
+      destinations.values().forEach(Destination::resetStatistics);
+   }
+
+   long getBundles() {
+      return destinations.values().stream().mapToLong(d -> d.bundles.sum()).sum();
+   }
+
+   long getBundledCommands() {
+      return destinations.values().stream().mapToLong(d -> d.commands.sum()).sum();
+   }
+
+   long getBundlingLatencyNanos() {
+      return destinations.values().stream().mapToLong(d -> d.latencyNanos.sum()).sum();
+   }
+
+   String getStatistics() {
+      StringBuilder sb = new StringBuilder();
+      destinations.values().forEach(d -> {
+         long bundles = d.bundles.sum();
+         if (bundles == 0)
+            return;
+         sb.append(d.address).append(": bundles=").append(bundles)
+               .append(", averageSize=").append(d.commands.sum() / (double) bundles)
+               .append(", averageLatencyMicros=")
+               .append(TimeUnit.NANOSECONDS.toMicros(d.latencyNanos.sum() / bundles)).append('\n');
+      });
+      return sb.toString();
+   }
+
+   /**
+    * The commands taken from a destination to be sent together.
+    */
+   private static class Bundle {
+      final byte[] buffer;
+      final int length;
+      final int count;
+      final long oldestNanos;
+
+      Bundle(byte[] buffer, int length, int count, long oldestNanos) {
+         this.buffer = buffer;
+         this.length = length;
+         this.count = count;
+         this.oldestNanos = oldestNanos;
+      }
+   }
+
+   private class Destination {
+      final Address address;
+      final LongAdder bundles = new LongAdder();
+      final LongAdder commands = new LongAdder();
+      final LongAdder latencyNanos = new LongAdder();
+      // The next bundle, guarded by this
+      private byte[] buffer;
+      private int length;
+      private int count;
+      private long oldestNanos;
+      private boolean flushScheduled;
+      // The length of the last bundle, to size the buffer of the next one
+      private int lastLength;
+
+      Destination(Address address) {
+         this.address = address;
+      }
+
+      void add(byte[] command) {
+         Bundle full = null;
+         boolean scheduleFlush = false;
+         synchronized (this) {
+            if (count == 0) {
+               oldestNanos = timeService.time();
+               scheduleFlush = !flushScheduled;
+               flushScheduled = true;
+            }
+            int required = length + UnsignedNumeric.sizeUnsignedInt(command.length) + command.length;
+            if (buffer == null) {
+               buffer = new byte[Math.max(required, lastLength)];
+            } else if (buffer.length < required) {
+               buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+            }
+            length += UnsignedNumeric.writeUnsignedInt(buffer, length, command.length);
+            System.arraycopy(command, 0, buffer, length, command.length);
+            length += command.length;
+            count++;
+            if (count >= maxCommands) {
+               full = takeBundle();
+            }
+         }
+         if (scheduleFlush) {
+            // The timeout executor only hands the flush over, the transport may block
+            timeoutExecutor.schedule(() -> flushExecutor.execute(this::scheduledFlush), delayNanos,
+                  TimeUnit.NANOSECONDS);
+         }
+         if (full != null) {
+            send(full);
+         }
+      }
+
+      void scheduledFlush() {
+         Bundle bundle;
+         synchronized (this) {
+            // A command queued after this point schedules another flush
+            flushScheduled = false;
+            bundle = takeBundle();
+         }
+         if (bundle != null) {
+            send(bundle);
+         }
+      }
+
+      void flushAll() {
+         Bundle bundle;
+         synchronized (this) {
+            bundle = takeBundle();
+         }
+         if (bundle != null) {
+            try {
+               send(bundle);
+            } catch (RuntimeException e) {
+               // Already logged by the error handler, the other bundles must still be sent
+            }
+         }
+      }
+
+      /**
+       * Must be invoked while holding the monitor of the destination.
+       *
+       * @return the queued commands, or {@code null} if there are none
+       */
+      private Bundle takeBundle() {
+         if (count == 0)
+            return null;
+
+         // The buffer is handed over to the transport, the next bundle needs a new one
+         Bundle bundle = new Bundle(buffer, length, count, oldestNanos);
+         lastLength = length;
+         buffer = null;
+         length = 0;
+         count = 0;
+         return bundle;
+      }
+
+      /**
+       * Sends a bundle. A failure is reported to the error handler, which may rethrow it to the caller.
+       */
+      private void send(Bundle bundle) {
+         bundles.increment();
+         commands.add(bundle.count);
+         latencyNanos.add(timeService.timeDuration(bundle.oldestNanos, TimeUnit.NANOSECONDS));
+         try {
+            if (bundle.count == 1) {
+               int commandLength = UnsignedNumeric.readUnsignedInt(bundle.buffer, 0);
+               transport.sendTo(address, bundle.buffer, UnsignedNumeric.sizeUnsignedInt(commandLength), commandLength,
+                     DeliverOrder.NONE);
+            } else {
+               transport.sendTo(address, commandsFactory.buildMultipleRpcCommand(bundle.buffer, bundle.length,
+                     bundle.count), DeliverOrder.NONE);
+            }
+         } catch (Exception e) {
+            errorHandler.accept(e);
+         }
+      }
+
+      void resetStatistics() {
+         bundles.reset();
+         commands.reset();
+         latencyNanos.reset();
+      }
+   }
+}
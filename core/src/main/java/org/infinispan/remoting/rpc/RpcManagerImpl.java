@@ -9,18 +9,26 @@
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.commands.TopologyAffectedCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
 import org.infinispan.commons.CacheException;
+import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.context.impl.FlagBitSets;
 import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
 import org.infinispan.jmx.JmxStatisticsExposer;
 import org.infinispan.jmx.annotations.DataType;
 import org.infinispan.jmx.annotations.DisplayType;
@@ -68,15 +76,25 @@ public class RpcManagerImpl implements RpcManager, JmxStatisticsExposer {
    private CommandsFactory cf;
    private StateTransferManager stateTransferManager;
    private TimeService timeService;
+   private ScheduledExecutorService timeoutExecutor;
+   private ExecutorService asyncTransportExecutor;
+   private StreamingMarshaller marshaller;
+   private RpcBundler bundler;
 
    @Inject
    public void injectDependencies(Transport t, Configuration cfg, CommandsFactory cf,
-                                  StateTransferManager stateTransferManager, TimeService timeService) {
+                                  StateTransferManager stateTransferManager, TimeService timeService,
+                                  @ComponentName(KnownComponentNames.TIMEOUT_SCHEDULE_EXECUTOR) ScheduledExecutorService timeoutExecutor,
+                                  @ComponentName(KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncTransportExecutor,
+                                  StreamingMarshaller marshaller) {
       this.t = t;
       this.configuration = cfg;
       this.cf = cf;
       this.stateTransferManager = stateTransferManager;
       this.timeService = timeService;
+      this.timeoutExecutor = timeoutExecutor;
+      this.asyncTransportExecutor = asyncTransportExecutor;
+      this.marshaller = marshaller;
    }
 
    @Start(priority = 9)
@@ -85,6 +103,20 @@ private void start() {
 
       if (configuration.transaction().transactionProtocol().isTotalOrder())
          t.checkTotalOrderSupported();
+
+      int bundlingSize = configuration.clustering().rpcBundlingSize();
+      if (bundlingSize > 0) {
+         bundler = new RpcBundler(t, cf, this::errorReplicating, timeoutExecutor,
+               asyncTransportExecutor, timeService, bundlingSize,
+               TimeUnit.MICROSECONDS.toNanos(configuration.clustering().rpcBundlingDelay()));
+      }
+   }
+
+   @Stop
+   private void stop() {
+      if (bundler != null) {
+         bundler.flushAll();
+      }
    }
 
    @ManagedAttribute(description = "Retrieves the committed view.", displayName = "Committed view", dataType = DataType.TRAIT)
@@ -250,6 +282,11 @@ public void sendTo(Address destination, ReplicableCommand command, DeliverOrder
       setTopologyId(command);
       CacheRpcCommand cacheRpc = toCacheRpcCommand(command);
 
+      if (canBundle(cacheRpc, deliverOrder)) {
+         bundler.send(destination, marshall(cacheRpc));
+         return;
+      }
+
       try {
          t.sendTo(destination, cacheRpc, deliverOrder);
       } catch (Exception e) {
@@ -267,6 +304,14 @@ public void sendToMany(Collection<Address> destinations, ReplicableCommand comma
       setTopologyId(command);
       CacheRpcCommand cacheRpc = toCacheRpcCommand(command);
 
+      if (destinations != null && canBundle(cacheRpc, deliverOrder)) {
+         byte[] bytes = marshall(cacheRpc);
+         for (Address destination : destinations) {
+            bundler.send(destination, bytes);
+         }
+         return;
+      }
+
       try {
          t.sendToMany(destinations, cacheRpc, deliverOrder);
       } catch (Exception e) {
@@ -274,10 +319,28 @@ public void sendToMany(Collection<Address> destinations, ReplicableCommand comma
       }
    }
 
-   private void errorReplicating(Exception e) {
+   private boolean canBundle(CacheRpcCommand command, DeliverOrder deliverOrder) {
+      // The bundles are sent without RSVP, so the commands with guaranteed delivery are sent alone
+      return bundler != null && deliverOrder == DeliverOrder.NONE &&
+            !(command instanceof FlagAffectedCommand &&
+                    ((FlagAffectedCommand) command).hasAnyFlag(FlagBitSets.GUARANTEED_DELIVERY));
+   }
+
+   /**
+    * Marshalls a command to bundle right away, because the caller may modify the command after sending it.
+    */
+   private byte[] marshall(CacheRpcCommand command) {
+      try {
+         return marshaller.objectToByteBuffer(command);
+      } catch (Exception e) {
+         return errorReplicating(e);
+      }
+   }
+
+   private <T> T errorReplicating(Exception e) {
       log.unexpectedErrorReplicating(e);
       if (statisticsEnabled) replicationFailures.incrementAndGet();
-      rethrowAsCacheException(e);
+      return rethrowAsCacheException(e);
    }
 
    @Override
@@ -306,6 +369,9 @@ public void resetStatistics() {
       replicationCount.set(0);
       replicationFailures.set(0);
       totalReplicationTime.set(0);
+      if (bundler != null) {
+         bundler.resetStatistics();
+      }
    }
 
    @ManagedAttribute(description = "Number of successful replications", displayName = "Number of successful replications", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
@@ -372,6 +438,33 @@ public long getAverageReplicationTime() {
       return totalReplicationTime.get() / replicationCount.get();
    }
 
+   @ManagedAttribute(description = "Number of messages bundling one-way commands", displayName = "Number of bundles", measurementType = MeasurementType.TRENDSUP)
+   public long getBundles() {
+      return bundler != null ? bundler.getBundles() : 0;
+   }
+
+   @ManagedAttribute(description = "Number of one-way commands sent in bundles", displayName = "Number of bundled commands", measurementType = MeasurementType.TRENDSUP)
+   public long getBundledCommands() {
+      return bundler != null ? bundler.getBundledCommands() : 0;
+   }
+
+   @ManagedAttribute(description = "The average number of commands in a bundle", displayName = "Average bundle size", displayType = DisplayType.SUMMARY)
+   public double getAverageBundleSize() {
+      long bundles = getBundles();
+      return bundles == 0 ? 0 : getBundledCommands() / (double) bundles;
+   }
+
+   @ManagedAttribute(description = "The average time the oldest command of a bundle waited before the bundle was sent, in microseconds", displayName = "Average bundling latency", displayType = DisplayType.SUMMARY)
+   public long getAverageBundlingLatency() {
+      long bundles = getBundles();
+      return bundles == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(bundler.getBundlingLatencyNanos() / bundles);
+   }
+
+   @ManagedOperation(description = "Retrieves the number of bundles, the average bundle size and the average bundling latency for each destination", displayName = "Bundling statistics per destination")
+   public String getBundlingStatistics() {
+      return bundler != null ? bundler.getStatistics() : "N/A";
+   }
+
    @ManagedAttribute(description = "Retrieves the x-site view.", displayName = "Cross site (x-site) view", dataType = DataType.TRAIT)
    public String getSitesView() {
       Set<String> sitesView = t.getSitesView();
@@ -61,6 +61,11 @@ public void sendTo(Address destination, ReplicableCommand rpcCommand, DeliverOrd
       actual.sendTo(destination, rpcCommand, deliverOrder);
    }
 
+   @Override
+   public void sendTo(Address destination, byte[] command, int offset, int length, DeliverOrder deliverOrder) throws Exception {
+      actual.sendTo(destination, command, offset, length, deliverOrder);
+   }
+
    @Override
    public void sendToMany(Collection<Address> destinations, ReplicableCommand rpcCommand, DeliverOrder deliverOrder) throws Exception {
       actual.sendToMany(destinations, rpcCommand, deliverOrder);
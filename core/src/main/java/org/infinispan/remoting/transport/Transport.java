@@ -65,6 +65,19 @@ CompletableFuture<Map<Address, Response>> invokeRemotelyAsync(Collection<Address
     */
    void sendTo(Address destination, ReplicableCommand rpcCommand, DeliverOrder deliverOrder) throws Exception;
 
+   /**
+    * Asynchronously sends a command already marshalled by the global marshaller to the destination using the
+    * specified {@link DeliverOrder}.
+    *
+    * @param destination  the destination's {@link Address}.
+    * @param command      the buffer holding the marshalled command.
+    * @param offset       the offset of the command in the buffer.
+    * @param length       the length of the command.
+    * @param deliverOrder the {@link DeliverOrder} to use.
+    * @throws Exception if there was problem sending the request.
+    */
+   void sendTo(Address destination, byte[] command, int offset, int length, DeliverOrder deliverOrder) throws Exception;
+
    /**
     * Asynchronously sends the {@link ReplicableCommand} to the set of destination using the specified {@link
     * DeliverOrder}.
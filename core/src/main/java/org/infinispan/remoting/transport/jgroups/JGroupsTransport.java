@@ -750,6 +750,21 @@ public void sendTo(Address destination, ReplicableCommand rpcCommand, DeliverOrd
             asyncRequestOptions(isRsvpCommand(rpcCommand), deliverOrder));
    }
 
+   @Override
+   public void sendTo(Address destination, byte[] command, int offset, int length, DeliverOrder deliverOrder) throws Exception {
+      if (trace) {
+         log.tracef("sendTo: destination=%s, %d marshalled bytes, order=%s", destination, length, deliverOrder);
+      }
+      if (destination.equals(address)) {
+         if (trace) {
+            log.trace("sendTo: not sending to self.");
+         }
+         return;
+      }
+      dispatcher.sendMessage(toJGroupsAddress(destination), new Buffer(command, offset, length),
+            asyncRequestOptions(false, deliverOrder));
+   }
+
    @Override
    public void sendToMany(Collection<Address> destinations, ReplicableCommand rpcCommand, DeliverOrder deliverOrder) throws Exception {
       if (destinations == null) {
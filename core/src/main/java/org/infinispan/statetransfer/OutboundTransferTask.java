@@ -2,6 +2,8 @@
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -9,6 +11,8 @@
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commons.CacheException;
@@ -16,8 +20,10 @@
 import org.infinispan.commons.util.SmallIntSet;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
 import org.infinispan.remoting.rpc.ResponseMode;
@@ -25,7 +31,6 @@
 import org.infinispan.remoting.rpc.RpcOptions;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.jgroups.SuspectException;
-import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -74,6 +79,13 @@ public class OutboundTransferTask implements Runnable {
     */
    private int accumulatedEntries;
 
+   /**
+    * Held while taking the accumulated entries and sending them, so that the chunks are sent in the order they were
+    * taken and the last chunk is sent last. The entries are accumulated while holding the monitor of the task instead,
+    * so reading the entries doesn't wait for the chunks being sent.
+    */
+   private final Lock sendLock = new ReentrantLock();
+
    /**
     * The Future obtained from submitting this task to an executor service. This is used for cancellation.
     */
@@ -143,29 +155,48 @@ public int getTopologyId() {
    public void run() {
       try {
          // send data container entries
-         for (InternalCacheEntry ice : dataContainer) {
-            Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
-            int segmentId = keyPartitioner.getSegment(key);
-            if (segments.contains(segmentId) && !ice.isL1Entry()) {
-               sendEntry(ice, segmentId);
+         if (dataContainer instanceof SegmentedDataContainer) {
+            // only visit the entries of the requested segments
+            SegmentedDataContainer<Object, Object> segmentedDataContainer = (SegmentedDataContainer<Object, Object>) dataContainer;
+            for (int segmentId : segments) {
+               Iterator<InternalCacheEntry<Object, Object>> iterator =
+                     segmentedDataContainer.iterator(SmallIntSet.of(segmentId));
+               while (iterator.hasNext()) {
+                  InternalCacheEntry ice = iterator.next();
+                  if (!ice.isL1Entry()) {
+                     sendEntry(ice, segmentId);
+                  }
+               }
+            }
+         } else {
+            for (InternalCacheEntry ice : dataContainer) {
+               Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
+               int segmentId = keyPartitioner.getSegment(key);
+               if (segments.contains(segmentId) && !ice.isL1Entry()) {
+                  sendEntry(ice, segmentId);
+               }
             }
          }
 
          AdvancedCacheLoader stProvider = persistenceManager.getStateTransferProvider();
          if (stProvider != null) {
             try {
+               // The store is read by several threads, and the entries are sent as they are read
                AdvancedCacheLoader.CacheLoaderTask task = (me, taskContext) -> {
+                  if (isCancelled()) {
+                     taskContext.stop();
+                     return;
+                  }
                   int segmentId = keyPartitioner.getSegment(me.getKey());
-                  if (segments.contains(segmentId)) {
-                     try {
-                        InternalCacheEntry icv = entryFactory.create(me.getKey(), me.getValue(), me.getMetadata());
-                        sendEntry(icv, segmentId);
-                     } catch (CacheException e) {
-                        log.failedLoadingValueFromCacheStore(me.getKey(), e);
-                     }
+                  try {
+                     InternalCacheEntry icv = entryFactory.create(me.getKey(), me.getValue(), me.getMetadata());
+                     sendEntry(icv, segmentId);
+                  } catch (CacheException e) {
+                     log.failedLoadingValueFromCacheStore(me.getKey(), e);
                   }
                };
-               stProvider.process(k -> !dataContainer.containsKey(k), task, new WithinThreadExecutor(), true, true);
+               PersistenceUtil.processSegments(stProvider, segments, keyPartitioner, k -> !dataContainer.containsKey(k),
+                                               task, persistenceManager.createParallelExecutor(), true, true);
             } catch (CacheException e) {
                log.failedLoadingKeysFromCacheStore(e);
             }
@@ -190,18 +221,40 @@ public void run() {
    }
 
    private void sendEntry(InternalCacheEntry ice, int segmentId) {
+      boolean full;
+      synchronized (this) {
+         List<InternalCacheEntry> entries = entriesBySegment.computeIfAbsent(segmentId, k -> new ArrayList<>());
+         entries.add(ice);
+         accumulatedEntries++;
+         full = accumulatedEntries >= chunkSize;
+      }
       // send if we have a full chunk
-      if (accumulatedEntries >= chunkSize) {
+      if (full) {
          sendEntries(false);
-         accumulatedEntries = 0;
       }
-
-      List<InternalCacheEntry> entries = entriesBySegment.computeIfAbsent(segmentId, k -> new ArrayList<>());
-      entries.add(ice);
-      accumulatedEntries++;
    }
 
    private void sendEntries(boolean isLast) {
+      sendLock.lock();
+      try {
+         List<StateChunk> chunks;
+         int entryCount;
+         synchronized (this) {
+            if (!isLast && accumulatedEntries < chunkSize) {
+               // another thread sent the chunk while we were waiting
+               return;
+            }
+            entryCount = accumulatedEntries;
+            chunks = takeChunks(isLast);
+            accumulatedEntries = 0;
+         }
+         sendChunks(chunks, isLast, entryCount);
+      } finally {
+         sendLock.unlock();
+      }
+   }
+
+   private List<StateChunk> takeChunks(boolean isLast) {
       List<StateChunk> chunks = new ArrayList<>();
       for (Map.Entry<Integer, List<InternalCacheEntry>> e : entriesBySegment.entrySet()) {
          List<InternalCacheEntry> entries = e.getValue();
@@ -219,13 +272,18 @@ private void sendEntries(boolean isLast) {
             }
          }
       }
+      return chunks;
+   }
 
+   private void sendChunks(List<StateChunk> chunks, boolean isLast, int entryCount) {
       if (!chunks.isEmpty()) {
          if (trace) {
             if (isLast) {
-               log.tracef("Sending last chunk to node %s containing %d cache entries from segments %s", destination, accumulatedEntries, segments);
+               log.tracef("Sending last chunk to node %s containing %d cache entries from segments %s", destination, entryCount, segments);
             } else {
-               log.tracef("Sending to node %s %d cache entries from segments %s", destination, accumulatedEntries, entriesBySegment.keySet());
+               Set<Integer> chunkSegments = new HashSet<>();
+               chunks.forEach(chunk -> chunkSegments.add(chunk.getSegmentId()));
+               log.tracef("Sending to node %s %d cache entries from segments %s", destination, entryCount, chunkSegments);
             }
          }
 
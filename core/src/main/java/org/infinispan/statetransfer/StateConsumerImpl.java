@@ -41,6 +41,7 @@
 import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.InvocationContextFactory;
@@ -914,24 +915,30 @@ private void removeStaleData(final Set<Integer> removedSegments) throws Interrup
       // Keys that we used to own, and need to be removed from the data container AND the cache stores
       final ConcurrentHashSet<Object> keysToRemove = new ConcurrentHashSet<>();
 
-      dataContainer.executeTask(KeyFilter.ACCEPT_ALL_FILTER, (o, ice) -> {
-         Object key = ice.getKey();
-         int keySegment = getSegment(key);
-         if (removedSegments.contains(keySegment)) {
-            keysToRemove.add(key);
-         }
-      });
+      if (dataContainer instanceof SegmentedDataContainer) {
+         ((SegmentedDataContainer<Object, Object>) dataContainer).iteratorIncludingExpired(removedSegments)
+               .forEachRemaining(ice -> keysToRemove.add(ice.getKey()));
+      } else {
+         dataContainer.executeTask(KeyFilter.ACCEPT_ALL_FILTER, (o, ice) -> {
+            Object key = ice.getKey();
+            int keySegment = getSegment(key);
+            if (removedSegments.contains(keySegment)) {
+               keysToRemove.add(key);
+            }
+         });
+      }
 
       // gather all keys from cache store that belong to the segments that are being removed/moved to L1
       if (!removedSegments.isEmpty()) {
          try {
-            KeyFilter filter = key -> {
-               if (dataContainer.containsKey(key))
-                  return false;
-               int keySegment = getSegment(key);
-               return (removedSegments.contains(keySegment));
-            };
-            persistenceManager.processOnAllStores(filter,
+            // Segmented stores drop the whole segments, so only the other stores have keys left to gather
+            persistenceManager.removeSegmentsFromAllStores(removedSegments, PRIVATE);
+         } catch (CacheException e) {
+            log.failedToInvalidateKeys(e);
+         }
+         try {
+            KeyFilter filter = key -> !dataContainer.containsKey(key);
+            persistenceManager.processOnAllStores(removedSegments, filter,
                   (marshalledEntry, taskContext) -> keysToRemove.add(marshalledEntry.getKey()), false, false, PRIVATE);
          } catch (CacheException e) {
             log.failedLoadingKeysFromCacheStore(e);
@@ -950,6 +957,11 @@ private void removeStaleData(final Set<Integer> removedSegments) throws Interrup
             log.failedToInvalidateKeys(e);
          }
       }
+
+      if (dataContainer instanceof SegmentedDataContainer) {
+         // The entries were invalidated above, now release the storage of the segments themselves
+         ((SegmentedDataContainer<Object, Object>) dataContainer).removeSegments(removedSegments);
+      }
    }
 
    /**
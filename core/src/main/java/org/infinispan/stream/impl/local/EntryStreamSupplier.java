@@ -2,6 +2,7 @@
 
 import java.util.BitSet;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -28,11 +29,22 @@
    private final Cache<K, V> cache;
    private final ConsistentHash hash;
    private final Supplier<Stream<CacheEntry<K, V>>> supplier;
+   private final Function<Set<Integer>, Stream<CacheEntry<K, V>>> segmentSupplier;
 
    public EntryStreamSupplier(Cache<K, V> cache, ConsistentHash hash, Supplier<Stream<CacheEntry<K, V>>> supplier) {
+      this(cache, hash, supplier, null);
+   }
+
+   /**
+    * @param segmentSupplier if not null, used instead of filtering the full stream when only some segments are
+    *                        required. The returned stream must only contain entries mapped to the given segments.
+    */
+   public EntryStreamSupplier(Cache<K, V> cache, ConsistentHash hash, Supplier<Stream<CacheEntry<K, V>>> supplier,
+         Function<Set<Integer>, Stream<CacheEntry<K, V>>> segmentSupplier) {
       this.cache = cache;
       this.hash = hash;
       this.supplier = supplier;
+      this.segmentSupplier = segmentSupplier;
    }
 
    @Override
@@ -54,6 +66,12 @@ public Stream<CacheEntry<K, V>> buildStream(Set<Integer> segmentsToFilter, Set<?
                .map(typeConverter::boxKey)
                .map(advancedCache::getCacheEntry)
                .filter(e -> e != null);
+      } else if (segmentsToFilter != null && segmentSupplier != null) {
+         if (trace) {
+            log.tracef("Retrieving entries for segments %s", segmentsToFilter);
+         }
+         // The segment supplier only returns entries for the requested segments, no need to filter them again
+         return segmentSupplier.apply(segmentsToFilter);
       } else {
          stream = supplier.get();
       }
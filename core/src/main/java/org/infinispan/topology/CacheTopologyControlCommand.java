@@ -14,6 +14,7 @@
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.partitionhandling.AvailabilityMode;
 import org.infinispan.remoting.responses.ExceptionResponse;
+import org.infinispan.remoting.responses.Response;
 import org.infinispan.remoting.responses.SuccessfulResponse;
 import org.infinispan.remoting.responses.UnsuccessfulResponse;
 import org.infinispan.remoting.transport.Address;
@@ -62,7 +63,11 @@ public enum Type {
       // Change the availability
       AVAILABILITY_MODE_CHANGE,
       // Query the rebalancing progress
-      REBALANCING_GET_STATUS;
+      REBALANCING_GET_STATUS,
+
+      // Member to coordinator:
+      // A node is requesting to join several caches at once.
+      JOIN_BATCH;
 
       private static final Type[] CACHED_VALUES = values();
    }
@@ -89,6 +94,7 @@ public enum Type {
 
    private Throwable throwable;
    private int viewId;
+   private List<CacheTopologyControlCommand> joins;
 
    // For CommandIdUniquenessTest only
    public CacheTopologyControlCommand() {
@@ -110,6 +116,17 @@ public CacheTopologyControlCommand(String cacheName, Type type, Address sender,
       this.viewId = viewId;
    }
 
+   /**
+    * Creates a {@link Type#JOIN_BATCH} command.
+    *
+    * @param joins the {@link Type#JOIN} commands of the caches, all sent by {@code sender}
+    */
+   public CacheTopologyControlCommand(Address sender, List<CacheTopologyControlCommand> joins) {
+      this.type = Type.JOIN_BATCH;
+      this.sender = sender;
+      this.joins = joins;
+   }
+
    public CacheTopologyControlCommand(String cacheName, Type type, Address sender, int topologyId, int rebalanceId,
                                       Throwable throwable, int viewId) {
       this.cacheName = cacheName;
@@ -222,11 +239,36 @@ private Object doPerform() throws Exception {
          // rebalancing status
          case REBALANCING_GET_STATUS:
             return clusterTopologyManager.getRebalancingStatus(cacheName);
+         case JOIN_BATCH:
+            return handleJoinBatch();
          default:
             throw new CacheException("Unknown cache topology control command type " + type);
       }
    }
 
+   /**
+    * Handles the joins one by one, so that the failure of one join does not fail the others.
+    *
+    * @return the responses to the joins, in order
+    */
+   private List<Response> handleJoinBatch() throws InterruptedException {
+      List<Response> responses = new ArrayList<>(joins.size());
+      for (CacheTopologyControlCommand join : joins) {
+         Response response;
+         try {
+            response = SuccessfulResponse.create(clusterTopologyManager.handleJoin(join.cacheName, sender,
+                  join.joinInfo, join.viewId));
+         } catch (InterruptedException e) {
+            throw e;
+         } catch (Exception e) {
+            log.exceptionHandlingCommand(join, e);
+            response = new ExceptionResponse(e);
+         }
+         responses.add(response);
+      }
+      return responses;
+   }
+
    public String getCacheName() {
       return cacheName;
    }
@@ -321,6 +363,14 @@ public void writeTo(ObjectOutput output) throws IOException {
          case AVAILABILITY_MODE_CHANGE:
             MarshallUtil.marshallEnum(availabilityMode, output);
             return;
+         case JOIN_BATCH:
+            output.writeObject(sender);
+            MarshallUtil.marshallCollection(joins, output, (out, join) -> {
+               MarshallUtil.marshallString(join.cacheName, out);
+               out.writeObject(join.joinInfo);
+               out.writeInt(join.viewId);
+            });
+            return;
          case POLICY_GET_STATUS:
          case POLICY_ENABLE:
          case POLICY_DISABLE:
@@ -386,6 +436,14 @@ public void readFrom(ObjectInput input) throws IOException, ClassNotFoundExcepti
          case AVAILABILITY_MODE_CHANGE:
             availabilityMode = MarshallUtil.unmarshallEnum(input, AvailabilityMode::valueOf);
             return;
+         case JOIN_BATCH:
+            sender = (Address) input.readObject();
+            joins = MarshallUtil.unmarshallCollection(input, ArrayList::new, in -> {
+               String joinCacheName = MarshallUtil.unmarshallString(in);
+               CacheJoinInfo joinInfo = (CacheJoinInfo) in.readObject();
+               return new CacheTopologyControlCommand(joinCacheName, Type.JOIN, sender, joinInfo, in.readInt());
+            });
+            return;
          case POLICY_GET_STATUS:
          case POLICY_ENABLE:
          case POLICY_DISABLE:
@@ -409,6 +467,7 @@ public String toString() {
             ", actualMembers=" + actualMembers +
             ", throwable=" + throwable +
             ", viewId=" + viewId +
+            ", joins=" + joins +
             '}';
    }
 
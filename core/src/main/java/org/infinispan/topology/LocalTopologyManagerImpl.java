@@ -2,15 +2,21 @@
 
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.infinispan.Version;
 import org.infinispan.commands.ReplicableCommand;
@@ -78,6 +84,12 @@ public class LocalTopologyManagerImpl implements LocalTopologyManager, GlobalSta
    private int latestStatusResponseViewId;
    private PersistentUUID persistentUUID;
 
+   // The joins started while another join request is in flight, sent together when it completes
+   private final Queue<PendingJoin> pendingJoins = new ConcurrentLinkedQueue<>();
+   private final AtomicBoolean joinRequestInFlight = new AtomicBoolean();
+   // The last coordinator that failed to handle a JOIN_BATCH command, e.g. because it runs an older version
+   private volatile Address coordinatorWithoutJoinBatch;
+
    @Inject
    public void inject(Transport transport,
                       @ComponentName(ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncTransportExecutor,
@@ -147,9 +159,9 @@ public CacheTopology join(String cacheName, CacheJoinInfo joinInfo, CacheTopolog
          while (true) {
             int viewId = transport.getViewId();
             try {
-               ReplicableCommand command = new CacheTopologyControlCommand(cacheName,
+               CacheTopologyControlCommand command = new CacheTopologyControlCommand(cacheName,
                      CacheTopologyControlCommand.Type.JOIN, transport.getAddress(), joinInfo, viewId);
-               CacheStatusResponse initialStatus = (CacheStatusResponse) executeOnCoordinator(command, timeout);
+               CacheStatusResponse initialStatus = sendJoinRequest(command, timeout);
                if (initialStatus == null) {
                   log.debug("Ignoring null join response, coordinator is probably shutting down");
                   waitForView(viewId + 1, cacheStatus.getJoinInfo().getTimeout(), TimeUnit.MILLISECONDS);
@@ -183,6 +195,163 @@ public CacheTopology join(String cacheName, CacheJoinInfo joinInfo, CacheTopolog
       }
    }
 
+   /**
+    * Sends a join request to the coordinator and waits for the response.
+    * <p>
+    * The caches started in parallel (e.g. with {@link org.infinispan.manager.EmbeddedCacheManager#startCaches(String...)})
+    * would otherwise send one join request each. Instead, only one join request is in flight at a time, and the joins
+    * started in the meantime are sent together in a single {@link CacheTopologyControlCommand.Type#JOIN_BATCH} command
+    * when it completes. The coordinator handles the joins in a batch one by one, so a join is not delayed by more than
+    * one round trip.
+    * <p>
+    * The nodes don't advertise their version, so whether the coordinator understands {@code JOIN_BATCH} is only
+    * learned from its first batch: an older coordinator fails to read the command, the joins in the batch are sent
+    * again one at a time, and the following joins are sent to that coordinator directly, without batching.
+    */
+   private CacheStatusResponse sendJoinRequest(CacheTopologyControlCommand command, long timeout) throws Exception {
+      if (transport.isCoordinator() || !supportsJoinBatch(transport.getCoordinator())) {
+         // The join is handled in this thread, or it can't be batched
+         return (CacheStatusResponse) executeOnCoordinator(command, timeout);
+      }
+
+      PendingJoin join = new PendingJoin(command, timeout);
+      pendingJoins.add(join);
+      sendPendingJoins();
+      try {
+         return (CacheStatusResponse) join.future.get(timeout, TimeUnit.MILLISECONDS);
+      } catch (ExecutionException e) {
+         Throwable cause = e.getCause();
+         throw cause instanceof Exception ? (Exception) cause : new CacheException(cause);
+      } catch (TimeoutException e) {
+         // Don't send the join request if it is still queued, the caller will retry
+         pendingJoins.remove(join);
+         throw e;
+      }
+   }
+
+   private boolean supportsJoinBatch(Address coordinator) {
+      return coordinator == null || !coordinator.equals(coordinatorWithoutJoinBatch);
+   }
+
+   private void sendPendingJoins() {
+      while (!pendingJoins.isEmpty() && joinRequestInFlight.compareAndSet(false, true)) {
+         List<PendingJoin> batch = new ArrayList<>();
+         PendingJoin join;
+         while ((join = pendingJoins.poll()) != null) {
+            batch.add(join);
+         }
+         if (batch.isEmpty()) {
+            // Another thread sent the joins
+            joinRequestInFlight.set(false);
+            continue;
+         }
+
+         Address coordinator = transport.getCoordinator();
+         if (batch.size() > 1 && !supportsJoinBatch(coordinator)) {
+            // The joins were queued before the coordinator failed to handle a batch
+            batch.forEach(this::sendSingleJoin);
+            joinRequestInFlight.set(false);
+            continue;
+         }
+         submitJoins(batch, coordinator).whenComplete((responseValue, throwable) -> {
+            if (throwable != null && batch.size() > 1 && !isCacheJoinException(throwable)) {
+               log.debugf(throwable, "Coordinator %s failed to handle the batch of %d joins, sending them one at a time",
+                     coordinator, batch.size());
+               coordinatorWithoutJoinBatch = coordinator;
+               batch.forEach(this::sendSingleJoin);
+            } else {
+               completeJoins(batch, responseValue, throwable);
+            }
+            joinRequestInFlight.set(false);
+            // The joins queued while the request was in flight
+            sendPendingJoins();
+         });
+         // The whenComplete callback sends the next batch
+         return;
+      }
+   }
+
+   private void sendSingleJoin(PendingJoin join) {
+      List<PendingJoin> batch = Collections.singletonList(join);
+      submitJoins(batch, transport.getCoordinator()).whenComplete(
+            (responseValue, throwable) -> completeJoins(batch, responseValue, throwable));
+   }
+
+   private CompletableFuture<Object> submitJoins(List<PendingJoin> batch, Address coordinator) {
+      try {
+         return submitJoinBatch(batch, coordinator);
+      } catch (Throwable t) {
+         CompletableFuture<Object> future = new CompletableFuture<>();
+         future.completeExceptionally(t);
+         return future;
+      }
+   }
+
+   private CompletableFuture<Object> submitJoinBatch(List<PendingJoin> batch, Address coordinator) throws Exception {
+      ReplicableCommand command;
+      long timeout = 0;
+      if (batch.size() == 1) {
+         command = batch.get(0).command;
+         timeout = batch.get(0).timeout;
+      } else {
+         List<CacheTopologyControlCommand> joins = new ArrayList<>(batch.size());
+         for (PendingJoin join : batch) {
+            joins.add(join.command);
+            timeout = Math.max(timeout, join.timeout);
+         }
+         command = new CacheTopologyControlCommand(transport.getAddress(), joins);
+      }
+      if (log.isDebugEnabled() && batch.size() > 1) {
+         log.debugf("Sending %d join requests to the coordinator in a single command", batch.size());
+      }
+
+      if (transport.isCoordinator()) {
+         // This node became the coordinator while the joins were queued
+         long batchTimeout = timeout;
+         return CompletableFuture.supplyAsync(() -> {
+            try {
+               return executeOnCoordinator(command, batchTimeout);
+            } catch (Exception e) {
+               throw new CompletionException(e);
+            }
+         }, asyncTransportExecutor);
+      }
+      return transport.invokeRemotelyAsync(Collections.singleton(coordinator), command, ResponseMode.SYNCHRONOUS,
+            timeout, null, DeliverOrder.NONE, false)
+            .thenApply(responseMap -> getCoordinatorResponseValue(responseMap.get(coordinator)));
+   }
+
+   private static Throwable unwrapCompletionException(Throwable throwable) {
+      return throwable instanceof CompletionException && throwable.getCause() != null ?
+            throwable.getCause() : throwable;
+   }
+
+   private static boolean isCacheJoinException(Throwable throwable) {
+      Throwable cause = unwrapCompletionException(throwable);
+      return cause instanceof CacheJoinException || cause.getCause() instanceof CacheJoinException;
+   }
+
+   private void completeJoins(List<PendingJoin> batch, Object responseValue, Throwable throwable) {
+      if (throwable != null) {
+         Throwable cause = unwrapCompletionException(throwable);
+         for (PendingJoin join : batch) {
+            join.future.completeExceptionally(cause);
+         }
+      } else if (batch.size() == 1) {
+         batch.get(0).future.complete(responseValue);
+      } else {
+         List<Response> responses = (List<Response>) responseValue;
+         for (int i = 0; i < batch.size(); i++) {
+            PendingJoin join = batch.get(i);
+            try {
+               join.future.complete(getCoordinatorResponseValue(responses.get(i)));
+            } catch (CacheException e) {
+               join.future.completeExceptionally(e);
+            }
+         }
+      }
+   }
+
    @Override
    public void leave(String cacheName) {
       log.debugf("Node %s leaving cache %s", transport.getAddress(), cacheName);
@@ -672,6 +841,10 @@ private Object executeOnCoordinator(ReplicableCommand command, long timeout) thr
                command, ResponseMode.SYNCHRONOUS, timeout, null, DeliverOrder.NONE, false);
          response = responseMap.get(coordinator);
       }
+      return getCoordinatorResponseValue(response);
+   }
+
+   private Object getCoordinatorResponseValue(Response response) {
       if (response == null || !response.isSuccessful()) {
          Throwable exception = response instanceof ExceptionResponse
                ? ((ExceptionResponse)response).getException() : null;
@@ -772,6 +945,17 @@ public void prepareForRestore(ScopedPersistentState state) {
    public PersistentUUID getPersistentUUID() {
       return persistentUUID;
    }
+
+   private static class PendingJoin {
+      final CacheTopologyControlCommand command;
+      final long timeout;
+      final CompletableFuture<Object> future = new CompletableFuture<>();
+
+      PendingJoin(CacheTopologyControlCommand command, long timeout) {
+         this.command = command;
+         this.timeout = timeout;
+      }
+   }
 }
 
 class LocalCacheStatus {
@@ -22,6 +22,8 @@ public class CompletableFutures {
 
    private static final CompletableFuture completedEmptyMapFuture = CompletableFuture.completedFuture(Collections.emptyMap());
    private static final CompletableFuture completedNullFuture = CompletableFuture.completedFuture(null);
+   private static final CompletableFuture<Boolean> completedTrueFuture = CompletableFuture.completedFuture(Boolean.TRUE);
+   private static final CompletableFuture<Boolean> completedFalseFuture = CompletableFuture.completedFuture(Boolean.FALSE);
    private static final long BIG_DELAY_NANOS = TimeUnit.DAYS.toNanos(1);
 
    @SuppressWarnings("unchecked")
@@ -34,6 +36,14 @@ public static <T> CompletableFuture<T> completedNull() {
       return completedNullFuture;
    }
 
+   public static CompletableFuture<Boolean> completedTrue() {
+      return completedTrueFuture;
+   }
+
+   public static CompletableFuture<Boolean> completedFalse() {
+      return completedFalseFuture;
+   }
+
    public static <T> CompletableFuture<List<T>> sequence(List<CompletableFuture<T>> futures) {
       CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]));
       return all.thenApply(v -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
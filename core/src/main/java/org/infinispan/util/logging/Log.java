@@ -35,6 +35,7 @@
 import org.infinispan.commons.marshall.AdvancedExternalizer;
 import org.infinispan.commons.util.TypedProperties;
 import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.StorageType;
 import org.infinispan.container.versioning.EntryVersion;
 import org.infinispan.jmx.JmxDomainConflictException;
 import org.infinispan.partitionhandling.AvailabilityException;
@@ -1560,4 +1561,12 @@ TimeoutException coordinatorTimeoutWaitingForView(int expectedViewId, int curren
    @LogMessage(level = WARN)
    @Message(value = "Calling getCache with a cache override is no longer supported. Please invoke defineConfiguration first and then getCache. Cache name was %s", id = 454)
    void warnAttemptToOverrideExistingConfiguration(String cacheName);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Failed to compact file %s", id = 455)
+   void errorCompactingFile(String path, @Cause Throwable cause);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Compatibility mode requires the OBJECT storage type but was: %s", id = 456)
+   void compatibilityRequiresObjectStorage(StorageType storageType);
 }
@@ -0,0 +1,119 @@
+package org.infinispan.container;
+
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.infinispan.commons.util.SmallIntSet;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.expiration.ExpirationManager;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.util.ControlledTimeService;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the {@link SimpleDataContainerTest} tests against a {@link DefaultSegmentedDataContainer} and verifies the
+ * segment specific operations.
+ */
+@Test(groups = "unit", testName = "container.DefaultSegmentedDataContainerTest")
+public class DefaultSegmentedDataContainerTest extends SimpleDataContainerTest {
+   private static final int NUM_SEGMENTS = 16;
+
+   private final KeyPartitioner keyPartitioner = key -> (key.hashCode() & Integer.MAX_VALUE) % NUM_SEGMENTS;
+
+   private DefaultSegmentedDataContainer<String, String> segmentedContainer;
+
+   @Override
+   protected DataContainer<String, String> createContainer() {
+      timeService = new ControlledTimeService(0);
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      internalEntryFactory.injectTimeService(timeService);
+      ActivationManager activationManager = mock(ActivationManager.class);
+      doNothing().when(activationManager).onUpdate(Mockito.anyObject(), Mockito.anyBoolean());
+      ExpirationManager expirationManager = mock(ExpirationManager.class);
+      segmentedContainer = new DefaultSegmentedDataContainer<>(NUM_SEGMENTS, () -> {
+         DefaultDataContainer<String, String> dc = new DefaultDataContainer<>(16);
+         dc.initialize(null, null, internalEntryFactory, activationManager, null, timeService, null,
+               expirationManager);
+         return dc;
+      });
+      segmentedContainer.inject(keyPartitioner, mock(ComponentRegistry.class));
+      segmentedContainer.start();
+      return segmentedContainer;
+   }
+
+   private void putKeys(int count) {
+      for (int i = 0; i < count; i++) {
+         segmentedContainer.put("k" + i, "v" + i, new EmbeddedMetadata.Builder().build());
+      }
+   }
+
+   public void testIteratorForSegments() {
+      putKeys(100);
+      Set<Integer> segments = SmallIntSet.of(1, 3, 7);
+      Set<String> expected = new HashSet<>();
+      for (int i = 0; i < 100; i++) {
+         String key = "k" + i;
+         if (segments.contains(keyPartitioner.getSegment(key))) {
+            expected.add(key);
+         }
+      }
+
+      Set<String> seen = new HashSet<>();
+      for (Iterator<InternalCacheEntry<String, String>> iter = segmentedContainer.iterator(segments); iter.hasNext(); ) {
+         String key = iter.next().getKey();
+         assertTrue(segments.contains(keyPartitioner.getSegment(key)));
+         assertTrue(seen.add(key));
+      }
+      assertEquals(expected, seen);
+
+      seen.clear();
+      segmentedContainer.iteratorIncludingExpired(segments).forEachRemaining(ice -> seen.add(ice.getKey()));
+      assertEquals(expected, seen);
+   }
+
+   public void testRemoveSegments() {
+      putKeys(100);
+      Set<Integer> removed = SmallIntSet.of(0, 2, 4, 6, 8);
+      segmentedContainer.removeSegments(removed);
+
+      int remaining = 0;
+      for (int i = 0; i < 100; i++) {
+         String key = "k" + i;
+         if (removed.contains(keyPartitioner.getSegment(key))) {
+            assertNull(segmentedContainer.get(key));
+            assertFalse(segmentedContainer.containsKey(key));
+         } else {
+            assertEquals("v" + i, segmentedContainer.get(key).getValue());
+            remaining++;
+         }
+      }
+      assertEquals(remaining, segmentedContainer.size());
+      assertFalse(segmentedContainer.iterator(removed).hasNext());
+   }
+
+   public void testWriteAfterRemoveSegments() {
+      String key = "k";
+      Set<Integer> segment = SmallIntSet.of(keyPartitioner.getSegment(key));
+      segmentedContainer.put(key, "v", new EmbeddedMetadata.Builder().build());
+      segmentedContainer.removeSegments(segment);
+      assertNull(segmentedContainer.peek(key));
+      assertEquals(0, segmentedContainer.sizeIncludingExpired());
+
+      // The segment can be written again, e.g. when it is owned again after another rebalance
+      segmentedContainer.put(key, "v2", new EmbeddedMetadata.Builder().build());
+      assertEquals("v2", segmentedContainer.get(key).getValue());
+      assertEquals(1, segmentedContainer.size());
+   }
+}
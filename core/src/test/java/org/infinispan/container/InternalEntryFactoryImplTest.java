@@ -0,0 +1,87 @@
+package org.infinispan.container;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.metadata.CompactMetadataImmortalCacheEntry;
+import org.infinispan.container.entries.metadata.CompactMetadataMortalCacheEntry;
+import org.infinispan.container.entries.metadata.CompactMetadataTransientCacheEntry;
+import org.infinispan.container.entries.metadata.CompactMetadataTransientMortalCacheEntry;
+import org.infinispan.container.entries.metadata.MetadataMortalCacheEntry;
+import org.infinispan.container.versioning.NumericVersion;
+import org.infinispan.container.versioning.SimpleClusteredVersion;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.util.ControlledTimeService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "container.InternalEntryFactoryImplTest")
+public class InternalEntryFactoryImplTest extends AbstractInfinispanTest {
+   private InternalEntryFactoryImpl factory;
+   private ControlledTimeService timeService;
+
+   @BeforeMethod
+   public void setUp() {
+      factory = new InternalEntryFactoryImpl();
+      timeService = new ControlledTimeService(0);
+      factory.injectTimeService(timeService);
+   }
+
+   public void testNumericVersionCompacted() {
+      assertEquals(CompactMetadataImmortalCacheEntry.class, create(new EmbeddedMetadata.Builder()).getClass());
+      assertEquals(CompactMetadataMortalCacheEntry.class, create(new EmbeddedMetadata.Builder().lifespan(100)).getClass());
+      assertEquals(CompactMetadataTransientCacheEntry.class, create(new EmbeddedMetadata.Builder().maxIdle(100)).getClass());
+      assertEquals(CompactMetadataTransientMortalCacheEntry.class,
+            create(new EmbeddedMetadata.Builder().lifespan(100).maxIdle(100)).getClass());
+
+      Metadata metadata = new EmbeddedMetadata.Builder().lifespan(100).version(new NumericVersion(5)).build();
+      InternalCacheEntry entry = factory.create("k", "v", metadata);
+      assertEquals(metadata, entry.getMetadata());
+      assertEquals(100, entry.getLifespan());
+      assertEquals(metadata, entry.toInternalCacheValue().getMetadata());
+   }
+
+   public void testMetadataShared() {
+      CompactMetadataMortalCacheEntry entry1 = (CompactMetadataMortalCacheEntry) factory.create("k1", "v1",
+            new EmbeddedMetadata.Builder().lifespan(100).version(new NumericVersion(1)).build());
+      CompactMetadataMortalCacheEntry entry2 = (CompactMetadataMortalCacheEntry) factory.create("k2", "v2",
+            new EmbeddedMetadata.Builder().lifespan(100).version(new NumericVersion(2)).build());
+      CompactMetadataMortalCacheEntry entry3 = (CompactMetadataMortalCacheEntry) factory.create("k3", "v3",
+            new EmbeddedMetadata.Builder().lifespan(200).version(new NumericVersion(3)).build());
+      assertSame(sharedMetadata(entry1), sharedMetadata(entry2));
+      assertNotSame(sharedMetadata(entry1), sharedMetadata(entry3));
+      assertEquals(new NumericVersion(1), entry1.getMetadata().version());
+      assertEquals(new NumericVersion(2), entry2.getMetadata().version());
+   }
+
+   public void testUpdate() {
+      InternalCacheEntry entry = create(new EmbeddedMetadata.Builder().lifespan(100));
+      timeService.advance(10);
+
+      Metadata numeric = new EmbeddedMetadata.Builder().lifespan(100).version(new NumericVersion(2)).build();
+      InternalCacheEntry updated = factory.update(entry, "v2", numeric);
+      assertEquals(CompactMetadataMortalCacheEntry.class, updated.getClass());
+      assertEquals(numeric, updated.getMetadata());
+      assertEquals("v2", updated.getValue());
+      assertEquals(10, updated.getCreated());
+
+      // Versions that can't be inlined recreate the entry with the full metadata
+      Metadata clustered = new EmbeddedMetadata.Builder().lifespan(100).version(new SimpleClusteredVersion(1, 3)).build();
+      updated = factory.update(updated, clustered);
+      assertEquals(MetadataMortalCacheEntry.class, updated.getClass());
+      assertEquals(clustered, updated.getMetadata());
+   }
+
+   private InternalCacheEntry create(Metadata.Builder builder) {
+      return factory.create("k", "v", builder.version(new NumericVersion(1)).build());
+   }
+
+   private static Metadata sharedMetadata(CompactMetadataMortalCacheEntry entry) {
+      return TestingUtil.extractField(entry, "metadata");
+   }
+}
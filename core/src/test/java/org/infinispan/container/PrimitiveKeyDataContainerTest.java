@@ -0,0 +1,179 @@
+package org.infinispan.container;
+
+import static org.infinispan.test.TestingUtil.withCacheManager;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.KeyType;
+import org.infinispan.container.entries.ImmortalCacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.MortalCacheEntry;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.expiration.ExpirationManager;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.CacheManagerCallable;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.ControlledTimeService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "container.PrimitiveKeyDataContainerTest")
+public class PrimitiveKeyDataContainerTest extends AbstractInfinispanTest {
+   private static final int KEYS = 10_000;
+
+   private ControlledTimeService timeService;
+   private ActivationManager activationManager;
+
+   @BeforeMethod
+   public void setUp() {
+      timeService = new ControlledTimeService(0);
+      activationManager = mock(ActivationManager.class);
+   }
+
+   private <K> PrimitiveKeyDataContainer<K, String> createContainer(KeyType keyType) {
+      PrimitiveKeyDataContainer<K, String> dc = new PrimitiveKeyDataContainer<>(keyType, 1);
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      internalEntryFactory.injectTimeService(timeService);
+      dc.initialize(internalEntryFactory, activationManager, null, timeService, mock(ExpirationManager.class));
+      return dc;
+   }
+
+   public void testPutGetRemove() {
+      DataContainer<Long, String> dc = createContainer(KeyType.LONG);
+      for (long i = 0; i < KEYS; ++i) {
+         dc.put(i, "v" + i, null);
+      }
+      assertEquals(KEYS, dc.sizeIncludingExpired());
+      for (long i = 0; i < KEYS; ++i) {
+         InternalCacheEntry<Long, String> entry = dc.get(i);
+         assertEquals(ImmortalCacheEntry.class, entry.getClass());
+         assertEquals(Long.valueOf(i), entry.getKey());
+         assertEquals("v" + i, entry.getValue());
+      }
+      // Removing every other key shifts the colliding keys back into the freed slots
+      for (long i = 0; i < KEYS; i += 2) {
+         assertEquals("v" + i, dc.remove(i).getValue());
+      }
+      assertEquals(KEYS / 2, dc.sizeIncludingExpired());
+      for (long i = 0; i < KEYS; ++i) {
+         assertEquals(i % 2 == 1, dc.containsKey(i));
+      }
+      assertNull(dc.remove(0L));
+
+      dc.put(1L, "replaced", null);
+      assertEquals("replaced", dc.get(1L).getValue());
+      assertEquals(KEYS / 2, dc.sizeIncludingExpired());
+      verify(activationManager).onUpdate(1L, false);
+
+      dc.clear();
+      assertEquals(0, dc.sizeIncludingExpired());
+      assertNull(dc.get(1L));
+   }
+
+   public void testExpiration() {
+      DataContainer<Long, String> dc = createContainer(KeyType.LONG);
+      dc.put(1L, "v", new EmbeddedMetadata.Builder().lifespan(100, TimeUnit.MILLISECONDS).build());
+      dc.put(2L, "v", new EmbeddedMetadata.Builder().maxIdle(100, TimeUnit.MILLISECONDS).build());
+      dc.put(3L, "v", null);
+      InternalCacheEntry<Long, String> entry = dc.get(1L);
+      assertEquals(MortalCacheEntry.class, entry.getClass());
+      assertEquals(0, entry.getCreated());
+
+      timeService.advance(60);
+      // Reading the entry prolongs its max idle
+      assertNotNull(dc.get(2L));
+      assertEquals(60, dc.peek(2L).getLastUsed());
+
+      timeService.advance(60);
+      assertNull(dc.get(1L));
+      assertNotNull(dc.get(2L));
+      assertEquals(2, dc.size());
+
+      timeService.advance(200);
+      assertFalse(dc.containsKey(2L));
+      assertEquals(1, dc.size());
+      assertEquals(2, dc.sizeIncludingExpired());
+   }
+
+   public void testIteration() {
+      DataContainer<Long, String> dc = createContainer(KeyType.LONG);
+      Set<Long> expected = new HashSet<>();
+      for (long i = -KEYS; i < KEYS; i += 3) {
+         dc.put(i, "v" + i, null);
+         expected.add(i);
+      }
+      Set<Long> keys = new HashSet<>();
+      for (InternalCacheEntry<Long, String> entry : dc) {
+         assertEquals("v" + entry.getKey(), entry.getValue());
+         keys.add(entry.getKey());
+      }
+      assertEquals(expected, keys);
+      assertEquals(expected, new HashSet<>(dc.keySet()));
+      assertEquals(expected.size(), dc.values().size());
+      assertTrue(dc.keySet().contains(-KEYS + 3L));
+      assertFalse(dc.keySet().contains("not a long"));
+   }
+
+   public void testCompute() {
+      DataContainer<Long, String> dc = createContainer(KeyType.LONG);
+      dc.compute(1L, (k, oldEntry, factory) -> factory.create(k, "v1", (Metadata) null));
+      assertEquals("v1", dc.get(1L).getValue());
+
+      dc.compute(1L, (k, oldEntry, factory) -> {
+         oldEntry.setValue("v2");
+         return oldEntry;
+      });
+      assertEquals("v2", dc.get(1L).getValue());
+
+      dc.compute(1L, (k, oldEntry, factory) -> null);
+      assertNull(dc.get(1L));
+      assertEquals(0, dc.sizeIncludingExpired());
+   }
+
+   public void testIntKeys() {
+      DataContainer<Integer, String> dc = createContainer(KeyType.INT);
+      for (int i = -KEYS; i < KEYS; ++i) {
+         dc.put(i, "v" + i, null);
+      }
+      assertEquals(2 * KEYS, dc.size());
+      assertEquals("v-1", dc.get(-1).getValue());
+      assertEquals(Integer.class, dc.iterator().next().getKey().getClass());
+   }
+
+   public void testCacheWithLongKeys() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.memory().keyType(KeyType.LONG);
+      withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.createCacheManager(builder)) {
+         @Override
+         public void call() {
+            Cache<Long, String> cache = cm.getCache();
+            assertEquals(PrimitiveKeyDataContainer.class,
+                  TestingUtil.extractComponent(cache, DataContainer.class).getClass());
+            cache.put(1L, "v1");
+            assertEquals("v1", cache.get(1L));
+            assertEquals("v1", cache.remove(1L));
+            assertTrue(cache.isEmpty());
+         }
+      });
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testWrongKeyType() {
+      DataContainer<Object, String> dc = createContainer(KeyType.LONG);
+      dc.put(1, "v", null);
+   }
+}
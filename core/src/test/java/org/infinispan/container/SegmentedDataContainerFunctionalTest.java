@@ -0,0 +1,87 @@
+package org.infinispan.container;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.util.SmallIntSet;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+/**
+ * Verifies that a cluster using a {@link SegmentedDataContainer} transfers and removes segments correctly.
+ */
+@Test(groups = "functional", testName = "container.SegmentedDataContainerFunctionalTest")
+public class SegmentedDataContainerFunctionalTest extends MultipleCacheManagersTest {
+   private static final int NUM_KEYS = 100;
+
+   private ConfigurationBuilder builder;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(1).numSegments(20);
+      builder.memory().segmented(true);
+      createCluster(builder, 2);
+      waitForClusterToForm();
+   }
+
+   public void testJoinerReceivesAndLeaverDropsSegments() {
+      for (int i = 0; i < NUM_KEYS; ++i) {
+         cache(0).put("key" + i, "value" + i);
+      }
+      assertTrue(TestingUtil.extractComponent(cache(0), DataContainer.class) instanceof SegmentedDataContainer);
+
+      addClusterEnabledCacheManager(builder);
+      waitForClusterToForm();
+
+      for (Cache<Object, Object> cache : caches()) {
+         for (int i = 0; i < NUM_KEYS; ++i) {
+            assertEquals("value" + i, cache.get("key" + i));
+         }
+         assertOnlyOwnedSegments(cache);
+      }
+      int total = 0;
+      for (Cache<Object, Object> cache : caches()) {
+         total += cache.getAdvancedCache().getDataContainer().size();
+      }
+      assertEquals(NUM_KEYS, total);
+   }
+
+   public void testSegmentFilteredStream() {
+      for (int i = 0; i < NUM_KEYS; ++i) {
+         cache(0).put("key" + i, "value" + i);
+      }
+      KeyPartitioner keyPartitioner = TestingUtil.extractComponent(cache(0), KeyPartitioner.class);
+      Set<Integer> segments = SmallIntSet.of(0, 5, 10, 15);
+      Map<Object, Object> results = new HashMap<>();
+      cache(1).entrySet().stream().filterKeySegments(segments).iterator()
+            .forEachRemaining(e -> results.put(e.getKey(), e.getValue()));
+      for (int i = 0; i < NUM_KEYS; ++i) {
+         String key = "key" + i;
+         if (segments.contains(keyPartitioner.getSegment(key))) {
+            assertEquals("value" + i, results.remove(key));
+         }
+      }
+      assertTrue(results.isEmpty());
+   }
+
+   private void assertOnlyOwnedSegments(Cache<Object, Object> cache) {
+      ConsistentHash ch = cache.getAdvancedCache().getDistributionManager().getWriteConsistentHash();
+      Set<Integer> owned = ch.getSegmentsForOwner(address(cache));
+      KeyPartitioner keyPartitioner = TestingUtil.extractComponent(cache, KeyPartitioner.class);
+      for (InternalCacheEntry<Object, Object> ice : cache.getAdvancedCache().getDataContainer()) {
+         assertTrue(owned.contains(keyPartitioner.getSegment(ice.getKey())));
+      }
+   }
+}
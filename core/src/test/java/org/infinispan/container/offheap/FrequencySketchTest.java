@@ -0,0 +1,66 @@
+package org.infinispan.container.offheap;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+/**
+ */
+@Test(groups = "unit", testName = "container.offheap.FrequencySketchTest")
+public class FrequencySketchTest extends AbstractInfinispanTest {
+
+   public void testIncrement() {
+      FrequencySketch sketch = new FrequencySketch(512);
+      assertEquals(0, sketch.frequency(42));
+      for (int i = 1; i <= 10; ++i) {
+         sketch.increment(42);
+         assertEquals(i, sketch.frequency(42));
+      }
+   }
+
+   public void testSaturates() {
+      FrequencySketch sketch = new FrequencySketch(512);
+      for (int i = 0; i < 20; ++i) {
+         sketch.increment(42);
+      }
+      assertEquals(15, sketch.frequency(42));
+   }
+
+   public void testHotKeysEstimatedHigher() {
+      FrequencySketch sketch = new FrequencySketch(512);
+      for (int i = 0; i < 256; ++i) {
+         sketch.increment(i);
+      }
+      for (int j = 0; j < 5; ++j) {
+         for (int i = 0; i < 16; ++i) {
+            sketch.increment(i);
+         }
+      }
+      for (int i = 0; i < 16; ++i) {
+         assertTrue(sketch.frequency(i) > 1);
+      }
+   }
+
+   public void testReset() {
+      FrequencySketch sketch = new FrequencySketch(512);
+      for (int i = 0; i < 8; ++i) {
+         sketch.increment(42);
+      }
+      sketch.reset();
+      assertEquals(4, sketch.frequency(42));
+   }
+
+   public void testAgesAfterSampleSize() {
+      FrequencySketch sketch = new FrequencySketch(16);
+      for (int i = 0; i < 10; ++i) {
+         sketch.increment(42);
+      }
+      // Enough other keys to reach the sample size, which halves all counters
+      for (int i = 0; i < 1000; ++i) {
+         sketch.increment(i + 1000);
+      }
+      assertTrue(sketch.frequency(42) < 10);
+   }
+}
@@ -47,6 +47,30 @@ public void testMoreWriteThanSize() {
       assertEquals(COUNT, cache.size());
    }
 
+   public void testScanDoesNotEvictFrequentEntries() {
+      Cache<String, String> cache = cache(0);
+
+      int hotCount = COUNT / 2;
+      for (int i = 0; i < hotCount; ++i) {
+         cache.put("hot" + i, "value" + i);
+      }
+      for (int j = 0; j < 5; ++j) {
+         for (int i = 0; i < hotCount; ++i) {
+            assertEquals("value" + i, cache.get("hot" + i));
+         }
+      }
+
+      // Entries that are only used once should not be able to replace the frequently used ones
+      for (int i = 0; i < COUNT * 3; ++i) {
+         cache.put("scan" + i, "value" + i);
+      }
+
+      assertEquals(COUNT, cache.size());
+      for (int i = 0; i < hotCount; ++i) {
+         assertEquals("value" + i, cache.get("hot" + i));
+      }
+   }
+
    public void testMultiThreaded() throws ExecutionException, InterruptedException, TimeoutException {
       Cache<String, String> cache = cache(0);
 
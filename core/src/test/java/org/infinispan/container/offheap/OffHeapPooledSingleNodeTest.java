@@ -0,0 +1,52 @@
+package org.infinispan.container.offheap;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.AllocatorType;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.StorageType;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+/**
+ */
+@Test(groups = "functional", testName = "container.offheap.OffHeapPooledSingleNodeTest")
+public class OffHeapPooledSingleNodeTest extends OffHeapSingleNodeTest {
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder dcc = getDefaultClusteredCacheConfig(CacheMode.LOCAL, true);
+      dcc.memory().storageType(StorageType.OFF_HEAP).allocator(AllocatorType.POOLED);
+      // Only start up the 1 cache
+      addClusterEnabledCacheManager(dcc);
+   }
+
+   public void testMemoryReusedAfterRemoval() {
+      Cache<String, String> cache = cache(0);
+      PooledOffHeapMemoryAllocator allocator = (PooledOffHeapMemoryAllocator) TestingUtil.extractComponent(cache,
+            OffHeapMemoryAllocator.class);
+
+      for (int i = 0; i < 1000; ++i) {
+         cache.put("key" + i, "value" + i);
+      }
+      long reserved = allocator.getReservedBytes();
+      assertTrue(allocator.getInUseBytes() > 0);
+
+      // Replacing and removing the same entries over and over should reuse the freed blocks
+      for (int j = 0; j < 10; ++j) {
+         for (int i = 0; i < 1000; ++i) {
+            cache.remove("key" + i);
+         }
+         for (int i = 0; i < 1000; ++i) {
+            cache.put("key" + i, "value" + i);
+         }
+      }
+      assertEquals(reserved, allocator.getReservedBytes());
+
+      cache.clear();
+      assertEquals(0, allocator.getInUseBytes());
+   }
+}
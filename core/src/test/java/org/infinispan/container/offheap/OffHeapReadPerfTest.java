@@ -0,0 +1,125 @@
+package org.infinispan.container.offheap;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.commons.marshall.WrappedByteArray;
+import org.infinispan.commons.marshall.WrappedBytes;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.StorageType;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.test.TestingUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Compares the throughput of read heavy workloads on the off-heap data container when reads are performed
+ * optimistically against always acquiring the read lock.
+ * <p>
+ * This is a profiling test, so it is only run on demand.
+ */
+@Test(groups = "profiling", testName = "container.offheap.OffHeapReadPerfTest")
+public class OffHeapReadPerfTest {
+
+   private static final int KEY_COUNT = 1 << 16;
+   private static final int KEY_SIZE = 20;
+   private static final int VALUE_SIZE = 100;
+
+   public void performReadBenchmark() throws Exception {
+      Options opt = new OptionsBuilder()
+            .include(this.getClass().getName() + ".*")
+            .mode(Mode.Throughput)
+            .timeUnit(TimeUnit.MILLISECONDS)
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .shouldFailOnError(true)
+            .build();
+
+      new Runner(opt).run();
+   }
+
+   @State(Scope.Benchmark)
+   public static class ContainerState {
+      @Param({"optimistic", "locking"})
+      public String reads;
+
+      private EmbeddedCacheManager cacheManager;
+      private OffHeapDataContainer container;
+      private WrappedBytes[] keys;
+      private WrappedBytes value;
+      private Metadata metadata;
+
+      @Setup
+      public void setup() {
+         ConfigurationBuilder builder = new ConfigurationBuilder();
+         builder.memory().storageType(StorageType.OFF_HEAP);
+         cacheManager = new DefaultCacheManager(builder.build());
+         container = (OffHeapDataContainer) TestingUtil.extractComponent(cacheManager.getCache(), DataContainer.class);
+
+         metadata = new EmbeddedMetadata.Builder().build();
+         value = new WrappedByteArray(randomBytes(VALUE_SIZE));
+         keys = new WrappedBytes[KEY_COUNT];
+         for (int i = 0; i < KEY_COUNT; ++i) {
+            keys[i] = new WrappedByteArray(randomBytes(KEY_SIZE));
+            container.put(keys[i], value, metadata);
+         }
+      }
+
+      @TearDown
+      public void tearDown() {
+         cacheManager.stop();
+      }
+
+      InternalCacheEntry<WrappedBytes, WrappedBytes> get(WrappedBytes key) {
+         return "locking".equals(reads) ? container.lockedGet(key) : container.get(key);
+      }
+
+      WrappedBytes randomKey() {
+         return keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)];
+      }
+   }
+
+   @Benchmark
+   @Group("readOnly")
+   @GroupThreads(8)
+   public InternalCacheEntry<WrappedBytes, WrappedBytes> readOnlyGet(ContainerState state) {
+      return state.get(state.randomKey());
+   }
+
+   @Benchmark
+   @Group("readMostly")
+   @GroupThreads(7)
+   public InternalCacheEntry<WrappedBytes, WrappedBytes> readMostlyGet(ContainerState state) {
+      return state.get(state.randomKey());
+   }
+
+   @Benchmark
+   @Group("readMostly")
+   @GroupThreads(1)
+   public void readMostlyPut(ContainerState state) {
+      state.container.put(state.randomKey(), state.value, state.metadata);
+   }
+
+   static byte[] randomBytes(int size) {
+      byte[] bytes = new byte[size];
+      ThreadLocalRandom.current().nextBytes(bytes);
+      return bytes;
+   }
+}
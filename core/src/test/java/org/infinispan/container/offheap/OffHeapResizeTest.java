@@ -0,0 +1,178 @@
+package org.infinispan.container.offheap;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.commons.marshall.WrappedByteArray;
+import org.infinispan.commons.marshall.WrappedBytes;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.StorageType;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.EvictionType;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the off-heap memory lookup table grows and shrinks without losing entries.
+ * @since 9.0
+ */
+@Test(groups = "functional", testName = "container.offheap.OffHeapResizeTest")
+public class OffHeapResizeTest extends SingleCacheManagerTest {
+   private static final String BOUNDED_CACHE = "bounded";
+   private static final int ENTRY_COUNT = 10_000;
+
+   private final Metadata metadata = new EmbeddedMetadata.Builder().build();
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.memory().storageType(StorageType.OFF_HEAP).addressCount(1);
+      EmbeddedCacheManager manager = TestCacheManagerFactory.createCacheManager(builder);
+      ConfigurationBuilder bounded = new ConfigurationBuilder();
+      bounded.memory().storageType(StorageType.OFF_HEAP).addressCount(1).size(ENTRY_COUNT / 2)
+            .evictionType(EvictionType.COUNT);
+      manager.defineConfiguration(BOUNDED_CACHE, bounded.build());
+      return manager;
+   }
+
+   private OffHeapDataContainer container() {
+      return (OffHeapDataContainer) TestingUtil.extractComponent(cache, DataContainer.class);
+   }
+
+   private OffHeapDataContainer boundedContainer() {
+      return (OffHeapDataContainer) TestingUtil.extractComponent(cacheManager.getCache(BOUNDED_CACHE),
+            DataContainer.class);
+   }
+
+   private static WrappedBytes key(int i) {
+      return new WrappedByteArray(("key" + i).getBytes());
+   }
+
+   private static WrappedBytes value(int i) {
+      return new WrappedByteArray(("value" + i).getBytes());
+   }
+
+   public void testGrowAndShrink() {
+      OffHeapDataContainer container = container();
+      int initialCount = container.getMemoryAddressCount();
+      for (int i = 0; i < ENTRY_COUNT; ++i) {
+         container.put(key(i), value(i), metadata);
+      }
+      assertTrue(container.getMemoryAddressCount() * 3 / 4 >= ENTRY_COUNT);
+      assertTrue(container.getResizeCount() > 0);
+      assertTrue(container.getAverageChainLength() < 2);
+      for (int i = 0; i < ENTRY_COUNT; ++i) {
+         InternalCacheEntry<WrappedBytes, WrappedBytes> ice = container.get(key(i));
+         assertNotNull(ice);
+         assertEquals(value(i), ice.getValue());
+      }
+      assertEquals(ENTRY_COUNT, container.sizeIncludingExpired());
+      assertEquals(ENTRY_COUNT, container.size());
+
+      for (int i = 0; i < ENTRY_COUNT; ++i) {
+         assertNotNull(container.remove(key(i)));
+      }
+      assertEquals(initialCount, container.getMemoryAddressCount());
+      assertEquals(0, container.getAverageChainLength(), 0);
+   }
+
+   public void testShrinkAfterClear() {
+      OffHeapDataContainer container = container();
+      int initialCount = container.getMemoryAddressCount();
+      for (int i = 0; i < ENTRY_COUNT; ++i) {
+         container.put(key(i), value(i), metadata);
+      }
+      container.clear();
+      assertEquals(initialCount, container.getMemoryAddressCount());
+      assertNull(container.get(key(0)));
+   }
+
+   public void testIterationWhileResizing() {
+      OffHeapDataContainer container = container();
+      int count = ENTRY_COUNT / 10;
+      for (int i = 0; i < count; ++i) {
+         container.put(key(i), value(i), metadata);
+      }
+      Set<WrappedBytes> seen = new HashSet<>();
+      Iterator<InternalCacheEntry<WrappedBytes, WrappedBytes>> iterator = container.iteratorIncludingExpired();
+      for (int i = 0; i < count / 2; ++i) {
+         assertTrue(seen.add(iterator.next().getKey()));
+      }
+      // Grow the table while iterating
+      long resizes = container.getResizeCount();
+      for (int i = count; i < ENTRY_COUNT; ++i) {
+         container.put(key(i), value(i), metadata);
+      }
+      assertTrue(container.getResizeCount() > resizes);
+      // Then shrink it back
+      resizes = container.getResizeCount();
+      for (int i = count; i < ENTRY_COUNT; ++i) {
+         container.remove(key(i));
+      }
+      assertTrue(container.getResizeCount() > resizes);
+      iterator.forEachRemaining(ice -> assertTrue(seen.add(ice.getKey())));
+
+      // Every entry present during the whole iteration must have been returned exactly once
+      for (int i = 0; i < count; ++i) {
+         assertTrue(seen.contains(key(i)));
+      }
+      container.clear();
+   }
+
+   public void testConcurrentResize() throws Exception {
+      OffHeapDataContainer container = container();
+      int threads = 4;
+      Future<?>[] futures = new Future[threads];
+      for (int t = 0; t < threads; ++t) {
+         int offset = t;
+         futures[t] = fork(() -> {
+            for (int i = offset; i < ENTRY_COUNT; i += threads) {
+               container.put(key(i), value(i), metadata);
+               assertEquals(value(i), container.get(key(i)).getValue());
+            }
+         });
+      }
+      for (Future<?> future : futures) {
+         future.get(30, TimeUnit.SECONDS);
+      }
+      assertEquals(ENTRY_COUNT, container.sizeIncludingExpired());
+      for (int i = 0; i < ENTRY_COUNT; ++i) {
+         assertEquals(value(i), container.get(key(i)).getValue());
+      }
+      container.clear();
+   }
+
+   public void testBoundedGrow() {
+      OffHeapDataContainer container = boundedContainer();
+      for (int i = 0; i < ENTRY_COUNT; ++i) {
+         container.put(key(i), value(i), metadata);
+      }
+      assertEquals(ENTRY_COUNT / 2, container.sizeIncludingExpired());
+      assertTrue(container.getResizeCount() > 0);
+      // All of the entries that were kept can still be found
+      int found = 0;
+      for (int i = 0; i < ENTRY_COUNT; ++i) {
+         InternalCacheEntry<WrappedBytes, WrappedBytes> ice = container.get(key(i));
+         if (ice != null) {
+            assertEquals(value(i), ice.getValue());
+            found++;
+         }
+      }
+      assertEquals(ENTRY_COUNT / 2, found);
+      container.clear();
+   }
+}
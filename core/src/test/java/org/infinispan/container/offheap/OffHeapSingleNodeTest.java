@@ -11,7 +11,9 @@
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.infinispan.Cache;
 import org.infinispan.commons.marshall.Marshaller;
@@ -82,6 +84,53 @@ public void testLockOnExecuteTask() throws InterruptedException, TimeoutExceptio
       assertEquals(value, putFuture.get(10, TimeUnit.SECONDS));
    }
 
+   public void testConcurrentReadsWithWrites() throws Exception {
+      Cache<String, String> cache = cache(0);
+      int keyCount = 16;
+      for (int i = 0; i < keyCount; ++i) {
+         cache.put("key" + i, "key" + i + "-value");
+      }
+
+      AtomicBoolean stop = new AtomicBoolean();
+      Future<?> writer = fork(() -> {
+         ThreadLocalRandom random = ThreadLocalRandom.current();
+         int iteration = 0;
+         while (!stop.get()) {
+            String key = "key" + random.nextInt(keyCount);
+            if (++iteration % 10 == 0) {
+               cache.remove(key);
+            } else {
+               cache.put(key, key + "-value" + iteration);
+            }
+         }
+      });
+
+      Future<?>[] readers = new Future[4];
+      for (int i = 0; i < readers.length; ++i) {
+         readers[i] = fork(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int j = 0; j < 100000; ++j) {
+               String key = "key" + random.nextInt(keyCount);
+               String value = cache.get(key);
+               // Value can be null if it was just removed, but must never belong to another key
+               if (value != null) {
+                  assertTrue(value, value.startsWith(key + "-value"));
+               }
+               cache.containsKey(key);
+            }
+         });
+      }
+
+      try {
+         for (Future<?> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+         }
+      } finally {
+         stop.set(true);
+      }
+      writer.get(10, TimeUnit.SECONDS);
+   }
+
    public void testLotsOfWrites() {
       Cache<String, String> cache = cache(0);
 
@@ -0,0 +1,110 @@
+package org.infinispan.container.offheap;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.IOException;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.marshall.WrappedByteArray;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.StorageType;
+import org.infinispan.container.DataContainer;
+import org.infinispan.eviction.EvictionType;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+/**
+ */
+@Test(groups = "functional", testName = "container.offheap.OffHeapTieredSingleNodeTest")
+public class OffHeapTieredSingleNodeTest extends OffHeapSingleNodeTest {
+
+   private static final int HEAP_TIER_SIZE = 100;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder dcc = getDefaultClusteredCacheConfig(CacheMode.LOCAL, true);
+      dcc.memory().storageType(StorageType.OFF_HEAP).heapTierSize(HEAP_TIER_SIZE);
+      // Only start up the 1 cache
+      addClusterEnabledCacheManager(dcc);
+   }
+
+   public void testPromotedOnRepeatedRead() {
+      Cache<String, String> cache = cache(0);
+      OffHeapDataContainer container = (OffHeapDataContainer) TestingUtil.extractComponent(cache, DataContainer.class);
+      cache.put("promoted", "value");
+      long promotions = container.getHeapTierPromotions();
+      long hits = container.getHeapTierHits();
+
+      for (int i = 0; i < 3; ++i) {
+         assertEquals("value", cache.get("promoted"));
+      }
+      assertEquals(promotions + 1, container.getHeapTierPromotions());
+      assertTrue(container.getHeapTierHits() > hits);
+   }
+
+   public void testWritesInvalidateCopy() {
+      Cache<String, String> cache = cache(0);
+      OffHeapDataContainer container = (OffHeapDataContainer) TestingUtil.extractComponent(cache, DataContainer.class);
+      cache.put("invalidated", "value");
+      for (int i = 0; i < 3; ++i) {
+         cache.get("invalidated");
+      }
+      long promotions = container.getHeapTierPromotions();
+
+      cache.put("invalidated", "value2");
+      assertEquals("value2", cache.get("invalidated"));
+      assertEquals("value2", cache.get("invalidated"));
+      // The new value was promoted again as it was read twice
+      assertEquals(promotions + 1, container.getHeapTierPromotions());
+
+      cache.remove("invalidated");
+      assertNull(cache.get("invalidated"));
+
+      cache.put("invalidated", "value3");
+      cache.get("invalidated");
+      cache.get("invalidated");
+      cache.clear();
+      assertNull(cache.get("invalidated"));
+      assertEquals(0, container.getHeapTierEntries());
+   }
+
+   public void testTierBounded() {
+      Cache<String, String> cache = cache(0);
+      OffHeapDataContainer container = (OffHeapDataContainer) TestingUtil.extractComponent(cache, DataContainer.class);
+      for (int i = 0; i < HEAP_TIER_SIZE * 3; ++i) {
+         cache.put("bounded" + i, "value" + i);
+         cache.get("bounded" + i);
+         cache.get("bounded" + i);
+      }
+      assertTrue(container.getHeapTierEntries() <= HEAP_TIER_SIZE);
+      // Entries dropped from the heap are still stored off-heap
+      for (int i = 0; i < HEAP_TIER_SIZE * 3; ++i) {
+         assertEquals("value" + i, cache.get("bounded" + i));
+      }
+   }
+
+   public void testOffHeapEvictionDropsCopy() throws IOException, InterruptedException {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.memory().storageType(StorageType.OFF_HEAP).size(10).evictionType(EvictionType.COUNT)
+            .heapTierSize(HEAP_TIER_SIZE);
+      manager(0).defineConfiguration("bounded-tiered", builder.build());
+      Cache<String, String> cache = manager(0).getCache("bounded-tiered");
+      DataContainer<WrappedByteArray, WrappedByteArray> container = castDC(cache.getAdvancedCache().getDataContainer());
+      Marshaller marshaller = cache.getAdvancedCache().getComponentRegistry().getCacheMarshaller();
+
+      for (int i = 0; i < 50; ++i) {
+         cache.put("key" + i, "value" + i);
+         cache.get("key" + i);
+         cache.get("key" + i);
+      }
+      assertEquals(10, container.sizeIncludingExpired());
+      for (int i = 0; i < 50; ++i) {
+         WrappedByteArray key = new WrappedByteArray(marshaller.objectToByteBuffer("key" + i));
+         assertEquals(container.containsKey(key), container.get(key) != null);
+      }
+   }
+}
@@ -0,0 +1,128 @@
+package org.infinispan.container.offheap;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ */
+@Test(groups = "unit", testName = "container.offheap.PooledOffHeapMemoryAllocatorTest")
+public class PooledOffHeapMemoryAllocatorTest extends AbstractInfinispanTest {
+
+   private PooledOffHeapMemoryAllocator allocator;
+
+   @BeforeMethod
+   public void setUp() {
+      allocator = new PooledOffHeapMemoryAllocator();
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      allocator.stop();
+   }
+
+   public void testSizeClasses() {
+      int previousBlockSize = 0;
+      for (int size = 1; size <= PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE; ++size) {
+         int index = PooledOffHeapMemoryAllocator.sizeClassIndex(size);
+         int blockSize = PooledOffHeapMemoryAllocator.blockSize(index);
+         assertTrue("Block " + blockSize + " too small for " + size, blockSize >= size);
+         assertEquals(0, blockSize % 16);
+         // The previous class must be too small, otherwise we waste memory
+         if (index > 0) {
+            assertTrue(PooledOffHeapMemoryAllocator.blockSize(index - 1) < size);
+         }
+         assertTrue(blockSize >= previousBlockSize);
+         previousBlockSize = blockSize;
+      }
+      assertEquals(PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE, previousBlockSize);
+   }
+
+   public void testAccounting() {
+      long address = allocator.allocate(100);
+      assertEquals(112, allocator.getInUseBytes());
+      assertEquals(PooledOffHeapMemoryAllocator.SLAB_SIZE, allocator.getReservedBytes());
+
+      long large = allocator.allocate(PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE + 1);
+      assertEquals(112 + PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE + 1, allocator.getInUseBytes());
+      assertEquals(PooledOffHeapMemoryAllocator.SLAB_SIZE + PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE + 1,
+            allocator.getReservedBytes());
+
+      allocator.deallocate(large, PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE + 1);
+      allocator.deallocate(address, 100);
+      assertEquals(0, allocator.getInUseBytes());
+      assertEquals(PooledOffHeapMemoryAllocator.SLAB_SIZE, allocator.getReservedBytes());
+
+      allocator.stop();
+      assertEquals(0, allocator.getReservedBytes());
+      assertEquals(0, allocator.getArenaCount());
+   }
+
+   public void testArenasGrow() {
+      // Size classes up to 4096 bytes refill the thread cache from a single slab of their own
+      int slabs = PooledOffHeapMemoryAllocator.sizeClassIndex(4096);
+      for (int index = 0; index < slabs; ++index) {
+         allocator.allocate(PooledOffHeapMemoryAllocator.blockSize(index));
+      }
+      // The arenas hold 1, 2, 4, 8 and 16 slabs
+      assertEquals(31, slabs);
+      assertEquals(5, allocator.getArenaCount());
+      assertEquals(31L * PooledOffHeapMemoryAllocator.SLAB_SIZE, allocator.getReservedBytes());
+
+      // The next arena is capped at twice the previous one
+      allocator.allocate(4096);
+      assertEquals(6, allocator.getArenaCount());
+      assertEquals(63L * PooledOffHeapMemoryAllocator.SLAB_SIZE, allocator.getReservedBytes());
+
+      allocator.stop();
+      assertEquals(0, allocator.getReservedBytes());
+   }
+
+   public void testBlocksReused() {
+      Set<Long> addresses = new HashSet<>();
+      for (int i = 0; i < 1000; ++i) {
+         long address = allocator.allocate(64);
+         assertTrue(addresses.add(address));
+         // Make sure the memory is actually usable
+         UnsafeHolder.UNSAFE.setMemory(address, 64, (byte) i);
+      }
+      long reserved = allocator.getReservedBytes();
+      for (int j = 0; j < 10; ++j) {
+         for (long address : addresses) {
+            allocator.deallocate(address, 64);
+         }
+         Set<Long> newAddresses = new HashSet<>();
+         for (int i = 0; i < 1000; ++i) {
+            assertTrue(newAddresses.add(allocator.allocate(64)));
+         }
+         addresses = newAddresses;
+      }
+      assertEquals(reserved, allocator.getReservedBytes());
+   }
+
+   public void testBlocksFromDeadThreadReused() throws Exception {
+      int count = 4096;
+      long[] addresses = new long[count];
+      for (int i = 0; i < count; ++i) {
+         addresses[i] = allocator.allocate(32);
+      }
+      // Free them all in another thread which then dies with blocks in its cache
+      fork(() -> {
+         for (long address : addresses) {
+            allocator.deallocate(address, 32);
+         }
+      }).get();
+      long reserved = allocator.getReservedBytes();
+      for (int i = 0; i < count; ++i) {
+         allocator.allocate(32);
+      }
+      assertEquals(reserved, allocator.getReservedBytes());
+   }
+}
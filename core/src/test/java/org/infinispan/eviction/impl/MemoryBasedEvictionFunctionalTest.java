@@ -1,5 +1,6 @@
 package org.infinispan.eviction.impl;
 
+import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertTrue;
 
 import java.util.Arrays;
@@ -7,10 +8,15 @@
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
+import org.infinispan.Cache;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.StorageType;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.ObjectGraphSizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionType;
 import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.CustomClass;
 import org.infinispan.test.SingleCacheManagerTest;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
 import org.testng.annotations.Test;
@@ -250,6 +256,55 @@ public void testStringArray() throws Exception {
       assertTrue(cache.getAdvancedCache().getDataContainer().size() < numberInserted);
    }
 
+   public void testCustomObject() throws Exception {
+      int stringLength = 10;
+      long numberInserted = CACHE_SIZE / stringLength;
+      Random random = new Random();
+      for (int i = 0; i < numberInserted; i++) {
+         cache.put(i, new CustomClass(randomStringFullOfInt(random, stringLength)));
+      }
+      DataContainer dataContainer = cache.getAdvancedCache().getDataContainer();
+      assertTrue(dataContainer.size() < numberInserted);
+      assertTrue(dataContainer.evictionSize() > 0);
+      assertTrue(dataContainer.evictionSize() <= dataContainer.capacity());
+   }
+
+   public void testSharedReferencesCountedOnce() {
+      ObjectGraphSizeCalculator calculator = new ObjectGraphSizeCalculator();
+      String shared = "shared-value";
+      long single = calculator.calculateSize(null, new String[] { shared });
+      long twice = calculator.calculateSize(null, new String[] { shared, shared });
+      // The second element only adds a reference to the array
+      assertTrue(twice - single <= 8);
+      assertTrue(calculator.calculateSize(shared, shared) < 2 * calculator.calculateSize(shared, null));
+   }
+
+   public void testGraphWalkIsCapped() {
+      Object[] chain = null;
+      for (int i = 0; i < 1000; i++) {
+         chain = new Object[] { chain };
+      }
+      long full = new ObjectGraphSizeCalculator().calculateSize(null, chain);
+      long capped = new ObjectGraphSizeCalculator(100).calculateSize(null, chain);
+      assertEquals(full / 10, capped);
+   }
+
+   public void testRegisteredSizeCalculator() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.memory().storageType(StorageType.OBJECT).size(CACHE_SIZE).evictionType(EvictionType.MEMORY)
+            .sizeCalculator(CustomClass.class, (k, v) -> CACHE_SIZE / 10);
+      cacheManager.defineConfiguration("calculated", builder.build());
+      Cache<Integer, CustomClass> calculatedCache = cacheManager.getCache("calculated");
+      for (int i = 0; i < 100; i++) {
+         calculatedCache.put(i, new CustomClass("value"));
+      }
+      DataContainer dataContainer = calculatedCache.getAdvancedCache().getDataContainer();
+      // The size of the internal entry is added to the size returned by the calculator
+      assertTrue(dataContainer.size() < 10);
+      assertEquals(CACHE_SIZE, dataContainer.capacity());
+      assertTrue(dataContainer.evictionSize() >= dataContainer.size() * CACHE_SIZE / 10);
+   }
+
    protected String randomStringFullOfInt(Random random, int digits) {
       return random.ints(digits, 0, 10).collect(StringBuilder::new, StringBuilder::append,
               StringBuilder::append).toString();
@@ -2,6 +2,7 @@
 
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
 
 import java.util.concurrent.TimeUnit;
 
@@ -12,6 +13,7 @@
 import org.infinispan.test.MultipleCacheManagersTest;
 import org.infinispan.test.TestingUtil;
 import org.infinispan.test.fwk.InCacheMode;
+import org.infinispan.util.CountingRpcManager;
 import org.infinispan.util.ControlledTimeService;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
@@ -114,4 +116,23 @@ public void testExpiredOnBoth() {
       assertNull(cache0.get(key));
       assertNull(cache1.get(key));
    }
+
+   public void testReaperRemovesWithOneCommandPerOwner() {
+      MagicKey[] keys = new MagicKey[40];
+      for (int i = 0; i < keys.length; i++) {
+         keys[i] = new MagicKey(cache1, cache0);
+         cache1.put(keys[i], keys[i].toString(), 10, TimeUnit.MINUTES);
+      }
+
+      CountingRpcManager rpcManager = CountingRpcManager.replaceRpcManager(cache0);
+      ts0.advance(TimeUnit.MINUTES.toMillis(10) + 1);
+      cache0.getAdvancedCache().getExpirationManager().processExpiration();
+
+      // The 40 keys are sent to their primary owner in 2 batches of at most 32 keys
+      assertTrue("Commands sent: " + rpcManager.otherCount, rpcManager.otherCount <= 2);
+      for (MagicKey key : keys) {
+         eventually(() -> !cache1.getAdvancedCache().getDataContainer().containsKey(key), 10, TimeUnit.SECONDS);
+         assertNull(cache2.get(key));
+      }
+   }
 }
@@ -2,21 +2,40 @@
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNull;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.infinispan.commons.CacheException;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.CompletableFutures;
 import org.testng.annotations.Test;
 
 @Test(groups = "unit", testName = "expiration.impl.ExpirationManagerTest")
@@ -32,7 +51,7 @@ public void testNoExpirationThread() {
       Configuration cfg = getCfg().expiration().wakeUpInterval(0L).build();
 
       ScheduledExecutorService mockService = mock(ScheduledExecutorService.class);
-      em.initialize(mockService, "", cfg, null, null, null, null);
+      em.initialize(mockService, "", cfg, null, null, null, null, null, null);
       em.start();
 
       assertNull("Expiration task is not null!  Should not have scheduled anything!", em.expirationTask);
@@ -43,7 +62,7 @@ public void testWakeupInterval() {
       Configuration cfg = getCfg().expiration().wakeUpInterval(789L).build();
 
       ScheduledExecutorService mockService = mock(ScheduledExecutorService.class);
-      em.initialize(mockService, "", cfg, null, null, null, null);
+      em.initialize(mockService, "", cfg, null, null, null, null, null, null);
 
       ScheduledFuture mockFuture = mock(ScheduledFuture.class);
       when(mockService.scheduleWithFixedDelay(isA(ExpirationManagerImpl.ScheduledTask.class), eq(789l),
@@ -54,4 +73,118 @@ public void testWakeupInterval() {
       assertEquals(mockFuture, em.expirationTask);
       verify(mockService).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class)); // expect that the executor was never used!!
    }
+
+   public void testIndexFollowsWrites() {
+      ExpirationManagerImpl<String, String> em = new ExpirationManagerImpl<>();
+      Configuration cfg = getCfg().expiration().wakeUpInterval(1000L).expiryIndex(true).build();
+      DataContainer<String, String> dataContainer = mock(DataContainer.class);
+      TimeService timeService = mock(TimeService.class);
+      em.initialize(mock(ScheduledExecutorService.class), "", cfg, dataContainer, mock(PersistenceManager.class), null,
+            timeService, null, null);
+
+      // Updated to expire later, then removed
+      em.registerExpiration("updated", 1500);
+      em.registerExpiration("updated", 5500);
+      em.registerExpiration("removed", 1500);
+      em.unregisterExpiration("removed");
+      em.registerExpiration("due", 1500);
+
+      when(timeService.wallClockTime()).thenReturn(2000L);
+      em.processExpiration();
+
+      verify(dataContainer).peek("due");
+      verify(dataContainer, never()).peek("updated");
+      verify(dataContainer, never()).peek("removed");
+   }
+
+   public void testKeysKeptAfterFailure() {
+      ExpirationManagerImpl<String, String> em = new ExpirationManagerImpl<>();
+      Configuration cfg = getCfg().expiration().wakeUpInterval(1000L).expiryIndex(true).build();
+      DataContainer<String, String> dataContainer = mock(DataContainer.class);
+      TimeService timeService = mock(TimeService.class);
+      em.initialize(mock(ScheduledExecutorService.class), "", cfg, dataContainer, mock(PersistenceManager.class), null,
+            timeService, null, null);
+      when(dataContainer.peek(anyString())).thenThrow(new CacheException("Injected")).thenReturn(null);
+
+      em.registerExpiration("k1", 1500);
+      em.registerExpiration("k2", 1500);
+      when(timeService.wallClockTime()).thenReturn(2000L);
+
+      // The first run fails on its first key, and the next run visits both keys again
+      em.processExpiration();
+      verify(dataContainer, times(1)).peek(anyString());
+      em.processExpiration();
+      verify(dataContainer, times(3)).peek(anyString());
+      verify(dataContainer, times(2)).peek("k1");
+      em.processExpiration();
+      verify(dataContainer, times(3)).peek(anyString());
+   }
+
+   public void testKeyKeptAfterFailedRemoval() {
+      AtomicInteger expirations = new AtomicInteger();
+      ExpirationManagerImpl<String, String> em = new ExpirationManagerImpl<String, String>() {
+         @Override
+         protected CompletableFuture<Void> expireIfExpired(InternalCacheEntry<String, String> e, long currentTimeMillis) {
+            if (expirations.incrementAndGet() == 1) {
+               return CompletableFutures.completedExceptionFuture(new CacheException("Injected"));
+            }
+            return CompletableFutures.completedNull();
+         }
+      };
+      Configuration cfg = getCfg().expiration().wakeUpInterval(1000L).expiryIndex(true).build();
+      DataContainer<String, String> dataContainer = mock(DataContainer.class);
+      TimeService timeService = mock(TimeService.class);
+      em.initialize(mock(ScheduledExecutorService.class), "", cfg, dataContainer, mock(PersistenceManager.class), null,
+            timeService, null, null);
+      InternalCacheEntry<String, String> entry = mock(InternalCacheEntry.class);
+      when(entry.getKey()).thenReturn("k");
+      when(entry.canExpire()).thenReturn(true);
+      when(entry.getExpiryTime()).thenReturn(1500L);
+      when(dataContainer.peek("k")).thenReturn(entry);
+
+      em.registerExpiration("k", 1500);
+      when(timeService.wallClockTime()).thenReturn(2000L);
+
+      // The removal fails, so the next run tries again
+      em.processExpiration();
+      assertEquals(1, expirations.get());
+      em.processExpiration();
+      assertEquals(2, expirations.get());
+      em.processExpiration();
+      assertEquals(2, expirations.get());
+   }
+
+   public void testSegmentsProcessedInParallel() {
+      ExpirationManagerImpl<String, String> em = new ExpirationManagerImpl<>();
+      Configuration cfg = getCfg().expiration().wakeUpInterval(1000L).expiryIndex(true)
+            .clustering().hash().numSegments(4).build();
+      DataContainer<String, String> dataContainer = mock(SegmentedDataContainer.class);
+      TimeService timeService = mock(TimeService.class);
+      KeyPartitioner keyPartitioner = key -> Integer.parseInt(((String) key).substring(1)) % 4;
+      Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+      when(dataContainer.peek(anyString())).then(invocation -> {
+         threads.add(Thread.currentThread());
+         return null;
+      });
+      ExecutorService executor = Executors.newFixedThreadPool(4, getTestThreadFactory("Persistence"));
+      try {
+         em.initialize(mock(ScheduledExecutorService.class), "", cfg, dataContainer, mock(PersistenceManager.class),
+               null, timeService, keyPartitioner, executor);
+         for (int i = 0; i < 8; i++) {
+            em.registerExpiration("k" + i, 1500);
+         }
+         em.registerExpiration("k100", 5500);
+
+         when(timeService.wallClockTime()).thenReturn(2000L);
+         em.processExpiration();
+
+         for (int i = 0; i < 8; i++) {
+            verify(dataContainer).peek("k" + i);
+         }
+         verify(dataContainer, never()).peek("k100");
+         assertFalse(threads.contains(Thread.currentThread()));
+      } finally {
+         executor.shutdownNow();
+      }
+   }
 }
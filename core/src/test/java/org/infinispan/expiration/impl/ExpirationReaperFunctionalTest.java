@@ -0,0 +1,72 @@
+package org.infinispan.expiration.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.DataContainer;
+import org.infinispan.expiration.ExpirationManager;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the reaper when it only visits the entries that are due to expire.
+ */
+@Test(groups = "functional", testName = "expiration.impl.ExpirationReaperFunctionalTest")
+public class ExpirationReaperFunctionalTest extends ExpirationFunctionalTest {
+
+   private static final long WAKE_UP_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+   @Override
+   protected void configure(ConfigurationBuilder config) {
+      // The reaper is enabled but won't wake up during the test, it is invoked manually instead
+      config.expiration().wakeUpInterval(WAKE_UP_INTERVAL).expiryIndex(true);
+   }
+
+   public void testReaperExpiresDueEntries() {
+      for (int i = 0; i < SIZE; i++) {
+         cache.put("mortal-" + i, "value-" + i, 10, TimeUnit.MILLISECONDS);
+         cache.put("long-" + i, "value-" + i, 3, TimeUnit.HOURS);
+         cache.put("immortal-" + i, "value-" + i);
+      }
+      DataContainer dataContainer = cache.getAdvancedCache().getDataContainer();
+      assertEquals(3 * SIZE, dataContainer.sizeIncludingExpired());
+
+      timeService.advance(20);
+      processExpiration();
+      assertEquals(2 * SIZE, dataContainer.sizeIncludingExpired());
+
+      timeService.advance(TimeUnit.HOURS.toMillis(3));
+      processExpiration();
+      assertEquals(SIZE, dataContainer.sizeIncludingExpired());
+   }
+
+   public void testReaperRegistersUpdatedEntriesAgain() {
+      cache.put("updated", "value", 10, TimeUnit.MILLISECONDS);
+      cache.put("updated", "value2", 2 * WAKE_UP_INTERVAL, TimeUnit.MILLISECONDS);
+      cache.put("idle", "value", -1, TimeUnit.MILLISECONDS, 2 * WAKE_UP_INTERVAL, TimeUnit.MILLISECONDS);
+      DataContainer dataContainer = cache.getAdvancedCache().getDataContainer();
+
+      timeService.advance(WAKE_UP_INTERVAL + 20);
+      processExpiration();
+      assertEquals("value2", cache.get("updated"));
+      // Reading the entry delays its expiration beyond the interval it was registered for
+      assertEquals("value", cache.get("idle"));
+
+      timeService.advance(WAKE_UP_INTERVAL);
+      processExpiration();
+      assertNull(dataContainer.peek("updated"));
+      assertNotNull(dataContainer.peek("idle"));
+
+      timeService.advance(2 * WAKE_UP_INTERVAL);
+      processExpiration();
+      assertNull(dataContainer.peek("idle"));
+   }
+
+   private void processExpiration() {
+      TestingUtil.extractComponent(cache, ExpirationManager.class).processExpiration();
+   }
+}
@@ -0,0 +1,92 @@
+package org.infinispan.factories;
+
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TestResourceTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Measures the time and the memory allocated to start a number of caches in a cache manager. Look at the
+ * {@code gc.alloc.rate.norm} results for the bytes allocated to start all the caches.
+ * <p>
+ * This is a profiling test, so it is only run on demand.
+ */
+@Test(groups = "profiling", testName = "factories.CacheStartupPerfTest")
+public class CacheStartupPerfTest {
+
+   public void performStartupBenchmark() throws Exception {
+      Options opt = new OptionsBuilder()
+            .include(this.getClass().getName() + ".*")
+            .mode(Mode.AverageTime)
+            .timeUnit(TimeUnit.MILLISECONDS)
+            .addProfiler(GCProfiler.class)
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .shouldFailOnError(true)
+            .build();
+
+      new Runner(opt).run();
+   }
+
+   @State(Scope.Benchmark)
+   public static class CacheManagerState {
+      @Param({"100", "500"})
+      public int numCaches;
+
+      @Param({"LOCAL", "DIST_SYNC"})
+      public CacheMode cacheMode;
+
+      private EmbeddedCacheManager cacheManager;
+
+      @Setup(Level.Invocation)
+      public void setup() {
+         TestResourceTracker.setThreadTestNameIfMissing(CacheStartupPerfTest.class.getName());
+         ConfigurationBuilder builder = new ConfigurationBuilder();
+         builder.clustering().cacheMode(cacheMode);
+         cacheManager = cacheMode.isClustered() ?
+               TestCacheManagerFactory.createClusteredCacheManager(builder) :
+               TestCacheManagerFactory.createCacheManager(builder);
+         // Start the global components before the measurement
+         cacheManager.getCache();
+         for (int i = 0; i < numCaches; i++) {
+            cacheManager.defineConfiguration(cacheName(i), builder.build());
+         }
+      }
+
+      @TearDown(Level.Invocation)
+      public void tearDown() {
+         TestingUtil.killCacheManagers(cacheManager);
+      }
+   }
+
+   @Benchmark
+   public Object startCaches(CacheManagerState state) {
+      Object cache = null;
+      for (int i = 0; i < state.numCaches; i++) {
+         cache = state.cacheManager.getCache(cacheName(i));
+      }
+      return cache;
+   }
+
+   private static String cacheName(int i) {
+      return "cache-" + i;
+   }
+}
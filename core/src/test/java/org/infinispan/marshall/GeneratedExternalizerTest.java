@@ -0,0 +1,150 @@
+package org.infinispan.marshall;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import org.infinispan.commons.marshall.ExternalizedField;
+import org.infinispan.commons.marshall.ExternalizedFields;
+import org.infinispan.commons.marshall.GenerateExternalizer;
+import org.infinispan.commons.marshall.JavaSerializationMarshaller;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the externalizers generated at compile time for the classes annotated with {@link GenerateExternalizer}.
+ *
+ * @since 9.0
+ */
+@Test(groups = "functional", testName = "marshall.GeneratedExternalizerTest")
+public class GeneratedExternalizerTest extends AbstractInfinispanTest {
+
+   public void testMarshallWithoutConfiguration() throws Exception {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createClusteredCacheManager();
+      try {
+         StreamingMarshaller marshaller = TestingUtil.extractGlobalMarshaller(cm);
+         // The class is not Serializable, so the marshaller would fail without the generated externalizer
+         Person person = new Person();
+         person.name = "Alice";
+         person.age = 42;
+         person.height = 1.7f;
+         person.member = true;
+         person.initial = 'A';
+         person.tags = Arrays.asList("a", "b");
+
+         Person copy = (Person) marshaller.objectFromByteBuffer(marshaller.objectToByteBuffer(person));
+         assertEquals("Alice", copy.name);
+         assertEquals(42, copy.age);
+         assertEquals(1.7f, copy.height);
+         assertEquals(true, copy.member);
+         assertEquals('A', copy.initial);
+         assertEquals(Arrays.asList("a", "b"), copy.tags);
+         assertNull(copy.address);
+      } finally {
+         TestingUtil.killCacheManagers(cm);
+      }
+   }
+
+   public void testSkipUnknownFields() throws Exception {
+      Marshaller marshaller = new JavaSerializationMarshaller();
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+         // Written by a newer version of the class, with new fields, age changed to a long, height changed to an int
+         // and address changed to an Integer
+         ExternalizedFields.writeTag(out, ExternalizedFields.tag(1, ExternalizedFields.WIRE_TYPE_OBJECT));
+         ExternalizedFields.writeObjectField(out, marshaller, "Bob");
+         ExternalizedFields.writeTag(out, ExternalizedFields.tag(2, ExternalizedFields.WIRE_TYPE_LONG));
+         out.writeLong(42);
+         ExternalizedFields.writeTag(out, ExternalizedFields.tag(3, ExternalizedFields.WIRE_TYPE_INT));
+         out.writeInt(180);
+         ExternalizedFields.writeTag(out, ExternalizedFields.tag(8, ExternalizedFields.WIRE_TYPE_OBJECT));
+         ExternalizedFields.writeObjectField(out, marshaller, 12);
+         ExternalizedFields.writeTag(out, ExternalizedFields.tag(100, ExternalizedFields.WIRE_TYPE_OBJECT));
+         ExternalizedFields.writeObjectField(out, marshaller, "unknown");
+         ExternalizedFields.writeTag(out, ExternalizedFields.tag(101, ExternalizedFields.WIRE_TYPE_SHORT));
+         out.writeShort(3);
+         ExternalizedFields.writeEnd(out);
+      }
+
+      Person person = readPerson(bytes.toByteArray(), marshaller);
+      assertEquals("Bob", person.name);
+      assertEquals(Person.DEFAULT_AGE, person.age);
+      assertEquals(0f, person.height, 0f);
+      assertNull(person.address);
+      assertNull(person.tags);
+   }
+
+   public void testSkipFieldOfUnknownClass() throws Exception {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+         // Written by a newer version of the class, with a new field whose class the reader doesn't have
+         ExternalizedFields.writeTag(out, ExternalizedFields.tag(100, ExternalizedFields.WIRE_TYPE_OBJECT));
+         ExternalizedFields.writeObjectField(out, new JavaSerializationMarshaller(), new Unknown());
+         ExternalizedFields.writeTag(out, ExternalizedFields.tag(1, ExternalizedFields.WIRE_TYPE_OBJECT));
+         ExternalizedFields.writeObjectField(out, new JavaSerializationMarshaller(), "Carol");
+         ExternalizedFields.writeEnd(out);
+      }
+
+      Person person = readPerson(bytes.toByteArray(), new JavaSerializationMarshaller() {
+         @Override
+         public Object objectFromByteBuffer(byte[] buf, int offset, int length) throws IOException, ClassNotFoundException {
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buf, offset, length)) {
+               @Override
+               protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                  if (desc.getName().equals(Unknown.class.getName()))
+                     throw new ClassNotFoundException(desc.getName());
+                  return super.resolveClass(desc);
+               }
+            }) {
+               return in.readObject();
+            }
+         }
+      });
+      assertEquals("Carol", person.name);
+   }
+
+   private static Person readPerson(byte[] bytes, Marshaller marshaller) throws Exception {
+      GeneratedExternalizerTest_Person_Externalizer externalizer = new GeneratedExternalizerTest_Person_Externalizer();
+      externalizer.setMarshaller(marshaller);
+      try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+         return externalizer.readObject(in);
+      }
+   }
+
+   static class Unknown implements Serializable {
+   }
+
+   @GenerateExternalizer(id = 7410, reserved = 6)
+   static class Person {
+      static final int DEFAULT_AGE = -1;
+
+      @ExternalizedField(1)
+      String name;
+      @ExternalizedField(2)
+      int age = DEFAULT_AGE;
+      @ExternalizedField(3)
+      float height;
+      @ExternalizedField(4)
+      boolean member;
+      @ExternalizedField(5)
+      char initial;
+      @ExternalizedField(7)
+      List<String> tags;
+      @ExternalizedField(8)
+      String address;
+   }
+}
@@ -73,7 +73,10 @@
 import org.infinispan.container.entries.TransientCacheValue;
 import org.infinispan.container.entries.TransientMortalCacheEntry;
 import org.infinispan.container.entries.TransientMortalCacheValue;
+import org.infinispan.container.entries.metadata.CompactMetadata;
+import org.infinispan.container.entries.metadata.CompactMetadataMortalCacheEntry;
 import org.infinispan.container.versioning.EntryVersionsMap;
+import org.infinispan.container.versioning.NumericVersion;
 import org.infinispan.context.Flag;
 import org.infinispan.distribution.ch.impl.DefaultConsistentHash;
 import org.infinispan.distribution.ch.impl.DefaultConsistentHashFactory;
@@ -82,6 +85,7 @@
 import org.infinispan.marshall.core.JBossMarshallingTest.CustomReadObjectMethod;
 import org.infinispan.marshall.core.JBossMarshallingTest.ObjectThatContainsACustomReadObjectMethod;
 import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
 import org.infinispan.remoting.MIMECacheEntry;
 import org.infinispan.remoting.responses.ExceptionResponse;
 import org.infinispan.remoting.responses.UnsuccessfulResponse;
@@ -423,6 +427,18 @@ public void testMarshallObjectThatContainsACustomReadObjectMethod() throws Excep
       marshallAndAssertEquality(obj);
    }
 
+   public void testCompactMetadataCacheEntryMarshalling() throws Exception {
+      Metadata metadata = new EmbeddedMetadata.Builder().lifespan(200000).version(new NumericVersion(7)).build();
+      CompactMetadataMortalCacheEntry entry = new CompactMetadataMortalCacheEntry("key", "value",
+            CompactMetadata.withoutVersion(metadata), 7, System.currentTimeMillis());
+      byte[] bytes = marshaller.objectToByteBuffer(entry);
+      InternalCacheEntry rEntry = (InternalCacheEntry) marshaller.objectFromByteBuffer(bytes);
+      assertEquals(entry.getKey(), rEntry.getKey());
+      assertEquals(entry.getValue(), rEntry.getValue());
+      assertEquals(entry.getCreated(), rEntry.getCreated());
+      assertEquals(metadata, rEntry.getMetadata());
+   }
+
    public void testMIMECacheEntryMarshalling() throws Exception {
       MIMECacheEntry entry = new MIMECacheEntry("rm", new byte[] {1, 2, 3});
       byte[] bytes = marshaller.objectToByteBuffer(entry);
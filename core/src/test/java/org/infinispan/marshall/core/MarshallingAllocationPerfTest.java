@@ -0,0 +1,161 @@
+package org.infinispan.marshall.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.marshall.ExternalizedField;
+import org.infinispan.commons.marshall.GenerateExternalizer;
+import org.infinispan.commons.util.EnumUtil;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.ImmortalCacheValue;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.responses.SuccessfulResponse;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TestResourceTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Measures the time and the memory allocated to marshall and unmarshall the commands and the responses of the put and
+ * get RPCs, as the transport does, and of a value marshalled by a generated externalizer. Look at the
+ * {@code gc.alloc.rate.norm} results for the bytes allocated per operation.
+ * <p>
+ * This is a profiling test, so it is only run on demand.
+ */
+@Test(groups = "profiling", testName = "marshall.core.MarshallingAllocationPerfTest")
+public class MarshallingAllocationPerfTest {
+
+   public void performAllocationBenchmark() throws Exception {
+      Options opt = new OptionsBuilder()
+            .include(this.getClass().getName() + ".*")
+            .mode(Mode.AverageTime)
+            .timeUnit(TimeUnit.NANOSECONDS)
+            .addProfiler(GCProfiler.class)
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .shouldFailOnError(true)
+            .build();
+
+      new Runner(opt).run();
+   }
+
+   @State(Scope.Benchmark)
+   public static class MarshallerState {
+      @Param({"100", "10000"})
+      public int valueSize;
+
+      private EmbeddedCacheManager cacheManager;
+      private GlobalMarshaller marshaller;
+      private CacheRpcCommand putCommand;
+      private CacheRpcCommand getCommand;
+      private Response getResponse;
+      private ByteBuffer putCommandBytes;
+      private ByteBuffer getResponseBytes;
+      private GeneratedValue generatedValue;
+      private ByteBuffer generatedValueBytes;
+
+      @Setup
+      public void setup() throws Exception {
+         // The commands must have a cluster address
+         TestResourceTracker.setThreadTestNameIfMissing(MarshallingAllocationPerfTest.class.getName());
+         cacheManager = TestCacheManagerFactory.createClusteredCacheManager(new ConfigurationBuilder());
+         Cache<Object, Object> cache = cacheManager.getCache();
+         marshaller = TestingUtil.extractGlobalMarshaller(cacheManager);
+         CommandsFactory commandsFactory = TestingUtil.extractCommandsFactory(cache);
+
+         String key = "key-" + ThreadLocalRandom.current().nextInt();
+         byte[] value = new byte[valueSize];
+         ThreadLocalRandom.current().nextBytes(value);
+         PutKeyValueCommand put = commandsFactory.buildPutKeyValueCommand(key, value,
+               new EmbeddedMetadata.Builder().build(), EnumUtil.EMPTY_BIT_SET);
+         put.setTopologyId(1);
+         putCommand = commandsFactory.buildSingleRpcCommand(put);
+         getCommand = commandsFactory.buildClusteredGetCommand(key, EnumUtil.EMPTY_BIT_SET);
+         getResponse = SuccessfulResponse.create(new ImmortalCacheValue(value));
+
+         putCommandBytes = marshaller.objectToBuffer(putCommand);
+         getResponseBytes = marshaller.objectToBuffer(getResponse);
+
+         generatedValue = new GeneratedValue();
+         generatedValue.first = "first-" + valueSize;
+         generatedValue.second = "second-" + valueSize;
+         generatedValue.third = "third-" + valueSize;
+         generatedValueBytes = marshaller.objectToBuffer(generatedValue);
+      }
+
+      @TearDown
+      public void tearDown() {
+         TestingUtil.killCacheManagers(cacheManager);
+      }
+   }
+
+   @Benchmark
+   public ByteBuffer marshallPutCommand(MarshallerState state) throws Exception {
+      return state.marshaller.objectToBuffer(state.putCommand);
+   }
+
+   @Benchmark
+   public Object unmarshallPutCommand(MarshallerState state) throws Exception {
+      ByteBuffer bytes = state.putCommandBytes;
+      return state.marshaller.objectFromByteBuffer(bytes.getBuf(), bytes.getOffset(), bytes.getLength());
+   }
+
+   @Benchmark
+   public ByteBuffer marshallGetCommand(MarshallerState state) throws Exception {
+      return state.marshaller.objectToBuffer(state.getCommand);
+   }
+
+   @Benchmark
+   public ByteBuffer marshallGetResponse(MarshallerState state) throws Exception {
+      return state.marshaller.objectToBuffer(state.getResponse);
+   }
+
+   @Benchmark
+   public Object unmarshallGetResponse(MarshallerState state) throws Exception {
+      ByteBuffer bytes = state.getResponseBytes;
+      return state.marshaller.objectFromByteBuffer(bytes.getBuf(), bytes.getOffset(), bytes.getLength());
+   }
+
+   @Benchmark
+   public ByteBuffer marshallGeneratedValue(MarshallerState state) throws Exception {
+      return state.marshaller.objectToBuffer(state.generatedValue);
+   }
+
+   @Benchmark
+   public Object unmarshallGeneratedValue(MarshallerState state) throws Exception {
+      ByteBuffer bytes = state.generatedValueBytes;
+      return state.marshaller.objectFromByteBuffer(bytes.getBuf(), bytes.getOffset(), bytes.getLength());
+   }
+
+   /**
+    * A value with the String fields of a typical small domain object, marshalled by a generated externalizer.
+    */
+   @GenerateExternalizer(id = 7420)
+   public static class GeneratedValue {
+      @ExternalizedField(1)
+      String first;
+      @ExternalizedField(2)
+      String second;
+      @ExternalizedField(3)
+      String third;
+   }
+}
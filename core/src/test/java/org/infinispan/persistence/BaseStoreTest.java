@@ -14,6 +14,7 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.infinispan.commons.marshall.StreamingMarshaller;
@@ -485,6 +486,24 @@ public void testLoadAll() throws PersistenceException {
       }
    }
 
+   public void testLoadBatch() throws Exception {
+      assertIsEmpty();
+
+      cl.writeBatch(Arrays.asList(marshalledEntry("k1", "v1", null), marshalledEntry("k2", "v2", null),
+                                  marshalledEntry("k3", "v3", null)));
+      long lifespan = 3000;
+      cl.write(marshalledEntry(internalCacheEntry("k4", "v4", lifespan)));
+
+      Map<Object, MarshalledEntry<Object, Object>> entries = cl.loadBatch(Arrays.asList("k1", "k3", "k4", "k5"));
+      assertEquals(entries.keySet(), new HashSet<>(Arrays.asList("k1", "k3", "k4")));
+      assertEquals("v1", unwrap(entries.get("k1").getValue()));
+      assertEquals("v3", unwrap(entries.get("k3").getValue()));
+
+      timeService.advance(lifespan + 1);
+      entries = cl.loadBatch(Arrays.asList("k2", "k4"));
+      assertEquals(Collections.singleton("k2"), entries.keySet());
+   }
+
    public void testReplaceExpiredEntry() throws Exception {
       assertIsEmpty();
       final long lifespan = 3000;
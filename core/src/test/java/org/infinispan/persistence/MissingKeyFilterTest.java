@@ -0,0 +1,112 @@
+package org.infinispan.persistence;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.persistence.dummy.DummyInMemoryStore;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.manager.PersistenceManagerImpl;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the bloom filter and the negative cache that keep the lookups of missing keys from reaching the stores.
+ *
+ * @since 9.0
+ */
+@Test(groups = "functional", testName = "persistence.MissingKeyFilterTest")
+public class MissingKeyFilterTest extends SingleCacheManagerTest {
+
+   private static final int NUM_ENTRIES = 100;
+   private static final int NUM_MISSING = 1000;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(false);
+      ConfigurationBuilder bloom = new ConfigurationBuilder();
+      bloom.persistence().bloomFilterEntries(NUM_MISSING).bloomFilterFalsePositiveRate(0.01)
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class).storeName(getClass().getName() + "-bloom");
+      cm.defineConfiguration("bloom", bloom.build());
+
+      ConfigurationBuilder negative = new ConfigurationBuilder();
+      negative.persistence().negativeCacheSize(NUM_ENTRIES)
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class).storeName(getClass().getName() + "-negative");
+      cm.defineConfiguration("negative", negative.build());
+      return cm;
+   }
+
+   public void testBloomFilter() {
+      Cache<Object, Object> cache = cacheManager.getCache("bloom");
+      DummyInMemoryStore store = TestingUtil.getFirstLoader(cache);
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         cache.put("k" + i, "v" + i);
+      }
+
+      // The puts looked up the previous values too
+      PersistenceManagerImpl persistenceManager = persistenceManager(cache);
+      long previousLookups = persistenceManager.getBloomFilterRejections() + persistenceManager.getBloomFilterFalsePositives();
+      long previousFalsePositives = persistenceManager.getBloomFilterFalsePositives();
+      store.clearStats();
+      for (int i = 0; i < NUM_MISSING; i++) {
+         assertNull(cache.get("missing" + i));
+      }
+      long falsePositives = persistenceManager.getBloomFilterFalsePositives() - previousFalsePositives;
+      assertEquals(NUM_MISSING, persistenceManager.getBloomFilterRejections() + persistenceManager.getBloomFilterFalsePositives()
+            - previousLookups);
+      assertEquals(falsePositives, (long) store.stats().get("load"));
+      assertTrue(persistenceManager.getBloomFilterFalsePositiveRate() < 0.05);
+
+      // The filter is rebuilt from the store
+      cache.stop();
+      cache.start();
+      store = TestingUtil.getFirstLoader(cache);
+      store.clearStats();
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         assertEquals("v" + i, cache.get("k" + i));
+      }
+      assertEquals(NUM_ENTRIES, (int) store.stats().get("load"));
+
+      cache.clear();
+      assertNull(cache.get("k0"));
+      cache.put("k0", "v0");
+      cache.getAdvancedCache().getDataContainer().clear();
+      assertEquals("v0", cache.get("k0"));
+   }
+
+   public void testNegativeCache() {
+      Cache<Object, Object> cache = cacheManager.getCache("negative");
+      DummyInMemoryStore store = TestingUtil.getFirstLoader(cache);
+      store.clearStats();
+
+      assertNull(cache.get("missing"));
+      assertNull(cache.get("missing"));
+      assertEquals(1, (int) store.stats().get("load"));
+      assertEquals(1, persistenceManager(cache).getNegativeCacheHits());
+
+      cache.put("missing", "value");
+      cache.getAdvancedCache().getDataContainer().clear();
+      assertEquals("value", cache.get("missing"));
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testSharedStoreInClusteredCache() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.clustering().cacheMode(CacheMode.DIST_SYNC);
+      builder.persistence().bloomFilterEntries(NUM_ENTRIES)
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class).shared(true);
+      builder.build();
+   }
+
+   private PersistenceManagerImpl persistenceManager(Cache<?, ?> cache) {
+      return (PersistenceManagerImpl) TestingUtil.extractComponent(cache, PersistenceManager.class);
+   }
+}
@@ -0,0 +1,228 @@
+package org.infinispan.persistence;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.CustomStoreConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.spi.CacheLoader;
+import org.infinispan.persistence.spi.CacheWriter;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.spi.NonBlockingCacheLoader;
+import org.infinispan.persistence.spi.NonBlockingCacheWriter;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.CleanupAfterMethod;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that non-transactional invocations only use the non-blocking methods of the stores.
+ *
+ * @since 9.0
+ */
+@Test(groups = "functional", testName = "persistence.NonBlockingStoreTest")
+@CleanupAfterMethod
+public class NonBlockingStoreTest extends SingleCacheManagerTest {
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder cfg = new ConfigurationBuilder();
+      cfg.persistence().addStore(CustomStoreConfigurationBuilder.class).customStoreClass(NonBlockingStore.class);
+      return TestCacheManagerFactory.createCacheManager(cfg);
+   }
+
+   public void testWriteAndLoad() {
+      NonBlockingStore store = TestingUtil.getFirstLoader(cache);
+      cache.put("k1", "v1");
+      cache.put("k2", "v2");
+      assertEquals(new HashSet<>(Arrays.asList("k1", "k2")), store.entries.keySet());
+
+      cache.evict("k1");
+      cache.evict("k2");
+      assertEquals("v1", cache.get("k1"));
+      assertEquals("v2", cache.replace("k2", "v3"));
+      assertEquals("v3", store.entries.get("k2").getValue());
+
+      cache.evict("k1");
+      cache.evict("k2");
+      Map<Object, Object> all = cache.getAdvancedCache().getAll(new HashSet<>(Arrays.asList("k1", "k2", "k3")));
+      assertEquals(2, all.size());
+      assertEquals("v1", all.get("k1"));
+      assertEquals("v3", all.get("k2"));
+
+      assertEquals("v1", cache.remove("k1"));
+      assertFalse(store.entries.containsKey("k1"));
+      assertNull(cache.get("k1"));
+   }
+
+   @Test(expectedExceptions = PersistenceException.class)
+   public void testLoadFailure() {
+      NonBlockingStore store = TestingUtil.getFirstLoader(cache);
+      cache.put("k1", "v1");
+      cache.evict("k1");
+      store.fail = true;
+      try {
+         cache.get("k1");
+      } finally {
+         store.fail = false;
+      }
+   }
+
+   public void testWriteAfterFailure() {
+      NonBlockingStore store = TestingUtil.getFirstLoader(cache);
+      store.fail = true;
+      try {
+         cache.put("k1", "v1");
+      } catch (PersistenceException e) {
+         // expected
+      } finally {
+         store.fail = false;
+      }
+      cache.put("k1", "v2");
+      assertTrue(store.entries.containsKey("k1"));
+      assertEquals("v2", store.entries.get("k1").getValue());
+   }
+
+   public void testRemoveWhileLoading() throws Exception {
+      NonBlockingStore store = TestingUtil.getFirstLoader(cache);
+      cache.put("k1", "v1");
+      cache.evict("k1");
+
+      CompletableFuture<Void> gate = new CompletableFuture<>();
+      store.loadGate = gate;
+      Future<Object> get = fork(() -> cache.get("k1"));
+      // The get read v1 from the store, but didn't store it in the data container yet
+      eventually(() -> store.gatedLoads.get() == 1);
+      store.loadGate = null;
+      assertEquals("v1", cache.remove("k1"));
+      gate.complete(null);
+
+      get.get(10, TimeUnit.SECONDS);
+      assertFalse(cache.getAdvancedCache().getDataContainer().containsKey("k1"));
+      assertNull(cache.get("k1"));
+   }
+
+   public void testRemoveWhileLoadingBatch() throws Exception {
+      NonBlockingStore store = TestingUtil.getFirstLoader(cache);
+      cache.put("k1", "v1");
+      cache.put("k2", "v2");
+      cache.evict("k1");
+      cache.evict("k2");
+
+      CompletableFuture<Void> gate = new CompletableFuture<>();
+      store.loadGate = gate;
+      Future<Map<Object, Object>> getAll =
+            fork(() -> cache.getAdvancedCache().getAll(new HashSet<>(Arrays.asList("k1", "k2"))));
+      eventually(() -> store.gatedLoads.get() == 2);
+      store.loadGate = null;
+      assertEquals("v1", cache.remove("k1"));
+      gate.complete(null);
+
+      assertEquals("v2", getAll.get(10, TimeUnit.SECONDS).get("k2"));
+      assertFalse(cache.getAdvancedCache().getDataContainer().containsKey("k1"));
+      assertNull(cache.get("k1"));
+      assertEquals("v2", cache.get("k2"));
+   }
+
+   /**
+    * A store that completes its operations on its own thread and doesn't support the blocking methods.
+    */
+   public static class NonBlockingStore implements CacheLoader, CacheWriter, NonBlockingCacheLoader, NonBlockingCacheWriter {
+      final Map<Object, MarshalledEntry> entries = new ConcurrentHashMap<>();
+      volatile boolean fail;
+      // When set, loads complete only once it completes, after reading the entry
+      volatile CompletableFuture<Void> loadGate;
+      final AtomicInteger gatedLoads = new AtomicInteger();
+      private ExecutorService executor;
+
+      @Override
+      public void init(InitializationContext ctx) {
+      }
+
+      @Override
+      public void start() {
+         executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "NonBlockingStore"));
+      }
+
+      @Override
+      public void stop() {
+         executor.shutdownNow();
+      }
+
+      @Override
+      public CompletionStage<MarshalledEntry> loadAsync(Object key) {
+         CompletableFuture<Void> gate = loadGate;
+         CompletableFuture<MarshalledEntry> load = CompletableFuture.supplyAsync(() -> {
+            checkFailure();
+            MarshalledEntry entry = entries.get(key);
+            if (gate != null) {
+               gatedLoads.incrementAndGet();
+            }
+            return entry;
+         }, executor);
+         // Don't block the store thread, the other operations must go on
+         return gate == null ? load : load.thenCombine(gate, (entry, ignored) -> entry);
+      }
+
+      @Override
+      public CompletionStage<Boolean> containsAsync(Object key) {
+         return CompletableFuture.supplyAsync(() -> entries.containsKey(key), executor);
+      }
+
+      @Override
+      public CompletionStage<Void> writeAsync(MarshalledEntry entry) {
+         return CompletableFuture.runAsync(() -> {
+            checkFailure();
+            entries.put(entry.getKey(), entry);
+         }, executor);
+      }
+
+      @Override
+      public CompletionStage<Boolean> deleteAsync(Object key) {
+         return CompletableFuture.supplyAsync(() -> entries.remove(key) != null, executor);
+      }
+
+      private void checkFailure() {
+         if (fail)
+            throw new PersistenceException("Store failure");
+      }
+
+      @Override
+      public MarshalledEntry load(Object key) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean contains(Object key) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void write(MarshalledEntry entry) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean delete(Object key) {
+         throw new UnsupportedOperationException();
+      }
+   }
+}
@@ -0,0 +1,157 @@
+package org.infinispan.persistence;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.configuration.BuiltBy;
+import org.infinispan.commons.configuration.ConfigurationFor;
+import org.infinispan.commons.configuration.attributes.AttributeSet;
+import org.infinispan.commons.util.concurrent.ConcurrentHashSet;
+import org.infinispan.configuration.cache.AsyncStoreConfiguration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.PersistenceConfigurationBuilder;
+import org.infinispan.configuration.cache.SingletonStoreConfiguration;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.filter.KeyFilter;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.persistence.dummy.DummyInMemoryStore;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfiguration;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.manager.PersistenceManagerImpl;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.spi.SegmentedCacheLoader;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.transaction.TransactionMode;
+import org.testng.annotations.Test;
+
+/**
+ * Tests preloading the cache with multiple threads, from both plain and segmented stores.
+ *
+ * @since 9.0
+ */
+@Test(groups = "functional", testName = "persistence.ParallelPreloadTest")
+public class ParallelPreloadTest extends SingleCacheManagerTest {
+
+   private static final int NUM_ENTRIES = 1000;
+   private static final int NUM_SEGMENTS = 16;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(false);
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.persistence().parallelism(4)
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class)
+            .preload(true).storeName(getClass().getName());
+      cm.defineConfiguration("plain", builder.build());
+
+      builder.transaction().transactionMode(TransactionMode.TRANSACTIONAL);
+      cm.defineConfiguration("tx", builder.build());
+
+      ConfigurationBuilder segmented = new ConfigurationBuilder();
+      segmented.clustering().hash().numSegments(NUM_SEGMENTS);
+      segmented.persistence().parallelism(4)
+            .addStore(SegmentedStoreConfigurationBuilder.class)
+            .preload(true).storeName(getClass().getName());
+      cm.defineConfiguration("segmented", segmented.build());
+      return cm;
+   }
+
+   public void testPreload() {
+      doTest("plain");
+   }
+
+   public void testPreloadTransactional() {
+      doTest("tx");
+   }
+
+   public void testPreloadSegmented() {
+      doTest("segmented");
+      SegmentedStore store = TestingUtil.getFirstLoader(cacheManager.getCache("segmented"));
+      assertEquals(NUM_SEGMENTS, store.processedSegments.size());
+      assertEquals(NUM_SEGMENTS, store.processCount.get());
+      assertEquals(NUM_SEGMENTS, persistenceManager(cacheManager.getCache("segmented")).getPreloadedSegments());
+   }
+
+   private void doTest(String cacheName) {
+      Cache<Object, Object> cache = cacheManager.getCache(cacheName);
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         if (i % 2 == 0) {
+            cache.put("k" + i, "v" + i);
+         } else {
+            cache.put("k" + i, "v" + i, 1, TimeUnit.HOURS);
+         }
+      }
+      cache.stop();
+      cache.start();
+
+      DataContainer<Object, Object> dataContainer = cache.getAdvancedCache().getDataContainer();
+      assertEquals(NUM_ENTRIES, dataContainer.size());
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         InternalCacheEntry<Object, Object> entry = dataContainer.peek("k" + i);
+         assertEquals("v" + i, entry.getValue());
+         assertEquals(i % 2 == 0 ? -1 : TimeUnit.HOURS.toMillis(1), entry.getLifespan());
+      }
+
+      PersistenceManagerImpl persistenceManager = persistenceManager(cache);
+      assertFalse(persistenceManager.isPreloading());
+      assertEquals(NUM_ENTRIES, persistenceManager.getPreloadedEntries());
+   }
+
+   private PersistenceManagerImpl persistenceManager(Cache<?, ?> cache) {
+      return (PersistenceManagerImpl) TestingUtil.extractComponent(cache, PersistenceManager.class);
+   }
+
+   public static class SegmentedStore extends DummyInMemoryStore implements SegmentedCacheLoader {
+      final Set<Integer> processedSegments = new ConcurrentHashSet<>();
+      final AtomicInteger processCount = new AtomicInteger();
+      private KeyPartitioner keyPartitioner;
+
+      @Override
+      public void init(InitializationContext ctx) {
+         super.init(ctx);
+         keyPartitioner = ctx.getCache().getAdvancedCache().getComponentRegistry().getComponent(KeyPartitioner.class);
+      }
+
+      @Override
+      public void process(Set segments, KeyFilter filter, CacheLoaderTask task, Executor executor, boolean fetchValue,
+                          boolean fetchMetadata) {
+         for (Object segment : segments) {
+            processedSegments.add((Integer) segment);
+         }
+         processCount.incrementAndGet();
+         process(key -> segments.contains(keyPartitioner.getSegment(key)) && (filter == null || filter.accept(key)),
+                 task, executor, fetchValue, fetchMetadata);
+      }
+   }
+
+   @BuiltBy(SegmentedStoreConfigurationBuilder.class)
+   @ConfigurationFor(SegmentedStore.class)
+   public static class SegmentedStoreConfiguration extends DummyInMemoryStoreConfiguration {
+      public SegmentedStoreConfiguration(AttributeSet attributes, AsyncStoreConfiguration async,
+                                         SingletonStoreConfiguration singletonStore) {
+         super(attributes, async, singletonStore);
+      }
+   }
+
+   public static class SegmentedStoreConfigurationBuilder extends DummyInMemoryStoreConfigurationBuilder {
+      public SegmentedStoreConfigurationBuilder(PersistenceConfigurationBuilder builder) {
+         super(builder);
+      }
+
+      @Override
+      public SegmentedStoreConfiguration create() {
+         return new SegmentedStoreConfiguration(attributes.protect(), async.create(), singletonStore.create());
+      }
+   }
+}
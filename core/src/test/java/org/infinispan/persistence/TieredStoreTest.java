@@ -0,0 +1,155 @@
+package org.infinispan.persistence;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.persistence.dummy.DummyInMemoryStore;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.manager.PersistenceManagerImpl;
+import org.infinispan.persistence.spi.CacheLoader;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests a tiered persistence configuration, where a local store caches the entries of a shared store.
+ *
+ * @since 9.0
+ */
+@Test(groups = "functional", testName = "persistence.TieredStoreTest")
+public class TieredStoreTest extends SingleCacheManagerTest {
+
+   private static final int NUM_ENTRIES = 100;
+   private static final int LOCAL_TIER_MAX_ENTRIES = 10;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(false);
+      cm.defineConfiguration("tiered", tieredConfiguration("tiered").build());
+      cm.defineConfiguration("concurrent", tieredConfiguration("concurrent").build());
+
+      ConfigurationBuilder bounded = tieredConfiguration("bounded");
+      bounded.persistence().localTierMaxEntries(LOCAL_TIER_MAX_ENTRIES);
+      cm.defineConfiguration("bounded", bounded.build());
+      return cm;
+   }
+
+   private ConfigurationBuilder tieredConfiguration(String name) {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      // The local store is read first even if it's declared last
+      builder.persistence().tiered(true)
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class).storeName(getClass().getName() + "-" + name + "-shared")
+            .shared(true)
+            .persistence()
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class).storeName(getClass().getName() + "-" + name + "-local");
+      return builder;
+   }
+
+   public void testPromotion() {
+      Cache<Object, Object> cache = cacheManager.getCache("tiered");
+      DummyInMemoryStore local = store(cache, 0);
+      DummyInMemoryStore shared = store(cache, 1);
+      cache.put("k", "v");
+      assertTrue(local.contains("k"));
+      assertTrue(shared.contains("k"));
+
+      // Read from the local store
+      cache.getAdvancedCache().getDataContainer().clear();
+      shared.clearStats();
+      assertEquals("v", cache.get("k"));
+      assertEquals(0, (int) shared.stats().get("load"));
+      assertEquals(1, persistenceManager(cache).getLocalTierHits());
+
+      // Read from the shared store and copied to the local store
+      local.clear();
+      cache.getAdvancedCache().getDataContainer().clear();
+      assertEquals("v", cache.get("k"));
+      assertEquals(1, (int) shared.stats().get("load"));
+      // The reader doesn't wait for the copy
+      eventuallyEquals(1L, () -> persistenceManager(cache).getLocalTierPromotions());
+      assertTrue(local.contains("k"));
+
+      cache.getAdvancedCache().getDataContainer().clear();
+      assertEquals("v", cache.get("k"));
+      assertEquals(1, (int) shared.stats().get("load"));
+
+      cache.remove("k");
+      assertFalse(local.contains("k"));
+      assertFalse(shared.contains("k"));
+   }
+
+   public void testPromotionDuringOtherWrites() throws Exception {
+      Cache<Object, Object> cache = cacheManager.getCache("concurrent");
+      DummyInMemoryStore local = store(cache, 0);
+      AtomicBoolean stop = new AtomicBoolean();
+      Future<Void> writer = fork(() -> {
+         for (int i = 0; !stop.get(); i++) {
+            cache.put("w", "v" + i);
+         }
+         return null;
+      });
+      try {
+         // The writes of another key don't prevent the promotions
+         for (int i = 0; i < NUM_ENTRIES; i++) {
+            cache.put("k" + i, "v" + i);
+            local.delete("k" + i);
+            cache.getAdvancedCache().getDataContainer().remove("k" + i);
+            assertEquals("v" + i, cache.get("k" + i));
+            long promotions = i + 1;
+            eventuallyEquals(promotions, () -> persistenceManager(cache).getLocalTierPromotions());
+            assertTrue(local.contains("k" + i));
+         }
+      } finally {
+         stop.set(true);
+      }
+      writer.get(10, TimeUnit.SECONDS);
+   }
+
+   public void testBoundedLocalTier() {
+      Cache<Object, Object> cache = cacheManager.getCache("bounded");
+      DummyInMemoryStore local = store(cache, 0);
+      DummyInMemoryStore shared = store(cache, 1);
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         cache.put("k" + i, "v" + i);
+      }
+      eventually(() -> local.size() <= LOCAL_TIER_MAX_ENTRIES);
+      assertEquals(NUM_ENTRIES, shared.size());
+      assertEquals(NUM_ENTRIES, cache.getAdvancedCache().getDataContainer().size());
+      assertEquals(NUM_ENTRIES, persistenceManager(cache).size());
+
+      cache.getAdvancedCache().getDataContainer().clear();
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         assertEquals("v" + i, cache.get("k" + i));
+      }
+      eventually(() -> local.size() <= LOCAL_TIER_MAX_ENTRIES);
+      assertTrue(persistenceManager(cache).getLocalTierEvictions() >= NUM_ENTRIES - LOCAL_TIER_MAX_ENTRIES);
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testTieredWithoutSharedStore() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.persistence().tiered(true).addStore(DummyInMemoryStoreConfigurationBuilder.class);
+      builder.build();
+   }
+
+   private DummyInMemoryStore store(Cache<?, ?> cache, int index) {
+      List<CacheLoader> loaders = persistenceManager(cache).getAllLoaders();
+      return (DummyInMemoryStore) loaders.get(index);
+   }
+
+   private PersistenceManagerImpl persistenceManager(Cache<?, ?> cache) {
+      return (PersistenceManagerImpl) TestingUtil.extractComponent(cache, PersistenceManager.class);
+   }
+}
@@ -3,6 +3,11 @@
 import static org.infinispan.test.TestingUtil.extractGlobalMarshaller;
 import static org.testng.Assert.assertEquals;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.concurrent.Executor;
 
 import org.infinispan.Cache;
@@ -91,6 +96,23 @@ public void testRepeatedLoads() throws PersistenceException {
 
 
 
+   public void testGetAllLoadsBatch() throws PersistenceException {
+      CountingStore countingCS = getCountingCacheStore();
+      store.write(new MarshalledEntryImpl("k1", "v1", null, extractGlobalMarshaller(cacheManager)));
+      store.write(new MarshalledEntryImpl("k2", "v2", null, extractGlobalMarshaller(cacheManager)));
+
+      Map<Object, Object> values = cache.getAdvancedCache().getAll(new HashSet<>(Arrays.asList("k1", "k2", "k3")));
+      assertEquals(values.get("k1"), "v1");
+      assertEquals(values.get("k2"), "v2");
+      assertEquals(values.get("k3"), null);
+      assertEquals(countingCS.numBatchLoads, 1);
+      assertEquals(countingCS.numLoads, 0);
+
+      // The loaded entries are in memory now
+      cache.getAdvancedCache().getAll(new HashSet<>(Arrays.asList("k1", "k2")));
+      assertEquals(countingCS.numBatchLoads, 1);
+   }
+
    public void testSkipCacheFlagUsage() throws PersistenceException {
       CountingStore countingCS = getCountingCacheStore();
 
@@ -180,7 +202,7 @@ private void reset(Cache<?, ?> cache, CountingStore countingCS) {
    }
 
    public static class CountingStore implements AdvancedLoadWriteStore {
-      public int numLoads, numContains;
+      public int numLoads, numBatchLoads, numContains;
 
       @Override
       public void process(KeyFilter filter, CacheLoaderTask task, Executor executor, boolean fetchValue, boolean fetchMetadata) {
@@ -224,6 +246,12 @@ public MarshalledEntry load(Object key) throws PersistenceException {
          return null;
       }
 
+      @Override
+      public Map<Object, MarshalledEntry> loadBatch(Collection keys) {
+         numBatchLoads++;
+         return Collections.emptyMap();
+      }
+
       @Override
       public void start() {
       }
@@ -0,0 +1,189 @@
+package org.infinispan.persistence.file;
+
+import static org.infinispan.factories.KnownComponentNames.PERSISTENCE_EXECUTOR;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.infinispan.commons.util.Util;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.SegmentedFileStoreConfigurationBuilder;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.persistence.BaseStoreTest;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Low level segmented file cache store tests.
+ *
+ * @since 9.0
+ */
+@Test(groups = "unit", testName = "persistence.file.SegmentedFileStoreTest")
+public class SegmentedFileStoreTest extends BaseStoreTest {
+
+   private static final int NUM_KEYS = 100;
+
+   String tmpDirectory;
+   private KeyPartitioner keyPartitioner;
+   private ExecutorService persistenceExecutor;
+
+   @BeforeClass(alwaysRun = true)
+   protected void setUpTempDir() {
+      tmpDirectory = TestingUtil.tmpDirectory(this.getClass());
+      persistenceExecutor = Executors.newSingleThreadExecutor(getTestThreadFactory("Persistence"));
+   }
+
+   @AfterClass(alwaysRun = true)
+   protected void clearTempDir() {
+      Util.recursiveFileRemove(tmpDirectory);
+   }
+
+   @AfterClass(alwaysRun = true)
+   protected void stopPersistenceExecutor() {
+      persistenceExecutor.shutdownNow();
+   }
+
+   @Override
+   protected AdvancedLoadWriteStore createStore() throws Exception {
+      clearTempDir();
+      SegmentedFileStore store = new SegmentedFileStore();
+      ConfigurationBuilder configurationBuilder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      configurationBuilder
+            .persistence()
+               .addStore(SegmentedFileStoreConfigurationBuilder.class)
+                  .location(this.tmpDirectory);
+      Configuration configuration = configurationBuilder.build();
+      // The store initializes the partitioner from the configuration when the cache doesn't have one
+      keyPartitioner = configuration.clustering().hash().keyPartitioner();
+      InitializationContext ctx = createContext(configuration);
+      // The files are compacted in the persistence executor
+      ctx.getCache().getAdvancedCache().getComponentRegistry().registerComponent(persistenceExecutor, PERSISTENCE_EXECUTOR);
+      store.init(ctx);
+      return store;
+   }
+
+   public void testRemoveSegments() throws Exception {
+      SegmentedFileStore<Object, Object> store = (SegmentedFileStore<Object, Object>) cl;
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cl.write(marshalledEntry("k" + i, wrap("k" + i, "v" + i), null));
+      }
+      // Remove all the segments sharing the file of k0
+      int segmentsPerFile = store.getConfiguration().segmentsPerFile();
+      int firstSegment = keyPartitioner.getSegment("k0") / segmentsPerFile * segmentsPerFile;
+      Set<Integer> removedSegments = new HashSet<>();
+      for (int segment = firstSegment; segment < firstSegment + segmentsPerFile; segment++) {
+         removedSegments.add(segment);
+      }
+      assertTrue(store.getFileSize(firstSegment) > 4);
+
+      store.removeSegments(removedSegments);
+      assertEquals(4, store.getFileSize(firstSegment));
+      assertEquals(4, store.getFile(firstSegment).length());
+      for (int i = 0; i < NUM_KEYS; i++) {
+         String key = "k" + i;
+         if (removedSegments.contains(keyPartitioner.getSegment(key))) {
+            assertNull(cl.load(key));
+         } else {
+            assertEquals("v" + i, unwrap(cl.load(key).getValue()));
+         }
+      }
+   }
+
+   public void testProcessSegments() throws Exception {
+      SegmentedFileStore<Object, Object> store = (SegmentedFileStore<Object, Object>) cl;
+      Set<Integer> segments = new HashSet<>();
+      Set<Object> expectedKeys = new HashSet<>();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         String key = "k" + i;
+         cl.write(marshalledEntry(key, wrap(key, "v" + i), null));
+         if (i % 3 == 0) {
+            segments.add(keyPartitioner.getSegment(key));
+         }
+      }
+      for (int i = 0; i < NUM_KEYS; i++) {
+         String key = "k" + i;
+         if (segments.contains(keyPartitioner.getSegment(key)))
+            expectedKeys.add(key);
+      }
+
+      Set<Object> keys = Collections.synchronizedSet(new HashSet<>());
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         store.process(segments, null, (entry, taskContext) -> keys.add(entry.getKey()), executor, true, true);
+      } finally {
+         executor.shutdownNow();
+      }
+      assertEquals(expectedKeys, keys);
+   }
+
+   public void testCompaction() throws Exception {
+      SegmentedFileStore<Object, Object> store = (SegmentedFileStore<Object, Object>) cl;
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 1024; i++) {
+         sb.append('x');
+      }
+      String value = sb.toString();
+      int segment = keyPartitioner.getSegment("k");
+      // Each write makes the previous entry unused, so the file is compacted instead of growing forever
+      for (int i = 0; i < 1000; i++) {
+         cl.write(marshalledEntry("k", wrap("k", value + i), null));
+      }
+      eventually(() -> store.getFileSize(segment) < 128 * 1024);
+      eventually(() -> store.getFileSize(segment) == store.getFile(segment).length());
+      assertEquals(value + 999, unwrap(cl.load("k").getValue()));
+
+      cl.stop();
+      cl.start();
+      assertNotNull(cl.load("k"));
+      assertEquals(value + 999, unwrap(cl.load("k").getValue()));
+      assertEquals(1, cl.size());
+   }
+
+   public void testRecoveryDropsIncompleteEntry() throws Exception {
+      SegmentedFileStore<Object, Object> store = (SegmentedFileStore<Object, Object>) cl;
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cl.write(marshalledEntry("k" + i, wrap("k" + i, "v" + i), null));
+      }
+      int segment = keyPartitioner.getSegment("k0");
+      long fileSize = store.getFileSize(segment);
+      File file = store.getFile(segment);
+      cl.stop();
+
+      // Simulate a crash in the middle of an append: the header is written, but not the key and the value
+      try (FileChannel channel = new RandomAccessFile(file, "rw").getChannel()) {
+         ByteBuffer header = ByteBuffer.allocate(8);
+         header.putInt(1024).putInt(16).flip();
+         channel.write(header, fileSize);
+      }
+
+      cl.start();
+      assertEquals(fileSize, store.getFileSize(segment));
+      assertEquals(fileSize, store.getFile(segment).length());
+      assertEquals(NUM_KEYS, cl.size());
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertEquals("v" + i, unwrap(cl.load("k" + i).getValue()));
+      }
+
+      cl.write(marshalledEntry("k0", wrap("k0", "v0-2"), null));
+      cl.stop();
+      cl.start();
+      assertEquals("v0-2", unwrap(cl.load("k0").getValue()));
+   }
+}
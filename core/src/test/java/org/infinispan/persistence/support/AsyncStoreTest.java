@@ -7,12 +7,15 @@
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
 import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
 import static org.testng.AssertJUnit.fail;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
@@ -39,6 +42,8 @@
 import org.infinispan.persistence.dummy.DummyInMemoryStore;
 import org.infinispan.persistence.dummy.DummyInMemoryStoreConfiguration;
 import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.manager.PersistenceManagerImpl;
 import org.infinispan.persistence.modifications.Modification;
 import org.infinispan.persistence.modifications.Remove;
 import org.infinispan.persistence.modifications.Store;
@@ -548,6 +553,97 @@ public void run() {
       assertEquals(3, underlying.threads.size());
    }
 
+   public void testFlushIntervalCoalescesModifications(final Method m) throws Exception {
+      BatchRecordingStore underlying = new BatchRecordingStore();
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.persistence()
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class)
+               .storeName(m.getName())
+               .async()
+                  .enable()
+                  .flushInterval(1, TimeUnit.HOURS)
+                  .flushThreshold(20);
+
+      writer = new AdvancedAsyncCacheWriter(underlying);
+      InitializationContext ctx =
+            PersistenceMockUtil.createContext(getClass().getSimpleName(), builder.build(), marshaller);
+      writer.init(ctx);
+      writer.start();
+      underlying.init(ctx);
+      underlying.start();
+
+      for (int i = 0; i < 3; i++) {
+         for (int j = 0; j < 5; j++) {
+            writer.write(new MarshalledEntryImpl(k(m, j), v(m, i), null, marshaller()));
+         }
+      }
+      // The writes are queued until the threshold is reached
+      assertEquals(15, writer.getQueueSize());
+      assertEquals(0, writer.getFlushCount());
+      assertEquals(0, underlying.size());
+
+      // Reaching the threshold flushes the queue before the interval elapses
+      writer.deleteBatch(Arrays.asList(k(m, 5), k(m, 6), k(m, 7), k(m, 8), k(m, 9)));
+      eventuallyEquals(1L, writer::getFlushCount);
+      assertEquals(0, writer.getQueueSize());
+      assertEquals(Arrays.asList(5), underlying.writeBatches);
+      assertEquals(Arrays.asList(5), underlying.deleteBatches);
+      for (int j = 0; j < 5; j++) {
+         assertEquals(v(m, 2), underlying.load(k(m, j)).getValue());
+      }
+   }
+
+   public void testFlushStatistics(final Method m) throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.persistence()
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class)
+               .storeName(m.getName())
+               .async()
+                  .enable()
+                  .flushInterval(1, TimeUnit.HOURS)
+                  .flushThreshold(10);
+      TestingUtil.withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.createCacheManager(builder)) {
+         @Override
+         public void call() {
+            Cache<Object, Object> cache = cm.getCache();
+            PersistenceManagerImpl pm = (PersistenceManagerImpl) TestingUtil.extractComponent(cache, PersistenceManager.class);
+            for (int i = 0; i < 5; i++) {
+               cache.put(k(m, i), v(m, i));
+            }
+            assertEquals(5, pm.getAsyncStoreQueueSize());
+            assertEquals(0, pm.getAsyncStoreFlushCount());
+
+            for (int i = 5; i < 10; i++) {
+               cache.put(k(m, i), v(m, i));
+            }
+            eventuallyEquals(1L, pm::getAsyncStoreFlushCount);
+            assertEquals(0, pm.getAsyncStoreQueueSize());
+            assertTrue(pm.getAsyncStoreAverageFlushTime() >= 0);
+         }
+      });
+   }
+
+   public static class BatchRecordingStore extends DummyInMemoryStore {
+      private final List<Integer> writeBatches = new CopyOnWriteArrayList<>();
+      private final List<Integer> deleteBatches = new CopyOnWriteArrayList<>();
+
+      @Override
+      public void writeBatch(Iterable entries) {
+         int size = 0;
+         for (Object ignored : entries) size++;
+         writeBatches.add(size);
+         super.writeBatch(entries);
+      }
+
+      @Override
+      public void deleteBatch(Iterable keys) {
+         int size = 0;
+         for (Object ignored : keys) size++;
+         deleteBatches.add(size);
+         super.deleteBatch(keys);
+      }
+   }
+
    private static abstract class OneEntryCacheManagerCallable extends CacheManagerCallable {
       protected final Cache<String, String> cache;
       protected final LockableStore store;
@@ -0,0 +1,113 @@
+package org.infinispan.remoting.rpc;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.remoting.inboundhandler.DeliverOrder;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.remoting.transport.Transport;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.ByteString;
+import org.infinispan.util.DefaultTimeService;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that a command alone in its bundle is sent as it is, and that the bundled commands are written to a single
+ * buffer.
+ *
+ * @since 9.0
+ */
+@Test(groups = "unit", testName = "remoting.rpc.RpcBundlerTest")
+public class RpcBundlerTest extends AbstractInfinispanTest {
+
+   public void testLoneCommandSentAsIs() throws Exception {
+      Transport transport = mock(Transport.class);
+      List<byte[]> sent = new ArrayList<>();
+      doAnswer(invocation -> {
+         byte[] buffer = (byte[]) invocation.getArguments()[1];
+         int offset = (Integer) invocation.getArguments()[2];
+         int length = (Integer) invocation.getArguments()[3];
+         sent.add(Arrays.copyOfRange(buffer, offset, offset + length));
+         return null;
+      }).when(transport).sendTo(any(Address.class), any(byte[].class), anyInt(), anyInt(), eq(DeliverOrder.NONE));
+      CommandsFactory commandsFactory = mock(CommandsFactory.class);
+      RpcBundler bundler = createBundler(transport, commandsFactory);
+
+      byte[] command = {1, 2, 3};
+      bundler.send(mock(Address.class), command);
+      bundler.flushAll();
+
+      assertEquals(1, sent.size());
+      assertEquals(Arrays.toString(command), Arrays.toString(sent.get(0)));
+      verify(commandsFactory, never()).buildMultipleRpcCommand(any(byte[].class), anyInt(), anyInt());
+      verify(transport, never()).sendTo(any(Address.class), any(ReplicableCommand.class), any(DeliverOrder.class));
+   }
+
+   public void testBundledCommandsInOneBuffer() throws Exception {
+      Transport transport = mock(Transport.class);
+      List<ReplicableCommand> sent = new ArrayList<>();
+      doAnswer(invocation -> sent.add((ReplicableCommand) invocation.getArguments()[1]))
+            .when(transport).sendTo(any(Address.class), any(ReplicableCommand.class), eq(DeliverOrder.NONE));
+      CommandsFactory commandsFactory = mock(CommandsFactory.class);
+      when(commandsFactory.buildMultipleRpcCommand(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation ->
+            new MultipleRpcCommand(ByteString.fromString("cache"), (byte[]) invocation.getArguments()[0],
+                  (Integer) invocation.getArguments()[1], (Integer) invocation.getArguments()[2]));
+      RpcBundler bundler = createBundler(transport, commandsFactory);
+
+      Address address = mock(Address.class);
+      byte[] first = {1, 2, 3};
+      byte[] second = new byte[200];
+      Arrays.fill(second, (byte) 4);
+      bundler.send(address, first);
+      // The bundle is full
+      bundler.send(address, second);
+
+      assertEquals(1, sent.size());
+      MultipleRpcCommand bundle = (MultipleRpcCommand) sent.get(0);
+      assertEquals(2, bundle.getCount());
+      // Record the bytes the receiver would unmarshall
+      List<String> unmarshalled = new ArrayList<>();
+      StreamingMarshaller marshaller = mock(StreamingMarshaller.class);
+      when(marshaller.objectFromByteBuffer(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation -> {
+         byte[] buffer = (byte[]) invocation.getArguments()[0];
+         int offset = (Integer) invocation.getArguments()[1];
+         int length = (Integer) invocation.getArguments()[2];
+         unmarshalled.add(Arrays.toString(Arrays.copyOfRange(buffer, offset, offset + length)));
+         return mock(CacheRpcCommand.class);
+      });
+      List<CacheRpcCommand> handled = new ArrayList<>();
+      bundle.forEachCommand(marshaller, handled::add, e -> {
+         throw new AssertionError(e);
+      });
+      assertEquals(Arrays.asList(Arrays.toString(first), Arrays.toString(second)), unmarshalled);
+      assertEquals(2, handled.size());
+      assertEquals(1, bundler.getBundles());
+      assertEquals(2, bundler.getBundledCommands());
+   }
+
+   private RpcBundler createBundler(Transport transport, CommandsFactory commandsFactory) {
+      return new RpcBundler(transport, commandsFactory, e -> {
+         throw new AssertionError(e);
+      }, mock(ScheduledExecutorService.class), mock(ExecutorService.class), new DefaultTimeService(), 2,
+            TimeUnit.MINUTES.toNanos(1));
+   }
+}
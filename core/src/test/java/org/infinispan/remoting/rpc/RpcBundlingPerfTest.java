@@ -0,0 +1,89 @@
+package org.infinispan.remoting.rpc;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.Test;
+
+/**
+ * Compares the CPU time of concurrent small writes to a distributed cache with and without bundling the one-way
+ * commands sent to the same node. All the nodes run in this JVM, so the CPU time of the process includes both the
+ * marshalling of the bundles by the senders and their unmarshalling by the receivers.
+ * <p>
+ * This is a profiling test, so it is only run on demand.
+ */
+@Test(groups = "profiling", testName = "remoting.rpc.RpcBundlingPerfTest")
+public class RpcBundlingPerfTest extends MultipleCacheManagersTest {
+
+   private static final String BUNDLED_CACHE = "bundled";
+   private static final int NUM_THREADS = 32;
+   private static final int NUM_PUTS = 20000;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(2);
+      createClusteredCaches(3, builder);
+
+      ConfigurationBuilder bundledBuilder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      bundledBuilder.clustering().hash().numOwners(2)
+            .clustering().rpcBundlingSize(32).rpcBundlingDelay(100, TimeUnit.MICROSECONDS);
+      defineConfigurationOnAllManagers(BUNDLED_CACHE, bundledBuilder);
+      waitForClusterToForm(BUNDLED_CACHE);
+   }
+
+   public void testPutCpuTime() throws Exception {
+      // Warm up both caches before measuring either
+      runPuts(null);
+      runPuts(BUNDLED_CACHE);
+
+      long unbundledNanos = runPuts(null);
+      long bundledNanos = runPuts(BUNDLED_CACHE);
+      System.out.printf("Unbundled: %d ns of CPU per put\n", unbundledNanos / (NUM_THREADS * NUM_PUTS));
+      System.out.printf("Bundled: %d ns of CPU per put\n", bundledNanos / (NUM_THREADS * NUM_PUTS));
+      System.out.printf("Bundling saves %.1f%% of the CPU time\n", 100d * (unbundledNanos - bundledNanos) / unbundledNanos);
+
+      long bundles = 0;
+      long bundledCommands = 0;
+      for (Cache<Object, Object> cache : caches(BUNDLED_CACHE)) {
+         RpcManagerImpl rpcManager = (RpcManagerImpl) cache.getAdvancedCache().getRpcManager();
+         bundles += rpcManager.getBundles();
+         bundledCommands += rpcManager.getBundledCommands();
+      }
+      System.out.printf("Sent %d commands in %d bundles\n", bundledCommands, bundles);
+   }
+
+   /**
+    * @return the CPU time used by the process to run the puts
+    */
+   private long runPuts(String cacheName) throws Exception {
+      long startCpuNanos = processCpuTime();
+      List<Future<Void>> futures = new ArrayList<>(NUM_THREADS);
+      for (int t = 0; t < NUM_THREADS; t++) {
+         int thread = t;
+         futures.add(fork(() -> {
+            Cache<Object, Object> cache = cacheName == null ? cache(thread % 3) : cache(thread % 3, cacheName);
+            for (int i = 0; i < NUM_PUTS; i++) {
+               cache.put("k-" + thread + "-" + i, "v" + i);
+            }
+            return null;
+         }));
+      }
+      for (Future<Void> future : futures) {
+         future.get(5, TimeUnit.MINUTES);
+      }
+      return processCpuTime() - startCpuNanos;
+   }
+
+   private static long processCpuTime() {
+      return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+            .getProcessCpuTime();
+   }
+}
@@ -0,0 +1,116 @@
+package org.infinispan.remoting.rpc;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commons.util.EnumUtil;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.distribution.MagicKey;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.remoting.inboundhandler.DeliverOrder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the one-way commands sent concurrently to the same node are bundled, and that they are sent as they were
+ * when queued.
+ *
+ * @since 9.0
+ */
+@Test(groups = "functional", testName = "remoting.rpc.RpcBundlingTest")
+public class RpcBundlingTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_THREADS = 8;
+   private static final int NUM_KEYS = 100;
+   private static final String SINGLE_OWNER_CACHE = "singleOwner";
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(2)
+            .clustering().rpcBundlingSize(16).rpcBundlingDelay(1, TimeUnit.MILLISECONDS);
+      createClusteredCaches(3, builder);
+
+      // Bundles are only sent when full
+      ConfigurationBuilder singleOwnerBuilder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      singleOwnerBuilder.clustering().hash().numOwners(1)
+            .clustering().rpcBundlingSize(2).rpcBundlingDelay(1, TimeUnit.MINUTES);
+      defineConfigurationOnAllManagers(SINGLE_OWNER_CACHE, singleOwnerBuilder);
+      waitForClusterToForm(SINGLE_OWNER_CACHE);
+   }
+
+   public void testConcurrentWrites() throws Exception {
+      List<Future<Void>> futures = new ArrayList<>(NUM_THREADS);
+      for (int t = 0; t < NUM_THREADS; t++) {
+         int thread = t;
+         futures.add(fork(() -> {
+            for (int i = 0; i < NUM_KEYS; i++) {
+               cache(thread % 3).put(key(thread, i), "v" + i);
+            }
+            return null;
+         }));
+      }
+      for (Future<Void> future : futures) {
+         future.get(30, TimeUnit.SECONDS);
+      }
+
+      for (int t = 0; t < NUM_THREADS; t++) {
+         for (int i = 0; i < NUM_KEYS; i++) {
+            String key = key(t, i);
+            for (Cache<Object, Object> cache : caches()) {
+               DistributionManager dm = cache.getAdvancedCache().getDistributionManager();
+               if (dm.getCacheTopology().isReadOwner(key)) {
+                  assertEquals("v" + i, cache.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL).get(key));
+               }
+            }
+         }
+      }
+
+      long bundles = 0;
+      long bundledCommands = 0;
+      for (Cache<Object, Object> cache : caches()) {
+         RpcManagerImpl rpcManager = (RpcManagerImpl) cache.getAdvancedCache().getRpcManager();
+         bundles += rpcManager.getBundles();
+         bundledCommands += rpcManager.getBundledCommands();
+      }
+      assertTrue(bundles > 0);
+      assertTrue("Expected more commands than bundles, but got " + bundledCommands + " commands in " + bundles +
+            " bundles", bundledCommands > bundles);
+   }
+
+   public void testCommandModifiedAfterSend() {
+      Cache<Object, Object> originator = cache(0, SINGLE_OWNER_CACHE);
+      Cache<Object, Object> owner = cache(1, SINGLE_OWNER_CACHE);
+      MagicKey key1 = new MagicKey(owner);
+      MagicKey key2 = new MagicKey(owner);
+      CommandsFactory commandsFactory = TestingUtil.extractCommandsFactory(originator);
+      RpcManager rpcManager = originator.getAdvancedCache().getRpcManager();
+
+      // The first command waits in the bundle while the caller changes it
+      PutKeyValueCommand command = commandsFactory.buildPutKeyValueCommand(key1, "v1",
+            new EmbeddedMetadata.Builder().build(), EnumUtil.EMPTY_BIT_SET);
+      rpcManager.sendTo(address(owner), command, DeliverOrder.NONE);
+      command.setValue("v2");
+      rpcManager.sendTo(address(owner), commandsFactory.buildPutKeyValueCommand(key2, "v1",
+            new EmbeddedMetadata.Builder().build(), EnumUtil.EMPTY_BIT_SET), DeliverOrder.NONE);
+
+      eventuallyEquals("v1", () -> owner.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL).get(key2));
+      assertEquals("v1", owner.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL).get(key1));
+   }
+
+   private String key(int thread, int i) {
+      return "k-" + thread + "-" + i;
+   }
+}
@@ -0,0 +1,165 @@
+package org.infinispan.statetransfer;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commons.CacheException;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.remoting.inboundhandler.DeliverOrder;
+import org.infinispan.remoting.inboundhandler.InboundInvocationHandler;
+import org.infinispan.remoting.inboundhandler.Reply;
+import org.infinispan.remoting.responses.ExceptionResponse;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TransportFlags;
+import org.infinispan.topology.CacheTopologyControlCommand;
+import org.infinispan.xsite.XSiteReplicateCommand;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the caches started in parallel join the cluster with fewer join requests, and that the joins are sent
+ * one at a time to a coordinator that can't handle a batch.
+ *
+ * @since 9.0
+ */
+@Test(groups = "functional", testName = "statetransfer.BatchedJoinTest")
+public class BatchedJoinTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_CACHES = 20;
+   private static final int NUM_LATE_CACHES = 5;
+
+   private CountingInboundInvocationHandler handler;
+
+   public BatchedJoinTest() {
+      cleanup = CleanupPhase.AFTER_METHOD;
+   }
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      for (int i = 0; i < 2; i++) {
+         EmbeddedCacheManager cm = TestCacheManagerFactory.createClusteredCacheManager(false,
+               GlobalConfigurationBuilder.defaultClusteredBuilder(), builder, new TransportFlags(), false);
+         registerCacheManager(cm);
+         for (int c = 0; c < NUM_CACHES + NUM_LATE_CACHES; c++) {
+            cm.defineConfiguration(cacheName(c), builder.build());
+         }
+      }
+      // The handler must be replaced before the transport starts
+      handler = TestingUtil.wrapGlobalComponent(manager(0), InboundInvocationHandler.class,
+            CountingInboundInvocationHandler::new, true);
+      manager(0).start();
+      manager(1).start();
+      for (int c = 0; c < NUM_CACHES + NUM_LATE_CACHES; c++) {
+         manager(0).getCache(cacheName(c));
+      }
+   }
+
+   public void testParallelStart() throws Exception {
+      startCachesWhileFirstJoinIsBlocked();
+
+      // The first join is sent on its own, the others are queued and sent together
+      assertEquals(1, handler.joins.get());
+      assertEquals(1, handler.joinBatches.get());
+   }
+
+   public void testOneAtATimeAfterBatchFailure() throws Exception {
+      handler.rejectJoinBatches = true;
+      startCachesWhileFirstJoinIsBlocked();
+
+      // The joins in the rejected batch are sent again one by one
+      assertEquals(1, handler.joinBatches.get());
+      assertEquals(NUM_CACHES, handler.joins.get());
+
+      // The coordinator is no longer sent batches
+      String[] lateCacheNames = new String[NUM_LATE_CACHES];
+      for (int c = 0; c < NUM_LATE_CACHES; c++) {
+         lateCacheNames[c] = cacheName(NUM_CACHES + c);
+      }
+      manager(1).startCaches(lateCacheNames);
+      assertEquals(1, handler.joinBatches.get());
+      assertEquals(NUM_CACHES + NUM_LATE_CACHES, handler.joins.get());
+      for (String cacheName : lateCacheNames) {
+         waitForClusterToForm(cacheName);
+      }
+   }
+
+   private void startCachesWhileFirstJoinIsBlocked() throws Exception {
+      String[] cacheNames = new String[NUM_CACHES];
+      for (int c = 0; c < NUM_CACHES; c++) {
+         cacheNames[c] = cacheName(c);
+      }
+      Future<EmbeddedCacheManager> future = fork(() -> manager(1).startCaches(cacheNames));
+
+      // All the caches are waiting for a join response when the first join request is blocked
+      eventuallyEquals(1, handler.joins::get);
+      String threadNamePrefix = "CacheStartThread," +
+            manager(1).getCacheManagerConfiguration().transport().nodeName() + ",";
+      eventually(() -> "Not all the caches are waiting for a join response",
+            () -> Thread.getAllStackTraces().keySet().stream()
+                  .filter(t -> t.getName().startsWith(threadNamePrefix) && t.getState() == Thread.State.TIMED_WAITING)
+                  .count() == NUM_CACHES);
+      handler.unblock.countDown();
+      future.get(30, TimeUnit.SECONDS);
+
+      for (String cacheName : cacheNames) {
+         waitForClusterToForm(cacheName);
+      }
+   }
+
+   private static String cacheName(int c) {
+      return "cache-" + c;
+   }
+
+   private static class CountingInboundInvocationHandler implements InboundInvocationHandler {
+      final InboundInvocationHandler delegate;
+      final AtomicInteger joins = new AtomicInteger();
+      final AtomicInteger joinBatches = new AtomicInteger();
+      final CountDownLatch unblock = new CountDownLatch(1);
+      // Behave like an older coordinator, which can't read the JOIN_BATCH commands
+      volatile boolean rejectJoinBatches;
+
+      CountingInboundInvocationHandler(Object ignored, InboundInvocationHandler delegate) {
+         this.delegate = delegate;
+      }
+
+      @Override
+      public void handleFromCluster(Address origin, ReplicableCommand command, Reply reply, DeliverOrder order) {
+         if (command instanceof CacheTopologyControlCommand) {
+            CacheTopologyControlCommand.Type type = ((CacheTopologyControlCommand) command).getType();
+            if (type == CacheTopologyControlCommand.Type.JOIN) {
+               if (joins.incrementAndGet() == 1) {
+                  try {
+                     unblock.await(30, TimeUnit.SECONDS);
+                  } catch (InterruptedException e) {
+                     Thread.currentThread().interrupt();
+                  }
+               }
+            } else if (type == CacheTopologyControlCommand.Type.JOIN_BATCH) {
+               joinBatches.incrementAndGet();
+               if (rejectJoinBatches) {
+                  reply.reply(new ExceptionResponse(new CacheException("Problems invoking command.",
+                        new ArrayIndexOutOfBoundsException(CacheTopologyControlCommand.Type.JOIN_BATCH.ordinal()))));
+                  return;
+               }
+            }
+         }
+         delegate.handleFromCluster(origin, command, reply, order);
+      }
+
+      @Override
+      public void handleFromRemoteSite(String origin, XSiteReplicateCommand command, Reply reply, DeliverOrder order) {
+         delegate.handleFromRemoteSite(origin, command, reply, order);
+      }
+   }
+}
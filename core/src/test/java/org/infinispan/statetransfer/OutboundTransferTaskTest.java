@@ -0,0 +1,150 @@
+package org.infinispan.statetransfer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.filter.KeyFilter;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.remoting.inboundhandler.DeliverOrder;
+import org.infinispan.remoting.rpc.ResponseMode;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.rpc.RpcOptions;
+import org.infinispan.remoting.rpc.RpcOptionsBuilder;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the entries read from the stores are accumulated while a chunk is sent, and that the chunks are sent in
+ * order.
+ *
+ * @since 9.0
+ */
+@Test(groups = "unit", testName = "statetransfer.OutboundTransferTaskTest")
+public class OutboundTransferTaskTest extends AbstractInfinispanTest {
+
+   private static final int CHUNK_SIZE = 10;
+
+   @SuppressWarnings("unchecked")
+   public void testEntriesReadWhileChunkIsSent() throws Exception {
+      Map<ReplicableCommand, Collection<StateChunk>> chunksByCommand = Collections.synchronizedMap(new IdentityHashMap<>());
+      CommandsFactory commandsFactory = mock(CommandsFactory.class);
+      when(commandsFactory.buildStateResponseCommand(any(Address.class), anyInt(), anyCollection())).thenAnswer(invocation -> {
+         StateResponseCommand command = mock(StateResponseCommand.class);
+         chunksByCommand.put(command, (Collection<StateChunk>) invocation.getArguments()[2]);
+         return command;
+      });
+
+      List<Collection<StateChunk>> sent = Collections.synchronizedList(new ArrayList<>());
+      CountDownLatch sending = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      RpcManager rpcManager = mock(RpcManager.class);
+      when(rpcManager.getRpcOptionsBuilder(ResponseMode.SYNCHRONOUS)).thenReturn(
+            new RpcOptionsBuilder(10, TimeUnit.SECONDS, ResponseMode.SYNCHRONOUS, DeliverOrder.NONE));
+      when(rpcManager.invokeRemotely(anyCollection(), any(ReplicableCommand.class), any(RpcOptions.class))).thenAnswer(invocation -> {
+         sent.add(chunksByCommand.get(invocation.getArguments()[1]));
+         if (sent.size() == 1) {
+            // block while sending the first chunk
+            sending.countDown();
+            release.await(10, TimeUnit.SECONDS);
+         }
+         return Collections.emptyMap();
+      });
+
+      List<MarshalledEntry> firstEntries = marshalledEntries("a", CHUNK_SIZE);
+      List<MarshalledEntry> secondEntries = marshalledEntries("b", CHUNK_SIZE / 2);
+      AtomicBoolean readWhileSending = new AtomicBoolean();
+      AdvancedCacheLoader loader = mock(AdvancedCacheLoader.class);
+      doAnswer(invocation -> {
+         AdvancedCacheLoader.CacheLoaderTask task = (AdvancedCacheLoader.CacheLoaderTask) invocation.getArguments()[1];
+         Future<Void> first = fork(() -> {
+            for (MarshalledEntry entry : firstEntries) {
+               task.processEntry(entry, null);
+            }
+            return null;
+         });
+         assertTrue(sending.await(10, TimeUnit.SECONDS));
+         try {
+            // would time out if reading the entries waited for the chunk being sent
+            Future<Void> second = fork(() -> {
+               for (MarshalledEntry entry : secondEntries) {
+                  task.processEntry(entry, null);
+               }
+               return null;
+            });
+            second.get(10, TimeUnit.SECONDS);
+            readWhileSending.set(true);
+         } finally {
+            release.countDown();
+         }
+         first.get(10, TimeUnit.SECONDS);
+         return null;
+      }).when(loader).process(any(KeyFilter.class), any(AdvancedCacheLoader.CacheLoaderTask.class),
+                              any(Executor.class), anyBoolean(), anyBoolean());
+
+      PersistenceManager persistenceManager = mock(PersistenceManager.class);
+      when(persistenceManager.getStateTransferProvider()).thenReturn(loader);
+      DataContainer dataContainer = mock(DataContainer.class);
+      when(dataContainer.iterator()).thenReturn(Collections.emptyIterator());
+      KeyPartitioner keyPartitioner = mock(KeyPartitioner.class);
+      when(keyPartitioner.getSegment(any())).thenReturn(0);
+      InternalEntryFactory entryFactory = mock(InternalEntryFactory.class);
+      when(entryFactory.create(any(), any(), any(Metadata.class))).thenAnswer(invocation ->
+            TestInternalCacheEntryFactory.create(invocation.getArguments()[0], invocation.getArguments()[1]));
+
+      OutboundTransferTask task = new OutboundTransferTask(mock(Address.class), Collections.singleton(0), CHUNK_SIZE, 1,
+            keyPartitioner, null, dataContainer, persistenceManager, rpcManager, commandsFactory, entryFactory,
+            10000, "cache");
+      task.run();
+
+      assertTrue(readWhileSending.get());
+      assertEquals(2, sent.size());
+      StateChunk firstChunk = sent.get(0).iterator().next();
+      assertEquals(CHUNK_SIZE, firstChunk.getCacheEntries().size());
+      assertFalse(firstChunk.isLastChunk());
+      // the entries read while the first chunk was sent are in the last chunk
+      StateChunk lastChunk = sent.get(1).iterator().next();
+      assertEquals(CHUNK_SIZE / 2, lastChunk.getCacheEntries().size());
+      assertTrue(lastChunk.isLastChunk());
+   }
+
+   private static List<MarshalledEntry> marshalledEntries(String prefix, int count) {
+      List<MarshalledEntry> entries = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+         MarshalledEntry entry = mock(MarshalledEntry.class);
+         when(entry.getKey()).thenReturn(prefix + i);
+         when(entry.getValue()).thenReturn("value");
+         entries.add(entry);
+      }
+      return entries;
+   }
+}
@@ -47,6 +47,8 @@
 import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.GetKeysInGroupCommand;
+import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.RemoveExpiredBatchCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
@@ -261,6 +263,17 @@ public SingleRpcCommand buildSingleRpcCommand(ReplicableCommand call) {
       return actual.buildSingleRpcCommand(call);
    }
 
+   @Override
+   public MultipleRpcCommand buildMultipleRpcCommand(byte[] commands, int length, int count) {
+      return actual.buildMultipleRpcCommand(commands, length, count);
+   }
+
+   @Override
+   public RemoveExpiredBatchCommand buildRemoveExpiredBatchCommand(List<Object> keys, List<Object> values,
+                                                                   List<Long> lifespans) {
+      return actual.buildRemoveExpiredBatchCommand(keys, values, lifespans);
+   }
+
    @Override
    public ClusteredGetCommand buildClusteredGetCommand(Object key, long flagsBitSet) {
       return actual.buildClusteredGetCommand(key, flagsBitSet);
@@ -10,6 +10,10 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
@@ -200,6 +204,49 @@ public void write(MarshalledEntry entry) {
       }
    }
 
+   @Override
+   public void writeBatch(Iterable<MarshalledEntry<? extends K, ? extends V>> entries) {
+      Connection connection = null;
+      try {
+         connection = connectionFactory.getConnection();
+         if (tableManager.isUpsertSupported()) {
+            String sql = tableManager.getUpsertRowSql();
+            if (trace) {
+               log.tracef("Running batched sql '%s'", sql);
+            }
+            try (PreparedStatement upsertBatch = connection.prepareStatement(sql)) {
+               int batchSize = tableManager.getBatchSize();
+               int pending = 0;
+               for (MarshalledEntry entry : entries) {
+                  prepareUpdateStatement(entry, key2Str(entry.getKey()), upsertBatch);
+                  upsertBatch.addBatch();
+                  if (++pending == batchSize) {
+                     upsertBatch.executeBatch();
+                     pending = 0;
+                  }
+               }
+               if (pending > 0) {
+                  upsertBatch.executeBatch();
+               }
+            }
+         } else {
+            for (MarshalledEntry entry : entries) {
+               executeLegacyUpdate(connection, entry, key2Str(entry.getKey()));
+            }
+         }
+      } catch (SQLException ex) {
+         log.sqlFailureStoringKeys(ex);
+         throw new PersistenceException("Error while storing string keys to database", ex);
+      } catch (InterruptedException e) {
+         if (trace) {
+            log.trace("Interrupted while marshalling to store");
+         }
+         Thread.currentThread().interrupt();
+      } finally {
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
    private void write(MarshalledEntry entry, Connection connection) throws SQLException, InterruptedException {
       write(entry, connection, key2Str(entry.getKey()));
    }
@@ -291,6 +338,54 @@ public MarshalledEntry load(Object key) {
       return storedValue;
    }
 
+   @Override
+   public Map<Object, MarshalledEntry<K, V>> loadBatch(Collection<?> keys) {
+      // The rows only contain the string mapping of the keys
+      Map<String, Object> keysByString = new HashMap<>();
+      for (Object key : keys) {
+         keysByString.put(key2Str(key), key);
+      }
+      List<String> keyStrs = new ArrayList<>(keysByString.keySet());
+      Map<Object, MarshalledEntry<K, V>> entries = new HashMap<>();
+      long now = timeService.wallClockTime();
+      Connection conn = null;
+      try {
+         conn = connectionFactory.getConnection();
+         int batchSize = tableManager.getBatchSize();
+         for (int start = 0; start < keyStrs.size(); start += batchSize) {
+            List<String> chunk = keyStrs.subList(start, Math.min(start + batchSize, keyStrs.size()));
+            String sql = tableManager.getSelectMultipleRowSql(chunk.size());
+            if (trace) {
+               log.tracef("Running sql '%s' on %s", sql, chunk);
+            }
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+               for (int i = 0; i < chunk.size(); i++) {
+                  ps.setString(i + 1, chunk.get(i));
+               }
+               try (ResultSet rs = ps.executeQuery()) {
+                  while (rs.next()) {
+                     Object key = keysByString.get(rs.getString(1));
+                     if (key == null) {
+                        continue;
+                     }
+                     KeyValuePair<ByteBuffer, ByteBuffer> icv = unmarshall(rs.getBinaryStream(2));
+                     MarshalledEntry<K, V> storedValue = marshalledEntryFactory.newMarshalledEntry(key, icv.getKey(), icv.getValue());
+                     if (storedValue.getMetadata() == null || !storedValue.getMetadata().isExpired(now)) {
+                        entries.put(key, storedValue);
+                     }
+                  }
+               }
+            }
+         }
+      } catch (SQLException e) {
+         log.sqlFailureUnexpected(e);
+         throw new PersistenceException(String.format("SQL error while fetching stored entries with keys: %s", keys), e);
+      } finally {
+         connectionFactory.releaseConnection(conn);
+      }
+      return entries;
+   }
+
    @Override
    public void clear() {
       Connection conn = null;
@@ -335,6 +430,38 @@ public boolean delete(Object key) {
       }
    }
 
+   @Override
+   public void deleteBatch(Iterable<Object> keys) {
+      Connection connection = null;
+      String sql = tableManager.getDeleteRowSql();
+      if (trace) {
+         log.tracef("Running batched sql '%s'", sql);
+      }
+      try {
+         connection = connectionFactory.getConnection();
+         try (PreparedStatement deleteBatch = connection.prepareStatement(sql)) {
+            int batchSize = tableManager.getBatchSize();
+            int pending = 0;
+            for (Object key : keys) {
+               deleteBatch.setString(1, key2Str(key));
+               deleteBatch.addBatch();
+               if (++pending == batchSize) {
+                  deleteBatch.executeBatch();
+                  pending = 0;
+               }
+            }
+            if (pending > 0) {
+               deleteBatch.executeBatch();
+            }
+         }
+      } catch (SQLException ex) {
+         log.sqlFailureRemovingKeys(ex);
+         throw new PersistenceException("Error while removing string keys from database", ex);
+      } finally {
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
    @Override
    public void purge(Executor executor, PurgeListener purgeListener) {
       Connection conn = null;
@@ -473,7 +600,7 @@ public void prepareWithModifications(Transaction transaction, BatchModification
                upsertBatch.executeBatch();
 
             if (!batchModification.getKeysToRemove().isEmpty())
-               deleteBatch.executeUpdate();
+               deleteBatch.executeBatch();
          }
          // We do not call connection.close() in the event of an exception, as close() on active Tx behaviour is implementation
          // dependent. See https://docs.oracle.com/javase/8/docs/api/java/sql/Connection.html#close--
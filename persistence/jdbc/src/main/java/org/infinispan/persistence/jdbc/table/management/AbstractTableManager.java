@@ -247,24 +247,27 @@ public String getSelectRowSql() {
       return selectRowSql;
    }
 
-   protected String getSelectMultipleRowSql(int numberOfParams, String selectCriteria) {
+   protected String getSelectMultipleRowSql(int numberOfParams, String parameter) {
       if (numberOfParams < 1)
          return null;
 
       if (numberOfParams == 1)
          return getSelectRowSql();
 
-      StringBuilder sb = new StringBuilder(getSelectRowSql());
-      for (int i = 0; i < numberOfParams - 1; i++) {
-         sb.append(" OR ");
-         sb.append(selectCriteria);
+      StringBuilder sb = new StringBuilder(String.format("SELECT %s, %s FROM %s WHERE %s IN (",
+                                                         config.idColumnName(), config.dataColumnName(), getTableName(),
+                                                         config.idColumnName()));
+      for (int i = 0; i < numberOfParams; i++) {
+         if (i > 0)
+            sb.append(", ");
+         sb.append(parameter);
       }
-      return sb.toString();
+      return sb.append(')').toString();
    }
 
    @Override
    public String getSelectMultipleRowSql(int numberOfParams) {
-      return getSelectMultipleRowSql(numberOfParams, config.idColumnName() + " = ?");
+      return getSelectMultipleRowSql(numberOfParams, "?");
    }
 
    @Override
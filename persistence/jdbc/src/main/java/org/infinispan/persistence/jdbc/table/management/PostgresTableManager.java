@@ -38,8 +38,7 @@ public String getSelectRowSql() {
 
    @Override
    public String getSelectMultipleRowSql(int numberOfParams) {
-      String selectCriteria = config.idColumnName() + " = cast(? as " + config.idColumnType() + ")";
-      return getSelectMultipleRowSql(numberOfParams, selectCriteria);
+      return getSelectMultipleRowSql(numberOfParams, "cast(? as " + config.idColumnType() + ")");
    }
 
    @Override
@@ -37,8 +37,7 @@ public String getSelectRowSql() {
 
    @Override
    public String getSelectMultipleRowSql(int numberOfParams) {
-      String selectCriteria = config.idColumnName() + " = convert(" + config.idColumnType() + ",?)";
-      return getSelectMultipleRowSql(numberOfParams, selectCriteria);
+      return getSelectMultipleRowSql(numberOfParams, "convert(" + config.idColumnType() + ",?)");
    }
 
    @Override
@@ -1,5 +1,9 @@
 package org.infinispan.persistence.remote;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
@@ -192,21 +196,54 @@ public void write(MarshalledEntry entry) throws PersistenceException {
       InternalMetadata metadata = entry.getMetadata();
       long lifespan = metadata != null ? metadata.lifespan() : -1;
       long maxIdle = metadata != null ? metadata.maxIdle() : -1;
-      Object key = entry.getKey();
+      remoteCache.put(remoteKey(entry.getKey()), remoteValue(entry), toSeconds(lifespan, entry.getKey(), LIFESPAN),
+            TimeUnit.SECONDS, toSeconds(maxIdle, entry.getKey(), MAXIDLE), TimeUnit.SECONDS);
+   }
+
+   @Override
+   public void writeBatch(Iterable entries) {
+      // The entries have different expiration settings, so they can't be sent with a single putAll
+      List<CompletableFuture<?>> futures = new ArrayList<>();
+      for (Object e : entries) {
+         MarshalledEntry entry = (MarshalledEntry) e;
+         if (trace) {
+            log.tracef("Adding entry: %s", entry);
+         }
+         InternalMetadata metadata = entry.getMetadata();
+         long lifespan = metadata != null ? metadata.lifespan() : -1;
+         long maxIdle = metadata != null ? metadata.maxIdle() : -1;
+         futures.add(remoteCache.putAsync(remoteKey(entry.getKey()), remoteValue(entry),
+               toSeconds(lifespan, entry.getKey(), LIFESPAN), TimeUnit.SECONDS,
+               toSeconds(maxIdle, entry.getKey(), MAXIDLE), TimeUnit.SECONDS));
+      }
+      join(futures);
+   }
+
+   private Object remoteKey(Object key) {
       if (key instanceof WrappedByteArray) {
-         key = ((WrappedByteArray) key).getBytes();
+         return ((WrappedByteArray) key).getBytes();
       }
-      Object value;
+      return key;
+   }
+
+   private Object remoteValue(MarshalledEntry entry) {
       if (configuration.rawValues()) {
-         value = entry.getValue();
+         Object value = entry.getValue();
          if (value instanceof WrappedByteArray) {
             value = ((WrappedByteArray) value).getBytes();
          }
+         return value;
       } else {
-         value = entry;
+         return entry;
+      }
+   }
+
+   private void join(List<CompletableFuture<?>> futures) {
+      try {
+         CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).join();
+      } catch (CompletionException e) {
+         throw new PersistenceException(e.getCause());
       }
-      remoteCache.put(key, value, toSeconds(lifespan, entry.getKey(), LIFESPAN), TimeUnit.SECONDS,
-            toSeconds(maxIdle, entry.getKey(), MAXIDLE), TimeUnit.SECONDS);
    }
 
    @Override
@@ -225,6 +262,15 @@ public boolean delete(Object key) throws PersistenceException {
       return remoteCache.withFlags(Flag.FORCE_RETURN_VALUE).remove(key) != null;
    }
 
+   @Override
+   public void deleteBatch(Iterable keys) {
+      List<CompletableFuture<?>> futures = new ArrayList<>();
+      for (Object key : keys) {
+         futures.add(remoteCache.removeAsync(remoteKey(key)));
+      }
+      join(futures);
+   }
+
    private long toSeconds(long millis, Object key, String desc) {
       if (millis > 0 && millis < 1000) {
          if (trace) {
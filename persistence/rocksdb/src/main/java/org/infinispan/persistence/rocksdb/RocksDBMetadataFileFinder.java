@@ -0,0 +1,15 @@
+package org.infinispan.persistence.rocksdb;
+
+import org.infinispan.factories.components.ModuleMetadataFileFinder;
+import org.kohsuke.MetaInfServices;
+
+/**
+ * @since 9.0
+ */
+@MetaInfServices
+public class RocksDBMetadataFileFinder implements ModuleMetadataFileFinder {
+   @Override
+   public String getMetadataFilename() {
+      return "infinispan-cachestore-rocksdb-component-metadata.dat";
+   }
+}
@@ -2,9 +2,13 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.Executor;
@@ -15,8 +19,13 @@
 import org.infinispan.commons.configuration.ConfiguredBy;
 import org.infinispan.commons.persistence.Store;
 import org.infinispan.commons.util.Util;
+import org.infinispan.configuration.cache.HashConfiguration;
+import org.infinispan.distribution.ch.KeyPartitioner;
 import org.infinispan.executors.ExecutorAllCompletionService;
 import org.infinispan.filter.KeyFilter;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.metadata.InternalMetadata;
 import org.infinispan.persistence.PersistenceUtil;
@@ -26,24 +35,53 @@
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.spi.SegmentedCacheLoader;
+import org.infinispan.persistence.spi.SegmentedCacheWriter;
 import org.infinispan.util.logging.LogFactory;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompactionStyle;
 import org.rocksdb.CompressionType;
+import org.rocksdb.DBOptions;
 import org.rocksdb.Options;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
-
+import org.rocksdb.TickerType;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+
+/**
+ * A store which keeps the entries in a RocksDB database, and the expiration times in a second database.
+ * <p>
+ * When the store is segmented, the entries of each segment are kept in a separate column family, so that the entries
+ * of a segment are iterated without reading the other segments, and removing a segment drops its column family.
+ * Otherwise all the entries are kept in the default column family.
+ */
 @Store
 @ConfiguredBy(RocksDBStoreConfiguration.class)
-public class RocksDBStore implements AdvancedLoadWriteStore {
+@MBean(objectName = "RocksDBStore", description = "Statistics of the RocksDB cache store")
+public class RocksDBStore implements AdvancedLoadWriteStore, SegmentedCacheLoader, SegmentedCacheWriter {
     private static final Log log = LogFactory.getLog(RocksDBStore.class, Log.class);
+    private static final String SEGMENT_COLUMN_FAMILY_PREFIX = "segment-";
     private RocksDBStoreConfiguration configuration;
     private BlockingQueue<ExpiryEntry> expiryEntryQueue;
     private RocksDB db;
+    private DBOptions dataDbOptions;
+    private ColumnFamilyOptions columnFamilyOptions;
+    private ColumnFamilyHandle defaultHandle;
+    /**
+     * The column family of each segment, null if the store is not segmented.
+     */
+    private List<ColumnFamilyHandle> segmentHandles;
     private RocksDB expiredDb;
     private InitializationContext ctx;
     private Semaphore semaphore;
+    private KeyPartitioner keyPartitioner;
+    private int numSegments;
     private volatile boolean stopped = true;
 
     @Override
@@ -57,13 +95,28 @@ public void init(InitializationContext ctx) {
     public void start() {
         expiryEntryQueue = new LinkedBlockingQueue<>(configuration.expiryQueueSize());
 
+        HashConfiguration hashConfiguration = ctx.getCache().getCacheConfiguration().clustering().hash();
+        keyPartitioner = ctx.getCache().getAdvancedCache().getComponentRegistry().getComponent(KeyPartitioner.class);
+        if (keyPartitioner == null) {
+            keyPartitioner = hashConfiguration.keyPartitioner();
+            keyPartitioner.init(hashConfiguration);
+        }
+        numSegments = hashConfiguration.numSegments();
         try {
-            db = openDatabase(getQualifiedLocation(), dataDbOptions());
+            dataDbOptions = dataDbOptions();
+            columnFamilyOptions = columnFamilyOptions();
+            db = openDataDatabase(getQualifiedLocation());
             expiredDb = openDatabase(getQualifiedExpiredLocation(), expiredDbOptions());
             stopped = false;
+        } catch (PersistenceException e) {
+            throw e;
         } catch (Exception e) {
             throw new CacheConfigurationException("Unable to open database", e);
         }
+        if (configuration.statistics()) {
+            // Registered before the cache registers its components in JMX
+            ctx.getCache().getAdvancedCache().getComponentRegistry().registerComponent(this, RocksDBStore.class.getName());
+        }
     }
 
     private String sanitizedCacheName() {
@@ -78,10 +131,33 @@ private String getQualifiedExpiredLocation() {
         return configuration.expiredLocation() + sanitizedCacheName();
     }
 
-    private Options dataDbOptions() {
-        Options options = new Options().setCreateIfMissing(true);
-        options.setCompressionType(CompressionType.getCompressionType(configuration.compressionType().toString()));
+    private DBOptions dataDbOptions() {
+        DBOptions options = new DBOptions().setCreateIfMissing(true).setCreateMissingColumnFamilies(true);
+        // The log can only be deleted when all the column families flushed its writes, and RocksDB bounds it to 4 times
+        // the size of all the write buffers by default
+        options.setMaxTotalWalSize(4 * configuration.writeBufferSize());
+        if (configuration.statistics()) {
+            options.createStatistics();
+        }
+        return options;
+    }
 
+    private ColumnFamilyOptions columnFamilyOptions() {
+        ColumnFamilyOptions options = new ColumnFamilyOptions();
+        options.setCompressionType(CompressionType.getCompressionType(configuration.compressionType().toString()));
+        options.setCompactionStyle(CompactionStyle.valueOf(configuration.compactionStyle().name()));
+        // Otherwise each column family of a segmented store gets the default 64 MB
+        int numColumnFamilies = configuration.segmented() ? numSegments + 1 : 1;
+        options.setWriteBufferSize(Math.max(configuration.writeBufferSize() / numColumnFamilies, 1));
+        // All the column families share the table factory, and so the block cache
+        BlockBasedTableConfig tableConfig = new BlockBasedTableConfig();
+        if (configuration.blockSize() > 0) {
+            tableConfig.setBlockSize(configuration.blockSize());
+        }
+        if (configuration.cacheSize() > 0) {
+            tableConfig.setBlockCacheSize(configuration.cacheSize());
+        }
+        options.setTableFormatConfig(tableConfig);
         return options;
     }
 
@@ -98,6 +174,86 @@ protected RocksDB openDatabase(String location, Options options) throws IOExcept
         return RocksDB.open(options, location);
     }
 
+    /**
+     * Opens the data database with the default column family and, if the store is segmented, a column family per
+     * segment. Creates the database and the column families if they don't exist.
+     */
+    protected RocksDB openDataDatabase(String location) throws IOException, RocksDBException {
+        File dir = new File(location);
+        dir.mkdirs();
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        descriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, columnFamilyOptions));
+        if (configuration.segmented()) {
+            for (int i = 0; i < numSegments; i++) {
+                descriptors.add(new ColumnFamilyDescriptor(segmentColumnFamily(i), columnFamilyOptions));
+            }
+        }
+        checkExistingColumnFamilies(location, descriptors);
+
+        List<ColumnFamilyHandle> handles = new ArrayList<>(descriptors.size());
+        RocksDB database = RocksDB.open(dataDbOptions, location, descriptors, handles);
+        defaultHandle = handles.get(0);
+        segmentHandles = configuration.segmented() ? new ArrayList<>(handles.subList(1, handles.size())) : null;
+        return database;
+    }
+
+    /**
+     * An existing database must have exactly the column families of the configuration: RocksDB must open all the column
+     * families of a database, the entries of a segment can't be found in a column family created for a different
+     * number of segments, and the entries of a database created without segments are all in the default column family.
+     * The missing column families are only created with a new database.
+     */
+    private void checkExistingColumnFamilies(String location, List<ColumnFamilyDescriptor> descriptors) throws RocksDBException {
+        if (!new File(location, "CURRENT").exists())
+            return;
+        List<byte[]> existing;
+        try (Options options = new Options()) {
+            existing = RocksDB.listColumnFamilies(options, location);
+        }
+        Set<String> existingNames = new HashSet<>();
+        for (byte[] name : existing) {
+            existingNames.add(new String(name, StandardCharsets.UTF_8));
+        }
+        Set<String> expectedNames = new HashSet<>();
+        for (ColumnFamilyDescriptor descriptor : descriptors) {
+            expectedNames.add(new String(descriptor.columnFamilyName(), StandardCharsets.UTF_8));
+        }
+        if (!existingNames.equals(expectedNames)) {
+            throw new PersistenceException("The database in " + location + " was created with " +
+                  describeColumnFamilies(existingNames) + " and can't be opened with segmented=" +
+                  configuration.segmented() + " and " + numSegments + " segments");
+        }
+    }
+
+    private static String describeColumnFamilies(Set<String> names) {
+        int segments = 0;
+        for (String name : names) {
+            if (name.startsWith(SEGMENT_COLUMN_FAMILY_PREFIX))
+                segments++;
+        }
+        return segments == 0 ? "segmented=false" : "segmented=true and " + segments + " segments";
+    }
+
+    private static byte[] segmentColumnFamily(int segment) {
+        return (SEGMENT_COLUMN_FAMILY_PREFIX + segment).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private ColumnFamilyHandle handle(Object key) {
+        return segmentHandles == null ? defaultHandle : segmentHandles.get(keyPartitioner.getSegment(key));
+    }
+
+    private List<ColumnFamilyHandle> allHandles() {
+        return segmentHandles == null ? Collections.singletonList(defaultHandle) : segmentHandles;
+    }
+
+    private void closeDataDatabase() {
+        if (segmentHandles != null) {
+            segmentHandles.forEach(ColumnFamilyHandle::close);
+        }
+        defaultHandle.close();
+        db.close();
+    }
+
     protected void destroyDatabase(String location) throws IOException {
         // Force a GC to ensure that open file handles are released in Windows
         System.gc();
@@ -119,9 +275,10 @@ protected void reinitAllDatabases() throws IOException, RocksDBException {
             if (stopped) {
                 throw new PersistenceException("RocksDB is stopped");
             }
-            db.close();
+            closeDataDatabase();
             expiredDb.close();
-            db = reinitDatabase(getQualifiedLocation(), dataDbOptions());
+            destroyDatabase(getQualifiedLocation());
+            db = openDataDatabase(getQualifiedLocation());
             expiredDb = reinitDatabase(getQualifiedExpiredLocation(), expiredDbOptions());
         } finally {
             semaphore.release(Integer.MAX_VALUE);
@@ -136,8 +293,10 @@ public void stop() {
             throw new PersistenceException("Cannot acquire semaphore", e);
         }
         try {
-            db.close();
+            closeDataDatabase();
             expiredDb.close();
+            columnFamilyOptions.close();
+            dataDbOptions.close();
         } finally {
             stopped = true;
             semaphore.release(Integer.MAX_VALUE);
@@ -157,20 +316,20 @@ public void clear() {
             if (stopped) {
                 throw new PersistenceException("RocksDB is stopped");
             }
-            Optional<RocksIterator> optionalIterator = wrapIterator(this.db);
-            if (optionalIterator.isPresent() && configuration.clearThreshold() <= 0) {
-                try (RocksIterator it = optionalIterator.get()) {
-                    for(it.seekToFirst(); it.isValid(); it.next()) {
-                        db.remove(it.key());
-                        count++;
+            if (configuration.clearThreshold() <= 0) {
+                for (ColumnFamilyHandle handle : allHandles()) {
+                    try (RocksIterator it = wrapIterator(this.db, handle).get()) {
+                        for (it.seekToFirst(); it.isValid() && !destroyDatabase; it.next()) {
+                            db.remove(handle, it.key());
+                            count++;
 
-                        if (count > configuration.clearThreshold()) {
-                            destroyDatabase = true;
-                            break;
+                            if (count > configuration.clearThreshold()) {
+                                destroyDatabase = true;
+                            }
                         }
+                    } catch (RocksDBException e) {
+                        destroyDatabase = true;
                     }
-                } catch (RocksDBException e) {
-                    destroyDatabase = true;
                 }
             } else {
                 destroyDatabase = true;
@@ -195,6 +354,11 @@ private static Optional<RocksIterator> wrapIterator(RocksDB db) {
         return Optional.of(db.newIterator(new ReadOptions().setFillCache(false)));
     }
 
+    private static Optional<RocksIterator> wrapIterator(RocksDB db, ColumnFamilyHandle handle) {
+        // Iterations read the whole column family, don't evict the blocks of point lookups from the block cache
+        return Optional.of(db.newIterator(handle, new ReadOptions().setFillCache(false)));
+    }
+
     @Override
     public int size() {
         return PersistenceUtil.count(this, null);
@@ -209,9 +373,19 @@ public boolean contains(Object key) {
         }
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void process(KeyFilter keyFilter, CacheLoaderTask cacheLoaderTask, Executor executor, boolean loadValues, boolean loadMetadata) {
+        process(null, keyFilter, cacheLoaderTask, executor, loadValues, loadMetadata);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void process(Set segments, KeyFilter keyFilter, CacheLoaderTask cacheLoaderTask, Executor executor, boolean loadValues, boolean loadMetadata) {
+        if (segments != null && segmentHandles == null) {
+            // All the segments share the default column family
+            KeyFilter filter = PersistenceUtil.notNull(keyFilter);
+            keyFilter = key -> segments.contains(keyPartitioner.getSegment(key)) && filter.accept(key);
+        }
         int batchSize = 100;
         ExecutorAllCompletionService eacs = new ExecutorAllCompletionService(executor);
         final TaskContext taskContext = new TaskContextImpl();
@@ -226,30 +400,157 @@ public void process(KeyFilter keyFilter, CacheLoaderTask cacheLoaderTask, Execut
             if (stopped) {
                 throw new PersistenceException("RocksDB is stopped");
             }
-            Optional<RocksIterator> optionalIterator = wrapIterator(this.db);
-            if (optionalIterator.isPresent()) {
-                try (RocksIterator it = optionalIterator.get()) {
-                    for (it.seekToFirst(); it.isValid(); it.next()) {
-                        Entry entry = new Entry(it.key(), it.value());
-                        entries.add(entry);
-                        if (entries.size() == batchSize) {
-                            final List<Entry> batch = entries;
-                            entries = new ArrayList<>(batchSize);
-                            submitProcessTask(cacheLoaderTask, keyFilter, eacs, taskContext, batch, loadValues, loadMetadata);
+            try {
+                for (ColumnFamilyHandle handle : handles((Set<Integer>) segments)) {
+                    try (RocksIterator it = wrapIterator(this.db, handle).get()) {
+                        for (it.seekToFirst(); it.isValid() && !taskContext.isStopped(); it.next()) {
+                            Entry entry = new Entry(it.key(), it.value());
+                            entries.add(entry);
+                            if (entries.size() == batchSize) {
+                                final List<Entry> batch = entries;
+                                entries = new ArrayList<>(batchSize);
+                                submitProcessTask(cacheLoaderTask, keyFilter, eacs, taskContext, batch, loadValues, loadMetadata);
+                            }
                         }
                     }
-                    if (!entries.isEmpty()) {
-                        submitProcessTask(cacheLoaderTask, keyFilter, eacs, taskContext, entries, loadValues, loadMetadata);
-                    }
+                }
+                if (!entries.isEmpty()) {
+                    submitProcessTask(cacheLoaderTask, keyFilter, eacs, taskContext, entries, loadValues, loadMetadata);
+                }
 
-                    eacs.waitUntilAllCompleted();
-                    if (eacs.isExceptionThrown()) {
-                        throw new PersistenceException("Execution exception!", eacs.getFirstException());
-                    }
-                } catch (Exception e) {
-                    throw new PersistenceException(e);
+                eacs.waitUntilAllCompleted();
+                if (eacs.isExceptionThrown()) {
+                    throw new PersistenceException("Execution exception!", eacs.getFirstException());
                 }
+            } catch (PersistenceException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new PersistenceException(e);
+            }
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * The column families holding the given segments, or all of them if the segments are null or the store is not
+     * segmented.
+     */
+    private List<ColumnFamilyHandle> handles(Set<Integer> segments) {
+        if (segments == null || segmentHandles == null)
+            return allHandles();
+        List<ColumnFamilyHandle> handles = new ArrayList<>(segments.size());
+        for (Integer segment : segments) {
+            handles.add(segmentHandles.get(segment));
+        }
+        return handles;
+    }
+
+    @Override
+    public void removeSegments(Set segments) {
+        if (segmentHandles == null) {
+            deleteBatch(PersistenceUtil.toKeySet(this, key -> segments.contains(keyPartitioner.getSegment(key))));
+            return;
+        }
+        try {
+            semaphore.acquire(Integer.MAX_VALUE);
+        } catch (InterruptedException e) {
+            throw new PersistenceException("Cannot acquire semaphore", e);
+        }
+        try {
+            if (stopped) {
+                throw new PersistenceException("RocksDB is stopped");
+            }
+            // Dropping a column family discards its files instead of writing a tombstone for every entry
+            for (Object s : segments) {
+                int segment = (Integer) s;
+                ColumnFamilyHandle handle = segmentHandles.get(segment);
+                db.dropColumnFamily(handle);
+                handle.close();
+                segmentHandles.set(segment, db.createColumnFamily(
+                      new ColumnFamilyDescriptor(segmentColumnFamily(segment), columnFamilyOptions)));
             }
+        } catch (RocksDBException e) {
+            throw new PersistenceException(e);
+        } finally {
+            semaphore.release(Integer.MAX_VALUE);
+        }
+    }
+
+    @ManagedAttribute(description = "Estimated number of entries in the store", displayName = "Estimated number of entries")
+    public long getEstimatedNumberOfEntries() {
+        return sumProperty("rocksdb.estimate-num-keys");
+    }
+
+    @ManagedAttribute(description = "Total size of the SST files of the store", displayName = "Total SST files size")
+    public long getTotalSstFilesSize() {
+        return sumProperty("rocksdb.total-sst-files-size");
+    }
+
+    @ManagedAttribute(description = "Number of reads served by the block cache", displayName = "Block cache hits")
+    public long getBlockCacheHits() {
+        return tickerCount(TickerType.BLOCK_CACHE_HIT);
+    }
+
+    @ManagedAttribute(description = "Number of reads that missed the block cache", displayName = "Block cache misses")
+    public long getBlockCacheMisses() {
+        return tickerCount(TickerType.BLOCK_CACHE_MISS);
+    }
+
+    @ManagedOperation(description = "Returns the statistics of the RocksDB database, including the compactions",
+          displayName = "Database statistics")
+    public String getDatabaseStatistics() {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            throw new PersistenceException("Cannot acquire semaphore", e);
+        }
+        try {
+            if (stopped) {
+                throw new PersistenceException("RocksDB is stopped");
+            }
+            return db.getProperty("rocksdb.stats");
+        } catch (RocksDBException e) {
+            throw new PersistenceException(e);
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private long tickerCount(TickerType tickerType) {
+        // The statistics are released with the options when the store stops
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            throw new PersistenceException("Cannot acquire semaphore", e);
+        }
+        try {
+            if (stopped) {
+                return 0;
+            }
+            return dataDbOptions.statisticsPtr().getTickerCount(tickerType);
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private long sumProperty(String property) {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            throw new PersistenceException("Cannot acquire semaphore", e);
+        }
+        try {
+            if (stopped) {
+                return 0;
+            }
+            long sum = 0;
+            for (ColumnFamilyHandle handle : allHandles()) {
+                sum += Long.parseLong(db.getProperty(handle, property));
+            }
+            return sum;
+        } catch (RocksDBException e) {
+            throw new PersistenceException(e);
         } finally {
             semaphore.release();
         }
@@ -296,10 +597,11 @@ public boolean delete(Object key) {
                 if (stopped) {
                     throw new PersistenceException("RocksDB is stopped");
                 }
-                if (db.get(keyBytes) == null) {
+                ColumnFamilyHandle handle = handle(key);
+                if (db.get(handle, keyBytes) == null) {
                     return false;
                 }
-                db.remove(keyBytes);
+                db.remove(handle, keyBytes);
             } finally {
                 semaphore.release();
             }
@@ -319,7 +621,7 @@ public void write(MarshalledEntry me) {
                 if (stopped) {
                     throw new PersistenceException("RocksDB is stopped");
                 }
-                db.put(marshelledKey, marshalledEntry);
+                db.put(handle(me.getKey()), marshelledKey, marshalledEntry);
             } finally {
                 semaphore.release();
             }
@@ -332,6 +634,74 @@ public void write(MarshalledEntry me) {
         }
     }
 
+    @Override
+    public void writeBatch(Iterable entries) {
+        try {
+            List<Object> keys = new ArrayList<>();
+            List<byte[]> marshalledKeys = new ArrayList<>();
+            List<byte[]> marshalledEntries = new ArrayList<>();
+            List<MarshalledEntry> expirable = new ArrayList<>();
+            for (Object entry : entries) {
+                MarshalledEntry me = (MarshalledEntry) entry;
+                keys.add(me.getKey());
+                marshalledKeys.add(marshall(me.getKey()));
+                marshalledEntries.add(marshall(me));
+                InternalMetadata meta = me.getMetadata();
+                if (meta != null && meta.expiryTime() > -1) {
+                    expirable.add(me);
+                }
+            }
+            writeToDb(keys, marshalledKeys, marshalledEntries);
+            for (MarshalledEntry me : expirable) {
+                addNewExpiry(me);
+            }
+        } catch (Exception e) {
+            throw new PersistenceException(e);
+        }
+    }
+
+    @Override
+    public void deleteBatch(Iterable keys) {
+        try {
+            List<Object> keyList = new ArrayList<>();
+            List<byte[]> marshalledKeys = new ArrayList<>();
+            for (Object key : keys) {
+                keyList.add(key);
+                marshalledKeys.add(marshall(key));
+            }
+            writeToDb(keyList, marshalledKeys, null);
+        } catch (Exception e) {
+            throw new PersistenceException(e);
+        }
+    }
+
+    /**
+     * Writes the entries, or removes the keys if {@code marshalledEntries} is {@code null}, in a single batch. The
+     * handles are resolved while holding the semaphore, as {@link #removeSegments(Set)} replaces them and
+     * {@link #stop()} closes them.
+     */
+    private void writeToDb(List<Object> keys, List<byte[]> marshalledKeys, List<byte[]> marshalledEntries)
+          throws InterruptedException, RocksDBException {
+        semaphore.acquire();
+        try {
+            if (stopped) {
+                throw new PersistenceException("RocksDB is stopped");
+            }
+            try (WriteBatch batch = new WriteBatch(); WriteOptions writeOptions = new WriteOptions()) {
+                for (int i = 0; i < keys.size(); i++) {
+                    if (marshalledEntries == null) {
+                        batch.remove(handle(keys.get(i)), marshalledKeys.get(i));
+                    } else {
+                        batch.put(handle(keys.get(i)), marshalledKeys.get(i), marshalledEntries.get(i));
+                    }
+                }
+                db.write(writeOptions, batch);
+            }
+        } finally {
+            semaphore.release();
+        }
+    }
+
     @Override
     public MarshalledEntry load(Object key) {
         try {
@@ -341,7 +711,7 @@ public MarshalledEntry load(Object key) {
                 if (stopped) {
                     throw new PersistenceException("RocksDB is stopped");
                 }
-                marshalledEntry = db.get(marshall(key));
+                marshalledEntry = db.get(handle(key), marshall(key));
             } finally {
                 semaphore.release();
             }
@@ -424,14 +794,15 @@ public void purge(Executor executor, PurgeListener purgeListener) {
                     for (Object key : keys) {
                         byte[] keyBytes = marshall(key);
 
-                        byte[] b = db.get(keyBytes);
+                        ColumnFamilyHandle handle = handle(key);
+                        byte[] b = db.get(handle, keyBytes);
                         if (b == null)
                             continue;
                         MarshalledEntry me = (MarshalledEntry) ctx.getMarshaller().objectFromByteBuffer(b);
                         // TODO race condition: the entry could be updated between the get and delete!
                         if (me.getMetadata() != null && me.getMetadata().isExpired(now)) {
                             // somewhat inefficient to FIND then REMOVE...
-                            db.remove(keyBytes);
+                            db.remove(handle, keyBytes);
                             purgeListener.entryPurged(key);
                             count++;
                         }
@@ -15,6 +15,7 @@ public enum Attribute {
    BLOCK_SIZE("block-size"),
    CACHE_SIZE("cache-size"),
    CLEAR_THRESHOLD("clear-threshold"),
+   COMPACTION_STYLE("compaction-style"),
    COMPRESSION_TYPE("compressionType"),
    EXPIRED_LOCATION("expiredLocation"),
    EXPIRY_QUEUE_SIZE("expiryQueueSize"),
@@ -23,7 +24,10 @@ public enum Attribute {
    PATH("path"),
    RELATIVE_TO("relative-to"),
    QUEUE_SIZE("queue-size"),
+   SEGMENTED("segmented"),
+   STATISTICS("statistics"),
    TYPE("type"),
+   WRITE_BUFFER_SIZE("write-buffer-size"),
    ;
 
    private final String name;
@@ -0,0 +1,12 @@
+package org.infinispan.persistence.rocksdb.configuration;
+
+/**
+ * The compaction styles of the RocksDB column families.
+ *
+ * @since 9.0
+ */
+public enum CompactionStyle {
+   LEVEL,
+   UNIVERSAL,
+   FIFO
+}
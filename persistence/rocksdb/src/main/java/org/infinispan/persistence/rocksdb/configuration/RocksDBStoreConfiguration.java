@@ -27,10 +27,14 @@ public class RocksDBStoreConfiguration extends AbstractStoreConfiguration {
    final static AttributeDefinition<Long> CACHE_SIZE = AttributeDefinition.builder("cacheSize", 0l).immutable().build();
    final static AttributeDefinition<Integer> EXPIRY_QUEUE_SIZE = AttributeDefinition.builder("expiryQueueSize", 10000).immutable().autoPersist(false).build();
    final static AttributeDefinition<Integer> CLEAR_THRESHOLD = AttributeDefinition.builder("clearThreshold", 10000).immutable().build();
+   final static AttributeDefinition<CompactionStyle> COMPACTION_STYLE = AttributeDefinition.builder("compactionStyle", CompactionStyle.LEVEL).immutable().build();
+   final static AttributeDefinition<Boolean> SEGMENTED = AttributeDefinition.builder("segmented", false).immutable().build();
+   final static AttributeDefinition<Boolean> STATISTICS = AttributeDefinition.builder("statistics", false).immutable().build();
+   final static AttributeDefinition<Long> WRITE_BUFFER_SIZE = AttributeDefinition.builder("writeBufferSize", 64L * 1024 * 1024).immutable().build();
 
    public static AttributeSet attributeDefinitionSet() {
       return new AttributeSet(RocksDBStoreConfiguration.class, AbstractStoreConfiguration.attributeDefinitionSet(), LOCATION, EXPIRED_LOCATION, COMPRESSION_TYPE,
-            BLOCK_SIZE, CACHE_SIZE, EXPIRY_QUEUE_SIZE, CLEAR_THRESHOLD);
+            BLOCK_SIZE, CACHE_SIZE, EXPIRY_QUEUE_SIZE, CLEAR_THRESHOLD, COMPACTION_STYLE, SEGMENTED, STATISTICS, WRITE_BUFFER_SIZE);
    }
 
    private final Attribute<String> location;
@@ -40,6 +44,10 @@ public static AttributeSet attributeDefinitionSet() {
    private final Attribute<Long> cacheSize;
    private final Attribute<Integer> expiryQueueSize;
    private final Attribute<Integer> clearThreshold;
+   private final Attribute<CompactionStyle> compactionStyle;
+   private final Attribute<Boolean> segmented;
+   private final Attribute<Boolean> statistics;
+   private final Attribute<Long> writeBufferSize;
 
    public RocksDBStoreConfiguration(AttributeSet attributes, AsyncStoreConfiguration async, SingletonStoreConfiguration singletonStore) {
       super(attributes, async, singletonStore);
@@ -50,6 +58,10 @@ public RocksDBStoreConfiguration(AttributeSet attributes, AsyncStoreConfiguratio
       cacheSize = attributes.attribute(CACHE_SIZE);
       expiryQueueSize = attributes.attribute(EXPIRY_QUEUE_SIZE);
       clearThreshold = attributes.attribute(CLEAR_THRESHOLD);
+      compactionStyle = attributes.attribute(COMPACTION_STYLE);
+      segmented = attributes.attribute(SEGMENTED);
+      statistics = attributes.attribute(STATISTICS);
+      writeBufferSize = attributes.attribute(WRITE_BUFFER_SIZE);
    }
 
    public String location() {
@@ -79,4 +91,20 @@ public int expiryQueueSize() {
    public int clearThreshold() {
       return clearThreshold.get();
    }
+
+   public CompactionStyle compactionStyle() {
+      return compactionStyle.get();
+   }
+
+   public boolean segmented() {
+      return segmented.get();
+   }
+
+   public boolean statistics() {
+      return statistics.get();
+   }
+
+   public long writeBufferSize() {
+      return writeBufferSize.get();
+   }
 }
@@ -8,9 +8,13 @@
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.CACHE_SIZE;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.LOCATION;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.CLEAR_THRESHOLD;
+import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.COMPACTION_STYLE;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.EXPIRED_LOCATION;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.EXPIRY_QUEUE_SIZE;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.COMPRESSION_TYPE;
+import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.SEGMENTED;
+import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.STATISTICS;
+import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.WRITE_BUFFER_SIZE;
 
 /**
  *
@@ -33,11 +37,18 @@ public RocksDBStoreConfigurationBuilder expiredLocation(String expiredLocation)
       return self();
    }
 
+   /**
+    * The size of the data blocks, in bytes. Defaults to 0, which uses the RocksDB default.
+    */
    public RocksDBStoreConfigurationBuilder blockSize(int blockSize) {
       attributes.attribute(BLOCK_SIZE).set(blockSize);
       return self();
    }
 
+   /**
+    * The size of the cache of uncompressed data blocks, in bytes, shared by all the column families. Defaults to 0,
+    * which uses the RocksDB default.
+    */
    public RocksDBStoreConfigurationBuilder cacheSize(long cacheSize) {
       attributes.attribute(CACHE_SIZE).set(cacheSize);
       return self();
@@ -58,6 +69,39 @@ public RocksDBStoreConfigurationBuilder compressionType(CompressionType compress
       return self();
    }
 
+   public RocksDBStoreConfigurationBuilder compactionStyle(CompactionStyle compactionStyle) {
+      attributes.attribute(COMPACTION_STYLE).set(compactionStyle);
+      return self();
+   }
+
+   /**
+    * If true, the entries of each segment are kept in a separate column family, so that the entries of a segment can
+    * be iterated and removed without reading the other segments. A store can't be reopened with a different number of
+    * segments. Defaults to false.
+    */
+   public RocksDBStoreConfigurationBuilder segmented(boolean segmented) {
+      attributes.attribute(SEGMENTED).set(segmented);
+      return self();
+   }
+
+   /**
+    * If true, RocksDB collects its internal statistics and the store exposes them through JMX. Defaults to false.
+    */
+   public RocksDBStoreConfigurationBuilder statistics(boolean statistics) {
+      attributes.attribute(STATISTICS).set(statistics);
+      return self();
+   }
+
+   /**
+    * The size of the in-memory write buffers of the data database, in bytes, split evenly between its column families.
+    * RocksDB keeps up to two write buffers per column family while one is flushed, so the store uses up to twice this
+    * memory for buffered writes. Defaults to 64 MB, the RocksDB default for a single column family.
+    */
+   public RocksDBStoreConfigurationBuilder writeBufferSize(long writeBufferSize) {
+      attributes.attribute(WRITE_BUFFER_SIZE).set(writeBufferSize);
+      return self();
+   }
+
    @Override
    public void validate() {
       // how do you validate required attributes?
@@ -77,6 +77,22 @@ private void parseRocksDBCacheStore(XMLExtendedStreamReader reader, RocksDBStore
                builder.cacheSize(Long.valueOf(value));
                break;
             }
+            case COMPACTION_STYLE: {
+               builder.compactionStyle(CompactionStyle.valueOf(value));
+               break;
+            }
+            case SEGMENTED: {
+               builder.segmented(Boolean.parseBoolean(value));
+               break;
+            }
+            case STATISTICS: {
+               builder.statistics(Boolean.parseBoolean(value));
+               break;
+            }
+            case WRITE_BUFFER_SIZE: {
+               builder.writeBufferSize(Long.parseLong(value));
+               break;
+            }
             default: {
                Parser.parseStoreAttribute(reader, i, builder);
             }
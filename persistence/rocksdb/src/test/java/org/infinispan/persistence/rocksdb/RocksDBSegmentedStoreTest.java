@@ -0,0 +1,20 @@
+package org.infinispan.persistence.rocksdb;
+
+import org.infinispan.configuration.cache.PersistenceConfigurationBuilder;
+import org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfigurationBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the store tests with a column family per segment.
+ *
+ * @since 9.0
+ */
+@Test(groups = "unit", testName = "persistence.rocksdb.RocksDBSegmentedStoreTest")
+public class RocksDBSegmentedStoreTest extends RocksDBStoreTest {
+
+   @Override
+   protected RocksDBStoreConfigurationBuilder createCacheStoreConfig(PersistenceConfigurationBuilder lcb) {
+      lcb.clustering().hash().numSegments(16);
+      return super.createCacheStoreConfig(lcb).segmented(true);
+   }
+}
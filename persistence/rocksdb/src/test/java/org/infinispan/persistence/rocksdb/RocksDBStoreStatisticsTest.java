@@ -0,0 +1,72 @@
+package org.infinispan.persistence.rocksdb;
+
+import static org.infinispan.test.TestingUtil.getCacheObjectName;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.infinispan.commons.util.Util;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.jmx.PerThreadMBeanServerLookup;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfigurationBuilder;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the statistics of the RocksDB store exposed through JMX.
+ *
+ * @since 9.0
+ */
+@Test(groups = "functional", testName = "persistence.rocksdb.RocksDBStoreStatisticsTest")
+public class RocksDBStoreStatisticsTest extends SingleCacheManagerTest {
+   private static final String JMX_DOMAIN = RocksDBStoreStatisticsTest.class.getName();
+   private static final int NUM_KEYS = 100;
+
+   private final String tmpDirectory = TestingUtil.tmpDirectory(this.getClass());
+   private ObjectName storeObjName;
+   private MBeanServer threadMBeanServer;
+
+   @AfterClass(alwaysRun = true)
+   protected void clearTempDir() {
+      Util.recursiveFileRemove(tmpDirectory);
+   }
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      cacheManager = TestCacheManagerFactory.createCacheManagerEnforceJmxDomain(JMX_DOMAIN);
+      ConfigurationBuilder configuration = getDefaultStandaloneCacheConfig(false);
+      configuration
+         .jmxStatistics().enable()
+         .persistence()
+            .addStore(RocksDBStoreConfigurationBuilder.class)
+               .location(tmpDirectory + "/data")
+               .expiredLocation(tmpDirectory + "/expiry")
+               .statistics(true);
+
+      cacheManager.defineConfiguration("test", configuration.build());
+      cache = cacheManager.getCache("test");
+      storeObjName = getCacheObjectName(JMX_DOMAIN, "test(local)", "RocksDBStore");
+      threadMBeanServer = PerThreadMBeanServerLookup.getThreadMBeanServer();
+      return cacheManager;
+   }
+
+   public void testStatistics() throws Exception {
+      assertTrue(threadMBeanServer.isRegistered(storeObjName));
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cache.put("k" + i, "v" + i);
+      }
+      // The entries are still in the memtable, so the estimate is exact
+      assertEquals(threadMBeanServer.getAttribute(storeObjName, "estimatedNumberOfEntries"), (long) NUM_KEYS);
+      assertTrue((Long) threadMBeanServer.getAttribute(storeObjName, "blockCacheHits") >= 0);
+      assertTrue((Long) threadMBeanServer.getAttribute(storeObjName, "blockCacheMisses") >= 0);
+      assertTrue((Long) threadMBeanServer.getAttribute(storeObjName, "totalSstFilesSize") >= 0);
+      String statistics = (String) threadMBeanServer.invoke(storeObjName, "getDatabaseStatistics", new Object[0], new String[0]);
+      assertTrue(statistics.contains("Compaction Stats"), statistics);
+   }
+}
@@ -1,19 +1,31 @@
 package org.infinispan.persistence.rocksdb;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.infinispan.commons.util.Util;
+import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.configuration.cache.PersistenceConfigurationBuilder;
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.KeyPartitioner;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.persistence.BaseStoreTest;
+import org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration;
 import org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfigurationBuilder;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
 import org.infinispan.persistence.spi.PersistenceException;
@@ -26,7 +38,11 @@
 @Test(groups = "unit", testName = "persistence.rocksdb.RocksDBStoreTest")
 public class RocksDBStoreTest extends BaseStoreTest {
 
+   private static final int NUM_KEYS = 100;
+
    private String tmpDirectory = TestingUtil.tmpDirectory(this.getClass());
+   private KeyPartitioner keyPartitioner;
+   private Configuration configuration;
 
    @AfterClass(alwaysRun = true)
    protected void clearTempDir() {
@@ -48,10 +64,129 @@ protected AdvancedLoadWriteStore createStore() throws Exception {
       RocksDBStore fcs = new RocksDBStore();
       ConfigurationBuilder cb = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
       createCacheStoreConfig(cb.persistence());
-      fcs.init(createContext(cb.build()));
+      configuration = cb.build();
+      // The store initializes the partitioner from the configuration when the cache doesn't have one
+      keyPartitioner = configuration.clustering().hash().keyPartitioner();
+      fcs.init(createContext(configuration));
       return fcs;
    }
 
+   public void testRemoveSegments() throws Exception {
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cl.write(marshalledEntry("k" + i, wrap("k" + i, "v" + i), null));
+      }
+      int removedSegment = keyPartitioner.getSegment("k0");
+
+      ((RocksDBStore) cl).removeSegments(Collections.singleton(removedSegment));
+      for (int i = 0; i < NUM_KEYS; i++) {
+         String key = "k" + i;
+         if (keyPartitioner.getSegment(key) == removedSegment) {
+            assertNull(cl.load(key));
+         } else {
+            assertEquals(unwrap(cl.load(key).getValue()), "v" + i);
+         }
+      }
+
+      // The segment can be written again after it was removed
+      cl.write(marshalledEntry("k0", wrap("k0", "v0-2"), null));
+      assertEquals(unwrap(cl.load("k0").getValue()), "v0-2");
+   }
+
+   public void testWriteBatchWhileRemovingSegments() throws Exception {
+      RocksDBStore store = (RocksDBStore) cl;
+      int removedSegment = keyPartitioner.getSegment("k0");
+      AtomicBoolean run = new AtomicBoolean(true);
+      Future<Void> writer = fork(() -> {
+         while (run.get()) {
+            store.writeBatch(batch("v"));
+         }
+         return null;
+      });
+      try {
+         for (int i = 0; i < 20; i++) {
+            store.removeSegments(Collections.singleton(removedSegment));
+         }
+      } finally {
+         run.set(false);
+      }
+      // The writes must not have failed while the segment was replaced
+      writer.get(30, TimeUnit.SECONDS);
+
+      // A batch written after the segment was removed goes to the new segment
+      store.writeBatch(batch("v-last"));
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertEquals(unwrap(cl.load("k" + i).getValue()), "v-last" + i);
+      }
+   }
+
+   private List<MarshalledEntry> batch(String valuePrefix) {
+      List<MarshalledEntry> entries = new ArrayList<>(NUM_KEYS);
+      for (int i = 0; i < NUM_KEYS; i++) {
+         entries.add(marshalledEntry("k" + i, wrap("k" + i, valuePrefix + i), null));
+      }
+      return entries;
+   }
+
+   public void testReopenWithDifferentLayout() throws Exception {
+      cl.write(marshalledEntry("k1", wrap("k1", "v1"), null));
+      boolean segmented = ((RocksDBStoreConfiguration) configuration.persistence().stores().get(0)).segmented();
+      int numSegments = configuration.clustering().hash().numSegments();
+      cl.stop();
+      try {
+         assertReopenFails(!segmented, numSegments);
+         if (segmented) {
+            assertReopenFails(true, numSegments * 2);
+            assertReopenFails(true, numSegments / 2);
+         }
+      } finally {
+         cl.start();
+      }
+      // The failed attempts didn't change the database
+      assertEquals(unwrap(cl.load("k1").getValue()), "v1");
+   }
+
+   private void assertReopenFails(boolean segmented, int numSegments) {
+      ConfigurationBuilder cb = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      createCacheStoreConfig(cb.persistence()).segmented(segmented);
+      cb.clustering().hash().numSegments(numSegments);
+      RocksDBStore store = new RocksDBStore();
+      store.init(createContext(cb.build()));
+      try {
+         store.start();
+         store.stop();
+         fail("The database was opened with segmented=" + segmented + " and " + numSegments + " segments");
+      } catch (PersistenceException e) {
+         // expected
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testProcessSegments() throws Exception {
+      Set<Integer> segments = new HashSet<>();
+      Set<Object> expectedKeys = new HashSet<>();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         String key = "k" + i;
+         cl.write(marshalledEntry(key, wrap(key, "v" + i), null));
+         if (i % 3 == 0) {
+            segments.add(keyPartitioner.getSegment(key));
+         }
+      }
+      for (int i = 0; i < NUM_KEYS; i++) {
+         String key = "k" + i;
+         if (segments.contains(keyPartitioner.getSegment(key)))
+            expectedKeys.add(key);
+      }
+
+      Set<Object> keys = Collections.synchronizedSet(new HashSet<>());
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         ((RocksDBStore) cl).process(segments, null, (entry, taskContext) -> keys.add(entry.getKey()), executor, true, true);
+      } finally {
+         executor.shutdownNow();
+      }
+      assertEquals(keys, expectedKeys);
+   }
+
    @Test(groups = "stress")
    public void testConcurrentWriteAndRestart() {
       concurrentWriteAndRestart(true);
@@ -18,6 +18,7 @@
 import org.infinispan.configuration.parsing.ParserRegistry;
 import org.infinispan.manager.DefaultCacheManager;
 import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.persistence.rocksdb.configuration.CompactionStyle;
 import org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration;
 import org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfigurationBuilder;
 import org.infinispan.test.AbstractInfinispanTest;
@@ -82,5 +83,8 @@ public void testXmlConfig() throws IOException {
       RocksDBStoreConfiguration rocksdbConfig = (RocksDBStoreConfiguration) cacheLoaderConfig;
       assertEquals("/tmp/rocksdb/52/data", rocksdbConfig.location());
       assertEquals("/tmp/rocksdb/52/expired", rocksdbConfig.expiredLocation());
+      assertTrue(rocksdbConfig.segmented());
+      assertEquals(CompactionStyle.UNIVERSAL, rocksdbConfig.compactionStyle());
+      assertEquals(32 * 1024 * 1024, rocksdbConfig.writeBufferSize());
    }
 }
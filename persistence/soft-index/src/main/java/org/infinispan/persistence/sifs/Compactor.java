@@ -1,11 +1,13 @@
 package org.infinispan.persistence.sifs;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -18,15 +20,19 @@
  * Component keeping the data about log file usage - as soon as entries from some file are overwritten so that the file
  * becomes cluttered with old records, the valid records are moved to another file and the old ones are dropped.
  * Expired records are moved as tombstones without values (records of entry removal).
+ * <p>
+ * Several threads may compact different files at the same time, each of them writing to its own file. The files with
+ * the largest ratio of unused space are compacted first, and the throughput of all the threads together can be limited
+ * so that compaction does not starve the log appender and the readers of disk bandwidth.
  *
  * @author Radim Vansa &lt;rvansa@redhat.com&gt;
  */
-class Compactor extends Thread {
+class Compactor {
    private static final Log log = LogFactory.getLog(Compactor.class);
    private static final boolean trace = log.isTraceEnabled();
 
    private final ConcurrentMap<Integer, Stats> fileStats = new ConcurrentHashMap<Integer, Stats>();
-   private final BlockingQueue<Integer> scheduledCompaction = new LinkedBlockingQueue<Integer>();
+   private final BlockingQueue<ScheduledFile> scheduledCompaction = new PriorityBlockingQueue<ScheduledFile>();
    private final BlockingQueue<IndexRequest> indexQueue;
    private final FileProvider fileProvider;
    private final TemporaryTable temporaryTable;
@@ -34,6 +40,8 @@ class Compactor extends Thread {
    private final TimeService timeService;
    private final int maxFileSize;
    private final double compactionThreshold;
+   private final ThroughputLimiter throughputLimiter;
+   private final CompactorThread[] threads;
 
    private Index index;
    // as processing single scheduled compaction takes a lot of time, we don't use the queue to signalize
@@ -46,8 +54,8 @@ class Compactor extends Thread {
    public Compactor(FileProvider fileProvider,
                     TemporaryTable temporaryTable,
                     BlockingQueue<IndexRequest> indexQueue,
-                    Marshaller marshaller, TimeService timeService, int maxFileSize, double compactionThreshold) {
-      super("BCS-Compactor");
+                    Marshaller marshaller, TimeService timeService, int maxFileSize, double compactionThreshold,
+                    int compactionThreads, int compactionRate) {
       this.fileProvider = fileProvider;
       this.temporaryTable = temporaryTable;
       this.indexQueue = indexQueue;
@@ -55,7 +63,12 @@ public Compactor(FileProvider fileProvider,
       this.timeService = timeService;
       this.maxFileSize = maxFileSize;
       this.compactionThreshold = compactionThreshold;
-      this.start();
+      this.throughputLimiter = compactionRate > 0 ? new ThroughputLimiter(timeService, compactionRate * 1024L * 1024L) : null;
+      this.threads = new CompactorThread[compactionThreads];
+      for (int i = 0; i < compactionThreads; ++i) {
+         threads[i] = new CompactorThread(compactionThreads == 1 ? "BCS-Compactor" : "BCS-Compactor-" + i);
+         threads[i].start();
+      }
    }
 
    public void setIndex(Index index) {
@@ -66,6 +79,16 @@ public void releaseStats(int file) {
       fileStats.remove(file);
    }
 
+   public Map<Integer, SoftIndexFileStore.FileUsage> getFileUsage() {
+      Map<Integer, SoftIndexFileStore.FileUsage> usage = new HashMap<Integer, SoftIndexFileStore.FileUsage>();
+      for (Map.Entry<Integer, Stats> entry : fileStats.entrySet()) {
+         Stats stats = entry.getValue();
+         if (stats.getTotal() < 0) continue;
+         usage.put(entry.getKey(), new SoftIndexFileStore.FileUsage(stats.getTotal(), stats.getFree()));
+      }
+      return usage;
+   }
+
    public void free(int file, int size) {
       // entries expired from compacted file are reported with file = -1
       if (file < 0) return;
@@ -114,7 +137,7 @@ private void schedule(int file, Stats stats) {
             if (!stats.isScheduled()) {
                log.debug(String.format("Scheduling file %d for compaction: %d/%d free", file, stats.free.get(), stats.total));
                stats.setScheduled();
-               scheduledCompaction.put(file);
+               scheduledCompaction.put(new ScheduledFile(file, stats.getTotal() > 0 ? (double) stats.getFree() / stats.getTotal() : 0));
             }
          }
       } catch (InterruptedException e) {
@@ -122,208 +145,223 @@ private void schedule(int file, Stats stats) {
       }
    }
 
-   @Override
-   public void run() {
-      try {
-         FileProvider.Log logFile = null;
-         int currentOffset = 0;
-         for(;;) {
-            Integer scheduledFile = null;
-            try {
-               scheduledFile = scheduledCompaction.poll(1, TimeUnit.MINUTES);
-            } catch (InterruptedException e) {
-            }
-            if (terminateSignal) {
-               if (logFile != null) {
-                  logFile.close();
-                  completeFile(logFile.fileId);
+   private class CompactorThread extends Thread {
+      private CompactorThread(String name) {
+         super(name);
+      }
+
+      @Override
+      public void run() {
+         try {
+            FileProvider.Log logFile = null;
+            int currentOffset = 0;
+            for(;;) {
+               ScheduledFile scheduled = null;
+               try {
+                  scheduled = scheduledCompaction.poll(1, TimeUnit.MINUTES);
+               } catch (InterruptedException e) {
                }
-               break;
-            }
-            if (clearSignal) {
-               pauseCompactor(logFile);
-               logFile = null;
-               continue;
-            }
-            if (scheduledFile == null) {
-               if (logFile != null) {
-                  logFile.close();
-                  completeFile(logFile.fileId);
+               if (terminateSignal) {
+                  if (logFile != null) {
+                     logFile.close();
+                     completeFile(logFile.fileId);
+                  }
+                  break;
+               }
+               if (clearSignal) {
+                  pauseCompactor(logFile);
                   logFile = null;
+                  continue;
                }
-               continue;
-            }
-
-            log.debugf("Compacting file %d", scheduledFile);
-            int scheduledOffset = 0;
-            FileProvider.Handle handle = fileProvider.getFile(scheduledFile);
-            if (handle == null) {
-               throw new IllegalStateException("Compactor should not get deleted file for compaction!");
-            }
-            try {
-               while (!clearSignal && !terminateSignal) {
-                  EntryHeader header = EntryRecord.readEntryHeader(handle, scheduledOffset);
-                  if (header == null) {
-                     break;
+               if (scheduled == null) {
+                  if (logFile != null) {
+                     logFile.close();
+                     completeFile(logFile.fileId);
+                     logFile = null;
                   }
-                  byte[] serializedKey = EntryRecord.readKey(handle, header, scheduledOffset);
-                  Object key = marshaller.objectFromByteBuffer(serializedKey);
-
-                  int indexedOffset = header.valueLength() > 0 ? scheduledOffset : ~scheduledOffset;
-                  boolean drop = true;
-                  boolean truncate = false;
-                  EntryPosition entry = temporaryTable.get(key);
-                  if (entry != null) {
-                     synchronized (entry) {
-                        if (trace) {
-                           log.tracef("Key for %d:%d was found in temporary table on %d:%d",
-                                 scheduledFile, scheduledOffset, entry.file, entry.offset);
-                        }
-                        if (entry.file == scheduledFile && entry.offset == indexedOffset) {
-                           // It's quite unlikely that we would compact a record that is not indexed yet,
-                           // but let's handle that
-                           if (header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime()) {
+                  continue;
+               } else if (scheduled.file < 0) {
+                  // wake-up signal meant for another thread
+                  continue;
+               }
+               int scheduledFile = scheduled.file;
+
+               log.debugf("Compacting file %d", scheduledFile);
+               int scheduledOffset = 0;
+               FileProvider.Handle handle = fileProvider.getFile(scheduledFile);
+               if (handle == null) {
+                  throw new IllegalStateException("Compactor should not get deleted file for compaction!");
+               }
+               try {
+                  while (!clearSignal && !terminateSignal) {
+                     EntryHeader header = EntryRecord.readEntryHeader(handle, scheduledOffset);
+                     if (header == null) {
+                        break;
+                     }
+                     if (throughputLimiter != null) {
+                        throughputLimiter.acquire(header.totalLength());
+                     }
+                     byte[] serializedKey = EntryRecord.readKey(handle, header, scheduledOffset);
+                     Object key = marshaller.objectFromByteBuffer(serializedKey);
+
+                     int indexedOffset = header.valueLength() > 0 ? scheduledOffset : ~scheduledOffset;
+                     boolean drop = true;
+                     boolean truncate = false;
+                     EntryPosition entry = temporaryTable.get(key);
+                     if (entry != null) {
+                        synchronized (entry) {
+                           if (trace) {
+                              log.tracef("Key for %d:%d was found in temporary table on %d:%d",
+                                    scheduledFile, scheduledOffset, entry.file, entry.offset);
+                           }
+                           if (entry.file == scheduledFile && entry.offset == indexedOffset) {
+                              // It's quite unlikely that we would compact a record that is not indexed yet,
+                              // but let's handle that
+                              if (header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime()) {
+                                 truncate = true;
+                              }
+                           } else {
                               truncate = true;
                            }
-                        } else {
-                           truncate = true;
-                        }
-                     }
-                     // When we have found the entry in temporary table, it's possible that the delete operation
-                     // (that was recorded in temporary table) will arrive to index after DROPPED - in that case
-                     // we could remove the entry and delete would not find it
-                     drop = false;
-                  } else {
-                     EntryInfo info = index.getInfo(key, serializedKey);
-                     assert info != null : String.format("Index does not recognize entry on %d:%d");
-                     assert info.numRecords > 0;
-                     if (info.file == scheduledFile && info.offset == scheduledOffset) {
-                        assert header.valueLength() > 0;
-                        // live record with data
-                        truncate = header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime();
-                        if (trace) {
-                           log.tracef("Is %d:%d expired? %s, numRecords? %d", scheduledFile, scheduledOffset, truncate, info.numRecords);
                         }
-                        if (!truncate || info.numRecords > 1) {
-                           drop = false;
-                        }
-                        // Drop only when it is expired and has single record
-                     } else if (info.file == scheduledFile && info.offset == ~scheduledOffset && info.numRecords > 1) {
-                        // just tombstone but there are more non-compacted records for this key so we have to keep it
+                        // When we have found the entry in temporary table, it's possible that the delete operation
+                        // (that was recorded in temporary table) will arrive to index after DROPPED - in that case
+                        // we could remove the entry and delete would not find it
                         drop = false;
-                     } else if (trace) {
-                        log.tracef("Key for %d:%d was found in index on %d:%d, %d record => drop",
-                              scheduledFile, scheduledOffset, info.file, info.offset, info.numRecords);
-                     }
-                  }
-                  if (drop) {
-                     if (trace) {
-                        log.tracef("Drop %d:%d (%s)", scheduledFile, (Object)scheduledOffset,
-                              header.valueLength() > 0 ? "record" : "tombstone");
-                     }
-                     indexQueue.put(IndexRequest.dropped(key, serializedKey, scheduledFile, scheduledOffset));
-                  } else {
-                     if (logFile == null || currentOffset + header.totalLength() > maxFileSize) {
-                        if (logFile != null) {
-                           logFile.close();
-                           completeFile(logFile.fileId);
-                        }
-                        currentOffset = 0;
-                        logFile = fileProvider.getFileForLog();
-                        log.debugf("Compacting to %d", (Object) logFile.fileId);
-                     }
-
-                     byte[] serializedValue = null;
-                     byte[] serializedMetadata = null;
-                     int entryOffset;
-                     int writtenLength;
-                     if (header.valueLength() > 0 && !truncate) {
-                        if (header.metadataLength() > 0) {
-                           serializedMetadata = EntryRecord.readMetadata(handle, header, scheduledOffset);
-                        }
-                        serializedValue = EntryRecord.readValue(handle, header, scheduledOffset);
-                        entryOffset = currentOffset;
-                        writtenLength = header.totalLength();
                      } else {
-                        entryOffset = ~currentOffset;
-                        writtenLength = EntryHeader.HEADER_SIZE + header.keyLength();
+                        EntryInfo info = index.getInfo(key, serializedKey);
+                        assert info != null : String.format("Index does not recognize entry on %d:%d");
+                        assert info.numRecords > 0;
+                        if (info.file == scheduledFile && info.offset == scheduledOffset) {
+                           assert header.valueLength() > 0;
+                           // live record with data
+                           truncate = header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime();
+                           if (trace) {
+                              log.tracef("Is %d:%d expired? %s, numRecords? %d", scheduledFile, scheduledOffset, truncate, info.numRecords);
+                           }
+                           if (!truncate || info.numRecords > 1) {
+                              drop = false;
+                           }
+                           // Drop only when it is expired and has single record
+                        } else if (info.file == scheduledFile && info.offset == ~scheduledOffset && info.numRecords > 1) {
+                           // just tombstone but there are more non-compacted records for this key so we have to keep it
+                           drop = false;
+                        } else if (trace) {
+                           log.tracef("Key for %d:%d was found in index on %d:%d, %d record => drop",
+                                 scheduledFile, scheduledOffset, info.file, info.offset, info.numRecords);
+                        }
                      }
-                     EntryRecord.writeEntry(logFile.fileChannel, serializedKey, serializedMetadata, serializedValue, header.seqId(), header.expiryTime());
-                     TemporaryTable.LockedEntry lockedEntry = temporaryTable.replaceOrLock(key, logFile.fileId, entryOffset, scheduledFile, indexedOffset);
-                     if (lockedEntry == null) {
+                     if (drop) {
                         if (trace) {
-                           log.trace("Found entry in temporary table");
+                           log.tracef("Drop %d:%d (%s)", scheduledFile, (Object)scheduledOffset,
+                                 header.valueLength() > 0 ? "record" : "tombstone");
                         }
+                        indexQueue.put(IndexRequest.dropped(key, serializedKey, scheduledFile, scheduledOffset));
                      } else {
-                        boolean update = false;
-                        try {
-                           EntryInfo info = index.getInfo(key, serializedKey);
-                           if (info == null) {
-                              throw new IllegalStateException(String.format(
-                                    "%s was not found in index but it was not in temporary table and there's entry on %d:%d", key, scheduledFile, indexedOffset));
-                           } else {
-                              update = info.file == scheduledFile && info.offset == indexedOffset;
+                        if (logFile == null || currentOffset + header.totalLength() > maxFileSize) {
+                           if (logFile != null) {
+                              logFile.close();
+                              completeFile(logFile.fileId);
+                           }
+                           currentOffset = 0;
+                           logFile = fileProvider.getFileForLog();
+                           log.debugf("Compacting to %d", (Object) logFile.fileId);
+                        }
+
+                        byte[] serializedValue = null;
+                        byte[] serializedMetadata = null;
+                        int entryOffset;
+                        int writtenLength;
+                        if (header.valueLength() > 0 && !truncate) {
+                           if (header.metadataLength() > 0) {
+                              serializedMetadata = EntryRecord.readMetadata(handle, header, scheduledOffset);
                            }
+                           serializedValue = EntryRecord.readValue(handle, header, scheduledOffset);
+                           entryOffset = currentOffset;
+                           writtenLength = header.totalLength();
+                        } else {
+                           entryOffset = ~currentOffset;
+                           writtenLength = EntryHeader.HEADER_SIZE + header.keyLength();
+                        }
+                        EntryRecord.writeEntry(logFile.fileChannel, serializedKey, serializedMetadata, serializedValue, header.seqId(), header.expiryTime());
+                        TemporaryTable.LockedEntry lockedEntry = temporaryTable.replaceOrLock(key, logFile.fileId, entryOffset, scheduledFile, indexedOffset);
+                        if (lockedEntry == null) {
                            if (trace) {
-                              log.tracef("In index the key is on %d:%d (%s)", info.file, info.offset, String.valueOf(update));
+                              log.trace("Found entry in temporary table");
                            }
-                        } finally {
-                           if (update) {
-                              temporaryTable.updateAndUnlock(lockedEntry, logFile.fileId, entryOffset);
-                           } else {
-                              temporaryTable.removeAndUnlock(lockedEntry, key);
+                        } else {
+                           boolean update = false;
+                           try {
+                              EntryInfo info = index.getInfo(key, serializedKey);
+                              if (info == null) {
+                                 throw new IllegalStateException(String.format(
+                                       "%s was not found in index but it was not in temporary table and there's entry on %d:%d", key, scheduledFile, indexedOffset));
+                              } else {
+                                 update = info.file == scheduledFile && info.offset == indexedOffset;
+                              }
+                              if (trace) {
+                                 log.tracef("In index the key is on %d:%d (%s)", info.file, info.offset, String.valueOf(update));
+                              }
+                           } finally {
+                              if (update) {
+                                 temporaryTable.updateAndUnlock(lockedEntry, logFile.fileId, entryOffset);
+                              } else {
+                                 temporaryTable.removeAndUnlock(lockedEntry, key);
+                              }
                            }
                         }
-                     }
-                     if (trace) {
-                        log.tracef("Update %d:%d -> %d:%d | %d,%d", scheduledFile, indexedOffset,
-                              logFile.fileId, entryOffset, logFile.fileChannel.position(), logFile.fileChannel.size());
-                     }
-                     // entryFile cannot be used as we have to report the file due to free space statistics
-                     indexQueue.put(IndexRequest.moved(key, serializedKey, logFile.fileId, entryOffset, writtenLength,
-                           scheduledFile, indexedOffset));
+                        if (trace) {
+                           log.tracef("Update %d:%d -> %d:%d | %d,%d", scheduledFile, indexedOffset,
+                                 logFile.fileId, entryOffset, logFile.fileChannel.position(), logFile.fileChannel.size());
+                        }
+                        // entryFile cannot be used as we have to report the file due to free space statistics
+                        indexQueue.put(IndexRequest.moved(key, serializedKey, logFile.fileId, entryOffset, writtenLength,
+                              scheduledFile, indexedOffset));
 
-                     currentOffset += writtenLength;
+                        currentOffset += writtenLength;
+                     }
+                     scheduledOffset += header.totalLength();
                   }
-                  scheduledOffset += header.totalLength();
+               } finally {
+                  handle.close();
                }
-            } finally {
-               handle.close();
-            }
-            if (terminateSignal) {
-               if (logFile != null) {
-                  logFile.close();
-                  completeFile(logFile.fileId);
+               if (terminateSignal) {
+                  if (logFile != null) {
+                     logFile.close();
+                     completeFile(logFile.fileId);
+                  }
+                  return;
+               } else if (clearSignal) {
+                  pauseCompactor(logFile);
+                  logFile = null;
+               } else {
+                  // The deletion must be executed only after the index is fully updated.
+                  log.debugf("Finished compacting %d, scheduling delete", scheduledFile);
+                  indexQueue.put(IndexRequest.deleteFileRequest(scheduledFile));
                }
-               return;
-            } else if (clearSignal) {
-               pauseCompactor(logFile);
-               logFile = null;
-            } else {
-               // The deletion must be executed only after the index is fully updated.
-               log.debugf("Finished compacting %d, scheduling delete", scheduledFile);
-               indexQueue.put(IndexRequest.deleteFileRequest(scheduledFile));
             }
+         } catch (Exception e) {
+            log.error("Compactor failed.", e);
          }
-      } catch (Exception e) {
-         log.error("Compactor failed.", e);
       }
-   }
 
-   private void pauseCompactor(FileProvider.Log logFile) throws IOException, InterruptedException {
-      if (logFile != null) {
-         logFile.close();
-         completeFile(logFile.fileId);
+      private void pauseCompactor(FileProvider.Log logFile) throws IOException, InterruptedException {
+         if (logFile != null) {
+            logFile.close();
+            completeFile(logFile.fileId);
+         }
+         compactorStop.countDown();
+         compactorResume.await();
       }
-      compactorStop.countDown();
-      compactorResume.await();
    }
 
    public void clearAndPause() throws InterruptedException {
       compactorResume = new CountDownLatch(1);
-      compactorStop = new CountDownLatch(1);
+      compactorStop = new CountDownLatch(threads.length);
       clearSignal = true;
-      scheduledCompaction.put(-1);
+      for (int i = 0; i < threads.length; ++i) {
+         scheduledCompaction.put(ScheduledFile.WAKE_UP);
+      }
       compactorStop.await();
       scheduledCompaction.clear();
       fileStats.clear();
@@ -336,8 +374,31 @@ public void resumeAfterPause() {
 
    public void stopOperations() throws InterruptedException {
       terminateSignal = true;
-      scheduledCompaction.put(-1);
-      this.join();
+      for (int i = 0; i < threads.length; ++i) {
+         scheduledCompaction.put(ScheduledFile.WAKE_UP);
+      }
+      for (CompactorThread thread : threads) {
+         thread.join();
+      }
+   }
+
+   private static class ScheduledFile implements Comparable<ScheduledFile> {
+      // sorted before any file so that the threads notice the signals without waiting for the current compactions
+      private static final ScheduledFile WAKE_UP = new ScheduledFile(-1, Double.MAX_VALUE);
+
+      private final int file;
+      private final double freeRatio;
+
+      private ScheduledFile(int file, double freeRatio) {
+         this.file = file;
+         this.freeRatio = freeRatio;
+      }
+
+      @Override
+      public int compareTo(ScheduledFile other) {
+         // the file with most free space goes first
+         return Double.compare(other.freeRatio, freeRatio);
+      }
    }
 
    private static class Stats {
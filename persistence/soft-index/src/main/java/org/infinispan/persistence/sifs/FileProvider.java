@@ -6,7 +6,9 @@
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -19,11 +21,16 @@
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.infinispan.container.offheap.UnsafeHolder;
 import org.infinispan.util.logging.LogFactory;
 
 /**
  * Provides resource management for files - only limited amount of files may be opened in one moment, and opened file
  * should not be deleted. Also allows to generate file indexes.
+ * <p>
+ * When memory mapping is enabled, the files that are not written to anymore are mapped read-only when opened, and
+ * reads copy the data from the mapping rather than issuing a system call per read. A file opened while it is still
+ * the log is mapped once the log is sealed. The mappings are released when their files are closed.
  *
  * @author Radim Vansa &lt;rvansa@redhat.com&gt;
  */
@@ -32,6 +39,7 @@ class FileProvider {
 
    private final File dataDir;
    private final int openFileLimit;
+   private final boolean memoryMapped;
    private final ArrayBlockingQueue<Record> recordQueue;
    private final ConcurrentMap<Integer, Record> openFiles = new ConcurrentHashMap<Integer, Record>();
    private final AtomicInteger currentOpenFiles = new AtomicInteger(0);
@@ -41,7 +49,12 @@ class FileProvider {
    private int nextFileId = 0;
 
    public FileProvider(String dataDir, int openFileLimit) {
+      this(dataDir, openFileLimit, false);
+   }
+
+   public FileProvider(String dataDir, int openFileLimit, boolean memoryMapped) {
       this.openFileLimit = openFileLimit;
+      this.memoryMapped = memoryMapped;
       this.recordQueue = new ArrayBlockingQueue<Record>(openFileLimit);
       this.dataDir = new File(dataDir);
       this.dataDir.mkdirs();
@@ -74,7 +87,17 @@ public Handle getFile(int fileId) throws IOException {
                      log.debug("File " + fileId + " was not found", e);
                      return null;
                   }
-                  Record newRecord = new Record(fileChannel, fileId);
+                  MappedByteBuffer mappedBuffer;
+                  try {
+                     // log files are still being appended to, the mapping would not cover the new data
+                     mappedBuffer = memoryMapped && !logFiles.contains(fileId) ?
+                           fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size()) : null;
+                  } catch (IOException e) {
+                     currentOpenFiles.decrementAndGet();
+                     fileChannel.close();
+                     throw e;
+                  }
+                  Record newRecord = new Record(fileChannel, mappedBuffer, fileId);
                   Record other = openFiles.putIfAbsent(fileId, newRecord);
                   if (other != null) {
                      fileChannel.close();
@@ -212,7 +235,7 @@ public void deleteFile(int fileId) {
       lock.readLock().lock();
       try {
          for (;;) {
-            Record newRecord = new Record(null, fileId);
+            Record newRecord = new Record(null, null, fileId);
             Record record = openFiles.putIfAbsent(fileId, newRecord);
             if (record == null) {
                newRecord.delete();
@@ -256,6 +279,50 @@ public void stop() {
       }
    }
 
+   /**
+    * A file opened while it was the log is read without a mapping, as the mapping would not cover the data appended
+    * later. The sealed log doesn't change anymore, so its open record is mapped too.
+    */
+   private void mapSealedFile(int fileId) {
+      Record record = openFiles.get(fileId);
+      if (record == null) {
+         return;
+      }
+      synchronized (record) {
+         if (record.isOpen() && record.getMappedBuffer() == null) {
+            FileChannel fileChannel = record.getFileChannel();
+            try {
+               record.mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            } catch (IOException e) {
+               // the file is still read through the channel
+               log.debug("Cannot map file " + fileId, e);
+            }
+         }
+      }
+   }
+
+   /**
+    * Releases the mapping right away rather than when the buffer is garbage collected, so that the address space is
+    * released and the file can be deleted on all platforms. The buffer must not be read afterwards.
+    */
+   private static void unmap(MappedByteBuffer buffer) {
+      try {
+         try {
+            // Java 9 and later
+            Method invokeCleaner = UnsafeHolder.UNSAFE.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(UnsafeHolder.UNSAFE, buffer);
+         } catch (NoSuchMethodException e) {
+            // Java 8
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            cleaner.getClass().getMethod("clean").invoke(cleaner);
+         }
+      } catch (ReflectiveOperationException | RuntimeException e) {
+         log.debug("Cannot unmap the buffer, it is unmapped once garbage collected", e);
+      }
+   }
+
    public final class Log implements Closeable {
       public final int fileId;
       public final FileChannel fileChannel;
@@ -271,6 +338,9 @@ public void close() throws IOException {
          lock.writeLock().lock();
          try {
             logFiles.remove(fileId);
+            if (memoryMapped) {
+               mapSealedFile(fileId);
+            }
          } finally {
             lock.writeLock().unlock();
          }
@@ -288,6 +358,18 @@ private Handle(Record record) {
 
       public int read(ByteBuffer buffer, long offset) throws IOException {
          if (!usable) throw new IllegalStateException();
+         MappedByteBuffer mappedBuffer = record.getMappedBuffer();
+         if (mappedBuffer != null) {
+            if (offset >= mappedBuffer.limit()) {
+               return -1;
+            }
+            // the mapping is shared by all handles, position and limit must be set on a private view
+            ByteBuffer source = mappedBuffer.duplicate();
+            int length = (int) Math.min(buffer.remaining(), mappedBuffer.limit() - offset);
+            source.position((int) offset).limit((int) offset + length);
+            buffer.put(source);
+            return length;
+         }
          return record.getFileChannel().read(buffer, offset);
       }
 
@@ -306,16 +388,23 @@ public long getFileSize() throws IOException {
       public int getFileId() {
          return record.getFileId();
       }
+
+      boolean isMemoryMapped() {
+         return record.getMappedBuffer() != null;
+      }
    }
 
    private class Record {
       private final int fileId;
       private FileChannel fileChannel;
+      // only replaced while no handle uses the record, or when a sealed log is mapped
+      private volatile MappedByteBuffer mappedBuffer;
       private int handleCount;
       private boolean deleteOnClose = false;
 
-      private Record(FileChannel fileChannel, int fileId) {
+      private Record(FileChannel fileChannel, MappedByteBuffer mappedBuffer, int fileId) {
          this.fileChannel = fileChannel;
+         this.mappedBuffer = mappedBuffer;
          this.fileId = fileId;
       }
 
@@ -323,6 +412,10 @@ FileChannel getFileChannel() {
          return fileChannel;
       }
 
+      MappedByteBuffer getMappedBuffer() {
+         return mappedBuffer;
+      }
+
       void increaseHandleCount() {
          handleCount++;
       }
@@ -332,8 +425,7 @@ void decreaseHandleCount() throws IOException {
          if (handleCount == 0 && deleteOnClose) {
             // we cannot easily remove the record from queue - keep it there until collection,
             // but physically close and delete the file
-            fileChannel.close();
-            fileChannel = null;
+            closeChannel();
             openFiles.remove(fileId, this);
             delete();
          }
@@ -352,13 +444,24 @@ public int getFileId() {
       }
 
       public void close() throws IOException {
-         fileChannel.close();
-         fileChannel = null;
+         closeChannel();
          if (deleteOnClose) {
             delete();
          }
       }
 
+      /**
+       * Must be invoked when no handle uses the record, so nothing reads the mapping anymore.
+       */
+      private void closeChannel() throws IOException {
+         fileChannel.close();
+         fileChannel = null;
+         if (mappedBuffer != null) {
+            unmap(mappedBuffer);
+            mappedBuffer = null;
+         }
+      }
+
       public void delete() {
          log.debug("Deleting file " + fileId);
          new File(dataDir, String.valueOf(fileId)).delete();
@@ -367,8 +470,7 @@ public void delete() {
       public void deleteOnClose() throws IOException {
          if (handleCount == 0) {
             if (fileChannel != null) {
-               fileChannel.close();
-               fileChannel = null;
+               closeChannel();
             }
             openFiles.remove(fileId, this);
             delete();
@@ -1,7 +1,10 @@
 package org.infinispan.persistence.sifs;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -140,8 +143,9 @@ public void start() {
       temporaryTable = new TemporaryTable(configuration.indexQueueLength() * configuration.indexSegments());
       storeQueue = new SyncProcessingQueue<LogRequest>();
       indexQueue = new IndexQueue(configuration.indexSegments(), configuration.indexQueueLength(), keyEquivalence);
-      fileProvider = new FileProvider(configuration.dataLocation(), configuration.openFilesLimit());
-      compactor = new Compactor(fileProvider, temporaryTable, indexQueue, marshaller, timeService, configuration.maxFileSize(), configuration.compactionThreshold());
+      fileProvider = new FileProvider(configuration.dataLocation(), configuration.openFilesLimit(), configuration.memoryMapped());
+      compactor = new Compactor(fileProvider, temporaryTable, indexQueue, marshaller, timeService, configuration.maxFileSize(), configuration.compactionThreshold(),
+            configuration.compactionThreads(), configuration.compactionRate());
       logAppender = new LogAppender(storeQueue, indexQueue, temporaryTable, compactor, fileProvider, configuration.syncWrites(), configuration.maxFileSize());
       try {
          index = new Index(fileProvider, configuration.indexLocation(), configuration.indexSegments(),
@@ -303,6 +307,31 @@ public void purge(Executor threadPool, PurgeListener listener) {
 
    @Override
    public void write(MarshalledEntry entry) {
+      checkKeyLength(entry);
+      try {
+         storeQueue.pushAndWait(LogRequest.storeRequest(entry));
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   @Override
+   public void writeBatch(Iterable entries) {
+      List<LogRequest> requests = new ArrayList<>();
+      for (Object entry : entries) {
+         checkKeyLength((MarshalledEntry) entry);
+      }
+      try {
+         for (Object entry : entries) {
+            requests.add(LogRequest.storeRequest((MarshalledEntry) entry));
+         }
+         storeQueue.pushAllAndWait(requests);
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   private void checkKeyLength(MarshalledEntry entry) {
       int keyLength = entry.getKeyBytes().getLength();
       if (keyLength > maxKeyLength) {
          throw new PersistenceException("Configuration 'maxNodeSize' is too low - with maxNodeSize="
@@ -312,11 +341,6 @@ public void write(MarshalledEntry entry) {
          // TODO this limitation could be removed by different key length encoding
          throw new PersistenceException("SoftIndexFileStore is limited to keys with serialized size <= 32767 bytes");
       }
-      try {
-         storeQueue.pushAndWait(LogRequest.storeRequest(entry));
-      } catch (Exception e) {
-         throw new PersistenceException(e);
-      }
    }
 
    @Override
@@ -330,6 +354,19 @@ public boolean delete(Object key) {
       }
    }
 
+   @Override
+   public void deleteBatch(Iterable keys) {
+      try {
+         List<LogRequest> requests = new ArrayList<>();
+         for (Object key : keys) {
+            requests.add(LogRequest.deleteRequest(key, toBuffer(marshaller.objectToByteBuffer(key))));
+         }
+         storeQueue.pushAllAndWait(requests);
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
    @Override
    public boolean contains(Object key) {
       try {
@@ -421,6 +458,14 @@ public MarshalledEntry load(Object key) {
       }
    }
 
+   /**
+    * @return the number of bytes used by live records and by records that will be dropped by compaction, for each data
+    *         file, indexed by the file id
+    */
+   public Map<Integer, FileUsage> getFileUsage() {
+      return compactor.getFileUsage();
+   }
+
    /**
     * This method should be called by reflection to get more info about the missing/invalid key (from test tools)
     * @param key
@@ -575,4 +620,34 @@ public void afterFile(int file) {
          }
       }
    }
+
+   /**
+    * Usage of a single data file. The compactor picks the files with the largest ratio of dead bytes first.
+    */
+   public static class FileUsage {
+      private final long totalBytes;
+      private final long deadBytes;
+
+      FileUsage(long totalBytes, long deadBytes) {
+         this.totalBytes = totalBytes;
+         this.deadBytes = deadBytes;
+      }
+
+      public long getTotalBytes() {
+         return totalBytes;
+      }
+
+      public long getLiveBytes() {
+         return totalBytes - deadBytes;
+      }
+
+      public long getDeadBytes() {
+         return deadBytes;
+      }
+
+      @Override
+      public String toString() {
+         return "FileUsage{live=" + getLiveBytes() + ", dead=" + deadBytes + '}';
+      }
+   }
 }
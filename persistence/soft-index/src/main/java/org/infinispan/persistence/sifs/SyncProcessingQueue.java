@@ -1,6 +1,8 @@
 package org.infinispan.persistence.sifs;
 
 import java.util.ArrayDeque;
+import java.util.List;
+import java.util.ListIterator;
 
 /**
  * Multiple producer-single consumer queue. The producers are expected to call pushAndWait(),
@@ -46,6 +48,24 @@ public void pushAndWait(T element) throws InterruptedException {
       waitFor(push(element));
    }
 
+   /**
+    * Pushes all elements at once, so that the consumer processes them in the list order, and waits until they
+    * are processed.
+    */
+   public void pushAllAndWait(List<T> elements) throws InterruptedException {
+      long index;
+      synchronized (queue) {
+         // elements are popped from the head of the queue
+         for (ListIterator<T> it = elements.listIterator(elements.size()); it.hasPrevious(); ) {
+            queue.push(it.previous());
+         }
+         queue.notify();
+         pushIndex += elements.size();
+         index = pushIndex;
+      }
+      waitFor(index);
+   }
+
    public long push(T element) {
       synchronized (queue) {
          queue.push(element);
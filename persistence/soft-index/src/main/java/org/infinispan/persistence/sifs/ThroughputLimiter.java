@@ -0,0 +1,37 @@
+package org.infinispan.persistence.sifs;
+
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.util.TimeService;
+
+/**
+ * Limits the number of bytes processed per second by all the threads sharing this instance. The caller is not
+ * delayed for the bytes it acquires, but the next caller waits until the budget for them has been replenished.
+ *
+ * @since 9.0
+ */
+class ThroughputLimiter {
+   private final TimeService timeService;
+   private final double nanosPerByte;
+   private long nextFree;
+
+   ThroughputLimiter(TimeService timeService, long bytesPerSecond) {
+      this.timeService = timeService;
+      this.nanosPerByte = (double) TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+      this.nextFree = timeService.time();
+   }
+
+   public void acquire(int bytes) throws InterruptedException {
+      long wait;
+      synchronized (this) {
+         long now = timeService.time();
+         // unused budget is not accumulated, otherwise an idle period would allow a burst afterwards
+         long start = Math.max(nextFree, now);
+         nextFree = start + (long) (bytes * nanosPerByte);
+         wait = start - now;
+      }
+      if (wait > 0) {
+         TimeUnit.NANOSECONDS.sleep(wait);
+      }
+   }
+}
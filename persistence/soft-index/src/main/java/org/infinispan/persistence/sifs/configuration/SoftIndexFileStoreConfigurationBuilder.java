@@ -1,16 +1,20 @@
 package org.infinispan.persistence.sifs.configuration;
 
+import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.COMPACTION_RATE;
+import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.COMPACTION_THREADS;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.COMPACTION_THRESHOLD;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.DATA_LOCATION;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.INDEX_LOCATION;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.INDEX_QUEUE_LENGTH;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.INDEX_SEGMENTS;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.MAX_FILE_SIZE;
+import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.MEMORY_MAPPED;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.MAX_NODE_SIZE;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.MIN_NODE_SIZE;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.OPEN_FILES_LIMIT;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.SYNC_WRITES;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.configuration.cache.AbstractStoreConfigurationBuilder;
 import org.infinispan.configuration.cache.PersistenceConfigurationBuilder;
@@ -63,6 +67,15 @@ public SoftIndexFileStoreConfigurationBuilder syncWrites(boolean syncWrites) {
       return this;
    }
 
+   /**
+    * If true, the data files that are no longer written to are read through read-only memory mappings instead of
+    * file channel reads. Defaults to false.
+    */
+   public SoftIndexFileStoreConfigurationBuilder memoryMapped(boolean memoryMapped) {
+      attributes.attribute(MEMORY_MAPPED).set(memoryMapped);
+      return this;
+   }
+
    public SoftIndexFileStoreConfigurationBuilder openFilesLimit(int openFilesLimit) {
       attributes.attribute(OPEN_FILES_LIMIT).set(openFilesLimit);
       return this;
@@ -73,6 +86,32 @@ public SoftIndexFileStoreConfigurationBuilder compactionThreshold(double compact
       return this;
    }
 
+   /**
+    * Number of threads compacting the data files concurrently. Defaults to 1.
+    */
+   public SoftIndexFileStoreConfigurationBuilder compactionThreads(int compactionThreads) {
+      attributes.attribute(COMPACTION_THREADS).set(compactionThreads);
+      return this;
+   }
+
+   /**
+    * Maximum number of megabytes per second read by all the compaction threads together. Defaults to 0, which does
+    * not limit the compaction.
+    */
+   public SoftIndexFileStoreConfigurationBuilder compactionRate(int compactionRate) {
+      attributes.attribute(COMPACTION_RATE).set(compactionRate);
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      super.validate();
+      if (attributes.attribute(COMPACTION_THREADS).get() < 1)
+         throw new CacheConfigurationException("The number of compaction threads must be greater than 0");
+      if (attributes.attribute(COMPACTION_RATE).get() < 0)
+         throw new CacheConfigurationException("The compaction rate must not be negative");
+   }
+
    @Override
    public SoftIndexFileStoreConfiguration create() {
       return new SoftIndexFileStoreConfiguration(attributes.protect(),
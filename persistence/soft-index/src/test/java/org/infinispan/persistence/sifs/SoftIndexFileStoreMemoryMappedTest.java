@@ -0,0 +1,63 @@
+package org.infinispan.persistence.sifs;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfigurationBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the low level tests reading the data files through memory mappings.
+ *
+ * @since 9.0
+ */
+@Test(groups = "unit", testName = "persistence.SoftIndexFileStoreMemoryMappedTest")
+public class SoftIndexFileStoreMemoryMappedTest extends SoftIndexFileStoreTest {
+
+   @Override
+   protected void configure(SoftIndexFileStoreConfigurationBuilder builder) {
+      builder.memoryMapped(true);
+   }
+
+   public void testLoadFromSealedFiles() {
+      // the entries span several data files, all but the last one are sealed and mapped
+      for (int i = 0; i < 100; ++i) {
+         store.write(marshalledEntry(internalCacheEntry("key" + i, "value" + i, -1)));
+      }
+      for (int i = 0; i < 100; ++i) {
+         MarshalledEntry entry = store.load("key" + i);
+         assertNotNull(entry);
+         assertEquals("value" + i, entry.getValue());
+      }
+   }
+
+   public void testFileOpenedAsLogIsMappedWhenSealed() throws IOException {
+      FileProvider fileProvider = new FileProvider(tmpDirectory + File.separator + "provider", 10, true);
+      try {
+         FileProvider.Log log = fileProvider.getFileForLog();
+         log.fileChannel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+         try (FileProvider.Handle handle = fileProvider.getFile(log.fileId)) {
+            assertFalse(handle.isMemoryMapped());
+         }
+         log.fileChannel.write(ByteBuffer.wrap(new byte[] { 4 }));
+         log.close();
+
+         // the record opened while the file was the log is still open, and it is mapped now
+         try (FileProvider.Handle handle = fileProvider.getFile(log.fileId)) {
+            assertTrue(handle.isMemoryMapped());
+            ByteBuffer buffer = ByteBuffer.allocate(8);
+            assertEquals(4, handle.read(buffer, 0));
+            assertEquals(4, buffer.get(3));
+         }
+      } finally {
+         fileProvider.stop();
+      }
+   }
+}
@@ -0,0 +1,56 @@
+package org.infinispan.persistence.sifs;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfigurationBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the low level tests with several compaction threads sharing a throughput limit.
+ *
+ * @since 9.0
+ */
+@Test(groups = "unit", testName = "persistence.SoftIndexFileStoreParallelCompactionTest")
+public class SoftIndexFileStoreParallelCompactionTest extends SoftIndexFileStoreTest {
+
+   private static final int NUM_KEYS = 50;
+
+   @Override
+   protected void configure(SoftIndexFileStoreConfigurationBuilder builder) {
+      builder.compactionThreads(3).compactionRate(100);
+   }
+
+   public void testCompactionReclaimsOverwrittenFiles() {
+      // Fills a few files, then overwrites a single record: too little to compact its file
+      for (int i = 0; i < NUM_KEYS; ++i) {
+         store.write(marshalledEntry(internalCacheEntry("key" + i, "value", -1)));
+      }
+      store.write(marshalledEntry(internalCacheEntry("key0", "value", -1)));
+      eventually(() -> "Expected dead bytes in " + store.getFileUsage(),
+            () -> deadBytes(store.getFileUsage()) > 0);
+      Set<Integer> firstFiles = new HashSet<>(store.getFileUsage().keySet());
+
+      // All the records of the first files are overwritten
+      for (int i = 0; i < 10 * NUM_KEYS; ++i) {
+         store.write(marshalledEntry(internalCacheEntry("key" + (i % NUM_KEYS), "value" + i, -1)));
+      }
+      eventually(() -> "Expected files " + firstFiles + " to be reclaimed, but found " + store.getFileUsage(),
+            () -> Collections.disjoint(firstFiles, store.getFileUsage().keySet()));
+      for (int i = 0; i < NUM_KEYS; ++i) {
+         MarshalledEntry entry = store.load("key" + i);
+         assertNotNull(entry);
+         assertEquals("value" + (9 * NUM_KEYS + i), entry.getValue());
+      }
+   }
+
+   private static long deadBytes(Map<Integer, SoftIndexFileStore.FileUsage> usage) {
+      return usage.values().stream().mapToLong(SoftIndexFileStore.FileUsage::getDeadBytes).sum();
+   }
+}
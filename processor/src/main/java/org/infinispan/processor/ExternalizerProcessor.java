@@ -0,0 +1,314 @@
+package org.infinispan.processor;
+
+import static org.infinispan.commons.marshall.ExternalizedFields.MAX_FIELD_NUMBER;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.infinispan.commons.marshall.AdvancedExternalizer;
+import org.infinispan.commons.marshall.ExternalizedField;
+import org.infinispan.commons.marshall.ExternalizedFields;
+import org.infinispan.commons.marshall.GenerateExternalizer;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.marshall.MarshallerAware;
+
+/**
+ * Generates the {@link AdvancedExternalizer}s of the classes annotated with {@link GenerateExternalizer}, and
+ * registers them in {@code META-INF/services/org.infinispan.commons.marshall.AdvancedExternalizer}.
+ * <p>
+ * The schema of each class is checked at compile time: the field numbers must be positive, unique and not reserved,
+ * and the externalizer identifiers must be unique in the compilation unit. The generated code writes a tag with the
+ * number and the wire type of each field, so a reader skips the fields it doesn't know. Each primitive type has a wire
+ * type of its own, so a primitive field whose type changed is skipped too, and an object field is left unset when the
+ * value read is not an instance of its type. The object fields are marshalled on their own, with the marshaller that
+ * registered the externalizer, so a reader skips them without loading their classes.
+ *
+ * @since 9.0
+ */
+@SupportedAnnotationTypes("org.infinispan.commons.marshall.GenerateExternalizer")
+public class ExternalizerProcessor extends AbstractProcessor {
+   static final String SERVICES_FILE = "META-INF/services/" + AdvancedExternalizer.class.getName();
+   static final String SUFFIX = "_Externalizer";
+
+   private final Set<String> externalizers = new TreeSet<>();
+   private final Map<Integer, String> ids = new HashMap<>();
+
+   @Override
+   public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+   }
+
+   @Override
+   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(GenerateExternalizer.class)) {
+         TypeElement type = (TypeElement) element;
+         if (checkType(type)) {
+            List<FieldInfo> fields = collectFields(type);
+            if (fields != null) {
+               generate(type, fields);
+            }
+         }
+      }
+      if (roundEnv.processingOver() && !externalizers.isEmpty()) {
+         writeServices();
+      }
+      return true;
+   }
+
+   private boolean checkType(TypeElement type) {
+      Set<Modifier> modifiers = type.getModifiers();
+      if (type.getKind() != ElementKind.CLASS || modifiers.contains(Modifier.ABSTRACT)) {
+         return error(type, "@GenerateExternalizer can only be used on concrete classes");
+      }
+      if (modifiers.contains(Modifier.PRIVATE)) {
+         return error(type, "Classes with a generated externalizer must not be private");
+      }
+      if (type.getNestingKind() != NestingKind.TOP_LEVEL
+            && (type.getNestingKind() != NestingKind.MEMBER || !modifiers.contains(Modifier.STATIC))) {
+         return error(type, "Classes with a generated externalizer must be top level or static member classes");
+      }
+      boolean hasConstructor = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+            .anyMatch(c -> c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE));
+      if (!hasConstructor) {
+         return error(type, "Classes with a generated externalizer must have a non-private constructor without parameters");
+      }
+
+      int id = type.getAnnotation(GenerateExternalizer.class).id();
+      if (id < 0) {
+         return error(type, "Externalizer identifier " + id + " must not be negative");
+      }
+      String previous = ids.putIfAbsent(id, type.getQualifiedName().toString());
+      if (previous != null && !previous.equals(type.getQualifiedName().toString())) {
+         return error(type, "Externalizer identifier " + id + " is already used by " + previous);
+      }
+      return true;
+   }
+
+   private List<FieldInfo> collectFields(TypeElement type) {
+      GenerateExternalizer annotation = type.getAnnotation(GenerateExternalizer.class);
+      Set<Integer> reserved = new HashSet<>();
+      for (int number : annotation.reserved()) {
+         reserved.add(number);
+      }
+
+      Map<Integer, FieldInfo> fields = new TreeMap<>();
+      boolean valid = true;
+      for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+         ExternalizedField externalized = field.getAnnotation(ExternalizedField.class);
+         if (externalized == null)
+            continue;
+
+         int number = externalized.value();
+         Set<Modifier> modifiers = field.getModifiers();
+         if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)
+               || modifiers.contains(Modifier.STATIC)) {
+            valid = error(field, "Externalized fields must not be private, final or static");
+         } else if (number <= 0 || number > MAX_FIELD_NUMBER) {
+            valid = error(field, "Field number " + number + " must be between 1 and " + MAX_FIELD_NUMBER);
+         } else if (reserved.contains(number)) {
+            valid = error(field, "Field number " + number + " is reserved");
+         } else if (fields.containsKey(number)) {
+            valid = error(field, "Field number " + number + " is already used by " + fields.get(number).name);
+         } else {
+            fields.put(number, new FieldInfo(field, number));
+         }
+      }
+      return valid ? new ArrayList<>(fields.values()) : null;
+   }
+
+   private void generate(TypeElement type, List<FieldInfo> fields) {
+      PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+      String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+      String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+      String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+            .replace('$', '_') + SUFFIX;
+      String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+      String typeName = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+      int id = type.getAnnotation(GenerateExternalizer.class).id();
+
+      Filer filer = processingEnv.getFiler();
+      try (PrintWriter out = new PrintWriter(filer.createSourceFile(qualifiedName, type).openWriter())) {
+         if (!packageName.isEmpty()) {
+            out.printf("package %s;%n%n", packageName);
+         }
+         out.printf("import static %s.*;%n%n", ExternalizedFields.class.getName());
+         out.printf("@javax.annotation.Generated(\"%s\")%n", getClass().getName());
+         out.printf("public final class %s implements %s<%s>, %s {%n%n", simpleName,
+               AdvancedExternalizer.class.getName(), typeName, MarshallerAware.class.getName());
+         out.printf("   private %s marshaller;%n%n", Marshaller.class.getName());
+
+         out.printf("   @Override%n");
+         out.printf("   public void setMarshaller(%s marshaller) {%n", Marshaller.class.getName());
+         out.printf("      this.marshaller = marshaller;%n");
+         out.printf("   }%n%n");
+
+         out.printf("   @Override%n");
+         out.printf("   public java.util.Set<Class<? extends %s>> getTypeClasses() {%n", typeName);
+         out.printf("      return java.util.Collections.<Class<? extends %1$s>>singleton(%1$s.class);%n", typeName);
+         out.printf("   }%n%n");
+
+         out.printf("   @Override%n");
+         out.printf("   public Integer getId() {%n");
+         out.printf("      return %d;%n", id);
+         out.printf("   }%n%n");
+
+         out.printf("   @Override%n");
+         out.printf("   public void writeObject(java.io.ObjectOutput output, %s object) throws java.io.IOException {%n",
+               typeName);
+         for (FieldInfo field : fields) {
+            out.printf("      writeTag(output, %d);%n", field.tag());
+            if (field.kind == FieldKind.OBJECT) {
+               out.printf("      writeObjectField(output, marshaller, object.%s);%n", field.name);
+            } else {
+               out.printf("      output.%s(object.%s);%n", field.kind.writeMethod, field.name);
+            }
+         }
+         out.printf("      writeEnd(output);%n");
+         out.printf("   }%n%n");
+
+         out.printf("   @Override%n");
+         out.printf("   @SuppressWarnings(\"unchecked\")%n");
+         out.printf("   public %s readObject(java.io.ObjectInput input) throws java.io.IOException, ClassNotFoundException {%n",
+               typeName);
+         out.printf("      %1$s object = new %1$s();%n", typeName);
+         out.printf("      int tag;%n");
+         out.printf("      while ((tag = readTag(input)) != END) {%n");
+         out.printf("         switch (tag) {%n");
+         for (FieldInfo field : fields) {
+            if (field.kind == FieldKind.OBJECT) {
+               out.printf("            case %d: {%n", field.tag());
+               out.printf("               Object value = readObjectField(input, marshaller);%n");
+               out.printf("               if (value == null || value instanceof %s) {%n", field.typeName);
+               out.printf("                  object.%s = (%s) value;%n", field.name, field.typeName);
+               out.printf("               }%n");
+               out.printf("               break;%n");
+               out.printf("            }%n");
+            } else {
+               out.printf("            case %d:%n", field.tag());
+               out.printf("               object.%s = input.%s();%n", field.name, field.kind.readMethod);
+               out.printf("               break;%n");
+            }
+         }
+         out.printf("            default:%n");
+         out.printf("               skip(input, tag);%n");
+         out.printf("         }%n");
+         out.printf("      }%n");
+         out.printf("      return object;%n");
+         out.printf("   }%n");
+         out.printf("}%n");
+      } catch (IOException e) {
+         error(type, "Cannot generate " + qualifiedName + ": " + e);
+         return;
+      }
+      externalizers.add(qualifiedName);
+   }
+
+   private void writeServices() {
+      Filer filer = processingEnv.getFiler();
+      // Keep the externalizers generated by a previous, incremental, compilation
+      try {
+         FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICES_FILE);
+         try (BufferedReader reader = new BufferedReader(existing.openReader(true))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+               line = line.trim();
+               if (!line.isEmpty() && processingEnv.getElementUtils().getTypeElement(line) != null) {
+                  externalizers.add(line);
+               }
+            }
+         }
+      } catch (IOException e) {
+         // No previous compilation
+      }
+      try {
+         FileObject services = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICES_FILE);
+         try (Writer writer = services.openWriter()) {
+            for (String externalizer : externalizers) {
+               writer.write(externalizer);
+               writer.write('\n');
+            }
+         }
+      } catch (IOException e) {
+         messager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + SERVICES_FILE + ": " + e);
+      }
+   }
+
+   private boolean error(Element element, String message) {
+      messager().printMessage(Diagnostic.Kind.ERROR, message, element);
+      return false;
+   }
+
+   private Messager messager() {
+      return processingEnv.getMessager();
+   }
+
+   private enum FieldKind {
+      BOOLEAN(ExternalizedFields.WIRE_TYPE_BOOLEAN, "writeBoolean", "readBoolean"),
+      BYTE(ExternalizedFields.WIRE_TYPE_BYTE, "writeByte", "readByte"),
+      SHORT(ExternalizedFields.WIRE_TYPE_SHORT, "writeShort", "readShort"),
+      CHAR(ExternalizedFields.WIRE_TYPE_CHAR, "writeChar", "readChar"),
+      INT(ExternalizedFields.WIRE_TYPE_INT, "writeInt", "readInt"),
+      FLOAT(ExternalizedFields.WIRE_TYPE_FLOAT, "writeFloat", "readFloat"),
+      LONG(ExternalizedFields.WIRE_TYPE_LONG, "writeLong", "readLong"),
+      DOUBLE(ExternalizedFields.WIRE_TYPE_DOUBLE, "writeDouble", "readDouble"),
+      // Written with ExternalizedFields.writeObjectField and read with ExternalizedFields.readObjectField
+      OBJECT(ExternalizedFields.WIRE_TYPE_OBJECT, null, null);
+
+      final int wireType;
+      final String writeMethod;
+      final String readMethod;
+
+      FieldKind(int wireType, String writeMethod, String readMethod) {
+         this.wireType = wireType;
+         this.writeMethod = writeMethod;
+         this.readMethod = readMethod;
+      }
+   }
+
+   private class FieldInfo {
+      final String name;
+      final String typeName;
+      final int number;
+      final FieldKind kind;
+
+      FieldInfo(VariableElement field, int number) {
+         this.name = field.getSimpleName().toString();
+         this.typeName = processingEnv.getTypeUtils().erasure(field.asType()).toString();
+         this.number = number;
+         this.kind = field.asType().getKind().isPrimitive()
+               ? FieldKind.valueOf(field.asType().getKind().name()) : FieldKind.OBJECT;
+      }
+
+      int tag() {
+         return ExternalizedFields.tag(number, kind.wireType);
+      }
+   }
+}